@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.n52.shetland.ogc.gml.CodeWithAuthority;
+import org.n52.shetland.ogc.gml.GmlConstants;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.svalbard.encode.Encoder;
+import org.n52.svalbard.encode.EncoderKey;
+import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.XmlEncoderKey;
+
+/**
+ * Looks up encoders in a populated {@link EncoderRepository} to measure the cost of the similarity based dispatch of
+ * {@code AbstractSimilarityKeyComponentRepository}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentRepositoryBenchmark {
+
+    private EncoderRepository encoderRepository;
+    private EncoderKey exactKey;
+    private EncoderKey similarKey;
+    private EncoderKey missingKey;
+    private EncoderKey secondaryKey;
+
+    @Setup
+    public void setup() {
+        this.encoderRepository = Fixtures.createXmlEncoderRepository();
+        this.exactKey = new XmlEncoderKey(GmlConstants.NS_GML_32, Time.class);
+        this.similarKey = new XmlEncoderKey(GmlConstants.NS_GML_32, TimeInstant.class);
+        this.missingKey = new XmlEncoderKey(GmlConstants.NS_GML_32, String.class);
+        this.secondaryKey = new XmlEncoderKey(GmlConstants.NS_GML_32, CodeWithAuthority.class);
+    }
+
+    @Benchmark
+    public Encoder<?, ?> exactHit() {
+        return encoderRepository.getEncoder(exactKey);
+    }
+
+    @Benchmark
+    public Encoder<?, ?> similarHit() {
+        return encoderRepository.getEncoder(similarKey);
+    }
+
+    @Benchmark
+    public Encoder<?, ?> miss() {
+        return encoderRepository.getEncoder(missingKey);
+    }
+
+    @Benchmark
+    public Encoder<?, ?> composite() {
+        return encoderRepository.getEncoder(exactKey, secondaryKey);
+    }
+
+}
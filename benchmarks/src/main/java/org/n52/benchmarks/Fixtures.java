@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.apache.xmlbeans.XmlOptions;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import org.n52.shetland.ogc.gml.CodeWithAuthority;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.om.MultiObservationValues;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.om.OmObservableProperty;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.OmObservationConstellation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.TimeValuePair;
+import org.n52.shetland.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.om.values.TVPValue;
+import org.n52.shetland.ogc.sensorML.SensorMLConstants;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.SosConstants;
+import org.n52.shetland.ogc.sos.SosProcedureDescriptionUnknownType;
+import org.n52.shetland.ogc.sos.response.GetObservationResponse;
+import org.n52.svalbard.encode.AbstractDelegatingEncoder;
+import org.n52.svalbard.encode.EncoderFlags;
+import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.EncodingContext;
+import org.n52.svalbard.encode.GmlEncoderv321;
+import org.n52.svalbard.encode.OmEncoderv20;
+import org.n52.svalbard.encode.SamplingEncoderv20;
+import org.n52.svalbard.encode.SchemaRepository;
+import org.n52.svalbard.encode.SensorMLEncoderv20;
+import org.n52.svalbard.encode.SweCommonEncoderv20;
+import org.n52.svalbard.encode.WmlTVPEncoderv20;
+import org.n52.svalbard.encode.XmlEncoderFlags;
+
+/**
+ * Synthetic, deterministic in-memory fixtures shared by the benchmarks.
+ */
+final class Fixtures {
+
+    private static final long START = new DateTime(2019, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+    private static final long STEP = 60 * 1000L;
+    private static final String UNIT = "degC";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Creates a repository containing the XML encoders needed to encode O&amp;M 2.0 and WaterML 2.0 observations.
+     *
+     * @return the initialized repository
+     */
+    static EncoderRepository createXmlEncoderRepository() {
+        EncoderRepository encoderRepository = new EncoderRepository();
+
+        SchemaRepository schemaRepository = new SchemaRepository();
+        schemaRepository.setEncoderRepository(encoderRepository);
+        schemaRepository.init();
+
+        OmEncoderv20 omEncoderv20 = new OmEncoderv20();
+        omEncoderv20.setXmlOptions(XmlOptions::new);
+        GmlEncoderv321 gmlEncoderv321 = new GmlEncoderv321();
+        gmlEncoderv321.setXmlOptions(XmlOptions::new);
+        SensorMLEncoderv20 sensorMLEncoderv20 = new SensorMLEncoderv20();
+        sensorMLEncoderv20.setXmlOptions(XmlOptions::new);
+        SweCommonEncoderv20 sweCommonEncoderv20 = new SweCommonEncoderv20();
+        sweCommonEncoderv20.setXmlOptions(XmlOptions::new);
+        SamplingEncoderv20 samplingEncoderv20 = new SamplingEncoderv20();
+        samplingEncoderv20.setXmlOptions(XmlOptions::new);
+        WmlTVPEncoderv20 wmlTVPEncoderv20 = new WmlTVPEncoderv20();
+        wmlTVPEncoderv20.setXmlOptions(XmlOptions::new);
+
+        encoderRepository.setEncoders(Arrays.asList(omEncoderv20,
+                                                    gmlEncoderv321,
+                                                    sensorMLEncoderv20,
+                                                    sweCommonEncoderv20,
+                                                    samplingEncoderv20,
+                                                    wmlTVPEncoderv20));
+        encoderRepository.init();
+        encoderRepository.getEncoders().stream()
+                .filter(e -> e instanceof AbstractDelegatingEncoder)
+                .forEach(e -> ((AbstractDelegatingEncoder<?, ?>) e).setEncoderRepository(encoderRepository));
+        return encoderRepository;
+    }
+
+    /**
+     * Creates the context the XML stream writers expect.
+     *
+     * @param encoderRepository the encoder repository
+     *
+     * @return the context
+     */
+    static EncodingContext createXmlEncodingContext(EncoderRepository encoderRepository) {
+        Supplier<XmlOptions> xmlOptions = XmlOptions::new;
+        return EncodingContext.of(EncoderFlags.ENCODER_REPOSITORY, encoderRepository)
+                .with(XmlEncoderFlags.XML_OPTIONS, xmlOptions);
+    }
+
+    /**
+     * Creates a SOS 2.0 {@code GetObservation} response for the supplied observations. The response wraps a fresh
+     * {@link ObservationStream}, so it has to be created for every invocation.
+     *
+     * @param observations the observations to include
+     *
+     * @return the response
+     */
+    static GetObservationResponse createGetObservationResponse(List<OmObservation> observations) {
+        GetObservationResponse response = new GetObservationResponse(SosConstants.SOS, Sos2Constants.SERVICEVERSION);
+        response.setResponseFormat(OmConstants.NS_OM_2);
+        response.setObservationCollection(ObservationStream.of(observations));
+        return response;
+    }
+
+    /**
+     * Creates {@code count} single value measurements, spread over a handful of procedures and features.
+     *
+     * @param count the number of observations
+     *
+     * @return the observations
+     */
+    static List<OmObservation> createMeasurements(int count) {
+        List<OmObservation> observations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OmObservation observation = new OmObservation();
+            observation.setObservationID(Integer.toString(i));
+            observation.setObservationConstellation(createConstellation(i % 10, OmConstants.OBS_TYPE_MEASUREMENT));
+            TimeInstant time = new TimeInstant(time(i));
+            observation.setResultTime(time);
+            SingleObservationValue<BigDecimal> value = new SingleObservationValue<>();
+            value.setPhenomenonTime(time);
+            value.setValue(new QuantityValue(value(i), UNIT));
+            observation.setValue(value);
+            observations.add(observation);
+        }
+        return observations;
+    }
+
+    /**
+     * Creates a WaterML 2.0 time series observation with {@code count} time value pairs.
+     *
+     * @param count the number of time value pairs
+     *
+     * @return the observation
+     */
+    static OmObservation createTimeseries(int count) {
+        OmObservation observation = new OmObservation();
+        observation.setObservationID("timeseries");
+        observation.setObservationConstellation(createConstellation(0, OmConstants.OBS_TYPE_MEASUREMENT));
+        TVPValue tvpValue = new TVPValue();
+        tvpValue.setUnit(UNIT);
+        List<TimeValuePair> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(new TimeValuePair(new TimeInstant(time(i)), new QuantityValue(value(i), UNIT)));
+        }
+        tvpValue.setValue(values);
+        MultiObservationValues<List<TimeValuePair>> value = new MultiObservationValues<>();
+        value.setValue(tvpValue);
+        TimePeriod phenomenonTime = new TimePeriod(time(0), time(Math.max(0, count - 1)));
+        phenomenonTime.setGmlId("phenomenonTime_timeseries");
+        value.setPhenomenonTime(phenomenonTime);
+        observation.setValue(value);
+        observation.setResultTime(new TimeInstant(time(count)));
+        return observation;
+    }
+
+    private static OmObservationConstellation createConstellation(int i, String observationType) {
+        OmObservationConstellation constellation = new OmObservationConstellation();
+        constellation.setProcedure(new SosProcedureDescriptionUnknownType("procedure-" + i,
+                                                                          SensorMLConstants.NS_SML, null));
+        OmObservableProperty observableProperty = new OmObservableProperty("temperature");
+        observableProperty.setUnit(UNIT);
+        constellation.setObservableProperty(observableProperty);
+        constellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority("feature-" + i)));
+        constellation.setObservationType(observationType);
+        constellation.addOffering("offering-" + i);
+        return constellation;
+    }
+
+    static DateTime time(int i) {
+        return new DateTime(START + i * STEP, DateTimeZone.UTC);
+    }
+
+    static double value(int i) {
+        return 20.0 + (i % 100) / 10.0;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.svalbard.encode.EncodingContext;
+import org.n52.svalbard.encode.exception.EncodingException;
+import org.n52.svalbard.write.GetObservationResponseXmlStreamWriter;
+
+/**
+ * Streams SOS 2.0 {@code GetObservation} responses of varying size using the {@link
+ * GetObservationResponseXmlStreamWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetObservationResponseXmlStreamWriterBenchmark {
+
+    @Param({ "1", "100", "1000" })
+    public int observations;
+
+    private EncodingContext context;
+    private List<OmObservation> fixture;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        this.context = Fixtures.createXmlEncodingContext(Fixtures.createXmlEncoderRepository());
+        this.fixture = Fixtures.createMeasurements(observations);
+        this.out = new ByteArrayOutputStream();
+    }
+
+    @Benchmark
+    public int write() throws XMLStreamException, EncodingException {
+        out.reset();
+        new GetObservationResponseXmlStreamWriter(context, out, Fixtures.createGetObservationResponse(fixture))
+                .write();
+        return out.size();
+    }
+
+}
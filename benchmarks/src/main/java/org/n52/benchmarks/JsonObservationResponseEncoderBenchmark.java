@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.exception.EncodingException;
+import org.n52.svalbard.encode.json.FeatureOfInterestEncoder;
+import org.n52.svalbard.encode.json.FieldEncoder;
+import org.n52.svalbard.encode.json.GeoJSONEncoder;
+import org.n52.svalbard.encode.json.GetObservationResponseEncoder;
+import org.n52.svalbard.encode.json.JSONEncoder;
+import org.n52.svalbard.encode.json.ObservationEncoder;
+import org.n52.svalbard.encode.json.base.TimeJSONEncoder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Encodes JSON {@code GetObservation} responses of varying size, both streamed through the {@code
+ * AbstractObservationResponseEncoder} and built as a tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonObservationResponseEncoderBenchmark {
+
+    @Param({ "1", "100", "1000" })
+    public int observations;
+
+    private GetObservationResponseEncoder encoder;
+    private List<OmObservation> fixture;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        EncoderRepository encoderRepository = new EncoderRepository();
+        this.encoder = new GetObservationResponseEncoder();
+        List<JSONEncoder<?>> encoders = Arrays.asList(encoder,
+                                                      new ObservationEncoder(),
+                                                      new FeatureOfInterestEncoder(),
+                                                      new GeoJSONEncoder(),
+                                                      new FieldEncoder(),
+                                                      new TimeJSONEncoder());
+        encoders.forEach(e -> e.setEncoderRepository(encoderRepository));
+        encoderRepository.setEncoders(new ArrayList<>(encoders));
+        encoderRepository.init();
+        this.fixture = Fixtures.createMeasurements(observations);
+        this.out = new ByteArrayOutputStream();
+    }
+
+    @Benchmark
+    public int stream() throws EncodingException {
+        out.reset();
+        encoder.encode(Fixtures.createGetObservationResponse(fixture), out);
+        return out.size();
+    }
+
+    @Benchmark
+    public JsonNode tree() throws EncodingException {
+        return encoder.encode(Fixtures.createGetObservationResponse(fixture));
+    }
+
+}
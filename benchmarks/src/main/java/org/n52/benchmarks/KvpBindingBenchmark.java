@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import org.n52.iceland.binding.kvp.AbstractKvpDecoder;
+import org.n52.iceland.binding.kvp.KvpBinding;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.SosConstants;
+import org.n52.svalbard.decode.DecoderRepository;
+
+/**
+ * Parses a {@code GetCapabilities} KVP request through the {@link KvpBinding}, covering parameter extraction,
+ * decoder lookup and the {@link AbstractKvpDecoder} parameter dispatch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KvpBindingBenchmark {
+
+    private BenchmarkKvpBinding binding;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        DecoderRepository decoderRepository = new DecoderRepository();
+        decoderRepository.setDecoders(Collections.singletonList(new GetCapabilitiesKvpDecoder()));
+        decoderRepository.init();
+
+        this.binding = new BenchmarkKvpBinding();
+        this.binding.setDecoderRepository(decoderRepository);
+
+        this.request = new MockHttpServletRequest("GET", "/service");
+        this.request.addParameter("service", SosConstants.SOS);
+        this.request.addParameter("version", Sos2Constants.SERVICEVERSION);
+        this.request.addParameter("request", SosConstants.Operations.GetCapabilities.name());
+        this.request.addParameter("AcceptVersions", "1.0.0,2.0.0");
+        this.request.addParameter("Sections", "ServiceIdentification,ServiceProvider,OperationsMetadata,Contents");
+        this.request.addParameter("AcceptFormats", "text/xml,application/xml");
+        this.request.addParameter("updateSequence", "42");
+    }
+
+    @Benchmark
+    public OwsServiceRequest parse() throws OwsExceptionReport {
+        return binding.parseRequest(request);
+    }
+
+    private static class BenchmarkKvpBinding extends KvpBinding {
+        @Override
+        public OwsServiceRequest parseRequest(HttpServletRequest req) throws OwsExceptionReport {
+            return super.parseRequest(req);
+        }
+
+        @Override
+        protected boolean isServiceSupported(String service) {
+            return true;
+        }
+
+        @Override
+        protected boolean isVersionSupported(String service, String acceptVersion) {
+            return true;
+        }
+    }
+
+    private static class GetCapabilitiesKvpDecoder extends AbstractKvpDecoder<GetCapabilitiesRequest> {
+        GetCapabilitiesKvpDecoder() {
+            super(GetCapabilitiesRequest::new, SosConstants.SOS, Sos2Constants.SERVICEVERSION,
+                  SosConstants.Operations.GetCapabilities);
+        }
+
+        @Override
+        protected void getRequestParameterDefinitions(Builder<GetCapabilitiesRequest> builder) {
+            builder.add("AcceptVersions", decodeList(GetCapabilitiesRequest::setAcceptVersions));
+            builder.add("Sections", decodeList(GetCapabilitiesRequest::setSections));
+            builder.add("AcceptFormats", decodeList(GetCapabilitiesRequest::setAcceptFormats));
+            builder.add("updateSequence", GetCapabilitiesRequest::setUpdateSequence);
+        }
+    }
+
+}
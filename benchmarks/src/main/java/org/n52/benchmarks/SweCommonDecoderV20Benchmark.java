@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.n52.shetland.ogc.swe.SweConstants;
+import org.n52.svalbard.decode.SweCommonDecoderV20;
+import org.n52.svalbard.decode.exception.DecodingException;
+
+import net.opengis.swe.x20.DataArrayDocument;
+import net.opengis.swe.x20.DataArrayType;
+
+/**
+ * Decodes SWE Common 2.0 {@code DataArray}s with a text encoded block of varying size using the {@link
+ * SweCommonDecoderV20}. The XML is parsed once during setup, so only the decoding is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SweCommonDecoderV20Benchmark {
+
+    private static final String TOKEN_SEPARATOR = ",";
+    private static final String BLOCK_SEPARATOR = "@@";
+
+    @Param({ "10", "1000", "10000" })
+    public int rows;
+
+    private SweCommonDecoderV20 decoder;
+    private DataArrayType dataArray;
+
+    @Setup
+    public void setup() throws XmlException {
+        this.decoder = new SweCommonDecoderV20();
+        this.decoder.setXmlOptions(XmlOptions::new);
+        this.dataArray = DataArrayDocument.Factory.parse(createDataArray(rows)).getDataArray1();
+    }
+
+    @Benchmark
+    public Object decode() throws DecodingException {
+        return decoder.decode(dataArray);
+    }
+
+    private static String createDataArray(int rows) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                values.append(BLOCK_SEPARATOR);
+            }
+            values.append(Fixtures.time(i)).append(TOKEN_SEPARATOR).append(Fixtures.value(i));
+        }
+        return new StringBuilder()
+                .append("<swe:DataArray xmlns:swe=\"").append(SweConstants.NS_SWE_20).append("\">")
+                .append("<swe:elementCount><swe:Count><swe:value>").append(rows)
+                .append("</swe:value></swe:Count></swe:elementCount>")
+                .append("<swe:elementType name=\"components\"><swe:DataRecord>")
+                .append("<swe:field name=\"phenomenonTime\">")
+                .append("<swe:Time definition=\"http://www.opengis.net/def/property/OGC/0/PhenomenonTime\">")
+                .append("<swe:uom code=\"ISO-8601\"/></swe:Time></swe:field>")
+                .append("<swe:field name=\"temperature\">")
+                .append("<swe:Quantity definition=\"temperature\"><swe:uom code=\"degC\"/></swe:Quantity>")
+                .append("</swe:field>")
+                .append("</swe:DataRecord></swe:elementType>")
+                .append("<swe:encoding><swe:TextEncoding tokenSeparator=\"").append(TOKEN_SEPARATOR)
+                .append("\" blockSeparator=\"").append(BLOCK_SEPARATOR).append("\"/></swe:encoding>")
+                .append("<swe:values>").append(values).append("</swe:values>")
+                .append("</swe:DataArray>")
+                .toString();
+    }
+
+}
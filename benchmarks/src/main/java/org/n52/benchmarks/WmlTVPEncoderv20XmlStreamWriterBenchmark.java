@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.svalbard.encode.EncodingContext;
+import org.n52.svalbard.encode.exception.EncodingException;
+import org.n52.svalbard.write.WmlTVPEncoderv20XmlStreamWriter;
+
+/**
+ * Streams WaterML 2.0 time series of varying length using the {@link WmlTVPEncoderv20XmlStreamWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WmlTVPEncoderv20XmlStreamWriterBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    public int values;
+
+    private EncodingContext context;
+    private OmObservation observation;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        this.context = Fixtures.createXmlEncodingContext(Fixtures.createXmlEncoderRepository());
+        this.observation = Fixtures.createTimeseries(values);
+        this.out = new ByteArrayOutputStream();
+    }
+
+    @Benchmark
+    public int write() throws XMLStreamException, EncodingException {
+        out.reset();
+        new WmlTVPEncoderv20XmlStreamWriter(context, out, observation).write();
+        return out.size();
+    }
+
+}
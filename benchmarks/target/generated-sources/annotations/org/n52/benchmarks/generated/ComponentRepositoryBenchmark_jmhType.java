@@ -0,0 +1,4 @@
+package org.n52.benchmarks.generated;
+public class ComponentRepositoryBenchmark_jmhType extends ComponentRepositoryBenchmark_jmhType_B3 {
+}
+
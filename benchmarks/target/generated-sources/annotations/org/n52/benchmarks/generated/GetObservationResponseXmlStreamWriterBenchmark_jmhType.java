@@ -0,0 +1,4 @@
+package org.n52.benchmarks.generated;
+public class GetObservationResponseXmlStreamWriterBenchmark_jmhType extends GetObservationResponseXmlStreamWriterBenchmark_jmhType_B3 {
+}
+
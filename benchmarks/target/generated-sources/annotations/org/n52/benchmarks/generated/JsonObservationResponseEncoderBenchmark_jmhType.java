@@ -0,0 +1,4 @@
+package org.n52.benchmarks.generated;
+public class JsonObservationResponseEncoderBenchmark_jmhType extends JsonObservationResponseEncoderBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.n52.benchmarks.generated;
+public class KvpBindingBenchmark_jmhType extends KvpBindingBenchmark_jmhType_B3 {
+}
+
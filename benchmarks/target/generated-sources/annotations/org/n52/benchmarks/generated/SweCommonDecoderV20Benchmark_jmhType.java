@@ -0,0 +1,4 @@
+package org.n52.benchmarks.generated;
+public class SweCommonDecoderV20Benchmark_jmhType extends SweCommonDecoderV20Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.n52.benchmarks.generated;
+public class WmlTVPEncoderv20XmlStreamWriterBenchmark_jmhType extends WmlTVPEncoderv20XmlStreamWriterBenchmark_jmhType_B3 {
+}
+
@@ -16,21 +16,25 @@
  */
 package org.n52.iceland.binding;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
-import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
 
 import org.n52.iceland.coding.DocumentBuilderProvider;
 import org.n52.iceland.coding.decode.OwsDecodingException;
@@ -47,12 +51,14 @@ import org.n52.shetland.util.StringHelper;
 import org.n52.shetland.w3c.W3CConstants;
 import org.n52.svalbard.decode.Decoder;
 import org.n52.svalbard.decode.DecoderKey;
+import org.n52.svalbard.decode.StreamingDecoder;
 import org.n52.svalbard.decode.XmlNamespaceOperationDecoderKey;
 import org.n52.svalbard.decode.XmlStringOperationDecoderKey;
 import org.n52.svalbard.decode.exception.DecodingException;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
 
 /**
  * Abstract binding class for XML encoded requests
@@ -67,21 +73,74 @@ public abstract class AbstractXmlBinding<T> extends SimpleBinding {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractXmlBinding.class);
 
-    private DocumentBuilderProvider documentFactory;
+    /**
+     * The number of bytes that may be read while looking for the root element of a request before the stream can no
+     * longer be rewound for the decoder. Requests whose root element starts after the first 1 MiB (e.g. because of a
+     * huge prolog or comment) are rejected.
+     */
+    private static final int ROOT_ELEMENT_READ_LIMIT = 1024 * 1024;
+
+    private final XMLInputFactory inputFactory = createInputFactory();
 
     private final String MISSING_PARAMETER = "The parameter '%s' is missing.";
 
-    @Inject
+    /**
+     * @param documentFactory the document builder provider
+     *
+     * @deprecated the decoder key is determined from the root element using StAX, no document builder is needed
+     */
+    @Deprecated
     public void setDocumentFactory(DocumentBuilderProvider documentFactory) {
-        this.documentFactory = documentFactory;
+        // no longer used
     }
 
     protected T decode(HttpServletRequest request) throws OwsExceptionReport {
         String characterEncoding = getCharacterEncoding(request);
-        String xmlString = xmlToString(request, characterEncoding);
+        if (!request.getParameterMap().isEmpty()) {
+            return decode(parseHttpPostBodyWithParameter(request.getParameterNames(), request.getParameterMap()),
+                          characterEncoding);
+        }
+        try (InputStream in = new BufferedInputStream(HttpUtils.getInputStream(request))) {
+            in.mark(ROOT_ELEMENT_READ_LIMIT);
+            DecoderKey key = getDecoderKey(in, characterEncoding);
+            LOGGER.trace("Found decoder key: {}", key);
+            rewind(in);
+            Decoder<T, String> decoder = getDecoderOrThrow(key);
+            if (decoder instanceof StreamingDecoder) {
+                InputStream body = in;
+                if (LOGGER.isDebugEnabled()) {
+                    byte[] bytes = ByteStreams.toByteArray(in);
+                    LOGGER.debug("XML-REQUEST: {}", new String(bytes, characterEncoding));
+                    body = new ByteArrayInputStream(bytes);
+                }
+                return ((StreamingDecoder<T, String>) decoder).decode(body, Charset.forName(characterEncoding));
+            }
+            String xmlString = StringHelper.convertStreamToString(in, characterEncoding);
+            LOGGER.debug("XML-REQUEST: {}", xmlString);
+            return decoder.decode(xmlString);
+        } catch (OwsDecodingException ex) {
+            throw ex.getCause();
+        } catch (DecodingException ex) {
+            throw new NoApplicableCodeException().withMessage(ex.getMessage()).causedBy(ex);
+        } catch (IOException ioe) {
+            throw new NoApplicableCodeException().causedBy(ioe)
+                    .withMessage("Error while reading request! Message: %s", ioe.getMessage());
+        }
+    }
+
+    private T decode(String xmlString, String characterEncoding) throws OwsExceptionReport {
         LOGGER.debug("XML-REQUEST: {}", xmlString);
-        DecoderKey key = getDecoderKey(xmlString, characterEncoding);
-        LOGGER.trace("Found decoder key: {}", key);
+        Decoder<T, String> decoder = getDecoderOrThrow(getDecoderKey(xmlString, characterEncoding));
+        try {
+            return decoder.decode(xmlString);
+        } catch (OwsDecodingException ex) {
+            throw ex.getCause();
+        } catch (DecodingException ex) {
+            throw new NoApplicableCodeException().withMessage(ex.getMessage()).causedBy(ex);
+        }
+    }
+
+    private Decoder<T, String> getDecoderOrThrow(DecoderKey key) throws OwsExceptionReport {
         Decoder<T, String> decoder = getDecoder(key);
         if (decoder == null) {
             // the service or version parameter is not set or not supported
@@ -111,70 +170,82 @@ public abstract class AbstractXmlBinding<T> extends SimpleBinding {
                 throw new MissingParameterValueException(OWSConstants.RequestParams.version)
                         .withMessage(MISSING_PARAMETER, OWSConstants.RequestParams.version);
             }
-
-        } else {
-            LOGGER.trace("Using decoder: {}", decoder);
-        }
-        try {
-            return decoder.decode(xmlString);
-        } catch (OwsDecodingException ex) {
-            throw ex.getCause();
-        } catch (DecodingException ex) {
-            throw new NoApplicableCodeException().withMessage(ex.getMessage()).causedBy(ex);
         }
+        LOGGER.trace("Using decoder: {}", decoder);
+        return decoder;
     }
 
     @VisibleForTesting
     protected DecoderKey getDecoderKey(String xmlContent, String characterEncoding) throws CodedException {
-        try (ByteArrayInputStream stream = new ByteArrayInputStream(xmlContent.getBytes(characterEncoding))) {
-            // FIXME do not parse the complete request, if we only need the first element
-            Document document = documentFactory.newDocumentBuilder().parse(stream);
-            Element element = document.getDocumentElement();
-            // TODO is this REALLY needed!?
-            element.normalize();
-            if (element.hasAttributes() && element.hasAttribute(OWSConstants.RequestParams.service.name())) {
-                OwsOperationKey operationKey = getOperationKey(element);
-                XmlStringOperationDecoderKey decoderKey
-                        = new XmlStringOperationDecoderKey(operationKey, getDefaultContentType());
-                return decoderKey;
-            } else {
-                return getNamespaceOperationDecoderKey(element);
-            }
-
-        } catch (SAXException | IOException | ParserConfigurationException e) {
+        try (InputStream stream = new ByteArrayInputStream(xmlContent.getBytes(characterEncoding))) {
+            return getDecoderKey(stream, characterEncoding);
+        } catch (IOException e) {
             throw new NoApplicableCodeException().causedBy(e)
                     .withMessage("An error occured when parsing the request! Message: %s", e.getMessage());
         }
     }
 
-    private XmlNamespaceOperationDecoderKey getNamespaceOperationDecoderKey(Element element) {
-        String nodeName = element.getNodeName();
-        if (Strings.isNullOrEmpty(element.getNamespaceURI())) {
-            String[] splittedNodeName = nodeName.split(":");
-            String elementName;
-            String namespace;
-            String name;
-            String prefix = null;
-            if (splittedNodeName.length == 2) {
-                prefix = splittedNodeName[0];
-                elementName = splittedNodeName[1];
-            } else {
-                elementName = splittedNodeName[0];
+    /**
+     * Creates the decoder key for the request by only reading up to the root element of the document. The stream is
+     * neither closed nor rewound.
+     *
+     * @param stream            the request stream
+     * @param characterEncoding the character encoding of the request
+     *
+     * @return the decoder key
+     *
+     * @throws CodedException if the root element can not be read
+     */
+    protected DecoderKey getDecoderKey(InputStream stream, String characterEncoding) throws CodedException {
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(stream, characterEncoding);
+            while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // skip prolog, comments and processing instructions
+            }
+            if (!reader.isStartElement()) {
+                throw new NoApplicableCodeException().withMessage("The request does not contain an XML element!");
             }
-            // TODO get namespace for prefix
-            if (prefix == null || prefix.isEmpty()) {
-                name = W3CConstants.AN_XMLNS;
+            // the reader is not namespace aware to tolerate unbound prefixes in attributes (e.g. xsi)
+            String elementName = getQualifiedName(reader.getPrefix(), reader.getLocalName());
+            Map<String, String> attributes = new HashMap<>(reader.getAttributeCount());
+            for (int i = 0; i < reader.getAttributeCount(); ++i) {
+                attributes.put(getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                               reader.getAttributeValue(i));
+            }
+            if (attributes.containsKey(OWSConstants.RequestParams.service.name())) {
+                return new XmlStringOperationDecoderKey(getOperationKey(elementName, attributes),
+                                                        getDefaultContentType());
             } else {
-                name = W3CConstants.PREFIX_XMLNS + prefix;
+                return getNamespaceOperationDecoderKey(elementName, attributes);
             }
-            namespace = element.getAttribute(name);
-            return new XmlNamespaceOperationDecoderKey(namespace, elementName);
-        } else {
-            return new XmlNamespaceOperationDecoderKey(element.getNamespaceURI(),
-                                                       nodeName.substring(nodeName.indexOf(':') + 1));
+        } catch (XMLStreamException e) {
+            throw new NoApplicableCodeException().causedBy(e)
+                    .withMessage("An error occured when parsing the request! Message: %s", e.getMessage());
+        } finally {
+            closeQuietly(reader);
         }
     }
 
+    private XmlNamespaceOperationDecoderKey getNamespaceOperationDecoderKey(String elementName,
+                                                                            Map<String, String> attributes) {
+        int idx = elementName.indexOf(':');
+        String namespaceAttribute = idx < 0
+                                    ? W3CConstants.AN_XMLNS
+                                    : W3CConstants.PREFIX_XMLNS + elementName.substring(0, idx);
+        String namespace = Strings.nullToEmpty(attributes.get(namespaceAttribute));
+        return new XmlNamespaceOperationDecoderKey(namespace, elementName.substring(idx + 1));
+    }
+
+    /**
+     * @param element the root element of the request
+     *
+     * @return the operation key
+     *
+     * @deprecated the root element is no longer parsed into a DOM, this method is not called by the binding; override
+     *             {@link #getOperationKey(String, Map)} instead
+     */
+    @Deprecated
     protected OwsOperationKey getOperationKey(Element element) {
         String service = null;
         String version = null;
@@ -190,6 +261,16 @@ public abstract class AbstractXmlBinding<T> extends SimpleBinding {
         return new OwsOperationKey(service, version, operation);
     }
 
+    /**
+     * @param request           the request
+     * @param characterEncoding the character encoding of the request
+     *
+     * @return the request as a string
+     *
+     * @throws OwsExceptionReport if the request can not be read
+     * @deprecated requests are decoded from the request stream, this method is not called by the binding
+     */
+    @Deprecated
     protected String xmlToString(HttpServletRequest request, String characterEncoding) throws OwsExceptionReport {
         try {
             if (request.getParameterMap().isEmpty()) {
@@ -203,10 +284,54 @@ public abstract class AbstractXmlBinding<T> extends SimpleBinding {
         }
     }
 
+    protected OwsOperationKey getOperationKey(String elementName, Map<String, String> attributes) {
+        String service = Strings.emptyToNull(attributes.get(OWSConstants.RequestParams.service.name()));
+        String version = Strings.emptyToNull(attributes.get(OWSConstants.RequestParams.version.name()));
+        String operation = null;
+        if (service != null) {
+            operation = elementName.substring(elementName.indexOf(':') + 1);
+        }
+        return new OwsOperationKey(service, version, operation);
+    }
+
+    private static String getQualifiedName(String prefix, String localName) {
+        return Strings.isNullOrEmpty(prefix) ? localName : prefix + ":" + localName;
+    }
+
     private String getCharacterEncoding(HttpServletRequest request) {
         return !Strings.isNullOrEmpty(request.getCharacterEncoding()) ? request.getCharacterEncoding() : "UTF-8";
     }
 
+    private static void rewind(InputStream in) throws CodedException {
+        try {
+            in.reset();
+        } catch (IOException e) {
+            throw new NoApplicableCodeException().causedBy(e)
+                    .withMessage("The root element of the request has to start within the first %d bytes!",
+                                 ROOT_ELEMENT_READ_LIMIT);
+        }
+        // drop the mark, the buffer is no longer needed to replay the root element
+        in.mark(0);
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                LOGGER.debug("Error closing XML stream reader", e);
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
     /**
      * Parses the HTTP-Post body with a parameter
      *
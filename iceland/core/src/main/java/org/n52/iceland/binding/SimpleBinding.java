@@ -27,6 +27,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import org.n52.iceland.coding.encode.OwsEncodingException;
 import org.n52.iceland.event.events.ExceptionEvent;
@@ -35,6 +36,11 @@ import org.n52.iceland.exception.ows.concrete.InvalidAcceptVersionsParameterExce
 import org.n52.iceland.exception.ows.concrete.InvalidServiceOrVersionException;
 import org.n52.iceland.exception.ows.concrete.InvalidServiceParameterException;
 import org.n52.iceland.exception.ows.concrete.VersionNotSupportedException;
+import org.n52.iceland.jfr.FlightRecorderEvents;
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
+import org.n52.iceland.ogc.ows.CapabilitiesResponseCache;
+import org.n52.iceland.response.ServiceResponse;
+import org.n52.iceland.service.RequestTimings;
 import org.n52.iceland.service.operator.ServiceOperator;
 import org.n52.iceland.service.operator.ServiceOperatorRepository;
 import org.n52.iceland.util.http.HttpUtils;
@@ -48,6 +54,7 @@ import org.n52.shetland.ogc.ows.exception.MissingVersionParameterException;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
+import org.n52.shetland.ogc.ows.service.GetCapabilitiesResponse;
 import org.n52.shetland.ogc.ows.service.OwsOperationKey;
 import org.n52.shetland.ogc.ows.service.OwsServiceKey;
 import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
@@ -62,6 +69,7 @@ import org.n52.svalbard.encode.EncoderKey;
 import org.n52.svalbard.encode.EncoderRepository;
 import org.n52.svalbard.encode.ExceptionEncoderKey;
 import org.n52.svalbard.encode.OperationResponseEncoderKey;
+import org.n52.svalbard.encode.StreamingEncoder;
 import org.n52.svalbard.encode.exception.EncodingException;
 import org.n52.svalbard.encode.exception.NoEncoderForKeyException;
 
@@ -81,6 +89,7 @@ public abstract class SimpleBinding implements Binding {
     private EncoderRepository encoderRepository;
     private DecoderRepository decoderRepository;
     private HttpUtils httpUtils;
+    private CapabilitiesResponseCache capabilitiesResponseCache;
 
     public HttpUtils getHttpUtils() {
         return httpUtils;
@@ -91,6 +100,11 @@ public abstract class SimpleBinding implements Binding {
         this.httpUtils = httpUtils;
     }
 
+    @Autowired(required = false)
+    public void setCapabilitiesResponseCache(CapabilitiesResponseCache capabilitiesResponseCache) {
+        this.capabilitiesResponseCache = capabilitiesResponseCache;
+    }
+
     @Inject
     public void setEventBus(EventBus eventBus) {
         this.eventBus = eventBus;
@@ -316,15 +330,62 @@ public abstract class SimpleBinding implements Binding {
             if (!serviceResponse.isSetContentType()) {
                 serviceResponse.setContentType(contentType);
             }
-            httpUtils.writeObject(request, response, contentType, serviceResponse, this);
+            ServiceResponse cached = getCachedCapabilities(response, contentType, serviceResponse);
+            if (cached != null) {
+                httpUtils.writeObject(request, response, cached, this);
+            } else {
+                StreamingEncoder<?, ? super OwsServiceResponse> streamingEncoder
+                        = getStreamingEncoder(serviceResponse, contentType);
+                if (streamingEncoder != null) {
+                    httpUtils.writeStreaming(request, response, contentType, streamingEncoder, serviceResponse, this);
+                } else {
+                    httpUtils.writeObject(request, response, contentType, serviceResponse, this);
+                }
+            }
         } finally {
             serviceResponse.close();
         }
     }
 
+    private ServiceResponse getCachedCapabilities(HttpServletResponse response,
+                                                  MediaType contentType,
+                                                  OwsServiceResponse serviceResponse) throws IOException {
+        if (this.capabilitiesResponseCache == null || !(serviceResponse instanceof GetCapabilitiesResponse)) {
+            return null;
+        }
+        GetCapabilitiesResponse gcr = (GetCapabilitiesResponse) serviceResponse;
+        if (gcr.isStatic() || gcr.getCapabilities() == null) {
+            return null;
+        }
+        return this.capabilitiesResponseCache.getResponse(gcr.getCapabilities(), contentType, () -> {
+            try {
+                return httpUtils.buffer(response, contentType, serviceResponse);
+            } catch (EncodingException ex) {
+                // let the regular path report the error
+                LOG.debug("Could not encode capabilities for caching", ex);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Get the encoder to stream the response with. Streamed responses are written to the response body while they are
+     * encoded instead of being encoded as a whole first.
+     *
+     * @param response    the response
+     * @param contentType the content type of the response
+     *
+     * @return the encoder or {@code null} if the response should not be streamed
+     */
+    protected StreamingEncoder<?, ? super OwsServiceResponse> getStreamingEncoder(OwsServiceResponse response,
+                                                                                  MediaType contentType) {
+        return null;
+    }
+
     protected Object encodeResponse(OwsServiceResponse response,
                                     MediaType contentType) throws OwsExceptionReport {
 
+        RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.ENCODE);
         try {
             OperationResponseEncoderKey key
                     = new OperationResponseEncoderKey(new OwsOperationKey(response), contentType);
@@ -332,9 +393,18 @@ public abstract class SimpleBinding implements Binding {
             if (encoder == null) {
                 throw new NoEncoderForKeyException(key);
             }
-            return encoder.encode(response);
+            try (Recording recording = FlightRecorderEvents.beginEncoding(encoder, response, contentType)) {
+                try {
+                    return encoder.encode(response);
+                } catch (EncodingException | RuntimeException ex) {
+                    recording.failed(ex);
+                    throw ex;
+                }
+            }
         } catch (EncodingException ex) {
             throw new NoApplicableCodeException().withMessage(ex.getMessage()).causedBy(ex);
+        } finally {
+            timer.stop();
         }
     }
 
@@ -365,10 +435,18 @@ public abstract class SimpleBinding implements Binding {
             LOG.error("Can't find OwsExceptionReport encoder for Content-Type {}", contentType);
             throw new HTTPException(HTTPStatus.UNSUPPORTED_MEDIA_TYPE);
         }
-        try {
-            return encoder.encode(oer);
+        RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.ENCODE);
+        try (Recording recording = FlightRecorderEvents.beginEncoding(encoder, oer, contentType)) {
+            try {
+                return encoder.encode(oer);
+            } catch (EncodingException | RuntimeException ex) {
+                recording.failed(ex);
+                throw ex;
+            }
         } catch (EncodingException ex) {
             throw new NoApplicableCodeException().withMessage(ex.getMessage()).causedBy(ex);
+        } finally {
+            timer.stop();
         }
     }
 }
\ No newline at end of file
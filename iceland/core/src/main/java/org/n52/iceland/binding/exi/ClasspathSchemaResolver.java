@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.binding.exi;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.Map;
+
+import org.apache.xerces.xni.XMLResourceIdentifier;
+import org.apache.xerces.xni.parser.XMLEntityResolver;
+import org.apache.xerces.xni.parser.XMLInputSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * {@link XMLEntityResolver} that resolves the schema locations of the OGC and W3C schemas against the XSDs bundled
+ * in the 52n-ogc-schema and 52n-xml schema jars, so that schema-informed EXI grammars can be created without network
+ * access. Schema locations that are not available on the classpath are resolved as usual.
+ *
+ * @since 7.0.0
+ */
+class ClasspathSchemaResolver implements XMLEntityResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClasspathSchemaResolver.class);
+    private static final String OGC_SCHEMA_REPOSITORY = "http://schemas.opengis.net/";
+    private static final String[] OGC_SCHEMA_RESOURCE_PATHS = { "META-INF/xml/", "schemaorg_apache_xmlbeans/src/" };
+    private static final String XML_SCHEMA_LOCATION = "http://www.w3.org/2001/xml.xsd";
+    /**
+     * The 52n schema jars do not contain the XML namespace schema, so the attributes needed by the OGC schemas are
+     * declared here.
+     */
+    private static final String XML_SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\""
+            + " targetNamespace=\"http://www.w3.org/XML/1998/namespace\" xml:lang=\"en\">"
+            + "<xs:attribute name=\"lang\"><xs:simpleType><xs:union memberTypes=\"xs:language\">"
+            + "<xs:simpleType><xs:restriction base=\"xs:string\"><xs:enumeration value=\"\"/></xs:restriction>"
+            + "</xs:simpleType></xs:union></xs:simpleType></xs:attribute>"
+            + "<xs:attribute name=\"space\"><xs:simpleType><xs:restriction base=\"xs:NCName\">"
+            + "<xs:enumeration value=\"default\"/><xs:enumeration value=\"preserve\"/></xs:restriction>"
+            + "</xs:simpleType></xs:attribute>"
+            + "<xs:attribute name=\"base\" type=\"xs:anyURI\"/>"
+            + "<xs:attribute name=\"id\" type=\"xs:ID\"/>"
+            + "<xs:attributeGroup name=\"specialAttrs\"><xs:attribute ref=\"xml:base\"/>"
+            + "<xs:attribute ref=\"xml:lang\"/><xs:attribute ref=\"xml:space\"/><xs:attribute ref=\"xml:id\"/>"
+            + "</xs:attributeGroup></xs:schema>";
+    private static final Map<String, String> SCHEMA_RESOURCES = ImmutableMap.of(
+            "http://www.w3.org/1999/xlink.xsd", "schemaorg_apache_xmlbeans/src/xlink/1.1/xlink.xsd",
+            "http://www.w3.org/2005/08/addressing/ws-addr.xsd",
+            "schemaorg_apache_xmlbeans/src/addressing/1.0/ws-addr.xsd",
+            "http://docs.oasis-open.org/wsn/t-1.xsd", "schemaorg_apache_xmlbeans/src/wsn/t-1.xsd");
+    private final ClassLoader classLoader;
+
+    ClasspathSchemaResolver() {
+        this(ClasspathSchemaResolver.class.getClassLoader());
+    }
+
+    ClasspathSchemaResolver(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public XMLInputSource resolveEntity(XMLResourceIdentifier identifier) {
+        String location = identifier.getExpandedSystemId() != null
+                                  ? identifier.getExpandedSystemId()
+                                  : identifier.getLiteralSystemId();
+        if (location == null) {
+            return null;
+        }
+        if (location.equals(XML_SCHEMA_LOCATION)) {
+            return createInputSource(identifier, location, new StringReader(XML_SCHEMA));
+        }
+        String resource = SCHEMA_RESOURCES.get(location);
+        if (resource != null) {
+            return createInputSource(identifier, location, resource);
+        }
+        if (location.startsWith(OGC_SCHEMA_REPOSITORY)) {
+            String path = location.substring(OGC_SCHEMA_REPOSITORY.length());
+            for (String resourcePath : OGC_SCHEMA_RESOURCE_PATHS) {
+                XMLInputSource source = createInputSource(identifier, location, resourcePath + path);
+                if (source != null) {
+                    return source;
+                }
+            }
+        }
+        LOGGER.debug("Schema {} is not available on the classpath", location);
+        return null;
+    }
+
+    private XMLInputSource createInputSource(XMLResourceIdentifier identifier, String location, String resource) {
+        InputStream stream = this.classLoader.getResourceAsStream(resource);
+        if (stream == null) {
+            return null;
+        }
+        LOGGER.trace("Resolved schema {} from classpath resource {}", location, resource);
+        XMLInputSource source = new XMLInputSource(identifier.getPublicId(), location, identifier.getBaseSystemId());
+        source.setByteStream(stream);
+        return source;
+    }
+
+    private static XMLInputSource createInputSource(XMLResourceIdentifier identifier, String location,
+                                                    StringReader reader) {
+        XMLInputSource source = new XMLInputSource(identifier.getPublicId(), location, identifier.getBaseSystemId());
+        source.setCharacterStream(reader);
+        return source;
+    }
+
+}
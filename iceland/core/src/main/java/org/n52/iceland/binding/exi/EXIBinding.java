@@ -16,29 +16,24 @@
  */
 package org.n52.iceland.binding.exi;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Set;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.sax.SAXSource;
-import javax.xml.transform.stream.StreamResult;
 
+import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlSaxHandler;
 import org.n52.iceland.binding.BindingKey;
 import org.n52.iceland.binding.MediaTypeBindingKey;
 import org.n52.iceland.binding.SimpleBinding;
 import org.n52.iceland.coding.decode.OwsDecodingException;
 import org.n52.iceland.exception.HTTPException;
+import org.n52.iceland.service.RequestTimings;
 import org.n52.janmayen.http.MediaType;
 import org.n52.janmayen.http.MediaTypes;
 import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
@@ -50,17 +45,14 @@ import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
 import org.n52.svalbard.decode.Decoder;
 import org.n52.svalbard.decode.exception.DecodingException;
 import org.n52.svalbard.util.CodingHelper;
-import org.n52.svalbard.util.XmlHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.InputSource;
-import org.xml.sax.SAXNotRecognizedException;
-import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
-import com.siemens.ct.exi.core.EXIFactory;
 import com.siemens.ct.exi.core.exceptions.EXIException;
-import com.siemens.ct.exi.main.api.sax.EXISource;
+import com.siemens.ct.exi.main.api.sax.SAXFactory;
 
 
 /**
@@ -73,6 +65,7 @@ import com.siemens.ct.exi.main.api.sax.EXISource;
  */
 public class EXIBinding extends SimpleBinding {
     private static final Logger LOGGER = LoggerFactory.getLogger(EXIBinding.class);
+    private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
     private static final Set<BindingKey> KEYS =
             Collections.singleton(new MediaTypeBindingKey(MediaTypes.APPLICATION_EXI));
     private final EXIUtils exiUtils;
@@ -103,7 +96,12 @@ public class EXIBinding extends SimpleBinding {
             throws HTTPException, IOException {
         OwsServiceRequest sosRequest = null;
         try {
-            sosRequest = parseRequest(req);
+            RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.DECODE);
+            try {
+                sosRequest = parseRequest(req);
+            } finally {
+                timer.stop();
+            }
             OwsServiceResponse sosResponse = getServiceOperator(sosRequest).receiveRequest(sosRequest);
             writeResponse(req, res, sosResponse);
         } catch (OwsExceptionReport oer) {
@@ -153,36 +151,20 @@ public class EXIBinding extends SimpleBinding {
      */
     protected XmlObject decode(HttpServletRequest request)
             throws OwsExceptionReport {
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-
-            EXIFactory ef = this.exiUtils.newEXIFactory();
-
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
-            if (ef.isFragment()) {
-                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-            }
-            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-            transformer.setOutputProperty(OutputKeys.ENCODING, StandardCharsets.UTF_8.name());
-            // decode EXI encoded InputStream
-            EXISource exiSource = new EXISource(ef);
-            XMLReader exiReader = exiSource.getXMLReader();
-            exiReader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        try {
+            // decode the EXI encoded InputStream directly into XmlBeans
+            XmlSaxHandler handler = XmlObject.Factory.newXmlSaxHandler();
+            XMLReader exiReader = new SAXFactory(this.exiUtils.get()).createEXIReader();
+            exiReader.setContentHandler(handler.getContentHandler());
+            exiReader.setProperty(LEXICAL_HANDLER_PROPERTY, handler.getLexicalHandler());
             InputSource inputSource = new InputSource(request.getInputStream());
             inputSource.setEncoding(request.getCharacterEncoding());
-            SAXSource saxSource = new SAXSource(inputSource);
-            saxSource.setXMLReader(exiReader);
-            transformer.transform(saxSource, new StreamResult(os));
-
-            // create XmlObject from OutputStream
-            return XmlHelper.parseXmlString(os.toString(StandardCharsets.UTF_8.name()));
-        } catch (IOException | EXIException | SAXNotRecognizedException | SAXNotSupportedException ex) {
+            exiReader.parse(inputSource);
+            return handler.getObject();
+        } catch (IOException | EXIException ex) {
             throw new NoApplicableCodeException().causedBy(ex).withMessage("Error while reading request! Message: %s",
                     ex.getMessage());
-        } catch (TransformerException ex) {
-            throw new NoApplicableCodeException().causedBy(ex)
-                    .withMessage("Error while transforming request! Message: %s", ex.getMessage());
-        } catch (DecodingException ex) {
+        } catch (SAXException | XmlException ex) {
             throw new NoApplicableCodeException().causedBy(ex).withMessage("Error while parsing request! Message: %s",
                     ex.getMessage());
         }
@@ -64,21 +64,22 @@ public class EXIUtils
     private Grammars grammarSos20;
     private Grammars grammarSos10;
     private Grammars grammarBaseTypes;
+    private volatile EXIFactory exiFactory;
 
     @Override
     public void init() {
         // FIXME isSchemaLessGrammar can be set during runtime. if that's the
         // case the SOS1/2 grammes won't be loaded
         try {
-            // Pre-load Grammars from URL to save time
+            // Pre-load Grammars from the bundled schemas to save time
             // TODO does this result in any race conditions?
             if (!isSchemaLessGrammar()) {
                 if (isXSBaseTypeGrammar()) {
                     grammarBaseTypes = grammarFactory.createXSDTypesOnlyGrammars();
                 } else if (isSOS10Schema()) {
-                    grammarSos10 = grammarFactory.createGrammars(Sos1Constants.SCHEMA_LOCATION_SOS);
+                    grammarSos10 = loadGrammars(Sos1Constants.SCHEMA_LOCATION_SOS);
                 } else if (isSOS20Schema()) {
-                    grammarSos20 = grammarFactory.createGrammars(Sos2Constants.SCHEMA_LOCATION_URL_SOS);
+                    grammarSos20 = loadGrammars(Sos2Constants.SCHEMA_LOCATION_URL_SOS);
                 }
             }
 
@@ -86,31 +87,52 @@ public class EXIUtils
             LOGGER.error("Could not load XSD schema for EXI binding. "
                     + "Using default schema less grammar. Please update your settings.", e);
         }
+        invalidate();
+    }
+
+    /**
+     * Create the schema-informed grammars for the schema. The schema and the schemas it references are read from the
+     * XSDs bundled on the classpath, so no network access is needed.
+     *
+     * @param schemaLocation the schema location
+     *
+     * @return the grammars
+     *
+     * @throws EXIException if the grammars can not be created
+     */
+    private Grammars loadGrammars(String schemaLocation) throws EXIException {
+        LOGGER.debug("Creating EXI grammars for {}", schemaLocation);
+        return grammarFactory.createGrammars(schemaLocation, new ClasspathSchemaResolver());
     }
 
     @Setting(EXISettings.EXI_FIDELITY_LEXICAL_VALUE)
     public void setFidelityLexicalValue(boolean preserveLexicalValue) {
         this.preserveLexicalValue = preserveLexicalValue;
+        invalidate();
     }
 
     @Setting(EXISettings.EXI_FIDELITY_PREFIXES)
     public void setFidelityPrefixes(boolean preservePrefixes) {
         this.preservePrefixes = preservePrefixes;
+        invalidate();
     }
 
     @Setting(EXISettings.EXI_FIDELITY_DTD)
     public void setFidelityDTD(boolean preserveDTD) {
         this.preserveDTD = preserveDTD;
+        invalidate();
     }
 
     @Setting(EXISettings.EXI_FIDELITY_PROCESSING_INSTRUCTIONS)
     public void setFidelityProcessingInstructions(boolean preserveProcessingInstructions) {
         this.preserveProcessingInstructions = preserveProcessingInstructions;
+        invalidate();
     }
 
     @Setting(EXISettings.EXI_FIDELITY_COMMENTS)
     public void setFidelityComments(boolean preserveComments) {
         this.preserveComments = preserveComments;
+        invalidate();
     }
 
     @Setting(EXISettings.EXI_FIDELITY)
@@ -121,12 +143,14 @@ public class EXIUtils
         } else if (fidelity.equalsIgnoreCase(EXISettings.EXI_FIDELITY_DEFAULT)) {
             this.isDefault = true;
         }
+        invalidate();
     }
 
     @Setting(EXISettings.EXI_ALIGNMENT)
     public void setCodingMode(String codingMode) {
         Validation.notNullOrEmpty(EXISettings.EXI_ALIGNMENT, codingMode);
         this.alignment = CodingMode.valueOf(codingMode);
+        invalidate();
     }
 
     @Setting(EXISettings.EXI_GRAMMAR)
@@ -149,13 +173,34 @@ public class EXIUtils
         }
     }
 
+    /**
+     * Get the shared {@link EXIFactory} configured according the service configuration. The factory is created once
+     * and recreated only if the configuration changes. It can be used concurrently to create EXI readers and writers
+     * but must not be modified; use {@link #newEXIFactory()} to obtain a modifiable instance.
+     *
+     * @return the shared {@link EXIFactory}
+     */
     @Override
     public EXIFactory get() {
-        try {
-            return newEXIFactory();
-        } catch (UnsupportedOption ex) {
-            throw new RuntimeException(ex);
+        EXIFactory factory = this.exiFactory;
+        if (factory == null) {
+            synchronized (this) {
+                factory = this.exiFactory;
+                if (factory == null) {
+                    try {
+                        factory = newEXIFactory();
+                    } catch (UnsupportedOption ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    this.exiFactory = factory;
+                }
+            }
         }
+        return factory;
+    }
+
+    private synchronized void invalidate() {
+        this.exiFactory = null;
     }
 
     /**
@@ -231,6 +276,7 @@ public class EXIUtils
      */
     private void setSchemaLessGrammar(boolean isSchemaLessGrammar) {
         this.isSchemaLessGrammar = isSchemaLessGrammar;
+        invalidate();
     }
 
     /**
@@ -246,6 +292,7 @@ public class EXIUtils
      */
     public void setXSBaseTypeGrammar(boolean isXSBaseTypeGrammar) {
         this.isXSBaseTypeGrammar = isXSBaseTypeGrammar;
+        invalidate();
     }
 
     /**
@@ -261,6 +308,7 @@ public class EXIUtils
      */
     public void setSOS20Schema(boolean isSOS20Schema) {
         this.isSOS20Schema = isSOS20Schema;
+        invalidate();
     }
 
     /**
@@ -276,5 +324,6 @@ public class EXIUtils
      */
     public void setSOS10Schema(boolean isSOS10Schema) {
         this.isSOS10Schema = isSOS10Schema;
+        invalidate();
     }
 }
@@ -23,12 +23,16 @@ import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.binding.Binding;
 import org.n52.iceland.binding.BindingKey;
 import org.n52.iceland.binding.MediaTypeBindingKey;
 import org.n52.iceland.binding.SimpleBinding;
 import org.n52.iceland.coding.decode.OwsDecodingException;
 import org.n52.iceland.exception.HTTPException;
+import org.n52.iceland.service.RequestTimings;
+import org.n52.iceland.service.StreamingSettings;
 import org.n52.janmayen.Json;
 import org.n52.janmayen.http.MediaType;
 import org.n52.janmayen.http.MediaTypes;
@@ -41,6 +45,9 @@ import org.n52.svalbard.decode.Decoder;
 import org.n52.svalbard.decode.OperationDecoderKey;
 import org.n52.svalbard.decode.exception.DecodingException;
 import org.n52.svalbard.decode.exception.NoDecoderForKeyException;
+import org.n52.svalbard.encode.Encoder;
+import org.n52.svalbard.encode.OperationResponseEncoderKey;
+import org.n52.svalbard.encode.StreamingEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +59,7 @@ import com.fasterxml.jackson.databind.JsonNode;
  * @author <a href="mailto:c.autermann@52north.org">Christian Autermann</a>
  * @since 1.0.0
  */
+@Configurable
 public class JSONBinding extends SimpleBinding {
     private static final Logger LOG = LoggerFactory.getLogger(JSONBinding.class);
     private static final String SERVICE = "service";
@@ -60,6 +68,18 @@ public class JSONBinding extends SimpleBinding {
     private static final Set<BindingKey> KEYS =
             Collections.singleton(new MediaTypeBindingKey(MediaTypes.APPLICATION_JSON));
 
+    private boolean forceStreamingEncoding;
+
+    /**
+     * Set if responses should be streamed if their encoder supports it.
+     *
+     * @param forceStreamingEncoding if responses should be streamed
+     */
+    @Setting(value = StreamingSettings.FORCE_STREAMING_ENCODING, required = false)
+    public void setForceStreamingEncoding(boolean forceStreamingEncoding) {
+        this.forceStreamingEncoding = forceStreamingEncoding;
+    }
+
     @Override
     public Set<BindingKey> getKeys() {
         return Collections.unmodifiableSet(KEYS);
@@ -75,6 +95,21 @@ public class JSONBinding extends SimpleBinding {
         return MediaTypes.APPLICATION_JSON;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    protected StreamingEncoder<?, ? super OwsServiceResponse> getStreamingEncoder(OwsServiceResponse response,
+                                                                                  MediaType contentType) {
+        if (!forceStreamingEncoding) {
+            return null;
+        }
+        Encoder<Object, OwsServiceResponse> encoder
+                = getEncoder(new OperationResponseEncoderKey(new OwsOperationKey(response), contentType));
+        if (encoder instanceof StreamingEncoder) {
+            return (StreamingEncoder<Object, OwsServiceResponse>) encoder;
+        }
+        return null;
+    }
+
     @Override
     public boolean checkOperationHttpPostSupported(OwsOperationKey k) throws HTTPException {
         return getDecoder(new OperationDecoderKey(k, MediaTypes.APPLICATION_JSON)) != null;
@@ -85,7 +120,12 @@ public class JSONBinding extends SimpleBinding {
             throws HTTPException, IOException {
         OwsServiceRequest request = null;
         try {
-            request = parseRequest(req);
+            RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.DECODE);
+            try {
+                request = parseRequest(req);
+            } finally {
+                timer.stop();
+            }
             checkServiceOperatorKeyTypes(request);
             OwsServiceResponse response = getServiceOperator(request).receiveRequest(request);
             writeResponse(req, res, response);
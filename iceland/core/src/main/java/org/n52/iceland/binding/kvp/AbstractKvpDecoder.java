@@ -19,12 +19,13 @@ package org.n52.iceland.binding.kvp;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -42,6 +43,7 @@ import org.n52.svalbard.decode.OperationDecoderKey;
 import org.n52.svalbard.decode.exception.DecodingException;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
 
 /**
  * TODO JavaDoc
@@ -53,6 +55,7 @@ public abstract class AbstractKvpDecoder<R extends OwsServiceRequest> implements
 
     private final Set<DecoderKey> keys;
     private final Supplier<? extends R> supplier;
+    private volatile Map<String, ThrowingBiConsumer<? super R, String, DecodingException>> parsers;
 
     public AbstractKvpDecoder(Supplier<? extends R> supplier, String service, String version, String operation) {
         this(supplier, new OperationDecoderKey(service, version, operation, MediaTypes.APPLICATION_KVP));
@@ -81,20 +84,63 @@ public abstract class AbstractKvpDecoder<R extends OwsServiceRequest> implements
         if (parameters == null) {
             throw new DecodingException("The request does not contain any parameter!");
         }
-        CompositeException exceptions = new CompositeException();
+        Map<String, ThrowingBiConsumer<? super R, String, DecodingException>> parsers = getParsers();
         R request = this.supplier.get();
+        // created lazily, most requests do not produce any exception
+        CompositeException exceptions = null;
+
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            String name = parameter.getKey();
+            ThrowingBiConsumer<? super R, String, DecodingException> parser
+                    = name == null ? null : parsers.get(normalize(name));
+            Exception exception = null;
+            if (parser == null) {
+                exception = new DecodingException(name, "The parameter '%s' is not supported by this service!", name);
+            } else {
+                try {
+                    parser.accept(request, parameter.getValue());
+                } catch (Exception ex) {
+                    exception = ex;
+                }
+            }
+            if (exception != null) {
+                if (exceptions == null) {
+                    exceptions = new CompositeException();
+                }
+                exceptions.add(exception);
+            }
+        }
 
-        parameters.forEach(exceptions.wrapConsumer(getDecoder(new Builder<R>()
-                .add(this::getCommonRequestParameterDefinitions)
-                .add(this::getRequestParameterDefinitions).build()).curryFirst(request)));
-
-        if (exceptions.hasExceptions()) {
+        if (exceptions != null) {
             throw new DecodingException(exceptions);
         }
 
         return request;
     }
 
+    /**
+     * Gets the parameter parsers of this decoder. The table is compiled on first use (after this decoder has been
+     * configured) and reused for all subsequent requests.
+     *
+     * @return the parsers by normalized parameter name
+     */
+    private Map<String, ThrowingBiConsumer<? super R, String, DecodingException>> getParsers() {
+        Map<String, ThrowingBiConsumer<? super R, String, DecodingException>> result = this.parsers;
+        if (result == null) {
+            synchronized (this) {
+                result = this.parsers;
+                if (result == null) {
+                    result = new Builder<R>()
+                            .add(this::getCommonRequestParameterDefinitions)
+                            .add(this::getRequestParameterDefinitions)
+                            .build();
+                    this.parsers = result;
+                }
+            }
+        }
+        return result;
+    }
+
     protected void getCommonRequestParameterDefinitions(Builder<R> builder) {
         builder.add(OWSConstants.RequestParams.service, OwsServiceRequest::setService);
         builder.add(OWSConstants.RequestParams.version, OwsServiceRequest::setVersion);
@@ -127,20 +173,13 @@ public abstract class AbstractKvpDecoder<R extends OwsServiceRequest> implements
 
     protected abstract void getRequestParameterDefinitions(Builder<R> builder);
 
-    private ThrowingTriConsumer<R, String, String, DecodingException> getDecoder(
-            Map<String, ThrowingBiConsumer<? super R, String, DecodingException>> parsers) {
-        return (request, name, value) -> {
-            if (parsers.containsKey(name)) {
-                parsers.get(name).accept(request, value);
-            } else {
-                throw new DecodingException(name, "The parameter '%s' is not supported by this service!", name);
-            }
-        };
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
     }
 
     protected static final class Builder<R extends OwsServiceRequest> {
         private final Map<String, ThrowingBiConsumer<? super R, String, DecodingException>> parsers
-                = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                = new HashMap<>();
 
         private Builder() {
         }
@@ -149,8 +188,8 @@ public abstract class AbstractKvpDecoder<R extends OwsServiceRequest> implements
         public Builder<R> add(String name, ThrowingBiConsumer<? super R, String, DecodingException> parser) {
             Objects.requireNonNull(Strings.emptyToNull(name));
             Objects.requireNonNull(parser);
-            this.parsers.merge(name, parser, (f1, f2) -> ((ThrowingBiConsumer<R, String, DecodingException>) f1)
-                    .andThen(f2));
+            this.parsers.merge(normalize(name), parser,
+                               (f1, f2) -> ((ThrowingBiConsumer<R, String, DecodingException>) f1).andThen(f2));
             return this;
         }
 
@@ -172,7 +211,7 @@ public abstract class AbstractKvpDecoder<R extends OwsServiceRequest> implements
         }
 
         public Map<String, ThrowingBiConsumer<? super R, String, DecodingException>> build() {
-            return Collections.unmodifiableMap(this.parsers);
+            return ImmutableMap.copyOf(this.parsers);
         }
     }
 }
@@ -39,6 +39,7 @@ import org.n52.iceland.exception.ows.concrete.InvalidServiceParameterException;
 import org.n52.iceland.exception.ows.concrete.MissingRequestParameterException;
 import org.n52.iceland.exception.ows.concrete.VersionNotSupportedException;
 import org.n52.iceland.service.MiscSettings;
+import org.n52.iceland.service.RequestTimings;
 import org.n52.janmayen.exception.CompositeException;
 import org.n52.janmayen.exception.LocationHintException;
 import org.n52.janmayen.http.MediaType;
@@ -108,7 +109,12 @@ public class KvpBinding extends SimpleBinding {
         LOGGER.debug("KVP-REQUEST: {}", req.getQueryString());
         OwsServiceRequest serviceRequest = null;
         try {
-            serviceRequest = parseRequest(req);
+            RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.DECODE);
+            try {
+                serviceRequest = parseRequest(req);
+            } finally {
+                timer.stop();
+            }
             // add request context information
             serviceRequest.setRequestContext(getRequestContext(req));
             OwsServiceResponse response = getServiceOperator(serviceRequest).receiveRequest(serviceRequest);
@@ -31,6 +31,7 @@ import org.n52.iceland.binding.BindingKey;
 import org.n52.iceland.binding.MediaTypeBindingKey;
 import org.n52.iceland.exception.HTTPException;
 import org.n52.iceland.service.MiscSettings;
+import org.n52.iceland.service.RequestTimings;
 import org.n52.janmayen.http.MediaType;
 import org.n52.janmayen.http.MediaTypes;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
@@ -81,7 +82,12 @@ public class PoxBinding extends AbstractXmlBinding<OwsServiceRequest> {
             throws HTTPException, IOException {
         OwsServiceRequest request = null;
         try {
-            request = parseRequest(req);
+            RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.DECODE);
+            try {
+                request = parseRequest(req);
+            } finally {
+                timer.stop();
+            }
             OwsServiceResponse response = getServiceOperator(request)
                     .receiveRequest(request);
             writeResponse(req, res, response);
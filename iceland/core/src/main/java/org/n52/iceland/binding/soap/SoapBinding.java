@@ -37,6 +37,7 @@ import org.n52.iceland.coding.encode.OwsEncodingException;
 import org.n52.iceland.event.events.ExceptionEvent;
 import org.n52.iceland.exception.HTTPException;
 import org.n52.iceland.service.CommunicationObjectWithSoapHeader;
+import org.n52.iceland.service.RequestTimings;
 import org.n52.iceland.util.http.HttpUtils;
 import org.n52.janmayen.http.HTTPHeaders;
 import org.n52.janmayen.http.HTTPStatus;
@@ -102,7 +103,12 @@ public class SoapBinding extends AbstractXmlBinding<SoapRequest> {
             throws HTTPException, IOException {
         final SoapChain chain = new SoapChain(httpRequest, httpResponse);
         try {
-            parseSoapRequest(chain);
+            RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.DECODE);
+            try {
+                parseSoapRequest(chain);
+            } finally {
+                timer.stop();
+            }
             checkForContext(chain, getRequestContext(httpRequest));
             createSoapResponse(chain);
             if (!chain.getSoapRequest().hasSoapFault()) {
@@ -176,12 +182,15 @@ public class SoapBinding extends AbstractXmlBinding<SoapRequest> {
                                            chain.getSoapResponse().getClass());
         Encoder<?, SoapResponse> encoder = getEncoder(key);
         if (encoder != null) {
+            RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.ENCODE);
             try {
                 return encoder.encode(chain.getSoapResponse());
             } catch (OwsEncodingException ex) {
                 throw ex.getCause();
             } catch (EncodingException ex) {
                 throw new NoApplicableCodeException().withMessage(ex.getMessage()).causedBy(ex);
+            } finally {
+                timer.stop();
             }
         } else {
             NoEncoderForKeyException cause = new NoEncoderForKeyException(key);
@@ -16,6 +16,8 @@
  */
 package org.n52.iceland.cache;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.n52.janmayen.lifecycle.Destroyable;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 
@@ -40,6 +42,24 @@ public interface ContentCacheController extends Destroyable {
     void update(ContentCacheUpdate update)
             throws OwsExceptionReport;
 
+    /**
+     * Update the content cache with the specified update without waiting for the update to be applied.
+     *
+     * @param update the update
+     *
+     * @return a future that completes once the update is visible in the cache
+     */
+    default CompletableFuture<Void> updateAsync(ContentCacheUpdate update) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            update(update);
+            future.complete(null);
+        } catch (OwsExceptionReport | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Renew the content cache completely.
      *
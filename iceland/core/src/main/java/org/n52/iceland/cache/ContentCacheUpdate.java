@@ -16,6 +16,9 @@
  */
 package org.n52.iceland.cache;
 
+import java.util.Optional;
+import java.util.Set;
+
 import org.n52.iceland.util.action.Action;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 
@@ -91,4 +94,15 @@ public abstract class ContentCacheUpdate implements Action {
         return false;
     }
 
+    /**
+     * Returns the names of the {@link SnapshotContentCache} sections this partial update modifies. If a controller
+     * executes partial updates on a copy of the cache, only these sections are copied and the others are shared with
+     * the current cache. Subclasses must not modify any other section if they override this.
+     *
+     * @return the modified sections or an empty {@code Optional} if any section may be modified
+     */
+    public Optional<Set<String>> getModifiedSections() {
+        return Optional.empty();
+    }
+
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache;
+
+import java.util.Map;
+
+/**
+ * A {@link WritableContentCache} that can be persisted as a snapshot of independent, named sections. Section values
+ * may be {@code null}, {@link String}, {@link Boolean}, {@link Integer}, {@link Long}, {@link Double},
+ * {@link org.joda.time.DateTime}, {@code byte[]} or {@link java.util.List}s, {@link java.util.Set}s and
+ * {@link Map}s of these. Implementations have to provide a public no-argument constructor.
+ */
+public interface SnapshotContentCache extends WritableContentCache {
+
+    /**
+     * Creates the sections to persist.
+     *
+     * @return the sections by name
+     */
+    Map<String, Object> getSnapshotSections();
+
+    /**
+     * Restores the state of this cache from the persisted sections. Restored collections are mutable but may be of a
+     * different type than the persisted ones. Sections may also be the unmodified collections of another instance,
+     * which are not changed afterwards.
+     *
+     * @param sections the sections by name
+     */
+    void restoreSnapshotSections(Map<String, Object> sections);
+}
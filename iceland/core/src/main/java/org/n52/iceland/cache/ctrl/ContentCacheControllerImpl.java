@@ -16,8 +16,15 @@
  */
 package org.n52.iceland.cache.ctrl;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -29,20 +36,45 @@ import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.n52.faroe.ConfigurationError;
+import org.n52.faroe.Validation;
+import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.cache.ContentCachePersistenceStrategy;
 import org.n52.iceland.cache.ContentCacheUpdate;
+import org.n52.iceland.cache.SnapshotContentCache;
 import org.n52.iceland.cache.WritableContentCache;
+import org.n52.iceland.cache.ctrl.PartialUpdateCoalescer.Pending;
+import org.n52.iceland.cache.ctrl.persistence.CacheSnapshot;
+import org.n52.iceland.event.events.ContentCacheUpdatedEvent;
+import org.n52.iceland.jfr.FlightRecorderEvents;
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
+import org.n52.janmayen.event.EventBus;
 import org.n52.janmayen.lifecycle.Constructable;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
-
+import org.n52.shetland.ogc.ows.service.Deadline;
+
+/**
+ * Controller that never modifies the published cache if it is a {@link SnapshotContentCache}: complete updates are
+ * executed on a new cache instance and partial updates on a copy of the current cache. The copy shares all sections
+ * the updates do not declare as {@linkplain ContentCacheUpdate#getModifiedSections() modified} with the current
+ * cache. The result is published by replacing the cache reference, so that readers always see a consistent cache
+ * without locking. Other caches are updated in place, so readers may see a partially applied update.
+ * <p>
+ * Partial updates are collected by a {@link PartialUpdateCoalescer} and applied in batches, so that concurrent
+ * updates share a single copy of the cache. {@link #update(ContentCacheUpdate)} still returns only after the update
+ * is visible in the cache.
+ */
 public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheController implements Constructable {
     private static final Logger LOGGER = LoggerFactory.getLogger(ContentCacheControllerImpl.class);
 
     private static final AtomicInteger COMPLETE_UPDATE_COUNT = new AtomicInteger(0);
     private static final AtomicInteger PARTIAL_UPDATE_COUNT = new AtomicInteger(0);
+    private static final int DEFAULT_PARTIAL_UPDATE_BATCH_SIZE = 100;
 
     private volatile WritableContentCache cache;
     private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock partialUpdateLock = new ReentrantLock();
 
     private CompleteUpdate current;
     private CompleteUpdate next;
@@ -50,6 +82,9 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
     private ContentCachePersistenceStrategy persistenceStrategy;
     private ContentCacheFactory cacheFactory;
     private CompleteCacheUpdateFactory completeCacheUpdateFactory;
+    private EventBus eventBus;
+    private final PartialUpdateCoalescer partialUpdates
+            = new PartialUpdateCoalescer(this::executePartial, 0, DEFAULT_PARTIAL_UPDATE_BATCH_SIZE);
 
     @Inject
     public void setCacheFactory(ContentCacheFactory cacheFactory) {
@@ -66,6 +101,29 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
         this.completeCacheUpdateFactory = factory;
     }
 
+    @Inject
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Sets the time to wait for further partial updates before a batch of updates is applied. Updates submitted
+     * while a batch is applied are always grouped into the next batch.
+     *
+     * @param window the window in milliseconds
+     */
+    @Setting(value = ScheduledContentCacheControllerSettings.PARTIAL_UPDATE_WINDOW, required = false)
+    public void setPartialUpdateWindow(int window) throws ConfigurationError {
+        Validation.greaterEqualZero("Partial cache update window", window);
+        this.partialUpdates.setWindow(window);
+    }
+
+    @Setting(value = ScheduledContentCacheControllerSettings.PARTIAL_UPDATE_BATCH_SIZE, required = false)
+    public void setPartialUpdateBatchSize(int size) throws ConfigurationError {
+        Validation.greaterZero("Partial cache update batch size", size);
+        this.partialUpdates.setMaxBatchSize(size);
+    }
+
     @Override
     public void init() {
         loadOrCreateCache();
@@ -99,6 +157,7 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
     @Override
     public void destroy() {
         super.destroy();
+        partialUpdates.shutdown();
         lock();
         try {
             persistenceStrategy.persistOnShutdown(getCache());
@@ -118,43 +177,196 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
             if (update.isCompleteUpdate()) {
                 executeComplete(new CompleteUpdate(update));
             } else {
-                executePartial(new PartialUpdate(update));
+                awaitPartial(partialUpdates.submit(update));
             }
-            cache.setLastUpdateTime(DateTime.now());
         } else {
             throw new IllegalArgumentException("update may not be null");
         }
     }
 
+    @Override
+    public CompletableFuture<Void> updateAsync(ContentCacheUpdate update) {
+        if (update == null) {
+            throw new IllegalArgumentException("update may not be null");
+        }
+        if (update.isCompleteUpdate()) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            try {
+                executeComplete(new CompleteUpdate(update));
+                future.complete(null);
+            } catch (OwsExceptionReport | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        return partialUpdates.submit(update);
+    }
+
+    private void awaitPartial(CompletableFuture<Void> future) throws OwsExceptionReport {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoApplicableCodeException().causedBy(e)
+                    .withMessage("Interrupted while waiting for partial cache update");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OwsExceptionReport) {
+                throw (OwsExceptionReport) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new NoApplicableCodeException().causedBy(cause).withMessage("Partial cache update failed");
+        }
+    }
+
     private void runCurrent() throws OwsExceptionReport {
         LOGGER.trace("Starting update {}", this.current);
-        this.current.execute();
+        WritableContentCache newCache;
+        try (Recording recording = FlightRecorderEvents.beginCacheUpdate(true, 1)) {
+            try {
+                newCache = this.current.execute();
+            } catch (OwsExceptionReport | RuntimeException e) {
+                recording.failed(e);
+                throw e;
+            }
+        }
         LOGGER.trace("Finished update {}", this.current);
+        DateTime updateTime = DateTime.now();
         lock();
         try {
-            persistenceStrategy.persistOnCompleteUpdate(getCache());
             CompleteUpdate u = this.current;
+            // partial updates that were queued after the update applied the pending ones
+            u.applyUpdates(newCache);
+            newCache.setLastUpdateTime(updateTime);
+            setCache(newCache);
+            u.setState(State.FINISHED);
+            persistenceStrategy.persistOnCompleteUpdate(newCache);
             this.current = null;
             u.signalWaiting();
         } finally {
             unlock();
         }
+        fireUpdated(newCache, updateTime, true);
+    }
+
+    private void fireUpdated(WritableContentCache updated, DateTime updateTime, boolean complete) {
+        if (this.eventBus != null) {
+            this.eventBus.submit(new ContentCacheUpdatedEvent(updated, updateTime, complete));
+        }
+    }
+
+    /**
+     * Applies a batch of partial updates to a single copy of the cache and publishes it. Every update is executed with
+     * the deadline of the thread that submitted it. Updates that fail are
+     * dropped from the batch and the remaining updates are applied again to a fresh copy, unless the cache is
+     * updated in place.
+     *
+     * @param batch the updates
+     */
+    private void executePartial(List<Pending> batch) {
+        partialUpdateLock.lock();
+        try (Recording recording = FlightRecorderEvents.beginCacheUpdate(false, batch.size())) {
+            List<Pending> remaining = new ArrayList<>(batch);
+            while (!remaining.isEmpty()) {
+                WritableContentCache base = getCache();
+                WritableContentCache working = copyOf(base, getModifiedSections(remaining));
+                List<PartialUpdate> executed = new ArrayList<>(remaining.size());
+                boolean failed = false;
+                Iterator<Pending> iter = remaining.iterator();
+                while (iter.hasNext()) {
+                    Pending pending = iter.next();
+                    PartialUpdate update = new PartialUpdate(pending.getUpdate());
+                    Deadline.Scope scope = pending.bind();
+                    try {
+                        update.execute(working);
+                        executed.add(update);
+                    } catch (OwsExceptionReport | RuntimeException e) {
+                        pending.fail(e);
+                        recording.failed(e);
+                        iter.remove();
+                        failed = true;
+                    } finally {
+                        scope.close();
+                    }
+                }
+                if (failed && working != base) {
+                    LOGGER.debug("Discarding partially updated copy, executing {} remaining updates again",
+                                 remaining.size());
+                    continue;
+                }
+                DateTime updateTime = DateTime.now();
+                if (publish(base, working, executed, updateTime)) {
+                    remaining.forEach(Pending::complete);
+                    if (!executed.isEmpty()) {
+                        fireUpdated(working, updateTime, false);
+                    }
+                    return;
+                }
+                LOGGER.debug("Cache was replaced while executing {}, executing them again", executed);
+            }
+        } finally {
+            partialUpdateLock.unlock();
+        }
     }
 
-    private void executePartial(PartialUpdate update) throws OwsExceptionReport {
-        update.execute(getCache());
+    private boolean publish(WritableContentCache base, WritableContentCache working, List<PartialUpdate> updates,
+                            DateTime updateTime) {
         lock();
         try {
+            if (getCache() != base) {
+                return false;
+            }
+            working.setLastUpdateTime(updateTime);
+            setCache(working);
             if (this.current != null) {
-                this.current.addUpdate(update);
-            } else {
-                persistenceStrategy.persistOnPartialUpdate(getCache());
+                updates.forEach(this.current::addUpdate);
+            } else if (!updates.isEmpty()) {
+                persistenceStrategy.persistOnPartialUpdate(working);
             }
+            return true;
         } finally {
             unlock();
         }
     }
 
+    /**
+     * Creates a copy of the cache to execute partial updates on. Only the sections modified by the updates are copied,
+     * all other sections are shared with the current cache.
+     *
+     * @param original the current cache
+     * @param sections the modified sections or an empty {@code Optional} to copy all sections
+     *
+     * @return the copy or the original cache if it can not be copied
+     */
+    private WritableContentCache copyOf(WritableContentCache original, Optional<Set<String>> sections) {
+        if (original instanceof SnapshotContentCache) {
+            WritableContentCache copy = this.cacheFactory.get();
+            if (copy instanceof SnapshotContentCache) {
+                SnapshotContentCache snapshot = (SnapshotContentCache) original;
+                ((SnapshotContentCache) copy).restoreSnapshotSections(sections.isPresent()
+                        ? CacheSnapshot.copySections(snapshot, sections.get())
+                        : CacheSnapshot.of(snapshot).getSections());
+                return copy;
+            }
+        }
+        return original;
+    }
+
+    private static Optional<Set<String>> getModifiedSections(List<Pending> updates) {
+        Set<String> sections = new HashSet<>();
+        for (Pending pending : updates) {
+            Optional<Set<String>> modified = pending.getUpdate().getModifiedSections();
+            if (!modified.isPresent()) {
+                return Optional.empty();
+            }
+            sections.addAll(modified.get());
+        }
+        return Optional.of(sections);
+    }
+
     private void executeComplete(CompleteUpdate update) throws OwsExceptionReport {
         boolean isCurrent = false;
         boolean isNext = false;
@@ -324,8 +536,8 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
             }
         }
 
-        void execute() throws OwsExceptionReport {
-            setCache(execute(getCache()));
+        WritableContentCache execute() throws OwsExceptionReport {
+            return execute(cacheFactory.get());
         }
 
         WritableContentCache execute(WritableContentCache newCache) throws OwsExceptionReport {
@@ -345,12 +557,8 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
                     throw getUpdate().getFailureCause();
                 } else {
                     setState(State.APPLYING_UPDATES);
-                    PartialUpdate pu;
                     WritableContentCache cc = getUpdate().getCache();
-                    while ((pu = updates.poll()) != null) {
-                        pu.execute(cc);
-                    }
-                    setState(State.FINISHED);
+                    applyUpdates(cc);
                     return cc;
                 }
             } finally {
@@ -358,6 +566,13 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
             }
         }
 
+        void applyUpdates(WritableContentCache cc) throws OwsExceptionReport {
+            PartialUpdate pu;
+            while ((pu = updates.poll()) != null) {
+                pu.execute(cc);
+            }
+        }
+
         void waitForCompletion() throws OwsExceptionReport {
             lock();
             try {
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.iceland.cache.ContentCacheUpdate;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
+import org.n52.shetland.ogc.ows.service.Deadline;
+
+/**
+ * Collects partial cache updates and hands them in batches to a single consumer. A batch is started once the
+ * configured window elapsed after the first pending update or once the batch size is reached. Updates submitted while
+ * a batch is applied are collected for the next batch. Updates submitted after {@link #shutdown()} are rejected.
+ */
+class PartialUpdateCoalescer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartialUpdateCoalescer.class);
+    private static final long SHUTDOWN_TIMEOUT = 30;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final ScheduledThreadPoolExecutor executor
+            = new ScheduledThreadPoolExecutor(1, new GroupedAndNamedThreadFactory("cache-partial-updates"));
+    private final Consumer<List<Pending>> handler;
+    private volatile long window;
+    private volatile int maxBatchSize;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new coalescer.
+     *
+     * @param handler      the consumer applying a batch; it is responsible to complete every {@link Pending}
+     * @param window       the time in milliseconds to wait for further updates
+     * @param maxBatchSize the maximum number of updates in a batch
+     */
+    PartialUpdateCoalescer(Consumer<List<Pending>> handler, long window, int maxBatchSize) {
+        this.handler = handler;
+        // pending updates are applied by shutdown() without waiting for the window
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        setWindow(window);
+        setMaxBatchSize(maxBatchSize);
+    }
+
+    void setWindow(long window) {
+        this.window = Math.max(0, window);
+    }
+
+    void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Queues the update.
+     *
+     * @param update the update
+     *
+     * @return a future that completes when the update was applied
+     */
+    CompletableFuture<Void> submit(ContentCacheUpdate update) {
+        Pending pending = new Pending(update);
+        if (closed) {
+            pending.fail(new IllegalStateException("cache controller is shut down"));
+            return pending.getFuture();
+        }
+        queue.offer(pending);
+        if (closed && queue.remove(pending)) {
+            // shut down concurrently, the final drain may already be over
+            pending.fail(new IllegalStateException("cache controller is shut down"));
+            return pending.getFuture();
+        }
+        try {
+            if (queue.size() >= maxBatchSize) {
+                executor.execute(this::drain);
+            } else if (scheduled.compareAndSet(false, true)) {
+                executor.schedule(this::drain, window, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // the executor was shut down concurrently and drains the queue on its own
+            LOGGER.debug("Could not schedule partial cache update", e);
+        }
+        return pending.getFuture();
+    }
+
+    /**
+     * Stops accepting updates and applies the pending ones.
+     */
+    void shutdown() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warn("Partial cache updates did not finish within {}s", SHUTDOWN_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    int getPendingUpdates() {
+        return queue.size();
+    }
+
+    private void drain() {
+        scheduled.set(false);
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (queue.drainTo(batch, maxBatchSize) > 0) {
+            LOGGER.debug("Applying {} partial cache updates", batch.size());
+            try {
+                handler.accept(batch);
+            } catch (RuntimeException | Error e) {
+                LOGGER.error("Failed to apply partial cache updates", e);
+                batch.forEach(p -> p.fail(e));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * A queued update, its future and the context of the submitting thread.
+     */
+    static class Pending {
+        private final ContentCacheUpdate update;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final Optional<Deadline> deadline;
+
+        Pending(ContentCacheUpdate update) {
+            this.update = update;
+            this.deadline = Deadline.current();
+        }
+
+        ContentCacheUpdate getUpdate() {
+            return update;
+        }
+
+        CompletableFuture<Void> getFuture() {
+            return future;
+        }
+
+        /**
+         * Binds the {@link Deadline} of the submitting thread to the current thread.
+         *
+         * @return the scope to close once the update was executed
+         */
+        Deadline.Scope bind() {
+            return deadline.map(Deadline::bind).orElse(Deadline.Scope.NONE);
+        }
+
+        void complete() {
+            future.complete(null);
+        }
+
+        void fail(Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+    }
+}
@@ -30,4 +30,10 @@ public interface ScheduledContentCacheControllerSettings {
 
     String CAPABILITIES_CACHE_UPDATE
             = "service.capabilitiesCacheUpdate";
+
+    String PARTIAL_UPDATE_WINDOW
+            = "service.cachePartialUpdateWindow";
+
+    String PARTIAL_UPDATE_BATCH_SIZE
+            = "service.cachePartialUpdateBatchSize";
 }
@@ -18,22 +18,39 @@ package org.n52.iceland.cache.ctrl.persistence;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 import javax.inject.Inject;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
@@ -43,6 +60,15 @@ import org.n52.iceland.cache.WritableContentCache;
 import org.n52.janmayen.ConfigLocationProvider;
 import org.n52.janmayen.lifecycle.Constructable;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Persists the cache to {@code WEB-INF/tmp/cache.tmp}. The file is written to a temporary file first and moved to its
+ * final location afterwards, so that a crash while writing never corrupts an existing cache file. The file consists of
+ * a header naming the {@link ContentCacheCodec} used for the payload, the payload and a trailer with the length and
+ * the CRC32 checksum of the payload, which is verified on load.
+ */
 @Configurable
 public abstract class AbstractPersistingCachePersistenceStrategy
         implements ContentCachePersistenceStrategy, Constructable {
@@ -52,6 +78,17 @@ public abstract class AbstractPersistingCachePersistenceStrategy
     private static final String CACHE_FILE = "cache.tmp";
     private static final String TMP_PATH = "tmp";
     private static final String WEB_INF_PATH = "WEB-INF";
+    private static final byte[] MAGIC = {'N', '5', '2', 'C' };
+    private static final byte[] JAVA_SERIALIZATION_MAGIC = {(byte) 0xAC, (byte) 0xED };
+    private static final int FORMAT_VERSION = 1;
+    private static final int TRAILER_LENGTH = 2 * Long.BYTES;
+    private static final int MAX_CODEC_NAME_LENGTH = 0xFF;
+    private final List<ContentCacheCodec> defaultCodecs = Arrays
+            .asList(new SnapshotContentCacheCodec(), new JavaSerializationContentCacheCodec());
+    private volatile Map<String, ContentCacheCodec> codecs = toMap(defaultCodecs);
+    private final AtomicLong persistCount = new AtomicLong();
+    private volatile long lastPersistDuration;
+    private volatile long lastPersistSize;
     private Path cacheFile;
     private ConfigLocationProvider configLocationProvider;
     private Path cacheFileFolder;
@@ -62,6 +99,19 @@ public abstract class AbstractPersistingCachePersistenceStrategy
         this.configLocationProvider = configLocationProvider;
     }
 
+    /**
+     * Sets additional codecs. These are preferred over the built-in {@link SnapshotContentCacheCodec} and
+     * {@link JavaSerializationContentCacheCodec}.
+     *
+     * @param codecs the codecs
+     */
+    @Autowired(required = false)
+    public void setCodecs(Collection<ContentCacheCodec> codecs) {
+        List<ContentCacheCodec> list = new ArrayList<>(codecs);
+        list.addAll(defaultCodecs);
+        this.codecs = toMap(list);
+    }
+
     @Override
     public void init() {
         this.cacheFile = getBasePath().resolve(WEB_INF_PATH).resolve(TMP_PATH).resolve(CACHE_FILE);
@@ -90,14 +140,69 @@ public abstract class AbstractPersistingCachePersistenceStrategy
             return Optional.empty();
         }
         LOGGER.debug("Reading cache from temp file '{}'", file);
-        try (ObjectInputStream ois = newObjectInputStream(file)) {
-            return Optional.of((WritableContentCache) ois.readObject());
-        } catch (IOException | ClassNotFoundException ex) {
+        try {
+            return Optional.of(read(file));
+        } catch (IOException | RuntimeException ex) {
             LOGGER.error(String.format("Error reading cache file '%s'", file), ex);
             return Optional.empty();
         }
     }
 
+    private WritableContentCache read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+            byte[] magic = new byte[MAGIC.length];
+            int read = ByteStreams.read(in, magic, 0, magic.length);
+            if (read >= JAVA_SERIALIZATION_MAGIC.length && startsWith(magic, JAVA_SERIALIZATION_MAGIC)) {
+                // cache file of a previous version
+                return getCodec(JavaSerializationContentCacheCodec.NAME).decode(payload(channel, 0, channel.size()));
+            }
+            if (read < MAGIC.length || !startsWith(magic, MAGIC)) {
+                throw new IOException("Not a cache file");
+            }
+            int version = in.read();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported cache file version " + version);
+            }
+            int nameLength = in.read();
+            if (nameLength < 0) {
+                throw new IOException("Cache file is truncated");
+            }
+            byte[] name = new byte[nameLength];
+            ByteStreams.readFully(in, name);
+            ContentCacheCodec codec = getCodec(new String(name, StandardCharsets.UTF_8));
+
+            long offset = MAGIC.length + 2 + nameLength;
+            long length = channel.size() - offset - TRAILER_LENGTH;
+            if (length < 0) {
+                throw new IOException("Cache file is truncated");
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+            channel.position(offset + length);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer) < 0) {
+                    throw new IOException("Cache file is truncated");
+                }
+            }
+            trailer.flip();
+            if (trailer.getLong() != length) {
+                throw new IOException("Cache file is truncated");
+            }
+            // verify the whole payload before decoding it, so the codec never sees corrupt input
+            CRC32 crc = new CRC32();
+            ByteStreams.exhaust(new CheckedInputStream(payload(channel, offset, length), crc));
+            if (trailer.getLong() != crc.getValue()) {
+                throw new IOException("Checksum mismatch");
+            }
+            return codec.decode(payload(channel, offset, length));
+        }
+    }
+
+    private static InputStream payload(FileChannel channel, long offset, long length) throws IOException {
+        channel.position(offset);
+        return ByteStreams.limit(new BufferedInputStream(Channels.newInputStream(channel)), length);
+    }
+
     protected void persistCache(ContentCache cache) {
 
         if (cache == null) {
@@ -105,15 +210,106 @@ public abstract class AbstractPersistingCachePersistenceStrategy
             return;
         }
         Path file = getCacheFile();
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = null;
+        try {
+            ContentCacheCodec codec = codecs.values().stream().filter(c -> c.supports(cache)).findFirst()
+                    .orElseThrow(() -> new IOException("No codec for " + cache.getClass().getName()));
+            LOGGER.debug("Serializing cache to {} using {}", file, codec.getName());
+            long start = System.nanoTime();
+            temp = Files.createTempFile(directory, CACHE_FILE, ".part");
+            write(cache, codec, temp);
+            long size = Files.size(temp);
+            move(temp, file);
+            sync(directory);
+            this.lastPersistDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            this.lastPersistSize = size;
+            this.persistCount.incrementAndGet();
+            LOGGER.debug("Serialized cache to {} ({} bytes) in {} ms", file, size, lastPersistDuration);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.error(String.format("Error serializing cache to '%s'", file), ex);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    LOGGER.warn("Error deleting temporary cache file '{}'", temp, e);
+                }
+            }
+        }
+    }
+
+    private void write(ContentCache cache, ContentCacheCodec codec, Path temp) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream os = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+            byte[] name = codec.getName().getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_CODEC_NAME_LENGTH) {
+                throw new IOException("Codec name too long: " + codec.getName());
+            }
+            os.write(MAGIC);
+            os.write(FORMAT_VERSION);
+            os.write(name.length);
+            os.write(name);
 
-        try (ObjectOutputStream oos = newObjectOutputStream(file)) {
-            LOGGER.debug("Serializing cache to {}", file);
-            oos.writeObject(cache);
+            CRC32 crc = new CRC32();
+            CountingOutputStream payload = new CountingOutputStream(new CheckedOutputStream(os, crc));
+            codec.encode(cache, payload);
+            payload.flush();
+
+            DataOutputStream trailer = new DataOutputStream(os);
+            trailer.writeLong(payload.getCount());
+            trailer.writeLong(crc.getValue());
+            trailer.flush();
+            channel.force(true);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void sync(Path directory) {
+        // not supported on every platform
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException ex) {
-            LOGGER.error(String.format("Error serializing cache to '%s'", file), ex);
+            LOGGER.trace("Could not sync directory {}", directory, ex);
         }
     }
 
+    private ContentCacheCodec getCodec(String name) throws IOException {
+        ContentCacheCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IOException("Unknown cache codec " + name);
+        }
+        return codec;
+    }
+
+    /**
+     * @return the time in milliseconds the last successful write of the cache file took
+     */
+    public long getLastPersistDuration() {
+        return lastPersistDuration;
+    }
+
+    /**
+     * @return the size in bytes of the last successfully written cache file
+     */
+    public long getLastPersistSize() {
+        return lastPersistSize;
+    }
+
+    /**
+     * @return the number of successful writes of the cache file
+     */
+    public long getPersistCount() {
+        return persistCount.get();
+    }
+
     protected Path getBasePath() {
         return isSetCacheFileFolder()
                        ? getCacheFileFolder().toAbsolutePath()
@@ -161,17 +357,21 @@ public abstract class AbstractPersistingCachePersistenceStrategy
         return cacheFileFolder != null && Files.exists(cacheFileFolder);
     }
 
-    private static ObjectInputStream newObjectInputStream(Path file) throws IOException {
-        InputStream is = Files.newInputStream(file);
-        BufferedInputStream bis = new BufferedInputStream(is);
-        ObjectInputStream ois = new ObjectInputStream(bis);
-        return ois;
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; ++i) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static ObjectOutputStream newObjectOutputStream(Path file) throws IOException {
-        OutputStream os = Files.newOutputStream(file, StandardOpenOption.CREATE);
-        BufferedOutputStream bos = new BufferedOutputStream(os);
-        ObjectOutputStream oos = new ObjectOutputStream(bos);
-        return oos;
+    private static Map<String, ContentCacheCodec> toMap(List<ContentCacheCodec> codecs) {
+        Map<String, ContentCacheCodec> map = new LinkedHashMap<>(codecs.size());
+        codecs.forEach(codec -> map.putIfAbsent(codec.getName(), codec));
+        return map;
     }
 }
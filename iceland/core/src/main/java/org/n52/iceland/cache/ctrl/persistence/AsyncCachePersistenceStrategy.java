@@ -63,12 +63,36 @@ public class AsyncCachePersistenceStrategy
 
     @Override
     public void persistOnPartialUpdate(ContentCache cache) {
-        this.cacheReference.set(cache);
+        schedule(cache);
     }
 
     @Override
     public void persistOnCompleteUpdate(ContentCache cache) {
-        this.cacheReference.set(cache);
+        schedule(cache);
+    }
+
+    /**
+     * Schedules the cache to be written with the next run of the persister. Replaces any cache that is not yet
+     * written, so that multiple updates within the write delay result in a single write.
+     *
+     * @param cache the cache
+     */
+    protected void schedule(ContentCache cache) {
+        if (this.cacheReference.getAndSet(cache) != null) {
+            LOGGER.trace("Coalesced cache persistence request");
+        }
+    }
+
+    /**
+     * Prepares the cache to be written. Called on the persister thread, so that the thread updating the cache does
+     * not have to wait for it.
+     *
+     * @param cache the cache
+     *
+     * @return the object to persist or {@code null} to try again with the next run
+     */
+    protected ContentCache prepare(ContentCache cache) {
+        return cache;
     }
 
     @Override
@@ -106,7 +130,12 @@ public class AsyncCachePersistenceStrategy
         public void run() {
             ContentCache cache = cacheReference.getAndSet(null);
             if (cache != null) {
-                persistCache(cache);
+                ContentCache prepared = prepare(cache);
+                if (prepared != null) {
+                    persistCache(prepared);
+                } else if (!cacheReference.compareAndSet(null, cache)) {
+                    LOGGER.trace("Skipped cache that was replaced in the meantime");
+                }
             }
             if (isReschedule()) {
                 executor.schedule(this, writeDelay, WRITE_DELAY_UNITS);
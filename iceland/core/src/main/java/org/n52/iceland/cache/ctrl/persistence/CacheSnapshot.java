@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.n52.iceland.cache.ContentCache;
+import org.n52.iceland.cache.SnapshotContentCache;
+
+/**
+ * A point-in-time copy of the sections of a {@link SnapshotContentCache}. Only the collections are copied, so that a
+ * snapshot is cheap to create compared to encoding the cache. Encoded by the {@link SnapshotContentCacheCodec} as if
+ * it were the original cache. Java serialization writes the restored original cache instead of the snapshot.
+ */
+public final class CacheSnapshot implements ContentCache {
+    private static final long serialVersionUID = 1L;
+    private final String type;
+    private final Map<String, Object> sections;
+
+    private CacheSnapshot(String type, Map<String, Object> sections) {
+        this.type = type;
+        this.sections = sections;
+    }
+
+    /**
+     * @return the class name of the cache
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the copied sections
+     */
+    public Map<String, Object> getSections() {
+        return Collections.unmodifiableMap(sections);
+    }
+
+    /**
+     * Creates a new instance of the original cache from the copied sections.
+     *
+     * @return the cache
+     *
+     * @throws IOException if the cache can not be instantiated
+     */
+    public SnapshotContentCache restore() throws IOException {
+        SnapshotContentCache cache = SnapshotContentCacheCodec.instantiate(type);
+        cache.restoreSnapshotSections(sections);
+        return cache;
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        try {
+            return restore();
+        } catch (IOException e) {
+            InvalidObjectException ex = new InvalidObjectException("Can not restore cache " + type);
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+
+    /**
+     * Creates a snapshot of the cache. The cache must not be modified concurrently.
+     *
+     * @param cache the cache
+     *
+     * @return the snapshot
+     */
+    public static CacheSnapshot of(SnapshotContentCache cache) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sections = (Map<String, Object>) copy(cache.getSnapshotSections());
+        return new CacheSnapshot(cache.getClass().getName(), sections);
+    }
+
+    /**
+     * Creates the sections of the cache in which only the named sections are copied. All other sections are shared
+     * with the cache. The cache must not be modified concurrently.
+     *
+     * @param cache the cache
+     * @param names the names of the sections to copy
+     *
+     * @return the sections
+     */
+    public static Map<String, Object> copySections(SnapshotContentCache cache, Set<String> names) {
+        Map<String, Object> sections = new LinkedHashMap<>(cache.getSnapshotSections());
+        sections.replaceAll((name, value) -> names.contains(name) ? copy(value) : value);
+        return sections;
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> copy = new LinkedHashMap<>(map.size());
+            map.forEach((k, v) -> copy.put(copy(k), copy(v)));
+            return copy;
+        } else if (value instanceof Set) {
+            Set<?> set = (Set<?>) value;
+            Set<Object> copy = new LinkedHashSet<>(set.size());
+            set.forEach(v -> copy.add(copy(v)));
+            return copy;
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            List<Object> copy = new ArrayList<>(collection.size());
+            collection.forEach(v -> copy.add(copy(v)));
+            return copy;
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        } else {
+            // strings, numbers and date times are immutable
+            return value;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.n52.iceland.cache.ContentCache;
+import org.n52.iceland.cache.WritableContentCache;
+
+/**
+ * Converts a {@link ContentCache} to and from the payload of a persisted cache file.
+ */
+public interface ContentCacheCodec {
+
+    /**
+     * @return the unique name of this codec that is stored in the cache file
+     */
+    String getName();
+
+    /**
+     * @param cache the cache
+     *
+     * @return if this codec is able to encode the cache
+     */
+    boolean supports(ContentCache cache);
+
+    /**
+     * Encodes the cache. The stream must not be closed.
+     *
+     * @param cache the cache
+     * @param out   the stream to write to
+     *
+     * @throws IOException if the cache can not be encoded
+     */
+    void encode(ContentCache cache, OutputStream out) throws IOException;
+
+    /**
+     * Decodes the cache. The stream ends with the encoded cache and must not be closed.
+     *
+     * @param in the stream to read from
+     *
+     * @return the cache
+     *
+     * @throws IOException if the payload can not be decoded
+     */
+    WritableContentCache decode(InputStream in) throws IOException;
+}
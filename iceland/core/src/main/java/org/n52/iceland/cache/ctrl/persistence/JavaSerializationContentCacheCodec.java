@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import org.n52.iceland.cache.ContentCache;
+import org.n52.iceland.cache.WritableContentCache;
+
+/**
+ * {@link ContentCacheCodec} using Java serialization. Supports every cache but is slow for large caches.
+ */
+public class JavaSerializationContentCacheCodec implements ContentCacheCodec {
+    public static final String NAME = "java-serialization";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(ContentCache cache) {
+        return true;
+    }
+
+    @Override
+    public void encode(ContentCache cache, OutputStream out) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(cache);
+        oos.flush();
+    }
+
+    @Override
+    public WritableContentCache decode(InputStream in) throws IOException {
+        try {
+            return (WritableContentCache) new ObjectInputStream(in).readObject();
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("Can not deserialize cache", ex);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.faroe.annotation.Configurable;
+import org.n52.iceland.cache.ContentCache;
+import org.n52.iceland.cache.SnapshotContentCache;
+
+/**
+ * {@link AsyncCachePersistenceStrategy} that takes a {@link CacheSnapshot} of the cache on the persister thread and
+ * encodes the snapshot. This way the persisted file reflects a consistent state of the cache even if it is updated in
+ * place, and neither copying nor encoding delays further updates. If the cache is modified while the snapshot is
+ * taken, it is taken again with the next run. Caches that are no {@link SnapshotContentCache} are written as by the
+ * {@link AsyncCachePersistenceStrategy}.
+ */
+@Configurable
+public class SnapshotCachePersistenceStrategy extends AsyncCachePersistenceStrategy {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotCachePersistenceStrategy.class);
+    private static final int SNAPSHOT_ATTEMPTS = 3;
+
+    @Override
+    protected ContentCache prepare(ContentCache cache) {
+        if (!(cache instanceof SnapshotContentCache)) {
+            return cache;
+        }
+        for (int attempt = 1; attempt <= SNAPSHOT_ATTEMPTS; ++attempt) {
+            try {
+                long start = System.nanoTime();
+                CacheSnapshot snapshot = CacheSnapshot.of((SnapshotContentCache) cache);
+                LOGGER.trace("Created cache snapshot in {} ms",
+                             TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return snapshot;
+            } catch (ConcurrentModificationException e) {
+                LOGGER.debug("Cache was modified while creating a snapshot (attempt {})", attempt);
+            }
+        }
+        LOGGER.warn("Could not create a consistent cache snapshot, trying again with the next run");
+        return null;
+    }
+}
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import org.n52.iceland.cache.ContentCache;
+import org.n52.iceland.cache.SnapshotContentCache;
+import org.n52.iceland.cache.WritableContentCache;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * {@link ContentCacheCodec} for {@link SnapshotContentCache}s and their {@link CacheSnapshot}s. Every string is stored
+ * once in a string table and referenced by its index; numbers, lengths and references are encoded as variable length
+ * integers. Every section is encoded independently so that the sections can be decoded in parallel.
+ *
+ * <pre>
+ * payload = version strings class-name-ref section-count section*
+ * strings = count (length utf-8-bytes)*
+ * section = name-ref length value
+ * value   = tag data
+ * </pre>
+ */
+public class SnapshotContentCacheCodec implements ContentCacheCodec {
+    public static final String NAME = "snapshot";
+    private static final int VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int TRUE = 2;
+    private static final int FALSE = 3;
+    private static final int INT = 4;
+    private static final int LONG = 5;
+    private static final int DOUBLE = 6;
+    private static final int DATE_TIME = 7;
+    private static final int BYTES = 8;
+    private static final int LIST = 9;
+    private static final int SET = 10;
+    private static final int MAP = 11;
+    private static final int STRING_LIST = 12;
+    private static final int STRING_SET = 13;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(ContentCache cache) {
+        return cache instanceof SnapshotContentCache || cache instanceof CacheSnapshot;
+    }
+
+    @Override
+    public void encode(ContentCache cache, OutputStream out) throws IOException {
+        Map<String, Object> sections;
+        String type;
+        if (cache instanceof CacheSnapshot) {
+            sections = ((CacheSnapshot) cache).getSections();
+            type = ((CacheSnapshot) cache).getType();
+        } else {
+            sections = ((SnapshotContentCache) cache).getSnapshotSections();
+            type = cache.getClass().getName();
+        }
+        StringTable strings = new StringTable();
+        int className = strings.intern(type);
+        List<Integer> names = new ArrayList<>(sections.size());
+        List<Buffer> values = new ArrayList<>(sections.size());
+        for (Map.Entry<String, Object> section : sections.entrySet()) {
+            Buffer value = new Buffer();
+            new Encoder(value, strings).writeValue(section.getValue());
+            names.add(strings.intern(section.getKey()));
+            values.add(value);
+        }
+
+        Buffer header = new Buffer();
+        header.writeVarint(VERSION);
+        header.writeVarint(strings.size());
+        for (String string : strings.getStrings()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            header.writeVarint(bytes.length);
+            header.write(bytes, 0, bytes.length);
+        }
+        header.writeVarint(className);
+        header.writeVarint(values.size());
+        header.writeTo(out);
+
+        for (int i = 0; i < values.size(); ++i) {
+            Buffer sectionHeader = new Buffer();
+            sectionHeader.writeVarint(names.get(i));
+            sectionHeader.writeVarint(values.get(i).size());
+            sectionHeader.writeTo(out);
+            values.get(i).writeTo(out);
+        }
+    }
+
+    @Override
+    public WritableContentCache decode(InputStream in) throws IOException {
+        int version = readLength(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        String[] strings = new String[readLength(in)];
+        for (int i = 0; i < strings.length; ++i) {
+            strings[i] = new String(readBytes(in, readLength(in)), StandardCharsets.UTF_8);
+        }
+        String className = readStringReference(in, strings);
+        int count = readLength(in);
+        // sections are decoded in parallel while the following ones are still read
+        Map<String, CompletableFuture<Object>> values = new LinkedHashMap<>();
+        for (int i = 0; i < count; ++i) {
+            String name = readStringReference(in, strings);
+            ByteBuffer section = ByteBuffer.wrap(readBytes(in, readLength(in)));
+            values.put(name, CompletableFuture.supplyAsync(() -> decodeSection(section, strings)));
+        }
+
+        Map<String, Object> restored = new LinkedHashMap<>(count);
+        try {
+            for (Map.Entry<String, CompletableFuture<Object>> value : values.entrySet()) {
+                restored.put(value.getKey(), value.getValue().join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+        SnapshotContentCache cache = instantiate(className);
+        cache.restoreSnapshotSections(restored);
+        return cache;
+    }
+
+    private static Object decodeSection(ByteBuffer section, String[] strings) {
+        try {
+            return new Decoder(section, strings).readValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new UncheckedIOException(new IOException("Malformed snapshot", e));
+        }
+    }
+
+    private static String readStringReference(InputStream in, String[] strings) throws IOException {
+        int index = readLength(in);
+        if (index >= strings.length) {
+            throw new IOException("Invalid string reference " + index);
+        }
+        return strings[index];
+    }
+
+    private static byte[] readBytes(InputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        ByteStreams.readFully(in, bytes);
+        return bytes;
+    }
+
+    private static int readLength(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return checkLength(value);
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    private static int checkLength(long value) throws IOException {
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length " + value);
+        }
+        return (int) value;
+    }
+
+    static SnapshotContentCache instantiate(String className) throws IOException {
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader == null) {
+                classLoader = SnapshotContentCacheCodec.class.getClassLoader();
+            }
+            // the name is read from the file, so do not initialize the class before it is known to be a cache
+            Class<?> type = Class.forName(className, false, classLoader);
+            if (!SnapshotContentCache.class.isAssignableFrom(type)) {
+                throw new IOException(className + " is not a " + SnapshotContentCache.class.getSimpleName());
+            }
+            return (SnapshotContentCache) type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Can not instantiate cache " + className, e);
+        }
+    }
+
+    /**
+     * Assigns every distinct string an index.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int intern(String string) {
+            return indices.computeIfAbsent(string, s -> {
+                strings.add(s);
+                return strings.size() - 1;
+            });
+        }
+
+        int size() {
+            return strings.size();
+        }
+
+        List<String> getStrings() {
+            return strings;
+        }
+    }
+
+    /**
+     * Byte buffer supporting variable length integers.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        void writeVarint(long value) {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            write((int) v);
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+    }
+
+    private static final class Encoder {
+        private final Buffer buffer;
+        private final StringTable strings;
+
+        Encoder(Buffer buffer, StringTable strings) {
+            this.buffer = buffer;
+            this.strings = strings;
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                buffer.write(NULL);
+            } else if (value instanceof String) {
+                buffer.write(STRING);
+                buffer.writeVarint(strings.intern((String) value));
+            } else if (value instanceof Boolean) {
+                buffer.write((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer) {
+                buffer.write(INT);
+                buffer.writeSignedVarint((Integer) value);
+            } else if (value instanceof Long) {
+                buffer.write(LONG);
+                buffer.writeSignedVarint((Long) value);
+            } else if (value instanceof Double) {
+                buffer.write(DOUBLE);
+                buffer.writeLong(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof DateTime) {
+                DateTime dateTime = (DateTime) value;
+                buffer.write(DATE_TIME);
+                buffer.writeSignedVarint(dateTime.getMillis());
+                buffer.writeVarint(strings.intern(dateTime.getZone().getID()));
+            } else if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+                buffer.write(BYTES);
+                buffer.writeVarint(bytes.length);
+                buffer.write(bytes, 0, bytes.length);
+            } else if (value instanceof Map) {
+                writeMap((Map<?, ?>) value);
+            } else if (value instanceof Collection) {
+                writeCollection((Collection<?>) value);
+            } else {
+                throw new IOException("Unsupported snapshot value of type " + value.getClass().getName());
+            }
+        }
+
+        private void writeMap(Map<?, ?> map) throws IOException {
+            // copy to get a consistent size for concurrently modified maps
+            Object[] entries = map.entrySet().toArray();
+            buffer.write(MAP);
+            buffer.writeVarint(entries.length);
+            for (Object entry : entries) {
+                writeValue(((Map.Entry<?, ?>) entry).getKey());
+                writeValue(((Map.Entry<?, ?>) entry).getValue());
+            }
+        }
+
+        private void writeCollection(Collection<?> collection) throws IOException {
+            // copy to get a consistent size for concurrently modified collections
+            Object[] elements = collection.toArray();
+            boolean set = collection instanceof Set;
+            if (allStrings(elements)) {
+                buffer.write(set ? STRING_SET : STRING_LIST);
+                buffer.writeVarint(elements.length);
+                for (Object element : elements) {
+                    buffer.writeVarint(strings.intern((String) element));
+                }
+            } else {
+                buffer.write(set ? SET : LIST);
+                buffer.writeVarint(elements.length);
+                for (Object element : elements) {
+                    writeValue(element);
+                }
+            }
+        }
+
+        private static boolean allStrings(Object[] elements) {
+            for (Object element : elements) {
+                if (!(element instanceof String)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+
+        Decoder(ByteBuffer buffer, String[] strings) {
+            this.buffer = buffer;
+            this.strings = strings;
+        }
+
+        Object readValue() throws IOException {
+            int tag = buffer.get() & 0xFF;
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readStringReference();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case INT:
+                    return (int) readSignedVarint();
+                case LONG:
+                    return readSignedVarint();
+                case DOUBLE:
+                    return Double.longBitsToDouble(buffer.getLong());
+                case DATE_TIME:
+                    long millis = readSignedVarint();
+                    return new DateTime(millis, DateTimeZone.forID(readStringReference()));
+                case BYTES:
+                    byte[] bytes = new byte[readLength()];
+                    buffer.get(bytes);
+                    return bytes;
+                case MAP:
+                    return readMap();
+                case LIST:
+                case STRING_LIST:
+                    int listSize = readLength();
+                    return readCollection(new ArrayList<>(capacity(listSize)), listSize, tag == STRING_LIST);
+                case SET:
+                case STRING_SET:
+                    int setSize = readLength();
+                    return readCollection(new LinkedHashSet<>(capacity(setSize)), setSize, tag == STRING_SET);
+                default:
+                    throw new IOException("Unknown snapshot value tag " + tag);
+            }
+        }
+
+        private Map<Object, Object> readMap() throws IOException {
+            int size = readLength();
+            Map<Object, Object> map = new LinkedHashMap<>(capacity(size));
+            for (int i = 0; i < size; ++i) {
+                Object key = readValue();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        private int capacity(int size) {
+            // every element takes at least one byte, do not trust the size of malformed input
+            return Math.min(size, buffer.remaining());
+        }
+
+        private Collection<Object> readCollection(Collection<Object> collection, int size, boolean onlyStrings)
+                throws IOException {
+            for (int i = 0; i < size; ++i) {
+                collection.add(onlyStrings ? readStringReference() : readValue());
+            }
+            return collection;
+        }
+
+        String readStringReference() throws IOException {
+            return strings[readLength()];
+        }
+
+        int readLength() throws IOException {
+            return checkLength(readVarint());
+        }
+
+        long readSignedVarint() throws IOException {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length integer");
+        }
+    }
+}
@@ -23,15 +23,16 @@ import java.util.Comparator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.n52.janmayen.ClassHelper;
 import org.n52.janmayen.Comparables;
 import org.n52.janmayen.Producer;
 import org.n52.janmayen.component.AbstractComponentRepository;
 import org.n52.janmayen.lifecycle.Constructable;
-import org.n52.shetland.util.CollectionHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 
 /**
@@ -46,8 +47,10 @@ public class ResponseWriterRepository
         extends AbstractComponentRepository<ResponseWriterKey, ResponseWriter<?>, ResponseWriterFactory>
         implements Constructable {
 
-    private final Map<ResponseWriterKey, Producer<ResponseWriter<?>>> writersByClass = CollectionHelper
-            .synchronizedMap();
+    private volatile Map<ResponseWriterKey, Producer<ResponseWriter<?>>> writers = Collections.emptyMap();
+
+    private volatile Map<ResponseWriterKey, Optional<Producer<ResponseWriter<?>>>> writersByClass
+            = new ConcurrentHashMap<>();
 
     @Autowired(required = false)
     private Optional<Collection<ResponseWriter<?>>> components = Optional.empty();
@@ -58,26 +61,31 @@ public class ResponseWriterRepository
     @Override
     public void init() {
         Map<ResponseWriterKey, Producer<ResponseWriter<?>>> implementations
-                = getUniqueProviders(this.components, this.componentFactories);
-        this.writersByClass.clear();
-        this.writersByClass.putAll(implementations);
+                = ImmutableMap.copyOf(getUniqueProviders(this.components, this.componentFactories));
+        Map<ResponseWriterKey, Optional<Producer<ResponseWriter<?>>>> resolved = new ConcurrentHashMap<>();
+        implementations.forEach((key, producer) -> resolved.put(key, Optional.of(producer)));
+        this.writers = implementations;
+        this.writersByClass = resolved;
     }
 
     @SuppressWarnings("unchecked")
     public <T> ResponseWriter<T> getWriter(Class<? extends T> clazz) {
         ResponseWriterKey key = new ResponseWriterKey(clazz);
-        if (!writersByClass.containsKey(key)) {
+        Map<ResponseWriterKey, Optional<Producer<ResponseWriter<?>>>> resolved = this.writersByClass;
+        Optional<Producer<ResponseWriter<?>>> producer = resolved.get(key);
+        if (producer == null) {
+            Map<ResponseWriterKey, Producer<ResponseWriter<?>>> declared = this.writers;
             Set<Class<?>> compatible = Sets.newHashSet();
-            for (ResponseWriterKey c : writersByClass.keySet()) {
+            for (ResponseWriterKey c : declared.keySet()) {
                 if (ClassHelper.getSimiliarity(c.getType(), clazz) >= 0) {
                     compatible.add(c.getType());
                 }
             }
-            writersByClass.put(key, writersByClass.get(chooseWriter(compatible, clazz)));
+            // cache misses as well, so unknown types are only scanned once
+            producer = Optional.ofNullable(chooseWriter(compatible, clazz)).map(declared::get);
+            resolved.putIfAbsent(key, producer);
         }
-        Producer<ResponseWriter<?>> producer = writersByClass.get(key);
-        return (ResponseWriter<T>) Optional.ofNullable(producer)
-                .map(Producer::get).orElse(null);
+        return (ResponseWriter<T>) producer.map(Producer::get).orElse(null);
     }
 
     private ResponseWriterKey chooseWriter(Set<Class<?>> compatible, Class<?> clazz) {
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.event.events;
+
+import org.joda.time.DateTime;
+
+import org.n52.iceland.cache.ContentCache;
+import org.n52.janmayen.event.Event;
+
+/**
+ * Event that is fired after an updated content cache was published.
+ */
+public class ContentCacheUpdatedEvent implements Event {
+    private final ContentCache cache;
+    private final DateTime updateTime;
+    private final boolean completeUpdate;
+
+    public ContentCacheUpdatedEvent(ContentCache cache, DateTime updateTime, boolean completeUpdate) {
+        this.cache = cache;
+        this.updateTime = updateTime;
+        this.completeUpdate = completeUpdate;
+    }
+
+    public ContentCache getCache() {
+        return cache;
+    }
+
+    public DateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public boolean isCompleteUpdate() {
+        return completeUpdate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ContentCacheUpdatedEvent[updateTime=%s, completeUpdate=%s]",
+                             getUpdateTime(), isCompleteUpdate());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.event.events;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.n52.iceland.service.RequestTimings;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Event is fired after a request was processed and carries the time spent in the phases of the processing. It is
+ * fired before the {@link OutgoingResponseEvent} of the request.
+ */
+public class RequestTimingEvent extends AbstractFlowEvent {
+
+    private final HttpServletRequest request;
+    private final long requestNumber;
+    private final RequestTimings timings;
+
+    public RequestTimingEvent(HttpServletRequest request, long requestNumber, RequestTimings timings) {
+        super(Thread.currentThread().getId());
+        this.request = request;
+        this.requestNumber = requestNumber;
+        this.timings = timings;
+    }
+
+    public HttpServletRequest getRequest() {
+        return request;
+    }
+
+    public long getRequestNumber() {
+        return requestNumber;
+    }
+
+    public RequestTimings getTimings() {
+        return timings;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects
+                .toStringHelper(this)
+                .add("request", this.request)
+                .add("requestNumber", this.requestNumber)
+                .add("timings", this.timings)
+                .toString();
+    }
+
+}
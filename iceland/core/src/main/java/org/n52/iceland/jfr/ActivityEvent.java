@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base class of events recording an activity that may fail.
+ */
+abstract class ActivityEvent extends Event implements Recording {
+
+    @Label("Outcome")
+    String outcome = FlightRecorderEvents.SUCCESS;
+
+    @Label("Error")
+    String error;
+
+    Recording start() {
+        begin();
+        return this;
+    }
+
+    @Override
+    public void failed(Throwable cause) {
+        outcome = FlightRecorderEvents.FAILURE;
+        if (error == null && cause != null) {
+            error = cause.getClass().getName();
+        }
+    }
+
+    @Override
+    public void close() {
+        commit();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.n52.iceland.CacheUpdate")
+@Label("Content Cache Update")
+@Description("A complete update or a batch of partial updates of the content cache")
+@Category(FlightRecorderEvents.CATEGORY)
+@StackTrace(false)
+final class CacheUpdateEvent extends ActivityEvent {
+
+    @Label("Complete Update")
+    boolean complete;
+
+    @Label("Updates")
+    int updates;
+
+    static Recording begin(boolean complete, int updates) {
+        CacheUpdateEvent event = new CacheUpdateEvent();
+        if (!event.isEnabled()) {
+            return Recording.NONE;
+        }
+        event.complete = complete;
+        event.updates = updates;
+        return event.start();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.n52.iceland.Encoding")
+@Label("Encoding")
+@Description("The invocation of an encoder or response writer")
+@Category(FlightRecorderEvents.CATEGORY)
+final class EncodingEvent extends ActivityEvent {
+
+    @Label("Encoder")
+    Class<?> encoder;
+
+    @Label("Object Type")
+    Class<?> objectType;
+
+    @Label("Content Type")
+    String contentType;
+
+    static Recording begin(Object encoder, Object subject, Object contentType) {
+        EncodingEvent event = new EncodingEvent();
+        if (!event.isEnabled()) {
+            return Recording.NONE;
+        }
+        event.encoder = encoder == null ? null : encoder.getClass();
+        event.objectType = subject == null ? null : subject.getClass();
+        event.contentType = contentType == null ? null : contentType.toString();
+        return event.start();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.n52.iceland.service.RequestTimings;
+import org.n52.janmayen.FlightRecording;
+import org.n52.shetland.ogc.ows.service.OwsOperationKey;
+
+/**
+ * Emits the custom JDK Flight Recorder events of the service. The events are only created if the runtime supports
+ * custom events and a recording has enabled them; otherwise the methods return no-op recordings and the event classes
+ * are never loaded.
+ * <p>
+ * All events belong to the category {@value #CATEGORY} and can be inspected in JDK Mission Control or by running
+ * {@code jfr print --categories Iceland recording.jfr} on the recording file.
+ */
+public final class FlightRecorderEvents {
+    static final String CATEGORY = "Iceland";
+    static final String SUCCESS = "success";
+    static final String FAILURE = "failure";
+    private static final boolean AVAILABLE = FlightRecording.isAvailable();
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return if the runtime supports custom flight recorder events
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Starts the recording of a service request.
+     *
+     * @param request the request
+     *
+     * @return the recording
+     */
+    public static RequestRecording beginRequest(HttpServletRequest request) {
+        return AVAILABLE ? ServiceRequestEvent.begin(request) : RequestRecording.NONE;
+    }
+
+    /**
+     * Starts the recording of the processing of an operation by a request operator.
+     *
+     * @param operation the operation
+     *
+     * @return the recording
+     */
+    public static Recording beginOperation(OwsOperationKey operation) {
+        return AVAILABLE ? OperationEvent.begin(operation) : Recording.NONE;
+    }
+
+    /**
+     * Starts the recording of an encoder or response writer invocation.
+     *
+     * @param encoder     the encoder or writer
+     * @param subject     the object to encode
+     * @param contentType the content type to encode to
+     *
+     * @return the recording
+     */
+    public static Recording beginEncoding(Object encoder, Object subject, Object contentType) {
+        return AVAILABLE ? EncodingEvent.begin(encoder, subject, contentType) : Recording.NONE;
+    }
+
+    /**
+     * Starts the recording of a content cache update.
+     *
+     * @param complete if the cache is replaced completely
+     * @param updates  the number of updates that are applied
+     *
+     * @return the recording
+     */
+    public static Recording beginCacheUpdate(boolean complete, int updates) {
+        return AVAILABLE ? CacheUpdateEvent.begin(complete, updates) : Recording.NONE;
+    }
+
+    /**
+     * Records the change of a setting. Only the key is recorded, as values may be confidential.
+     *
+     * @param key     the key of the setting
+     * @param deleted if the setting was deleted
+     */
+    public static void settingChanged(String key, boolean deleted) {
+        if (AVAILABLE) {
+            SettingChangeEvent.emit(key, deleted);
+        }
+    }
+
+    /**
+     * The recording of a request.
+     */
+    @FunctionalInterface
+    public interface RequestRecording {
+        /**
+         * A recording that records nothing.
+         */
+        RequestRecording NONE = (timings, response) -> {
+        };
+
+        /**
+         * Ends the recording.
+         *
+         * @param timings  the timings of the request
+         * @param response the response
+         */
+        void finish(RequestTimings timings, HttpServletResponse response);
+    }
+
+    /**
+     * The recording of an activity, committed when it is closed.
+     */
+    public interface Recording extends AutoCloseable {
+        /**
+         * A recording that records nothing.
+         */
+        Recording NONE = new Recording() {
+            @Override
+            public void failed(Throwable cause) {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        /**
+         * Marks the activity as failed.
+         *
+         * @param cause the cause
+         */
+        void failed(Throwable cause);
+
+        @Override
+        void close();
+    }
+}
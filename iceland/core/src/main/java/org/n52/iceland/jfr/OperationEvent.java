@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
+import org.n52.shetland.ogc.ows.service.OwsOperationKey;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.n52.iceland.Operation")
+@Label("Operation")
+@Description("The processing of a decoded request by its request operator")
+@Category(FlightRecorderEvents.CATEGORY)
+@StackTrace(false)
+final class OperationEvent extends ActivityEvent {
+
+    @Label("Service")
+    String service;
+
+    @Label("Version")
+    String version;
+
+    @Label("Operation")
+    String operation;
+
+    static Recording begin(OwsOperationKey key) {
+        OperationEvent event = new OperationEvent();
+        if (!event.isEnabled()) {
+            return Recording.NONE;
+        }
+        event.service = key.getService();
+        event.version = key.getVersion();
+        event.operation = key.getOperation();
+        return event.start();
+    }
+}
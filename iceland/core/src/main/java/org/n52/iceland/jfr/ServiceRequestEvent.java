@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.n52.iceland.jfr.FlightRecorderEvents.RequestRecording;
+import org.n52.iceland.service.RequestTimings;
+import org.n52.shetland.ogc.ows.service.OwsOperationKey;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("org.n52.iceland.ServiceRequest")
+@Label("Service Request")
+@Description("A request received by the service, from its arrival until the response was written")
+@Category(FlightRecorderEvents.CATEGORY)
+@StackTrace(false)
+final class ServiceRequestEvent extends Event implements RequestRecording {
+    private static final int MIN_ERROR_STATUS = 400;
+
+    @Label("Method")
+    String method;
+
+    @Label("Service")
+    String service;
+
+    @Label("Version")
+    String version;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Binding")
+    String binding;
+
+    @Label("Content Type")
+    String contentType;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytes;
+
+    @Label("Content Encoding")
+    String contentEncoding;
+
+    @Label("Uncompressed Bytes")
+    @DataAmount
+    long uncompressedBytes;
+
+    @Label("Compression Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long compressionTime;
+
+    @Label("Status")
+    int status;
+
+    @Label("Outcome")
+    String outcome;
+
+    static RequestRecording begin(HttpServletRequest request) {
+        ServiceRequestEvent event = new ServiceRequestEvent();
+        if (!event.isEnabled()) {
+            return RequestRecording.NONE;
+        }
+        event.method = request.getMethod();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void finish(RequestTimings timings, HttpServletResponse response) {
+        end();
+        if (shouldCommit()) {
+            OwsOperationKey key = timings.getOperation();
+            if (key != null) {
+                service = key.getService();
+                version = key.getVersion();
+                operation = key.getOperation();
+            }
+            binding = timings.getBinding();
+            contentType = timings.getResponseFormat();
+            bytes = Math.max(timings.getBytesWritten(), 0);
+            contentEncoding = timings.getContentEncoding();
+            uncompressedBytes = Math.max(timings.getUncompressedBytes(), 0);
+            compressionTime = timings.getCompressionTime(TimeUnit.NANOSECONDS);
+            status = response.getStatus();
+            outcome = status < MIN_ERROR_STATUS ? FlightRecorderEvents.SUCCESS : FlightRecorderEvents.FAILURE;
+            commit();
+        }
+    }
+}
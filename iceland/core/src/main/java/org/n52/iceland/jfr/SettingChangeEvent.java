@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.n52.iceland.SettingChange")
+@Label("Setting Change")
+@Description("The change of a setting that reconfigured the service")
+@Category(FlightRecorderEvents.CATEGORY)
+final class SettingChangeEvent extends Event {
+
+    @Label("Key")
+    String key;
+
+    @Label("Deleted")
+    boolean deleted;
+
+    static void emit(String key, boolean deleted) {
+        SettingChangeEvent event = new SettingChangeEvent();
+        if (event.isEnabled()) {
+            event.key = key;
+            event.deleted = deleted;
+            event.commit();
+        }
+    }
+}
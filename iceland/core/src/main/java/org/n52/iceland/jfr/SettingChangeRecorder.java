@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.n52.faroe.SettingsChangeEvent;
+import org.n52.janmayen.event.Event;
+import org.n52.janmayen.event.EventListener;
+
+/**
+ * Records changes of settings as flight recorder events.
+ */
+public class SettingChangeRecorder implements EventListener {
+    private static final Set<Class<? extends Event>> TYPES = Collections.singleton(SettingsChangeEvent.class);
+
+    @Override
+    public Set<Class<? extends Event>> getTypes() {
+        return FlightRecorderEvents.isAvailable() ? TYPES : Collections.emptySet();
+    }
+
+    @Override
+    public void handle(Event event) {
+        SettingsChangeEvent<?> change = (SettingsChangeEvent<?>) event;
+        FlightRecorderEvents.settingChanged(change.getSetting().getKey(), !change.hasNewValue());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of durations with log-linear buckets, similar to a HdrHistogram. Durations are recorded with
+ * microsecond resolution; every power of two is divided into 16 buckets, so the relative error of a reported
+ * value is below 1/16. Durations of more than about 19 hours are recorded in the last bucket.
+ * <p>
+ * Recording only increments a few counters and is cheap enough to be done for every request.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final double PERCENT = 100.0;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a duration.
+     *
+     * @param duration the duration
+     * @param unit     the unit of the duration
+     */
+    public void record(long duration, TimeUnit unit) {
+        long micros = Math.min(Math.max(unit.toMicros(duration), 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(micros));
+        count.increment();
+        sum.add(micros);
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @param unit the unit
+     *
+     * @return the sum of the recorded durations
+     */
+    public long getSum(TimeUnit unit) {
+        return unit.convert(sum.sum(), TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Gets the number of recorded durations that are less than or equal to each of the specified bounds. As durations
+     * are only known up to their bucket, a bucket is counted if its upper end does not exceed the bound.
+     *
+     * @param bounds the bounds in ascending order
+     * @param unit   the unit of the bounds
+     *
+     * @return the cumulative number of durations for each bound
+     */
+    public long[] getCountsAtOrBelow(long[] bounds, TimeUnit unit) {
+        long[] result = new long[bounds.length];
+        long cumulative = 0;
+        int bucket = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            long micros = unit.toMicros(bounds[i]);
+            while (bucket < BUCKETS && upperBoundOf(bucket) - 1 <= micros) {
+                cumulative += counts.get(bucket++);
+            }
+            result[i] = cumulative;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the duration that the specified percentage of the recorded durations do not exceed.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @param unit       the unit of the returned duration
+     *
+     * @return the duration or {@code 0} if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit unit) {
+        if (percentile < 0 || percentile > PERCENT) {
+            throw new IllegalArgumentException("percentile has to be between 0 and 100: " + percentile);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / PERCENT * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return unit.convert(upperBoundOf(i) - 1, TimeUnit.MICROSECONDS);
+            }
+        }
+        return unit.convert(MAX_VALUE, TimeUnit.MICROSECONDS);
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (micros >> shift) - SUB_BUCKETS;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS + 1) << shift;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.n52.janmayen.http.HTTPStatus;
+
+/**
+ * Exposes the {@link MetricsRegistry} in the Prometheus text exposition format. The endpoint is not authenticated and
+ * therefore disabled by default, in which case it responds with {@code 404 Not Found}.
+ */
+@Configurable
+@Controller
+@RequestMapping(value = "/metrics")
+public class MetricsController {
+    public static final String ENABLED = "metrics.prometheus.enabled";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private boolean enabled;
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Setting(value = ENABLED, required = false)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    public void get(HttpServletResponse response) throws IOException {
+        if (!enabled) {
+            response.sendError(HTTPStatus.NOT_FOUND.getCode());
+            return;
+        }
+        response.setContentType(CONTENT_TYPE);
+        try (Writer writer = response.getWriter()) {
+            registry.write(writer);
+        }
+    }
+}
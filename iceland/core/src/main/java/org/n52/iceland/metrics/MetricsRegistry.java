@@ -0,0 +1,384 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import javax.inject.Inject;
+
+import org.n52.iceland.event.events.ContentCacheUpdatedEvent;
+import org.n52.iceland.event.events.ExceptionEvent;
+import org.n52.iceland.event.events.RequestTimingEvent;
+import org.n52.iceland.exception.HTTPException;
+import org.n52.iceland.service.RequestTimings;
+import org.n52.janmayen.event.Event;
+import org.n52.janmayen.event.EventBus;
+import org.n52.janmayen.event.EventListener;
+import org.n52.shetland.ogc.ows.exception.CodedException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.OwsOperationKey;
+
+/**
+ * In-process registry of service metrics that can be exported in the Prometheus text format. It records
+ * <ul>
+ * <li>the latency of requests and the number of response bytes per service, version, operation, binding and response
+ * format,</li>
+ * <li>the number of errors per exception code and HTTP status,</li>
+ * <li>the number of bytes before and after compression and the time spent compressing per content coding,</li>
+ * <li>the number of pending and dropped events of the {@link EventBus} and the age of the content cache,</li>
+ * <li>and any further gauge registered using {@link #registerGauge(String, String, DoubleSupplier)}.</li>
+ * </ul>
+ * Requests are recorded from {@link RequestTimingEvent}s. Recording only increments counters and is cheap enough to
+ * stay enabled in production.
+ */
+public class MetricsRegistry implements EventListener {
+    private static final String PREFIX = "iceland_";
+    private static final String REQUEST_DURATION = PREFIX + "request_duration_seconds";
+    private static final String RESPONSE_BYTES = PREFIX + "response_bytes_total";
+    private static final String ERRORS = PREFIX + "errors_total";
+    private static final String HTTP_ERRORS = PREFIX + "http_errors_total";
+    private static final String COMPRESSION_INPUT = PREFIX + "compression_input_bytes_total";
+    private static final String COMPRESSION_OUTPUT = PREFIX + "compression_output_bytes_total";
+    private static final String COMPRESSION_TIME = PREFIX + "compression_seconds_total";
+    private static final String GAUGE = "gauge";
+    private static final String COUNTER = "counter";
+    private static final String UNKNOWN = "";
+    private static final double MICROS_PER_SECOND = TimeUnit.SECONDS.toMicros(1);
+    private static final double MILLIS_PER_SECOND = TimeUnit.SECONDS.toMillis(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long[] BUCKETS = { 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000,
+                                            1000000, 2500000, 5000000, 10000000, 30000000, 60000000 };
+    private static final Set<Class<? extends Event>> TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            RequestTimingEvent.class, ExceptionEvent.class, ContentCacheUpdatedEvent.class)));
+    private final ConcurrentMap<RequestKey, RequestMetrics> requests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, LongAdder> httpErrors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompressionMetrics> compression = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+    private volatile long lastCacheUpdate = -1;
+
+    public MetricsRegistry() {
+        registerGauge(PREFIX + "cache_age_seconds", "Time since the last update of the content cache",
+                      this::getCacheAge);
+    }
+
+    @Inject
+    public void setEventBus(EventBus eventBus) {
+        registerGauge(PREFIX + "eventbus_pending_events", "Number of events waiting for asynchronous delivery",
+                      eventBus::getPendingEvents);
+        registerCounter(PREFIX + "eventbus_dropped_events_total", "Number of events dropped because of full queues",
+                        eventBus::getDroppedEvents);
+    }
+
+    /**
+     * Registers a gauge whose value is read whenever the metrics are exported. An existing gauge with the same name
+     * is replaced.
+     *
+     * @param name  the name of the metric
+     * @param help  the description of the metric
+     * @param value the supplier of the value
+     */
+    public void registerGauge(String name, String help, DoubleSupplier value) {
+        gauges.put(name, new Gauge(GAUGE, help, value));
+    }
+
+    /**
+     * Registers a monotonically increasing value that is read whenever the metrics are exported. An existing gauge
+     * with the same name is replaced.
+     *
+     * @param name  the name of the metric
+     * @param help  the description of the metric
+     * @param value the supplier of the value
+     */
+    public void registerCounter(String name, String help, DoubleSupplier value) {
+        gauges.put(name, new Gauge(COUNTER, help, value));
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public void handle(Event event) {
+        if (event instanceof RequestTimingEvent) {
+            record(((RequestTimingEvent) event).getTimings());
+        } else if (event instanceof ExceptionEvent) {
+            record(((ExceptionEvent) event).getException());
+        } else if (event instanceof ContentCacheUpdatedEvent) {
+            lastCacheUpdate = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Records the latency, the response size and the compression of a request.
+     *
+     * @param timings the timings of the request
+     */
+    public void record(RequestTimings timings) {
+        RequestKey key = new RequestKey(timings.getOperation(), timings.getBinding(), timings.getResponseFormat());
+        RequestMetrics metrics = requests.get(key);
+        if (metrics == null) {
+            metrics = requests.computeIfAbsent(key, k -> new RequestMetrics());
+        }
+        metrics.latency.record(timings.getTotal(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        if (timings.getBytesWritten() > 0) {
+            metrics.bytes.add(timings.getBytesWritten());
+        }
+        if (timings.getContentEncoding() != null) {
+            CompressionMetrics encoding = compression.computeIfAbsent(timings.getContentEncoding(),
+                                                                     k -> new CompressionMetrics());
+            encoding.input.add(timings.getUncompressedBytes());
+            encoding.output.add(Math.max(timings.getBytesWritten(), 0));
+            encoding.nanos.add(timings.getCompressionTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * Records an error. The exceptions of an {@link OwsExceptionReport} are counted by their code, an
+     * {@link HTTPException} by its status.
+     *
+     * @param exception the exception
+     */
+    public void record(Exception exception) {
+        if (exception instanceof OwsExceptionReport) {
+            for (CodedException e : ((OwsExceptionReport) exception).getExceptions()) {
+                String code = e.getCode() == null ? UNKNOWN : e.getCode().toString();
+                errors.computeIfAbsent(code, k -> new LongAdder()).increment();
+            }
+        } else if (exception instanceof HTTPException) {
+            int status = ((HTTPException) exception).getStatus().getCode();
+            httpErrors.computeIfAbsent(status, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * @param service   the service
+     * @param version   the version
+     * @param operation the operation
+     * @param binding   the binding
+     * @param format    the response format
+     *
+     * @return the latency histogram of the requests or {@code null} if no such request was recorded
+     */
+    public LatencyHistogram getLatency(String service, String version, String operation, String binding,
+                                       String format) {
+        RequestMetrics metrics = requests.get(new RequestKey(service, version, operation, binding, format));
+        return metrics == null ? null : metrics.latency;
+    }
+
+    private double getCacheAge() {
+        long last = lastCacheUpdate;
+        return last < 0 ? Double.NaN : (System.currentTimeMillis() - last) / MILLIS_PER_SECOND;
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format.
+     *
+     * @param writer the writer
+     *
+     * @throws IOException if writing fails
+     */
+    public void write(Writer writer) throws IOException {
+        writeHeader(writer, REQUEST_DURATION, "histogram", "Time to process a request");
+        for (Map.Entry<RequestKey, RequestMetrics> entry : requests.entrySet()) {
+            writeHistogram(writer, entry.getKey(), entry.getValue().latency);
+        }
+        writeHeader(writer, RESPONSE_BYTES, COUNTER, "Number of bytes written for response bodies");
+        for (Map.Entry<RequestKey, RequestMetrics> entry : requests.entrySet()) {
+            writeSample(writer, RESPONSE_BYTES, entry.getKey().getLabels(), entry.getValue().bytes.sum());
+        }
+        writeHeader(writer, COMPRESSION_INPUT, COUNTER, "Number of response body bytes before compression");
+        for (Map.Entry<String, CompressionMetrics> entry : compression.entrySet()) {
+            writeSample(writer, COMPRESSION_INPUT, labels("encoding", entry.getKey()), entry.getValue().input.sum());
+        }
+        writeHeader(writer, COMPRESSION_OUTPUT, COUNTER, "Number of response body bytes after compression");
+        for (Map.Entry<String, CompressionMetrics> entry : compression.entrySet()) {
+            writeSample(writer, COMPRESSION_OUTPUT, labels("encoding", entry.getKey()),
+                        entry.getValue().output.sum());
+        }
+        writeHeader(writer, COMPRESSION_TIME, COUNTER, "Time spent compressing response bodies");
+        for (Map.Entry<String, CompressionMetrics> entry : compression.entrySet()) {
+            writeSample(writer, COMPRESSION_TIME, labels("encoding", entry.getKey()),
+                        entry.getValue().nanos.sum() / NANOS_PER_SECOND);
+        }
+        writeHeader(writer, ERRORS, COUNTER, "Number of exceptions reported by exception code");
+        for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+            writeSample(writer, ERRORS, labels("code", entry.getKey()), entry.getValue().sum());
+        }
+        writeHeader(writer, HTTP_ERRORS, COUNTER, "Number of HTTP errors by status");
+        for (Map.Entry<Integer, LongAdder> entry : httpErrors.entrySet()) {
+            writeSample(writer, HTTP_ERRORS, labels("status", entry.getKey().toString()), entry.getValue().sum());
+        }
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            Gauge gauge = entry.getValue();
+            writeHeader(writer, entry.getKey(), gauge.type, gauge.help);
+            writeSample(writer, entry.getKey(), "", gauge.value.getAsDouble());
+        }
+        writer.flush();
+    }
+
+    private void writeHistogram(Writer writer, RequestKey key, LatencyHistogram histogram) throws IOException {
+        String bucket = REQUEST_DURATION + "_bucket";
+        String labels = key.getLabels();
+        String prefix = labels.substring(0, labels.length() - 1) + ",le=\"";
+        long[] counts = histogram.getCountsAtOrBelow(BUCKETS, TimeUnit.MICROSECONDS);
+        long count = histogram.getCount();
+        for (int i = 0; i < BUCKETS.length; i++) {
+            writeSample(writer, bucket, prefix + format(BUCKETS[i] / MICROS_PER_SECOND) + "\"}", counts[i]);
+        }
+        writeSample(writer, bucket, prefix + "+Inf\"}", count);
+        writeSample(writer, REQUEST_DURATION + "_sum", labels,
+                    histogram.getSum(TimeUnit.MICROSECONDS) / MICROS_PER_SECOND);
+        writeSample(writer, REQUEST_DURATION + "_count", labels, count);
+    }
+
+    private static void writeHeader(Writer writer, String name, String type, String help) throws IOException {
+        writer.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        writer.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(Writer writer, String name, String labels, long value) throws IOException {
+        writer.append(name).append(labels).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    private static void writeSample(Writer writer, String name, String labels, double value) throws IOException {
+        writer.append(name).append(labels).append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    private static String labels(String... namesAndValues) {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(namesAndValues[i]).append("=\"").append(escape(namesAndValues[i + 1])).append('"');
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? UNKNOWN : value;
+    }
+
+    private static String stripParameters(String contentType) {
+        if (contentType == null) {
+            return UNKNOWN;
+        }
+        int idx = contentType.indexOf(';');
+        return (idx < 0 ? contentType : contentType.substring(0, idx)).trim();
+    }
+
+    private static final class RequestKey {
+        private final String service;
+        private final String version;
+        private final String operation;
+        private final String binding;
+        private final String format;
+        private String labels;
+
+        RequestKey(OwsOperationKey operation, String binding, String format) {
+            this(operation == null ? null : operation.getService(),
+                 operation == null ? null : operation.getVersion(),
+                 operation == null ? null : operation.getOperation(),
+                 binding, stripParameters(format));
+        }
+
+        RequestKey(String service, String version, String operation, String binding, String format) {
+            this.service = nullToEmpty(service);
+            this.version = nullToEmpty(version);
+            this.operation = nullToEmpty(operation);
+            this.binding = nullToEmpty(binding);
+            this.format = nullToEmpty(format);
+        }
+
+        String getLabels() {
+            if (labels == null) {
+                labels = labels("service", service, "version", version, "operation", operation,
+                                "binding", binding, "format", format);
+            }
+            return labels;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(service, version, operation, binding, format);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            RequestKey that = (RequestKey) obj;
+            return service.equals(that.service) && version.equals(that.version) &&
+                   operation.equals(that.operation) && binding.equals(that.binding) && format.equals(that.format);
+        }
+    }
+
+    private static final class RequestMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder bytes = new LongAdder();
+    }
+
+    private static final class CompressionMetrics {
+        private final LongAdder input = new LongAdder();
+        private final LongAdder output = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    private static final class Gauge {
+        private final String type;
+        private final String help;
+        private final DoubleSupplier value;
+
+        Gauge(String type, String help, DoubleSupplier value) {
+            this.type = type;
+            this.help = help;
+            this.value = value;
+        }
+    }
+}
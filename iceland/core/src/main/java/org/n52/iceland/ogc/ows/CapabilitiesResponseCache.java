@@ -0,0 +1,356 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.ogc.ows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.faroe.ConfigurationError;
+import org.n52.faroe.SettingsChangeEvent;
+import org.n52.faroe.Validation;
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.n52.iceland.event.events.ContentCacheUpdatedEvent;
+import org.n52.iceland.response.ServiceResponse;
+import org.n52.iceland.util.http.HttpUtils;
+import org.n52.janmayen.event.Event;
+import org.n52.janmayen.event.EventListener;
+import org.n52.janmayen.http.HTTPHeaders;
+import org.n52.janmayen.http.HTTPStatus;
+import org.n52.janmayen.http.MediaType;
+import org.n52.shetland.ogc.ows.OwsCapabilities;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Cache for capabilities documents. The capabilities are cached per service, version, requested sections, language
+ * and response format and are invalidated if the content cache or a setting, e.g. the service metadata, is updated.
+ * Every invalidation starts a new update sequence that is reported in the capabilities and used as the
+ * {@code Last-Modified} date of the encoded documents.
+ * <p>
+ * Cached {@link OwsCapabilities} are shared between requests and must not be modified. The cache is therefore
+ * disabled by default and should only be enabled if no request/response modifier alters the capabilities.
+ */
+@Configurable
+public class CapabilitiesResponseCache implements EventListener {
+    public static final String ENABLED = "service.capabilities.cache.enabled";
+    public static final String SIZE = "service.capabilities.cache.size";
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapabilitiesResponseCache.class);
+    private static final DateTimeFormatter UPDATE_SEQUENCE_FORMAT = ISODateTimeFormat.dateTime().withZoneUTC();
+    private static final int DEFAULT_SIZE = 100;
+    private static final Set<Class<? extends Event>> EVENT_TYPES
+            = ImmutableSet.of(ContentCacheUpdatedEvent.class, SettingsChangeEvent.class);
+
+    private volatile boolean enabled;
+    private volatile int size = DEFAULT_SIZE;
+    private volatile Generation generation = new Generation(DateTime.now(), DEFAULT_SIZE);
+
+    @Setting(value = ENABLED, required = false)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        invalidate(DateTime.now());
+    }
+
+    @Setting(value = SIZE, required = false)
+    public void setSize(int size) throws ConfigurationError {
+        Validation.greaterZero("Capabilities cache size", size);
+        this.size = size;
+        invalidate(DateTime.now());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the current update sequence
+     */
+    public String getUpdateSequence() {
+        return generation.getUpdateSequence();
+    }
+
+    /**
+     * @return the time of the last invalidation
+     */
+    public DateTime getLastModified() {
+        return generation.getLastModified();
+    }
+
+    /**
+     * Compares an update sequence supplied by a client with the current one.
+     *
+     * @param updateSequence the update sequence of the client
+     *
+     * @return a negative integer, zero, or a positive integer as the client's update sequence is older than, equal to,
+     *         or newer than the current one
+     *
+     * @throws IllegalArgumentException if the update sequence is not a valid update sequence of this service
+     */
+    public int compareUpdateSequence(String updateSequence) {
+        DateTime time = UPDATE_SEQUENCE_FORMAT.parseDateTime(updateSequence);
+        return time.compareTo(generation.getLastModified());
+    }
+
+    /**
+     * Get the capabilities for the specified key or creates them.
+     *
+     * @param key    the key
+     * @param loader the loader of the capabilities
+     *
+     * @return the capabilities
+     *
+     * @throws OwsExceptionReport if the loader fails
+     */
+    public OwsCapabilities getCapabilities(CapabilitiesKey key, CapabilitiesLoader loader)
+            throws OwsExceptionReport {
+        Generation current = this.generation;
+        if (!enabled) {
+            return loader.load(current.getUpdateSequence());
+        }
+        try {
+            return current.getCapabilities(key, loader);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OwsExceptionReport) {
+                throw (OwsExceptionReport) e.getCause();
+            }
+            throw new NoApplicableCodeException().causedBy(e.getCause())
+                    .withMessage("Could not create capabilities");
+        } catch (UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    /**
+     * Get the encoded representation of capabilities that were created by this cache.
+     *
+     * @param capabilities the capabilities
+     * @param contentType  the response format
+     * @param encoder      the encoder of the capabilities
+     *
+     * @return the encoded capabilities or {@code null} if the capabilities are not cached (anymore)
+     *
+     * @throws IOException if the encoder fails
+     */
+    public ServiceResponse getResponse(OwsCapabilities capabilities, MediaType contentType,
+                                       EncodingFunction encoder) throws IOException {
+        Generation current = this.generation;
+        if (!enabled) {
+            return null;
+        }
+        Map<MediaType, EncodedCapabilities> encodings = current.getEncodings(capabilities);
+        if (encodings == null) {
+            return null;
+        }
+        EncodedCapabilities encoded = encodings.get(contentType);
+        if (encoded == null) {
+            ServiceResponse response = encoder.encode();
+            if (response == null || response.getStatus() != HTTPStatus.OK) {
+                return null;
+            }
+            encoded = new EncodedCapabilities(response);
+            encodings.put(contentType, encoded);
+        }
+        return encoded.toResponse(current.getLastModified());
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getTypes() {
+        return EVENT_TYPES;
+    }
+
+    @Override
+    public void handle(Event event) {
+        if (event instanceof ContentCacheUpdatedEvent) {
+            invalidate(((ContentCacheUpdatedEvent) event).getUpdateTime());
+        } else {
+            // settings include the service identification and provider
+            invalidate(DateTime.now());
+        }
+    }
+
+    private void invalidate(DateTime time) {
+        synchronized (this) {
+            // keep the update sequence strictly increasing
+            DateTime lastModified = time;
+            DateTime previous = this.generation.getLastModified();
+            if (!lastModified.isAfter(previous)) {
+                lastModified = previous.plusMillis(1);
+            }
+            LOGGER.debug("Invalidating cached capabilities, new update sequence {}", lastModified);
+            this.generation = new Generation(lastModified, this.size);
+        }
+    }
+
+    /**
+     * Creates capabilities.
+     */
+    @FunctionalInterface
+    public interface CapabilitiesLoader {
+        /**
+         * @param updateSequence the update sequence to report
+         *
+         * @return the capabilities
+         *
+         * @throws OwsExceptionReport if the capabilities can not be created
+         */
+        OwsCapabilities load(String updateSequence) throws OwsExceptionReport;
+    }
+
+    /**
+     * Encodes capabilities into a buffered response.
+     */
+    @FunctionalInterface
+    public interface EncodingFunction {
+        /**
+         * @return the encoded capabilities or {@code null} if they can not be encoded
+         *
+         * @throws IOException if the encoding fails
+         */
+        ServiceResponse encode() throws IOException;
+    }
+
+    /**
+     * The key of a capabilities document.
+     */
+    public static class CapabilitiesKey {
+        private final String service;
+        private final String version;
+        private final Set<String> sections;
+        private final Locale locale;
+
+        public CapabilitiesKey(String service, String version, Set<?> sections, Locale locale) {
+            this.service = service;
+            this.version = version;
+            this.sections = new TreeSet<>();
+            sections.forEach(section -> this.sections.add(String.valueOf(section)));
+            this.locale = locale;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(service, version, sections, locale);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            CapabilitiesKey that = (CapabilitiesKey) obj;
+            return Objects.equals(this.service, that.service) &&
+                   Objects.equals(this.version, that.version) &&
+                   Objects.equals(this.sections, that.sections) &&
+                   Objects.equals(this.locale, that.locale);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CapabilitiesKey[service=%s, version=%s, sections=%s, locale=%s]",
+                                 service, version, sections, locale);
+        }
+    }
+
+    /**
+     * The cached capabilities between two invalidations.
+     */
+    private static class Generation {
+        private final DateTime lastModified;
+        private final String updateSequence;
+        private final Cache<CapabilitiesKey, OwsCapabilities> capabilities;
+        private final Cache<OwsCapabilities, Map<MediaType, EncodedCapabilities>> encodings;
+
+        Generation(DateTime lastModified, int size) {
+            this.lastModified = lastModified.withZone(DateTimeZone.UTC);
+            this.updateSequence = UPDATE_SEQUENCE_FORMAT.print(this.lastModified);
+            this.capabilities = CacheBuilder.newBuilder().maximumSize(size).build();
+            // identity based, entries vanish with the evicted capabilities
+            this.encodings = CacheBuilder.newBuilder().weakKeys().build();
+        }
+
+        DateTime getLastModified() {
+            return lastModified;
+        }
+
+        String getUpdateSequence() {
+            return updateSequence;
+        }
+
+        OwsCapabilities getCapabilities(CapabilitiesKey key, CapabilitiesLoader loader)
+                throws ExecutionException {
+            return this.capabilities.get(key, () -> {
+                OwsCapabilities created = loader.load(this.updateSequence);
+                this.encodings.put(created, new ConcurrentHashMap<>());
+                return created;
+            });
+        }
+
+        Map<MediaType, EncodedCapabilities> getEncodings(OwsCapabilities caps) {
+            return this.encodings.getIfPresent(caps);
+        }
+    }
+
+    /**
+     * An encoded capabilities document.
+     */
+    private static class EncodedCapabilities {
+        private final byte[] content;
+        private final MediaType contentType;
+        private final String etag;
+
+        EncodedCapabilities(ServiceResponse response) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            response.writeToOutputStream(out);
+            this.content = out.toByteArray();
+            this.contentType = response.getContentType();
+            this.etag = '"' + Hashing.murmur3_128().hashBytes(content).toString() + '"';
+        }
+
+        ServiceResponse toResponse(DateTime lastModified) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+            out.write(content, 0, content.length);
+            ServiceResponse response = new ServiceResponse(out, contentType, HTTPStatus.OK);
+            response.setHeader(HTTPHeaders.ETAG, etag);
+            response.setHeader(HTTPHeaders.LAST_MODIFIED, HttpUtils.formatDate(lastModified));
+            return response;
+        }
+    }
+}
@@ -31,7 +31,11 @@ import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
+import org.springframework.beans.factory.annotation.Autowired;
+
 import org.n52.iceland.exception.ows.concrete.InvalidServiceParameterException;
+import org.n52.iceland.ogc.ows.CapabilitiesResponseCache;
+import org.n52.iceland.ogc.ows.CapabilitiesResponseCache.CapabilitiesKey;
 import org.n52.iceland.ogc.ows.OwsServiceMetadataRepository;
 import org.n52.iceland.request.operator.RequestOperatorKey;
 import org.n52.iceland.request.operator.RequestOperatorRepository;
@@ -54,8 +58,10 @@ import org.n52.shetland.ogc.ows.OwsPossibleValues;
 import org.n52.shetland.ogc.ows.OwsServiceIdentification;
 import org.n52.shetland.ogc.ows.OwsServiceProvider;
 import org.n52.shetland.ogc.ows.OwsValue;
+import org.n52.shetland.ogc.ows.exception.InvalidUpdateSequenceException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.ows.exception.VersionNegotiationFailedException;
+import org.n52.shetland.ogc.ows.extension.Extensions;
 import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
 import org.n52.shetland.ogc.ows.service.GetCapabilitiesResponse;
 import org.n52.shetland.ogc.ows.service.OwsServiceKey;
@@ -72,6 +78,7 @@ public abstract class AbstractGetCapabilitiesHandler<T> extends AbstractOperatio
     private OwsServiceMetadataRepository serviceMetadataRepository;
     private RequestOperatorRepository requestOperatorRepository;
     private ServiceOperatorRepository serviceOperatorRepository;
+    private CapabilitiesResponseCache capabilitiesResponseCache;
 
     public AbstractGetCapabilitiesHandler(String service) {
         this.key = new OperationHandlerKey(service, OWSConstants.Operations.GetCapabilities);
@@ -92,6 +99,11 @@ public abstract class AbstractGetCapabilitiesHandler<T> extends AbstractOperatio
         this.serviceOperatorRepository = serviceOperatorRepository;
     }
 
+    @Autowired(required = false)
+    public void setCapabilitiesResponseCache(CapabilitiesResponseCache capabilitiesResponseCache) {
+        this.capabilitiesResponseCache = capabilitiesResponseCache;
+    }
+
     @Override
     public String getOperationName() {
         return OWSConstants.Operations.GetCapabilities.toString();
@@ -110,10 +122,73 @@ public abstract class AbstractGetCapabilitiesHandler<T> extends AbstractOperatio
         String version = negotiateVersion(request);
 
         GetCapabilitiesResponse response = createResponse(service, version);
-        response.setCapabilities(createCapabilities(request, service, version));
+        response.setCapabilities(getCapabilities(request, service, version));
         return response;
     }
 
+    private OwsCapabilities getCapabilities(GetCapabilitiesRequest request, String service, String version)
+            throws OwsExceptionReport {
+        if (this.capabilitiesResponseCache == null) {
+            return createCapabilities(request, service, version, null);
+        }
+        if (!isCacheable(request)) {
+            return createCapabilities(request, service, version, this.capabilitiesResponseCache.getUpdateSequence());
+        }
+        if (request.isSetUpdateSequence() && isCurrentUpdateSequence(request.getUpdateSequence())) {
+            // the client is up to date, respond with an abbreviated document
+            OwsCapabilities abbreviated = new OwsCapabilities(service, version,
+                                                              this.capabilitiesResponseCache.getUpdateSequence(),
+                                                              null, null, null, null, null);
+            return createCapabilities(abbreviated, null);
+        }
+        CapabilitiesKey key = new CapabilitiesKey(service, version, getRequestedSections(request),
+                                                  getRequestedLocale(request));
+        return this.capabilitiesResponseCache
+                .getCapabilities(key, updateSequence -> createCapabilities(request, service, version, updateSequence));
+    }
+
+    /**
+     * Checks if the capabilities for the request may be taken from the {@link CapabilitiesResponseCache}. Cached
+     * capabilities are only distinguished by service, version, sections and language, so the default implementation
+     * rejects requests with any other extension. Subclasses that create capabilities depending on further properties
+     * of the request, e.g. in {@link #getExtensions(GetCapabilitiesRequest, String, String)}, have to override this.
+     *
+     * @param request the request
+     *
+     * @return if the capabilities may be cached
+     */
+    protected boolean isCacheable(GetCapabilitiesRequest request) {
+        Extensions extensions = request.getExtensions();
+        String language = OWSConstants.AdditionalRequestParams.language.name();
+        return extensions.countExtensions(language) == extensions.getExtensions().size();
+    }
+
+    /**
+     * Checks the update sequence of the client against the current one as described in OWS Common.
+     *
+     * @param updateSequence the update sequence of the client
+     *
+     * @return if the client's update sequence is the current one
+     *
+     * @throws OwsExceptionReport if the update sequence is invalid or newer than the current one
+     */
+    private boolean isCurrentUpdateSequence(String updateSequence) throws OwsExceptionReport {
+        int comparison;
+        try {
+            comparison = this.capabilitiesResponseCache.compareUpdateSequence(updateSequence);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUpdateSequenceException().causedBy(e)
+                    .at(GetCapabilitiesParams.updateSequence)
+                    .withMessage("The update sequence '%s' is not valid", updateSequence);
+        }
+        if (comparison > 0) {
+            throw new InvalidUpdateSequenceException()
+                    .at(GetCapabilitiesParams.updateSequence)
+                    .withMessage("The update sequence '%s' is greater than the current one", updateSequence);
+        }
+        return comparison == 0;
+    }
+
     protected GetCapabilitiesResponse createResponse(String service, String version) {
         return new GetCapabilitiesResponse(service, version);
     }
@@ -266,14 +341,12 @@ public abstract class AbstractGetCapabilitiesHandler<T> extends AbstractOperatio
     }
 
     private OwsCapabilities createCapabilities(GetCapabilitiesRequest request,
-                                               String service, String version)
+                                               String service, String version, String updateSequence)
             throws OwsExceptionReport {
 
         Set<CapabilitiesSection> sections = getRequestedSections(request);
         Locale requestedLocale = getRequestedLocale(request);
 
-        String updateSequence = null;
-
         OwsServiceIdentification serviceIdentification = null;
         if (sections.contains(CapabilitiesSection.ServiceIdentification)) {
             serviceIdentification = getServiceIdentification(service, requestedLocale);
@@ -29,14 +29,18 @@ import org.n52.iceland.convert.RequestResponseModifier;
 import org.n52.iceland.convert.RequestResponseModifierRepository;
 import org.n52.iceland.event.events.RequestEvent;
 import org.n52.iceland.event.events.ResponseEvent;
+import org.n52.iceland.jfr.FlightRecorderEvents;
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
 import org.n52.iceland.request.handler.GenericOperationHandler;
 import org.n52.iceland.request.handler.OperationHandlerRepository;
+import org.n52.iceland.service.RequestTimings;
 import org.n52.iceland.service.operator.ServiceOperatorRepository;
 import org.n52.janmayen.event.EventBus;
 import org.n52.shetland.ogc.ows.OwsOperation;
 import org.n52.shetland.ogc.ows.exception.OperationNotSupportedException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.ows.service.OwsOperationKey;
+import org.n52.shetland.ogc.ows.service.Deadline;
 import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
 import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
 import org.slf4j.Logger;
@@ -184,14 +188,29 @@ public class GenericRequestOperator<Q extends OwsServiceRequest, A extends OwsSe
             final OwsServiceRequest abstractRequest)
             throws OwsExceptionReport {
         this.eventBus.submit(new RequestEvent(abstractRequest));
+        OwsOperationKey operation = new OwsOperationKey(abstractRequest);
+        RequestTimings.current().ifPresent(timings -> timings.setOperation(operation));
         if (requestType.isAssignableFrom(abstractRequest.getClass())) {
-            Q request = requestType.cast(abstractRequest);
-            checkForModifierAndProcess(request);
-            this.validator.validate(request);
-            A response = receive(request);
-            this.eventBus.submit(new ResponseEvent(response));
-            checkForModifierAndProcess(request, response);
-            return response;
+            RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.HANDLE);
+            try (Recording recording = FlightRecorderEvents.beginOperation(operation)) {
+                try {
+                    Q request = requestType.cast(abstractRequest);
+                    checkForModifierAndProcess(request);
+                    this.validator.validate(request);
+                    checkDeadline(request);
+                    A response = receive(request);
+                    this.eventBus.submit(new ResponseEvent(response));
+                    checkDeadline(request);
+                    checkForModifierAndProcess(request, response);
+                    checkDeadline(request);
+                    return response;
+                } catch (OwsExceptionReport | RuntimeException e) {
+                    recording.failed(e);
+                    throw e;
+                }
+            } finally {
+                timer.stop();
+            }
         } else {
             throw new OperationNotSupportedException(abstractRequest.getOperationName());
         }
@@ -241,6 +260,22 @@ public class GenericRequestOperator<Q extends OwsServiceRequest, A extends OwsSe
         return Collections.singleton(requestOperatorKey);
     }
 
+    /**
+     * Checks if the deadline of the request passed.
+     *
+     * @param request the request
+     *
+     * @throws OwsExceptionReport if the deadline passed
+     */
+    protected void checkDeadline(OwsServiceRequest request) throws OwsExceptionReport {
+        if (request.isSetRequestContext()) {
+            Optional<Deadline> deadline = request.getRequestContext().getDeadline();
+            if (deadline.isPresent()) {
+                deadline.get().check();
+            }
+        }
+    }
+
     protected A receive(Q request) throws OwsExceptionReport {
         return getOperationHandler().handle(request);
     }
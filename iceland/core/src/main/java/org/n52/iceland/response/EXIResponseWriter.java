@@ -17,12 +17,16 @@
 package org.n52.iceland.response;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Set;
 
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
 import org.n52.iceland.binding.exi.EXISettings;
@@ -34,13 +38,18 @@ import org.n52.janmayen.http.MediaType;
 import org.n52.janmayen.http.MediaTypes;
 import org.n52.shetland.exi.EXIObject;
 import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.StreamingEXIObject;
 import org.n52.svalbard.encode.exception.EncodingException;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.XMLReaderFactory;
+import org.xml.sax.ext.DefaultHandler2;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
 
-import com.google.common.base.Charsets;
 import com.siemens.ct.exi.core.EXIFactory;
 import com.siemens.ct.exi.core.exceptions.EXIException;
 import com.siemens.ct.exi.main.api.sax.EXIResult;
@@ -48,7 +57,10 @@ import com.siemens.ct.exi.main.api.sax.EXIResult;
 /**
  * Writer class for {@link EXIObject}
  *
- * Converts XML documents via EXI encoding using {@link EXISettings}.
+ * Converts XML documents via EXI encoding using {@link EXISettings}. Documents are passed as SAX events directly to
+ * the EXI encoder on the calling thread. If streaming encoding is forced and the response is a
+ * {@link StreamingEXIObject}, the XML stream writers of the encoder report their events to the EXI encoder while they
+ * write, so that the response is never held in memory.
  *
  * @author <a href="mailto:c.hollmann@52north.org">Carsten Hollmann</a>
  * @since 2.0.0
@@ -59,16 +71,25 @@ public class EXIResponseWriter
 
     public static final ResponseWriterKey KEY = new ResponseWriterKey(EXIObject.class);
 
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
     private final Producer<EXIFactory> exiFactory;
     private final Producer<XmlOptions> xmlOptions;
+    private final boolean forceStreamingEncoding;
 
     // we can not use injection in this class as it is manually created by a
     // factory
     public EXIResponseWriter(
             EncoderRepository encoderRepository, Producer<EXIFactory> exiFactory, Producer<XmlOptions> xmlOptions) {
+        this(encoderRepository, exiFactory, xmlOptions, false);
+    }
+
+    public EXIResponseWriter(EncoderRepository encoderRepository, Producer<EXIFactory> exiFactory,
+                             Producer<XmlOptions> xmlOptions, boolean forceStreamingEncoding) {
         super(encoderRepository);
         this.exiFactory = exiFactory;
         this.xmlOptions = xmlOptions;
+        this.forceStreamingEncoding = forceStreamingEncoding;
     }
 
     @Override
@@ -79,22 +100,88 @@ public class EXIResponseWriter
     @Override
     public void write(EXIObject<XmlObject> exiObject, OutputStream out, ResponseProxy responseProxy)
             throws IOException, EncodingException {
-        byte[] bytes = getBytes(exiObject);
-        try (InputStream is = new ByteArrayInputStream(bytes)) {
-            EXIResult result = new EXIResult(this.exiFactory.get());
-            result.setOutputStream(out);
-            XMLReader xmlReader = XMLReaderFactory.createXMLReader();
-            xmlReader.setContentHandler(result.getHandler());
-            xmlReader.parse(new InputSource(is));
+        if (exiObject instanceof StreamingEXIObject) {
+            StreamingEXIObject<?> streamingObject = (StreamingEXIObject<?>) exiObject;
+            if (this.forceStreamingEncoding) {
+                writeStreaming(streamingObject, out);
+            } else {
+                write(streamingObject.encode(), out);
+            }
+        } else {
+            write(exiObject.getDoc(), out);
+        }
+    }
+
+    private void write(XmlObject doc, OutputStream out) throws IOException, EncodingException {
+        try {
+            ContentHandler handler = createHandler(out);
+            LexicalHandler lexicalHandler =
+                    handler instanceof LexicalHandler ? (LexicalHandler) handler : new DefaultHandler2();
+            doc.save(new NamespaceDeclarationFilter(handler), lexicalHandler, this.xmlOptions.get());
         } catch (EXIException | SAXException e) {
             throw new EncodingException(e);
         }
     }
 
-    private byte[] getBytes(EXIObject<XmlObject> exi) {
-        XmlObject doc = exi.getDoc();
-        String text = doc.xmlText(this.xmlOptions.get());
-        return text.getBytes(Charsets.UTF_8);
+    private void writeStreaming(StreamingEXIObject<?> exiObject, OutputStream out)
+            throws IOException, EncodingException {
+        try {
+            ContentHandler handler = createHandler(out);
+            ByteArrayOutputStream xml = new ByteArrayOutputStream();
+            exiObject.write(handler, xml);
+            if (xml.size() > 0) {
+                // the encoder does not use the XML stream writers and could only write the document as XML
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+                XMLReader reader = factory.newSAXParser().getXMLReader();
+                reader.setContentHandler(handler);
+                if (handler instanceof LexicalHandler) {
+                    reader.setProperty(LEXICAL_HANDLER, handler);
+                }
+                reader.parse(new InputSource(new ByteArrayInputStream(xml.toByteArray())));
+            }
+        } catch (EXIException | SAXException | ParserConfigurationException e) {
+            throw new EncodingException(e);
+        }
+    }
+
+    private ContentHandler createHandler(OutputStream out) throws EXIException, IOException {
+        EXIResult result = new EXIResult(this.exiFactory.get());
+        result.setOutputStream(out);
+        return result.getHandler();
+    }
+
+    /**
+     * XmlBeans reports namespace declarations as attributes in addition to the prefix mapping events, which would
+     * make the EXI encoder write them as regular attributes.
+     */
+    private static class NamespaceDeclarationFilter extends XMLFilterImpl {
+
+        NamespaceDeclarationFilter(ContentHandler handler) {
+            setContentHandler(handler);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            super.startElement(uri, localName, qName, removeNamespaceDeclarations(atts));
+        }
+
+        private static Attributes removeNamespaceDeclarations(Attributes atts) {
+            AttributesImpl filtered = null;
+            for (int i = atts.getLength() - 1; i >= 0; --i) {
+                if (isNamespaceDeclaration(atts.getQName(i))) {
+                    if (filtered == null) {
+                        filtered = new AttributesImpl(atts);
+                    }
+                    filtered.removeAttribute(i);
+                }
+            }
+            return filtered == null ? atts : filtered;
+        }
+
+        private static boolean isNamespaceDeclaration(String qName) {
+            return qName.equals(XMLConstants.XMLNS_ATTRIBUTE) || qName.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":");
+        }
     }
 
     @Override
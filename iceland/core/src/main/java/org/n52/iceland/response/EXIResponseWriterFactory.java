@@ -19,9 +19,11 @@ package org.n52.iceland.response;
 import javax.inject.Inject;
 
 import org.apache.xmlbeans.XmlOptions;
+import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.coding.encode.ResponseWriter;
 import org.n52.iceland.coding.encode.ResponseWriterFactory;
 import org.n52.iceland.coding.encode.ResponseWriterKey;
+import org.n52.iceland.service.StreamingSettings;
 import org.n52.janmayen.Producer;
 import org.n52.janmayen.component.SingleTypeComponentFactory;
 import org.n52.shetland.exi.EXIObject;
@@ -44,6 +46,7 @@ public class EXIResponseWriterFactory
     private Producer<EXIFactory> exiFactoryProducer;
     private Producer<XmlOptions> xmlOptionsProducer;
     private EncoderRepository encoderRepository;
+    private boolean forceStreamingEncoding;
 
     @Inject
     public void setEncoderRepository(EncoderRepository encoderRepository) {
@@ -60,6 +63,11 @@ public class EXIResponseWriterFactory
         this.xmlOptionsProducer = producer;
     }
 
+    @Setting(StreamingSettings.FORCE_STREAMING_ENCODING)
+    public void setForceStreamingEncoding(boolean forceStreamingEncoding) {
+        this.forceStreamingEncoding = forceStreamingEncoding;
+    }
+
     @Override
     public ResponseWriterKey getKey() {
         return RESPONSE_WRITER_KEY;
@@ -67,6 +75,7 @@ public class EXIResponseWriterFactory
 
     @Override
     public EXIResponseWriter create() {
-        return new EXIResponseWriter(this.encoderRepository, this.exiFactoryProducer, this.xmlOptionsProducer);
+        return new EXIResponseWriter(this.encoderRepository, this.exiFactoryProducer, this.xmlOptionsProducer,
+                                     this.forceStreamingEncoding);
     }
 }
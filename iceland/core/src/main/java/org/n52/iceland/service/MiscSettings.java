@@ -30,5 +30,13 @@ public interface MiscSettings {
 
     String STATISTICS_COUNTING_OUTPUTSTREAM = "statistics.counting-outputstream";
 
+    String SERVER_TIMING_HEADER = "misc.serverTimingHeader";
+
+    String COMPRESSION_LEVEL = "misc.compression.level";
+
+    String COMPRESSION_BUFFER_SIZE = "misc.compression.bufferSize";
+
+    String COMPRESSION_MINIMUM_SIZE = "misc.compression.minimumSize";
+
     String INCLUDE_ORIGINAL_REQUEST = "misc.includeOriginalRequest";
 }
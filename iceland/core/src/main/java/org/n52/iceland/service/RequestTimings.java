@@ -0,0 +1,354 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.service;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.n52.shetland.ogc.ows.service.OwsOperationKey;
+
+import com.google.common.base.Ticker;
+
+/**
+ * The time spent in the phases of processing a request and the number of bytes written for it, together with the
+ * binding, operation and response format of the request. The durations are measured using a monotonic clock. Timings
+ * are bound to the processing thread by the {@link Service}, so that bindings, operators and writers can record their
+ * phase using {@link #time(Phase)} without having access to the request.
+ * <p>
+ * Instances are not thread safe and are meant to be used by the thread processing the request.
+ */
+public final class RequestTimings {
+    /**
+     * The name of the servlet request attribute that holds the timings of a request.
+     */
+    public static final String REQUEST_ATTRIBUTE = RequestTimings.class.getName();
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final Timer NOOP = () -> {
+    };
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private final Ticker ticker;
+    private final long start;
+    private final long[] durations = new long[Phase.values().length];
+    private final boolean[] recorded = new boolean[Phase.values().length];
+    private final boolean[] running = new boolean[Phase.values().length];
+    private long bytesWritten = -1;
+    private long end = -1;
+    private String binding;
+    private OwsOperationKey operation;
+    private String responseFormat;
+    private String contentEncoding;
+    private long uncompressedBytes = -1;
+    private long compressionTime;
+
+    public RequestTimings() {
+        this(Ticker.systemTicker());
+    }
+
+    public RequestTimings(Ticker ticker) {
+        this.ticker = ticker;
+        this.start = ticker.read();
+    }
+
+    /**
+     * Starts to measure the specified phase. The elapsed time is added to the phase when the returned timer is
+     * stopped. Nested measurements of the same phase, e.g. the encoding of an exception report while encoding a
+     * response, are not counted twice.
+     *
+     * @param phase the phase
+     *
+     * @return the timer
+     */
+    public Timer start(Phase phase) {
+        int idx = phase.ordinal();
+        if (running[idx]) {
+            return NOOP;
+        }
+        running[idx] = true;
+        long begin = ticker.read();
+        return () -> {
+            durations[idx] += ticker.read() - begin;
+            recorded[idx] = true;
+            running[idx] = false;
+        };
+    }
+
+    /**
+     * Starts to measure the specified phase of the timings bound to the current thread, if any.
+     *
+     * @param phase the phase
+     *
+     * @return the timer
+     *
+     * @see #start(Phase)
+     */
+    public static Timer time(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        return timings == null ? NOOP : timings.start(phase);
+    }
+
+    /**
+     * Marks the end of the request processing.
+     *
+     * @return this
+     */
+    public RequestTimings finish() {
+        if (end < 0) {
+            end = ticker.read();
+        }
+        return this;
+    }
+
+    /**
+     * @param phase the phase
+     *
+     * @return if the phase was measured
+     */
+    public boolean isRecorded(Phase phase) {
+        return recorded[phase.ordinal()];
+    }
+
+    /**
+     * @param phase the phase
+     * @param unit  the unit
+     *
+     * @return the time spent in the phase
+     */
+    public long getDuration(Phase phase, TimeUnit unit) {
+        return unit.convert(durations[phase.ordinal()], TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the unit
+     *
+     * @return the time since the start of the request until it {@linkplain #finish() finished} or until now
+     */
+    public long getTotal(TimeUnit unit) {
+        return unit.convert((end < 0 ? ticker.read() : end) - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of bytes written for the response body or {@code -1} if nothing was written
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Adds to the number of bytes written for the response body.
+     *
+     * @param bytes the bytes
+     */
+    public void addBytesWritten(long bytes) {
+        bytesWritten = Math.max(bytesWritten, 0) + bytes;
+    }
+
+    /**
+     * @return the binding that processed the request, e.g. the media type it was resolved for, or {@code null}
+     */
+    public String getBinding() {
+        return binding;
+    }
+
+    public void setBinding(String binding) {
+        this.binding = binding;
+    }
+
+    /**
+     * @return the operation of the request or {@code null} if the request was not decoded
+     */
+    public OwsOperationKey getOperation() {
+        return operation;
+    }
+
+    public void setOperation(OwsOperationKey operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * @return the content type of the response or {@code null}
+     */
+    public String getResponseFormat() {
+        return responseFormat;
+    }
+
+    public void setResponseFormat(String responseFormat) {
+        this.responseFormat = responseFormat;
+    }
+
+    /**
+     * @return the content coding the response body was compressed with or {@code null} if it was not compressed
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * @return the number of bytes of the response body before compression or {@code -1} if it was not compressed
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * @param unit the unit
+     *
+     * @return the time spent compressing the response body
+     */
+    public long getCompressionTime(TimeUnit unit) {
+        return unit.convert(compressionTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the ratio of the number of {@linkplain #getBytesWritten() bytes written} to the number of
+     *         {@linkplain #getUncompressedBytes() uncompressed bytes}, or {@code 1} if the body was not compressed
+     */
+    public double getCompressionRatio() {
+        if (uncompressedBytes <= 0 || bytesWritten < 0) {
+            return 1.0;
+        }
+        return (double) bytesWritten / uncompressedBytes;
+    }
+
+    /**
+     * Records the compression of the response body.
+     *
+     * @param encoding the content coding
+     * @param bytes    the number of bytes before compression
+     * @param duration the time spent compressing
+     * @param unit     the unit of the duration
+     */
+    public void addCompression(String encoding, long bytes, long duration, TimeUnit unit) {
+        contentEncoding = encoding;
+        uncompressedBytes = Math.max(uncompressedBytes, 0) + bytes;
+        compressionTime += unit.toNanos(duration);
+    }
+
+    /**
+     * Creates the value of a {@code Server-Timing} header containing the phases recorded so far, e.g.
+     * {@code binding;dur=0.012, decode;dur=1.503, handle;dur=25.000}.
+     *
+     * @return the header value
+     */
+    public String toServerTiming() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (isRecorded(phase)) {
+                if (builder.length() > 0) {
+                    builder.append(", ");
+                }
+                builder.append(phase.getName()).append(";dur=")
+                        .append(String.format(Locale.ROOT, "%.3f", durations[phase.ordinal()] / NANOS_PER_MILLI));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Binds these timings to the current thread until the returned scope is closed.
+     *
+     * @return the scope
+     */
+    public Scope bind() {
+        RequestTimings previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the timings bound to the current thread
+     */
+    public static Optional<RequestTimings> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    @Override
+    public String toString() {
+        if (contentEncoding == null) {
+            return String.format("RequestTimings[%s, total=%d ms, bytes=%d]",
+                                 toServerTiming(), getTotal(TimeUnit.MILLISECONDS), bytesWritten);
+        }
+        return String.format(Locale.ROOT, "RequestTimings[%s, total=%d ms, bytes=%d, %s=%d bytes in %.3f ms]",
+                             toServerTiming(), getTotal(TimeUnit.MILLISECONDS), bytesWritten, contentEncoding,
+                             uncompressedBytes, compressionTime / NANOS_PER_MILLI);
+    }
+
+    /**
+     * The phases of processing a request.
+     */
+    public enum Phase {
+        /**
+         * The resolution of the binding responsible for the request.
+         */
+        BINDING("binding"),
+        /**
+         * The decoding of the request.
+         */
+        DECODE("decode"),
+        /**
+         * The processing of the request by the operator.
+         */
+        HANDLE("handle"),
+        /**
+         * The encoding of the response. Streaming encoders write while encoding, so this includes writing the body.
+         */
+        ENCODE("encode"),
+        /**
+         * The writing of already encoded responses and the final flush of the response body.
+         */
+        WRITE("write");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the name used in {@code Server-Timing} headers
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * The measurement of a phase. Has to be stopped in a {@code finally} block.
+     */
+    @FunctionalInterface
+    public interface Timer {
+        /**
+         * Stops the measurement and adds the elapsed time to the phase.
+         */
+        void stop();
+    }
+
+    /**
+     * The binding of timings to a thread.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -21,7 +21,6 @@ import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Set;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -42,18 +41,19 @@ import org.n52.iceland.binding.BindingRepository;
 import org.n52.iceland.event.events.ExceptionEvent;
 import org.n52.iceland.event.events.IncomingRequestEvent;
 import org.n52.iceland.event.events.OutgoingResponseEvent;
+import org.n52.iceland.event.events.RequestTimingEvent;
 import org.n52.iceland.exception.HTTPException;
+import org.n52.iceland.jfr.FlightRecorderEvents;
+import org.n52.iceland.jfr.FlightRecorderEvents.RequestRecording;
 import org.n52.janmayen.event.EventBus;
 import org.n52.janmayen.http.HTTPHeaders;
 import org.n52.janmayen.http.HTTPMethods;
 import org.n52.janmayen.http.HTTPStatus;
 import org.n52.janmayen.http.MediaType;
 import org.n52.janmayen.http.MediaTypes;
+import org.n52.shetland.ogc.ows.service.Deadline;
 
 import com.google.common.base.Stopwatch;
-import com.google.common.util.concurrent.SimpleTimeLimiter;
-import com.google.common.util.concurrent.TimeLimiter;
-import com.google.common.util.concurrent.UncheckedTimeoutException;
 
 /**
  * The servlet of the Service which receives the incoming HttpPost and HttpGet requests and sends the operation result
@@ -71,7 +71,6 @@ public class Service {
     private static final String BINDING_POST_METHOD = "doPostOperation";
     private static final String BINDING_GET_METHOD = "doGetOperation";
     private static final AtomicLong COUNTER = new AtomicLong(0);
-    private static final TimeLimiter TIME_LIMITER = SimpleTimeLimiter.create(Executors.newCachedThreadPool());
     private static final Logger LOGGER = LoggerFactory.getLogger(Service.class);
     private Integer requestTimeout = 0;
 
@@ -84,7 +83,9 @@ public class Service {
 
     private long logRequest(HttpServletRequest request) {
         long count = COUNTER.incrementAndGet();
-        this.serviceEventBus.submit(new IncomingRequestEvent(request, count));
+        if (this.serviceEventBus.hasListeners(IncomingRequestEvent.class)) {
+            this.serviceEventBus.submit(new IncomingRequestEvent(request, count));
+        }
 
         if (LOGGER.isDebugEnabled()) {
             Enumeration<?> headerNames = request.getHeaderNames();
@@ -100,66 +101,108 @@ public class Service {
         return count;
     }
 
+    /**
+     * Starts the deadline of the request if a request timeout is configured. The deadline is available from the
+     * request context and bound to the current thread, so that request processing and response writing can stop
+     * cooperatively once it passed.
+     *
+     * @param request the request
+     *
+     * @return the scope of the deadline, has to be closed after the request was processed
+     */
+    private Deadline.Scope startDeadline(HttpServletRequest request) {
+        if (requestTimeout <= 0) {
+            return Deadline.Scope.NONE;
+        }
+        Deadline deadline = Deadline.after(requestTimeout, TimeUnit.SECONDS);
+        request.setAttribute(Deadline.REQUEST_ATTRIBUTE, deadline);
+        return deadline.bind();
+    }
+
+    /**
+     * Creates the timings of the request. They are available as a request attribute and are bound to the current
+     * thread by the caller, so that the phases of the request processing can be measured.
+     *
+     * @param request the request
+     *
+     * @return the timings
+     */
+    private RequestTimings startTimings(HttpServletRequest request) {
+        RequestTimings timings = new RequestTimings();
+        request.setAttribute(RequestTimings.REQUEST_ATTRIBUTE, timings);
+        return timings;
+    }
+
+    private void logResponse(HttpServletRequest request, HttpServletResponse response,
+                             long count, Stopwatch stopwatch, RequestTimings timings,
+                             RequestRecording recording) {
+        timings.finish();
+        timings.setResponseFormat(response.getContentType());
+        recording.finish(timings, response);
+        LOGGER.debug("Timings for request No. {}: {}", count, timings);
+        if (this.serviceEventBus.hasListeners(RequestTimingEvent.class)) {
+            this.serviceEventBus.submit(new RequestTimingEvent(request, count, timings));
+        }
+        logResponse(request, response, count, stopwatch);
+    }
+
     private void logResponse(HttpServletRequest request, HttpServletResponse response,
                              long count, Stopwatch stopwatch) {
         long elapsed = stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
-        this.serviceEventBus.submit(new OutgoingResponseEvent(request, response, count, elapsed));
+        if (this.serviceEventBus.hasListeners(OutgoingResponseEvent.class)) {
+            this.serviceEventBus.submit(new OutgoingResponseEvent(request, response, count, elapsed));
+        }
         LOGGER.debug("Outgoing response for request No. {} is committed = {} (took {} ms)",
                      count, response.isCommitted(), elapsed);
     }
 
     @RequestMapping(method = RequestMethod.DELETE)
     public void delete(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        Stopwatch stopwatch = Stopwatch.createStarted();
-        long currentCount = logRequest(request);
-        try {
-            getBinding(request).doDeleteOperation(request, response);
-        } catch (HTTPException exception) {
-            onHttpException(request, response, exception);
-        } finally {
-            logResponse(request, response, currentCount, stopwatch);
-        }
+        process(request, response, Binding::doDeleteOperation);
     }
 
     @RequestMapping(method = RequestMethod.GET)
     public void get(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
-        Stopwatch stopwatch = Stopwatch.createStarted();
-        long currentCount = logRequest(request);
-        try {
-            getBinding(request).doGetOperation(request, response);
-        } catch (HTTPException exception) {
-            onHttpException(request, response, exception);
-        } finally {
-            logResponse(request, response, currentCount, stopwatch);
-        }
+        process(request, response, Binding::doGetOperation);
     }
 
     @RequestMapping(method = RequestMethod.POST)
     public void post(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
-        Stopwatch stopwatch = Stopwatch.createStarted();
-        long currentCount = logRequest(request);
-        try {
-            getBinding(request).doPostOperation(request, response);
-        } catch (HTTPException exception) {
-            onHttpException(request, response, exception);
-        } finally {
-            logResponse(request, response, currentCount, stopwatch);
-        }
+        process(request, response, Binding::doPostOperation);
     }
 
     @RequestMapping(method = RequestMethod.PUT)
     public void put(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
+        process(request, response, Binding::doPutOperation);
+    }
+
+    /**
+     * Processes the request with the binding that is registered for it. The deadline and the timings of the request
+     * are bound to the current thread while the binding is executed.
+     *
+     * @param request   the request
+     * @param response  the response
+     * @param operation the operation of the binding to call
+     *
+     * @throws IOException if writing the response fails
+     */
+    @SuppressWarnings("try")
+    private void process(HttpServletRequest request, HttpServletResponse response, BindingOperation operation)
+            throws IOException {
         Stopwatch stopwatch = Stopwatch.createStarted();
         long currentCount = logRequest(request);
-        try {
-            getBinding(request).doPutOperation(request, response);
+        RequestTimings timings = startTimings(request);
+        RequestRecording recording = FlightRecorderEvents.beginRequest(request);
+        try (Deadline.Scope deadline = startDeadline(request);
+             RequestTimings.Scope timing = timings.bind()) {
+            operation.execute(getBinding(request), request, response);
         } catch (HTTPException exception) {
             onHttpException(request, response, exception);
         } finally {
-            logResponse(request, response, currentCount, stopwatch);
+            logResponse(request, response, currentCount, stopwatch, timings, recording);
         }
     }
 
@@ -195,11 +238,21 @@ public class Service {
      * @throws HTTPException If the URL pattern or ContentType is not supported by this service.
      */
     private Binding getBinding(HttpServletRequest request) throws HTTPException {
+        RequestTimings.Timer timer = RequestTimings.time(RequestTimings.Phase.BINDING);
+        try {
+            return findBinding(request);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private Binding findBinding(HttpServletRequest request) throws HTTPException {
         final String requestURI = request.getPathInfo();
         if (requestURI == null || requestURI.isEmpty() || requestURI.equals("/")) {
             MediaType contentType = getContentType(request);
             // strip of the parameters to get rid of things like encoding
-            Binding binding = this.bindingRepository.getBinding(contentType.withoutParameters());
+            MediaType bindingType = contentType.withoutParameters();
+            Binding binding = this.bindingRepository.getBinding(bindingType);
             if (binding == null) {
                 if (contentType.equals(MediaTypes.APPLICATION_KVP)) {
                     throw new HTTPException(HTTPStatus.METHOD_NOT_ALLOWED);
@@ -207,15 +260,7 @@ public class Service {
                     throw new HTTPException(HTTPStatus.UNSUPPORTED_MEDIA_TYPE);
                 }
             } else {
-                if (requestTimeout > 0) {
-                    try {
-                        return TIME_LIMITER.newProxy(binding, Binding.class, requestTimeout, TimeUnit.SECONDS);
-                    } catch (UncheckedTimeoutException ute) {
-                        HTTPException httpException = new HTTPException(HTTPStatus.GATEWAY_TIME_OUT);
-                        httpException.addSuppressed(ute);
-                        throw httpException;
-                    }
-                }
+                RequestTimings.current().ifPresent(timings -> timings.setBinding(bindingType.toString()));
                 return binding;
             }
         }
@@ -302,4 +347,12 @@ public class Service {
         }
     }
 
+    /**
+     * An HTTP method specific operation of a {@link Binding}.
+     */
+    @FunctionalInterface
+    private interface BindingOperation {
+        void execute(Binding binding, HttpServletRequest request, HttpServletResponse response)
+                throws HTTPException, IOException;
+    }
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.util.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses the data written to it using a {@link ContentEncoding} as soon as a minimum number of bytes was written.
+ * Smaller bodies are written unchanged when the stream is closed. The data is buffered, so that the encoder is
+ * invoked with large chunks regardless of how the data is written. The time spent compressing is measured, excluding
+ * the time spent writing to the underlying stream.
+ */
+final class CompressingOutputStream extends OutputStream {
+    private final TimedOutputStream sink;
+    private final ContentEncoding encoding;
+    private final int level;
+    private final int minimumSize;
+    private final byte[] buffer;
+    private final Listener listener;
+    private ByteArrayOutputStream pending;
+    private OutputStream encoder;
+    private int count;
+    private long uncompressedBytes;
+    private long encoderNanos;
+    private boolean closed;
+
+    /**
+     * Creates a new {@code CompressingOutputStream}.
+     *
+     * @param out         the stream to write to
+     * @param encoding    the content coding
+     * @param level       the compression level
+     * @param bufferSize  the size of the buffers
+     * @param minimumSize the number of bytes from which on the data is compressed
+     * @param listener    the listener to notify about the decision to compress the data
+     */
+    CompressingOutputStream(OutputStream out, ContentEncoding encoding, int level, int bufferSize, int minimumSize,
+                            Listener listener) {
+        this.sink = new TimedOutputStream(out);
+        this.encoding = encoding;
+        this.level = level;
+        this.minimumSize = minimumSize;
+        this.buffer = new byte[bufferSize];
+        this.listener = listener;
+        this.pending = new ByteArrayOutputStream(Math.max(0, Math.min(minimumSize, bufferSize)));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (encoder != null && count < buffer.length) {
+            buffer[count++] = (byte) b;
+            uncompressedBytes++;
+        } else {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        uncompressedBytes += len;
+        if (pending != null) {
+            if (pending.size() + len < minimumSize) {
+                pending.write(b, off, len);
+                return;
+            }
+            startCompression();
+        }
+        if (len >= buffer.length) {
+            drain();
+            encode(b, off, len);
+        } else {
+            if (len > buffer.length - count) {
+                drain();
+            }
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // undecided data is held back, flushing it would commit the response without a content coding
+        if (encoder != null) {
+            drain();
+            long start = System.nanoTime();
+            encoder.flush();
+            encoderNanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (pending != null) {
+            ByteArrayOutputStream uncompressed = pending;
+            pending = null;
+            listener.uncompressed(uncompressed.size());
+            try (OutputStream out = sink) {
+                uncompressed.writeTo(out);
+            }
+        } else {
+            drain();
+            long start = System.nanoTime();
+            encoder.close();
+            encoderNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * @return if the data is compressed
+     */
+    boolean isCompressed() {
+        return encoder != null;
+    }
+
+    /**
+     * @return the content coding
+     */
+    ContentEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return the number of bytes written to this stream
+     */
+    long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * @param unit the unit
+     *
+     * @return the time spent compressing the data
+     */
+    long getCompressionTime(TimeUnit unit) {
+        return unit.convert(Math.max(0, encoderNanos - sink.getNanos()), TimeUnit.NANOSECONDS);
+    }
+
+    private void startCompression() throws IOException {
+        byte[] uncompressed = pending.toByteArray();
+        pending = null;
+        listener.compressing();
+        long start = System.nanoTime();
+        encoder = encoding.encode(sink, level, buffer.length);
+        encoderNanos += System.nanoTime() - start;
+        if (uncompressed.length > 0) {
+            encode(uncompressed, 0, uncompressed.length);
+        }
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            encode(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void encode(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        encoder.write(b, off, len);
+        encoderNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Listener for the decision whether the data is compressed, which is made before anything is written to the
+     * underlying stream.
+     */
+    interface Listener {
+        /**
+         * Called if the data is compressed.
+         */
+        void compressing();
+
+        /**
+         * Called if the data is written uncompressed.
+         *
+         * @param length the length of the data
+         */
+        void uncompressed(int length);
+    }
+
+    /**
+     * Measures the time spent writing to the underlying stream.
+     */
+    private static final class TimedOutputStream extends FilterOutputStream {
+        private long nanos;
+
+        TimedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long start = System.nanoTime();
+            out.flush();
+            nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            long start = System.nanoTime();
+            try {
+                out.close();
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.util.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A content coding that can be negotiated using the {@code Accept-Encoding} header to compress response bodies.
+ * Implementations registered as beans are offered in addition to {@code gzip} and {@code deflate}.
+ *
+ * @see HttpUtils
+ */
+public interface ContentEncoding {
+
+    /**
+     * @return the name of the coding as used in {@code Accept-Encoding} and {@code Content-Encoding} headers
+     */
+    String getName();
+
+    /**
+     * Creates a stream that encodes the data written to it. Closing the returned stream has to close the underlying
+     * stream.
+     *
+     * @param out        the stream to write the encoded data to
+     * @param level      the compression level between {@code 0} (no compression) and {@code 9} (best compression),
+     *                   or {@code -1} for the default of the coding
+     * @param bufferSize the size of the buffer for the encoded data
+     *
+     * @return the encoding stream
+     *
+     * @throws IOException if the stream can not be created
+     */
+    OutputStream encode(OutputStream out, int level, int bufferSize) throws IOException;
+}
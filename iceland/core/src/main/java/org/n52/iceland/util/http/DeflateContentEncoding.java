@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.util.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.n52.janmayen.http.HTTPConstants;
+
+/**
+ * The {@code deflate} content coding, which is the zlib format (RFC 1950) and not a raw deflate stream.
+ */
+public class DeflateContentEncoding implements ContentEncoding {
+
+    @Override
+    public String getName() {
+        return HTTPConstants.DEFLATE_ENCODING;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out, int level, int bufferSize) throws IOException {
+        return new ZlibOutputStream(out, level, bufferSize);
+    }
+
+    private static final class ZlibOutputStream extends DeflaterOutputStream {
+        private boolean closed;
+
+        ZlibOutputStream(OutputStream out, int level, int bufferSize) {
+            super(out, new Deflater(level), bufferSize);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    // the stream only releases deflaters it created itself
+                    def.end();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.util.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.n52.janmayen.http.HTTPConstants;
+
+/**
+ * The {@code gzip} content coding (RFC 1952).
+ */
+public class GzipContentEncoding implements ContentEncoding {
+
+    @Override
+    public String getName() {
+        return HTTPConstants.GZIP_ENCODING;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream out, int level, int bufferSize) throws IOException {
+        return new LeveledGZIPOutputStream(out, level, bufferSize);
+    }
+
+    private static final class LeveledGZIPOutputStream extends GZIPOutputStream {
+        LeveledGZIPOutputStream(OutputStream out, int level, int bufferSize) throws IOException {
+            super(out, bufferSize);
+            def.setLevel(level);
+        }
+    }
+}
@@ -16,19 +16,36 @@
  */
 package org.n52.iceland.util.http;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
+import org.n52.faroe.ConfigurationError;
+import org.n52.faroe.Validation;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.binding.EncodingExceptionHandler;
@@ -37,14 +54,21 @@ import org.n52.iceland.coding.encode.ResponseWriter;
 import org.n52.iceland.coding.encode.ResponseWriterRepository;
 import org.n52.iceland.event.events.CountingOutputStreamEvent;
 import org.n52.iceland.exception.HTTPException;
+import org.n52.iceland.jfr.FlightRecorderEvents;
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
 import org.n52.iceland.response.ServiceResponse;
 import org.n52.iceland.service.MiscSettings;
+import org.n52.iceland.service.RequestTimings;
+import org.n52.iceland.service.RequestTimings.Phase;
 import org.n52.janmayen.event.EventBus;
 import org.n52.janmayen.http.HTTPConstants;
 import org.n52.janmayen.http.HTTPHeaders;
+import org.n52.janmayen.http.HTTPMethods;
 import org.n52.janmayen.http.HTTPStatus;
 import org.n52.janmayen.http.MediaType;
 import org.n52.shetland.ogc.ows.service.ResponseFormat;
+import org.n52.svalbard.encode.EncodingContext;
+import org.n52.svalbard.encode.StreamingEncoder;
 import org.n52.svalbard.encode.exception.EncodingException;
 
 import com.google.common.io.CountingOutputStream;
@@ -60,8 +84,21 @@ import com.google.common.io.CountingOutputStream;
 public class HttpUtils {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpUtils.class);
+    private static final DateTimeFormatter HTTP_DATE_FORMAT
+            = DateTimeFormat.forPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'").withZoneUTC().withLocale(Locale.ENGLISH);
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    private static final int DEFAULT_COMPRESSION_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_COMPRESSION_MINIMUM_SIZE = 1024;
+    private static final List<ContentEncoding> DEFAULT_CONTENT_ENCODINGS = Collections.unmodifiableList(
+            Arrays.asList(new GzipContentEncoding(), new DeflateContentEncoding()));
 
     private Boolean isCountingOutputStream = false;
+    private boolean isServerTiming;
+    private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+    private int compressionBufferSize = DEFAULT_COMPRESSION_BUFFER_SIZE;
+    private int compressionMinimumSize = DEFAULT_COMPRESSION_MINIMUM_SIZE;
+    private List<ContentEncoding> contentEncodings = DEFAULT_CONTENT_ENCODINGS;
 
     private EventBus eventBus;
     private ResponseWriterRepository responseWriterRepository;
@@ -89,6 +126,84 @@ public class HttpUtils {
         this.isCountingOutputStream = isCountingOutputStream;
     }
 
+    public boolean isServerTiming() {
+        return isServerTiming;
+    }
+
+    /**
+     * Sets if a {@code Server-Timing} header containing the durations of the request processing phases that
+     * preceded the writing of the response body should be added to responses.
+     *
+     * @param serverTiming if the header should be added
+     */
+    @Setting(value = MiscSettings.SERVER_TIMING_HEADER, required = false)
+    public void setServerTiming(boolean serverTiming) {
+        this.isServerTiming = serverTiming;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the level used to compress response bodies, from {@code 0} (no compression) to {@code 9} (best
+     * compression), or {@code -1} for the default level of the content coding.
+     *
+     * @param level the level
+     */
+    @Setting(value = MiscSettings.COMPRESSION_LEVEL, required = false)
+    public void setCompressionLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new ConfigurationError("%s must be between %d and %d", MiscSettings.COMPRESSION_LEVEL,
+                                         Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION);
+        }
+        this.compressionLevel = level;
+    }
+
+    public int getCompressionBufferSize() {
+        return compressionBufferSize;
+    }
+
+    /**
+     * Sets the size of the buffers used to compress response bodies.
+     *
+     * @param bufferSize the size in bytes
+     */
+    @Setting(value = MiscSettings.COMPRESSION_BUFFER_SIZE, required = false)
+    public void setCompressionBufferSize(int bufferSize) {
+        this.compressionBufferSize = Validation.greaterZero(MiscSettings.COMPRESSION_BUFFER_SIZE, bufferSize);
+    }
+
+    public int getCompressionMinimumSize() {
+        return compressionMinimumSize;
+    }
+
+    /**
+     * Sets the size from which on response bodies are compressed. Smaller bodies are not worth the overhead and are
+     * written uncompressed.
+     *
+     * @param minimumSize the size in bytes
+     */
+    @Setting(value = MiscSettings.COMPRESSION_MINIMUM_SIZE, required = false)
+    public void setCompressionMinimumSize(int minimumSize) {
+        this.compressionMinimumSize = Validation.greaterEqualZero(MiscSettings.COMPRESSION_MINIMUM_SIZE,
+                                                                  minimumSize);
+    }
+
+    /**
+     * Sets additional content codings. They are preferred to the built-in {@code gzip} and {@code deflate} codings
+     * if the client accepts them equally.
+     *
+     * @param encodings the codings
+     */
+    @Autowired(required = false)
+    public void setContentEncodings(Collection<ContentEncoding> encodings) {
+        List<ContentEncoding> list = new ArrayList<>(encodings);
+        Set<String> names = list.stream().map(ContentEncoding::getName).collect(Collectors.toSet());
+        DEFAULT_CONTENT_ENCODINGS.stream().filter(e -> !names.contains(e.getName())).forEach(list::add);
+        this.contentEncodings = Collections.unmodifiableList(list);
+    }
+
     public void writeObject(HttpServletRequest request, HttpServletResponse response, MediaType contentType,
                             Object object, EncodingExceptionHandler owserHandler) throws IOException, HTTPException {
         writeObject(request, response, contentType, new GenericWritable(object, contentType), owserHandler);
@@ -100,37 +215,120 @@ public class HttpUtils {
 
         sr.getHeaderMap().forEach(response::addHeader);
 
-        if (!sr.isContentLess()) {
+        if (isNotModified(request, sr)) {
+            response.setStatus(HTTPStatus.NOT_MODIFIED.getCode());
+        } else if (!sr.isContentLess()) {
             writeObject(request, response, sr.getContentType(), new ServiceResponseWritable(sr), owserHandler);
         }
     }
 
+    /**
+     * Writes the object using a streaming encoder, so that the encoded representation is written to the response body
+     * while it is created instead of being built in memory first.
+     *
+     * @param <T>          the type of the object
+     * @param request      the request
+     * @param response     the response
+     * @param contentType  the content type of the encoded object
+     * @param encoder      the encoder
+     * @param object       the object to encode
+     * @param owserHandler the handler for encoding failures
+     *
+     * @throws IOException   if writing fails
+     * @throws HTTPException if the encoding failure can not be reported
+     */
+    public <T> void writeStreaming(HttpServletRequest request, HttpServletResponse response, MediaType contentType,
+                                   StreamingEncoder<?, ? super T> encoder, T object,
+                                   EncodingExceptionHandler owserHandler) throws IOException, HTTPException {
+        writeObject(request, response, contentType, new StreamingWritable<>(encoder, object, contentType),
+                    owserHandler);
+    }
+
+    /**
+     * Encodes the object into a buffered response, e.g. to reuse the encoded representation for further requests.
+     *
+     * @param response    the response that receives headers set by the writer
+     * @param contentType the content type to encode to
+     * @param object      the object to encode
+     *
+     * @return the buffered response
+     *
+     * @throws IOException       if writing fails
+     * @throws EncodingException if encoding fails
+     */
+    public ServiceResponse buffer(HttpServletResponse response, MediaType contentType, Object object)
+            throws IOException, EncodingException {
+        GenericWritable writable = new GenericWritable(object, contentType);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RequestTimings.Timer timer = RequestTimings.time(Phase.ENCODE);
+        try {
+            writable.write(out, new ResponseProxy(response));
+        } finally {
+            timer.stop();
+        }
+        HTTPStatus status = writable.hasForcedHttpStatus() ? writable.getForcedHttpStatus() : HTTPStatus.OK;
+        ServiceResponse buffered = new ServiceResponse(out, writable.getEncodedContentType(), status);
+        buffered.setSupportsGZip(writable.supportsGZip());
+        return buffered;
+    }
+
     private void writeObject(HttpServletRequest request, HttpServletResponse response, MediaType contentType,
                              Writable writable, EncodingExceptionHandler owserHandler)
             throws IOException, HTTPException {
         OutputStream out = null;
+        CountingOutputStream counter = null;
+        CompressingOutputStream compressor = null;
+        RequestTimings timings = RequestTimings.current().orElse(null);
+        boolean countingEvent = isCountingOutputStream && eventBus.hasListeners(CountingOutputStreamEvent.class);
+        ContentEncoding encoding = null;
         response.setContentType(writable.getEncodedContentType().toString());
+        if (writable.supportsGZip()) {
+            response.addHeader(HTTPHeaders.VARY, HTTPHeaders.ACCEPT_ENCODING);
+            encoding = negotiateContentEncoding(request);
+        }
+        if (isServerTiming && timings != null) {
+            response.setHeader(HTTPHeaders.SERVER_TIMING, timings.toServerTiming());
+        }
 
         try {
             out = response.getOutputStream();
-            if (HTTPHeaders.supportsGzipEncoding(request) && writable.supportsGZip()) {
-                out = new GZIPOutputStream(out);
-                response.setHeader(HTTPHeaders.CONTENT_ENCODING, HTTPConstants.GZIP_ENCODING);
+            if (countingEvent || timings != null) {
+                out = counter = new CountingOutputStream(out);
+            }
+            if (encoding != null) {
+                long length = writable.getContentLength();
+                if (length < 0 || length >= compressionMinimumSize) {
+                    out = compressor = new CompressingOutputStream(out, encoding, compressionLevel,
+                                                                   compressionBufferSize,
+                                                                   length < 0 ? compressionMinimumSize : 0,
+                                                                   new CompressionListener(response, encoding));
+                }
             }
-            if (isCountingOutputStream) {
-                out = new CountingOutputStream(out);
+            if (compressor == null && writable.getContentLength() > -1) {
+                response.setContentLength(writable.getContentLength());
             }
 
             if (writable.hasForcedHttpStatus()) {
                 response.setStatus(writable.getForcedHttpStatus().getCode());
             }
 
-            writable.write(out, new ResponseProxy(response));
-            out.flush();
+            RequestTimings.Timer timer = RequestTimings.time(writable.getPhase());
+            try {
+                writable.write(out, new ResponseProxy(response));
+            } finally {
+                timer.stop();
+            }
+            RequestTimings.Timer flushTimer = RequestTimings.time(Phase.WRITE);
+            try {
+                out.flush();
+            } finally {
+                flushTimer.stop();
+            }
         } catch (EncodingException e) {
             Object writeOwsExceptionReport = owserHandler.handleEncodingException(request, response, e);
             if (writeOwsExceptionReport != null) {
                 Writable owserWritable = getWritable(writeOwsExceptionReport, contentType);
+                RequestTimings.Timer timer = RequestTimings.time(Phase.ENCODE);
                 try {
                     owserWritable.write(out, new ResponseProxy(response));
                     if (out != null) {
@@ -138,19 +336,79 @@ public class HttpUtils {
                     }
                 } catch (EncodingException ex) {
                     throw new HTTPException(HTTPStatus.INTERNAL_SERVER_ERROR, ex);
+                } finally {
+                    timer.stop();
                 }
             }
         } finally {
-            if (out instanceof CountingOutputStream) {
-                Long bytesWritten = ((CountingOutputStream) out).getCount();
-                eventBus.submit(new CountingOutputStreamEvent(bytesWritten));
-            }
             if (out != null) {
                 LOGGER.debug("Response status = " + response.getStatus());
-                out.close();
+                RequestTimings.Timer timer = RequestTimings.time(Phase.WRITE);
+                try {
+                    out.close();
+                } finally {
+                    timer.stop();
+                }
             }
+            if (compressor != null && compressor.isCompressed()) {
+                recordCompression(compressor, counter, timings);
+            }
+            if (counter != null) {
+                long bytesWritten = counter.getCount();
+                if (timings != null) {
+                    timings.addBytesWritten(bytesWritten);
+                }
+                if (countingEvent) {
+                    eventBus.submit(new CountingOutputStreamEvent(bytesWritten));
+                }
+            }
+        }
+    }
+
+    private static void recordCompression(CompressingOutputStream compressor, CountingOutputStream counter,
+                                          RequestTimings timings) {
+        long compressionTime = compressor.getCompressionTime(TimeUnit.NANOSECONDS);
+        if (timings != null) {
+            timings.addCompression(compressor.getEncoding().getName(), compressor.getUncompressedBytes(),
+                                   compressionTime, TimeUnit.NANOSECONDS);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Compressed {} bytes to {} bytes using {} in {} ms", compressor.getUncompressedBytes(),
+                         counter == null ? "?" : counter.getCount(), compressor.getEncoding().getName(),
+                         TimeUnit.NANOSECONDS.toMillis(compressionTime));
+        }
+    }
 
+    /**
+     * Chooses the content coding for the response body. The coding with the highest quality value in the
+     * {@code Accept-Encoding} header of the request is chosen, in case of a tie the one registered first. No coding is
+     * chosen if the header is missing or if {@code identity} is listed, explicitly or by {@code *}, with a higher
+     * quality value. An unlisted {@code identity} does not prevent compression.
+     *
+     * @param request the request
+     *
+     * @return the coding or {@code null} if the body should not be compressed
+     */
+    ContentEncoding negotiateContentEncoding(HttpServletRequest request) {
+        Map<String, Double> accepted = HTTPHeaders.getAcceptEncoding(request);
+        if (accepted.isEmpty()) {
+            return null;
+        }
+        ContentEncoding chosen = null;
+        double quality = 0.0;
+        for (ContentEncoding encoding : contentEncodings) {
+            double q = HTTPHeaders.getQuality(accepted, encoding.getName());
+            if (q > quality) {
+                chosen = encoding;
+                quality = q;
+            }
+        }
+        Double identity = accepted.getOrDefault(HTTPConstants.IDENTITY_ENCODING,
+                                                accepted.get(HTTPConstants.ANY_ENCODING));
+        if (chosen != null && identity != null && identity > quality) {
+            return null;
         }
+        return chosen;
     }
 
     private Writable getWritable(Object writeOwsExceptionReport, MediaType contentType) {
@@ -160,6 +418,69 @@ public class HttpUtils {
         return new GenericWritable(writeOwsExceptionReport, contentType);
     }
 
+    /**
+     * Checks if the response carries validators ({@code ETag}, {@code Last-Modified}) that match the conditional
+     * headers of a {@code GET} or {@code HEAD} request. {@code If-None-Match} takes precedence over
+     * {@code If-Modified-Since}.
+     *
+     * @param request  the request
+     * @param response the response
+     *
+     * @return if the client's representation is still current
+     */
+    static boolean isNotModified(HttpServletRequest request, ServiceResponse response) {
+        if (response.getStatus() != HTTPStatus.OK ||
+            !(HTTPMethods.GET.equals(request.getMethod()) || HTTPMethods.HEAD.equals(request.getMethod()))) {
+            return false;
+        }
+        String ifNoneMatch = request.getHeader(HTTPHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String etag = response.getHeaderMap().get(HTTPHeaders.ETAG);
+            return etag != null && matchesETag(ifNoneMatch, etag);
+        }
+        String lastModified = response.getHeaderMap().get(HTTPHeaders.LAST_MODIFIED);
+        String ifModifiedSince = request.getHeader(HTTPHeaders.IF_MODIFIED_SINCE);
+        if (lastModified == null || ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            return !parseDate(lastModified).isAfter(parseDate(ifModifiedSince));
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("Ignoring invalid {} header: {}", HTTPHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+            return false;
+        }
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        String opaque = stripWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeakPrefix(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        return etag.startsWith(WEAK_ETAG_PREFIX) ? etag.substring(WEAK_ETAG_PREFIX.length()) : etag;
+    }
+
+    /**
+     * Formats the time as a HTTP date (RFC 7231).
+     *
+     * @param time the time
+     *
+     * @return the formatted date
+     */
+    public static String formatDate(DateTime time) {
+        return HTTP_DATE_FORMAT.print(time);
+    }
+
+    private static DateTime parseDate(String date) {
+        return HTTP_DATE_FORMAT.parseDateTime(date);
+    }
+
     public static InputStream getInputStream(HttpServletRequest req) throws IOException {
         if (HTTPHeaders.isGzipEncoded(req)) {
             return new GZIPInputStream(req.getInputStream());
@@ -178,13 +499,14 @@ public class HttpUtils {
 
         @Override
         public void write(OutputStream out, ResponseProxy responseProxy) throws IOException {
-            // set content length if not gzipped
-            if (!(out instanceof GZIPOutputStream) && response.getContentLength() > -1) {
-                responseProxy.setContentLength(response.getContentLength());
-            }
             response.writeToOutputStream(out);
         }
 
+        @Override
+        public int getContentLength() {
+            return response.getContentLength();
+        }
+
         @Override
         public boolean supportsGZip() {
             return response.supportsGZip();
@@ -194,6 +516,45 @@ public class HttpUtils {
         public MediaType getEncodedContentType() {
             return response.getContentType();
         }
+
+        @Override
+        public Phase getPhase() {
+            return Phase.WRITE;
+        }
+    }
+
+    private static class StreamingWritable<T> implements Writable {
+        private final StreamingEncoder<?, ? super T> encoder;
+        private final T object;
+        private final MediaType contentType;
+
+        StreamingWritable(StreamingEncoder<?, ? super T> encoder, T object, MediaType contentType) {
+            this.encoder = encoder;
+            this.object = object;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(OutputStream out, ResponseProxy responseProxy) throws EncodingException {
+            try (Recording recording = FlightRecorderEvents.beginEncoding(encoder, object, contentType)) {
+                try {
+                    encoder.encode(object, out, EncodingContext.empty());
+                } catch (EncodingException | RuntimeException e) {
+                    recording.failed(e);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public boolean supportsGZip() {
+            return true;
+        }
+
+        @Override
+        public MediaType getEncodedContentType() {
+            return contentType;
+        }
     }
 
     private class GenericWritable implements Writable {
@@ -234,7 +595,14 @@ public class HttpUtils {
 
         @Override
         public void write(OutputStream out, ResponseProxy responseProxy) throws IOException, EncodingException {
-            writer.write(object, out, responseProxy);
+            try (Recording recording = FlightRecorderEvents.beginEncoding(writer, object, getEncodedContentType())) {
+                try {
+                    writer.write(object, out, responseProxy);
+                } catch (IOException | EncodingException | RuntimeException e) {
+                    recording.failed(e);
+                    throw e;
+                }
+            }
         }
 
         @Override
@@ -246,14 +614,60 @@ public class HttpUtils {
         }
     }
 
+    /**
+     * Sets the headers of the response once the {@link CompressingOutputStream} decided whether to compress it. A
+     * strong {@code ETag} of a compressed response is turned into a weak one.
+     */
+    private static final class CompressionListener implements CompressingOutputStream.Listener {
+        private final HttpServletResponse response;
+        private final ContentEncoding encoding;
+
+        CompressionListener(HttpServletResponse response, ContentEncoding encoding) {
+            this.response = response;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void compressing() {
+            response.setHeader(HTTPHeaders.CONTENT_ENCODING, encoding.getName());
+            String etag = response.getHeader(HTTPHeaders.ETAG);
+            if (etag != null && !etag.startsWith(WEAK_ETAG_PREFIX)) {
+                // a strong validator would claim the compressed body to be byte-identical to the uncompressed one
+                response.setHeader(HTTPHeaders.ETAG, WEAK_ETAG_PREFIX + etag);
+            }
+        }
+
+        @Override
+        public void uncompressed(int length) {
+            response.setContentLength(length);
+        }
+    }
+
     private interface Writable {
 
         void write(OutputStream out, ResponseProxy responseProxy) throws IOException, EncodingException;
 
+        /**
+         * @return if the body may be compressed using a negotiated content coding
+         */
         boolean supportsGZip();
 
         MediaType getEncodedContentType();
 
+        /**
+         * @return the length of the body if it is known in advance or {@code -1}
+         */
+        default int getContentLength() {
+            return -1;
+        }
+
+        /**
+         * @return the phase of the request processing in which the writable is written
+         */
+        default Phase getPhase() {
+            return Phase.ENCODE;
+        }
+
         default boolean hasForcedHttpStatus() {
             return false;
         }
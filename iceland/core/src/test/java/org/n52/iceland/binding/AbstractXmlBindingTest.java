@@ -20,12 +20,20 @@ import static org.hamcrest.core.Is.is;
 import static org.hamcrest.MatcherAssert.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.jupiter.api.Test;
 import org.n52.shetland.ogc.ows.exception.CodedException;
 import org.n52.shetland.w3c.soap.SoapConstants;
 import org.n52.svalbard.decode.DecoderKey;
 import org.n52.svalbard.decode.OperationDecoderKey;
 import org.n52.svalbard.decode.XmlNamespaceOperationDecoderKey;
+import org.n52.svalbard.decode.XmlStringOperationDecoderKey;
 
 public class AbstractXmlBindingTest {
 
@@ -96,4 +104,20 @@ public class AbstractXmlBindingTest {
         }
     }
 
+    @Test
+    public void test_StreamIsReplayableAfterDecoderKey() throws CodedException, IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><!-- comment -->" + xmlStringGetObs.substring(38);
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        try (InputStream in = new BufferedInputStream(new ByteArrayInputStream(bytes))) {
+            in.mark(bytes.length);
+            DecoderKey decoderKey = binding.getDecoderKey(in, characterEncoding);
+            assertTrue(decoderKey instanceof XmlStringOperationDecoderKey);
+            assertThat(((XmlStringOperationDecoderKey) decoderKey).getOperation(), is("GetObservation"));
+            in.reset();
+            byte[] replayed = new byte[bytes.length];
+            new DataInputStream(in).readFully(replayed);
+            assertArrayEquals(bytes, replayed);
+        }
+    }
+
 }
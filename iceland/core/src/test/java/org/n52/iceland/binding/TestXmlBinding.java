@@ -19,7 +19,6 @@ package org.n52.iceland.binding;
 import java.util.Collections;
 import java.util.Set;
 
-import org.n52.iceland.coding.DocumentBuilderProvider;
 import org.n52.janmayen.http.MediaType;
 import org.n52.janmayen.http.MediaTypes;
 import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
@@ -35,12 +34,6 @@ public class TestXmlBinding extends AbstractXmlBinding<OwsServiceRequest> {
     private static final ImmutableSet<BindingKey> KEYS
             = ImmutableSet.of(PATH_KEY, MEDIA_TYPE_KEY);
 
-    public TestXmlBinding() {
-        DocumentBuilderProvider fac = new DocumentBuilderProvider();
-        fac.init();
-        super.setDocumentFactory(fac);
-    }
-
     @Override
     protected boolean isUseHttpResponseCodes() {
         return false;
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.binding.exi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+
+import com.siemens.ct.exi.core.EXIFactory;
+import com.siemens.ct.exi.main.api.sax.EXIResult;
+
+public class EXIBindingTest {
+
+    private static final String XML =
+            "<a:root xmlns:a=\"urn:a\"><a:child attr=\"1\">text &amp; more</a:child></a:root>";
+
+    private EXIUtils exiUtils;
+
+    private EXIBinding binding;
+
+    @BeforeEach
+    public void setUp() {
+        this.exiUtils = new EXIUtils();
+        this.exiUtils.setGrammarType(EXISettings.EXI_GRAMMAR_SCHEMALESS);
+        this.exiUtils.init();
+        this.binding = new EXIBinding(exiUtils);
+    }
+
+    @Test
+    public void shouldDecodeRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(encode(XML));
+        XmlObject doc = binding.decode(request);
+        XmlCursor cursor = doc.newCursor();
+        cursor.toFirstChild();
+        assertThat(cursor.getName().getNamespaceURI(), is("urn:a"));
+        assertThat(cursor.getName().getLocalPart(), is("root"));
+        cursor.toFirstChild();
+        assertThat(cursor.getAttributeText(new QName("attr")), is("1"));
+        assertThat(cursor.getTextValue(), is("text & more"));
+        cursor.dispose();
+    }
+
+    @Test
+    public void shouldFailOnInvalidRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(new byte[] { 0x00, 0x01, 0x02 });
+        assertThrows(NoApplicableCodeException.class, () -> binding.decode(request));
+    }
+
+    @Test
+    public void shouldShareFactoryUntilSettingsChange() {
+        EXIFactory factory = exiUtils.get();
+        assertThat(exiUtils.get(), is(sameInstance(factory)));
+        exiUtils.setFidelityComments(true);
+        assertThat(exiUtils.get(), is(not(sameInstance(factory))));
+    }
+
+    private byte[] encode(String xml) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EXIResult result = new EXIResult(exiUtils.get());
+        result.setOutputStream(out);
+        XMLReader reader = XMLReaderFactory.createXMLReader();
+        reader.setContentHandler(result.getHandler());
+        reader.parse(new InputSource(new StringReader(xml)));
+        return out.toByteArray();
+    }
+
+}
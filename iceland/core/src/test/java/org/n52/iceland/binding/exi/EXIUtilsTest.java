@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.binding.exi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.xerces.util.XMLResourceIdentifierImpl;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import org.n52.shetland.ogc.sos.Sos2Constants;
+
+import com.siemens.ct.exi.core.EXIFactory;
+import com.siemens.ct.exi.main.api.sax.EXIResult;
+import com.siemens.ct.exi.main.api.sax.EXISource;
+
+public class EXIUtilsTest {
+
+    private static final String REQUEST
+            = "<sos:GetCapabilities xmlns:sos=\"http://www.opengis.net/sos/2.0\" service=\"SOS\"/>";
+
+    @Test
+    public void shouldResolveSchemasFromClasspath() {
+        ClasspathSchemaResolver resolver = new ClasspathSchemaResolver();
+        assertThat(resolver.resolveEntity(identifier(Sos2Constants.SCHEMA_LOCATION_URL_SOS)), is(notNullValue()));
+        assertThat(resolver.resolveEntity(identifier("http://www.w3.org/2001/xml.xsd")), is(notNullValue()));
+        assertThat(resolver.resolveEntity(identifier("http://example.com/schema.xsd")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldCreateSchemaInformedGrammars() throws Exception {
+        EXIUtils exiUtils = new EXIUtils();
+        exiUtils.setGrammarType(EXISettings.EXI_GRAMMAR_SCHEMABASED);
+        exiUtils.setGrammarSchema(EXISettings.EXI_GRAMMAR_SCHEMA_SOS_20);
+        exiUtils.init();
+        EXIFactory factory = exiUtils.get();
+        assertThat(factory.getGrammars().isSchemaInformed(), is(true));
+        assertThat(decode(factory, encode(factory, REQUEST)).contains("GetCapabilities"), is(true));
+    }
+
+    private static XMLResourceIdentifierImpl identifier(String location) {
+        return new XMLResourceIdentifierImpl(null, location, null, null);
+    }
+
+    private static byte[] encode(EXIFactory factory, String xml) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EXIResult result = new EXIResult(factory);
+        result.setOutputStream(out);
+        XMLReader reader = XMLReaderFactory.createXMLReader();
+        reader.setContentHandler(result.getHandler());
+        reader.parse(new InputSource(new StringReader(xml)));
+        return out.toByteArray();
+    }
+
+    private static String decode(EXIFactory factory, byte[] exi) throws Exception {
+        EXISource source = new EXISource(factory);
+        source.setInputSource(new InputSource(new ByteArrayInputStream(exi)));
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(writer));
+        return writer.toString();
+    }
+
+}
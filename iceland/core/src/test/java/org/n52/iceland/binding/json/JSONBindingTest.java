@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.binding.json;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import org.n52.iceland.response.TestResponse;
+import org.n52.iceland.service.operator.ServiceOperator;
+import org.n52.iceland.service.operator.ServiceOperatorRepository;
+import org.n52.iceland.util.http.HttpUtils;
+import org.n52.janmayen.http.HTTPMethods;
+import org.n52.janmayen.http.MediaTypes;
+import org.n52.shetland.ogc.ows.service.OwsServiceKey;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.svalbard.decode.Decoder;
+import org.n52.svalbard.decode.DecoderKey;
+import org.n52.svalbard.decode.DecoderRepository;
+import org.n52.svalbard.encode.EncoderKey;
+import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.EncodingContext;
+import org.n52.svalbard.encode.StreamingEncoder;
+
+public class JSONBindingTest {
+    private static final String SERVICE = "SOS";
+    private static final String VERSION = "2.0.0";
+    private static final String OPERATION = "GetObservation";
+    private static final String REQUEST = "{\"service\":\"SOS\",\"version\":\"2.0.0\",\"request\":\"GetObservation\"}";
+    private static final String RESPONSE = "{\"request\":\"GetObservation\",\"observations\":[]}";
+
+    private JSONBinding binding;
+    private StreamingEncoder<Object, Object> encoder;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        OwsServiceRequest request = new OwsServiceRequest(SERVICE, VERSION, OPERATION) {
+        };
+        Decoder<Object, Object> decoder = mock(Decoder.class);
+        when(decoder.decode(any())).thenReturn(request);
+        DecoderRepository decoderRepository = mock(DecoderRepository.class);
+        when(decoderRepository.getDecoder(any(DecoderKey.class))).thenReturn(decoder);
+
+        TestResponse response = new TestResponse();
+        response.setService(SERVICE);
+        response.setVersion(VERSION);
+        response.setOperationName(OPERATION);
+        ServiceOperator operator = mock(ServiceOperator.class);
+        when(operator.receiveRequest(request)).thenReturn(response);
+        ServiceOperatorRepository serviceOperatorRepository = mock(ServiceOperatorRepository.class);
+        when(serviceOperatorRepository.isServiceSupported(SERVICE)).thenReturn(true);
+        when(serviceOperatorRepository.isVersionSupported(SERVICE, VERSION)).thenReturn(true);
+        when(serviceOperatorRepository.getServiceOperator(any(OwsServiceKey.class))).thenReturn(operator);
+
+        this.encoder = mock(StreamingEncoder.class);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(RESPONSE.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(encoder).encode(any(), any(OutputStream.class), any(EncodingContext.class));
+        EncoderRepository encoderRepository = mock(EncoderRepository.class);
+        when(encoderRepository.getEncoder(any(EncoderKey.class))).thenReturn(encoder);
+
+        this.binding = new JSONBinding();
+        this.binding.setDecoderRepository(decoderRepository);
+        this.binding.setEncoderRepository(encoderRepository);
+        this.binding.setServiceOperatorRepository(serviceOperatorRepository);
+        this.binding.setHttpUtils(new HttpUtils());
+    }
+
+    @Test
+    public void shouldStreamResponse() throws Exception {
+        binding.setForceStreamingEncoding(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        binding.doPostOperation(createRequest(), response);
+        assertThat(response.getContentAsString(), is(RESPONSE));
+        assertThat(response.getContentType(), is(MediaTypes.APPLICATION_JSON.toString()));
+        verify(encoder).encode(any(), any(OutputStream.class), any(EncodingContext.class));
+        verify(encoder, never()).encode(any());
+    }
+
+    @Test
+    public void shouldNotStreamIfNotForced() throws Exception {
+        assertThat(binding.getStreamingEncoder(new TestResponse(), MediaTypes.APPLICATION_JSON) == null, is(true));
+        binding.setForceStreamingEncoding(true);
+        assertThat(binding.getStreamingEncoder(new TestResponse(), MediaTypes.APPLICATION_JSON) == encoder, is(true));
+    }
+
+    private static MockHttpServletRequest createRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest(HTTPMethods.POST, "/service");
+        request.setContentType(MediaTypes.APPLICATION_JSON.toString());
+        request.setContent(REQUEST.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.binding.kvp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import org.n52.janmayen.exception.CompositeException;
+import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
+import org.n52.svalbard.decode.exception.DecodingException;
+
+public class AbstractKvpDecoderTest {
+
+    private final TestKvpDecoder decoder = new TestKvpDecoder();
+
+    @Test
+    public void should_decode_parameters_case_insensitive() throws DecodingException {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("SERVICE", "SOS");
+        parameters.put("Request", "GetCapabilities");
+        parameters.put("acceptversions", "1.0.0,2.0.0");
+        parameters.put("updateSequence", "42");
+
+        GetCapabilitiesRequest request = decoder.decode(parameters);
+        assertThat(request.getService(), is("SOS"));
+        assertThat(request.getOperationName(), is("GetCapabilities"));
+        assertThat(request.getAcceptVersions(), contains("1.0.0", "2.0.0"));
+        assertThat(request.getUpdateSequence(), is("42"));
+        assertThat(decoder.getDefinitionCount(), is(1));
+
+        decoder.decode(parameters);
+        assertThat(decoder.getDefinitionCount(), is(1));
+    }
+
+    @Test
+    public void should_report_all_unsupported_parameters() {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("service", "SOS");
+        parameters.put("foo", "1");
+        parameters.put("bar", "2");
+
+        DecodingException ex = assertThrows(DecodingException.class, () -> decoder.decode(parameters));
+        assertThat(ex.getCause() instanceof CompositeException, is(true));
+        assertThat(((CompositeException) ex.getCause()).stream()
+                .map(e -> ((DecodingException) e).getLocation().orElse(null))
+                .collect(Collectors.toList()), containsInAnyOrder("foo", "bar"));
+    }
+
+    private static class TestKvpDecoder extends AbstractKvpDecoder<GetCapabilitiesRequest> {
+        private int definitionCount;
+
+        TestKvpDecoder() {
+            super(GetCapabilitiesRequest::new, "SOS", "2.0.0", "GetCapabilities");
+        }
+
+        @Override
+        protected void getRequestParameterDefinitions(Builder<GetCapabilitiesRequest> builder) {
+            ++definitionCount;
+            builder.add("AcceptVersions", decodeList(GetCapabilitiesRequest::setAcceptVersions));
+            builder.add("updateSequence", GetCapabilitiesRequest::setUpdateSequence);
+        }
+
+        int getDefinitionCount() {
+            return definitionCount;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.n52.iceland.cache.ContentCacheUpdate;
+import org.n52.iceland.cache.ctrl.persistence.NoOpCachePersistenceStrategy;
+import org.n52.iceland.cache.ctrl.persistence.TestSnapshotContentCache;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+public class ContentCacheControllerImplTest {
+
+    private ContentCacheControllerImpl controller;
+    private volatile CountDownLatch started;
+    private volatile CountDownLatch release;
+    private volatile int copies;
+
+    @BeforeEach
+    public void setUp() {
+        controller = new ContentCacheControllerImpl();
+        controller.setCacheFactory(() -> {
+            copies++;
+            return new TestSnapshotContentCache();
+        });
+        controller.setPersistenceStrategy(new NoOpCachePersistenceStrategy());
+        controller.setCompleteCacheUpdateFactory(() -> new CompleteUpdate("procedure"));
+        controller.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        controller.destroy();
+    }
+
+    @Test
+    public void partialUpdatesAreAppliedToACopy() throws OwsExceptionReport {
+        TestSnapshotContentCache before = getCache();
+
+        controller.update(new PartialUpdate("other"));
+
+        TestSnapshotContentCache after = getCache();
+        assertThat(after, is(not(sameInstance(before))));
+        assertThat(before.getOfferingsForProcedure(), is(not(hasKey("other"))));
+        assertThat(after.getOfferingsForProcedure(), hasKey("procedure"));
+        assertThat(after.getOfferingsForProcedure(), hasKey("other"));
+        assertThat(after.getLastUpdateTime(), is(notNullValue()));
+    }
+
+    @Test
+    public void completeUpdatesArePublishedAtOnce() throws Exception {
+        TestSnapshotContentCache before = getCache();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        controller.setCompleteCacheUpdateFactory(() -> new CompleteUpdate("new"));
+
+        CompletableFuture<Void> complete = CompletableFuture.runAsync(() -> {
+            try {
+                controller.update();
+            } catch (OwsExceptionReport e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+        // readers still see the old cache while the update is running
+        assertThat(getCache(), is(sameInstance(before)));
+        assertThat(controller.isUpdateInProgress(), is(true));
+
+        // partial updates are visible immediately and are replayed on the new cache
+        controller.update(new PartialUpdate("partial"));
+        assertThat(getCache().getOfferingsForProcedure(), hasKey("partial"));
+        assertThat(before.getOfferingsForProcedure(), is(not(hasKey("partial"))));
+
+        release.countDown();
+        complete.get(5, TimeUnit.SECONDS);
+
+        TestSnapshotContentCache after = getCache();
+        assertThat(after.getOfferingsForProcedure(), hasKey("new"));
+        assertThat(after.getOfferingsForProcedure(), hasKey("partial"));
+        assertThat(after.getOfferingsForProcedure(), is(not(hasKey("procedure"))));
+        assertThat(controller.isUpdateInProgress(), is(false));
+    }
+
+    @Test
+    public void concurrentPartialUpdatesShareOneCopy() throws Exception {
+        TestSnapshotContentCache before = getCache();
+        int copiesBefore = copies;
+        controller.setPartialUpdateWindow(200);
+
+        CompletableFuture<Void> first = controller.updateAsync(new PartialUpdate("a"));
+        CompletableFuture<Void> second = controller.updateAsync(new PartialUpdate("b"));
+        // waiting callers see their own update
+        controller.update(new PartialUpdate("c"));
+        assertThat(getCache().getOfferingsForProcedure(), hasKey("c"));
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        TestSnapshotContentCache after = getCache();
+        assertThat(after.getOfferingsForProcedure(), hasKey("a"));
+        assertThat(after.getOfferingsForProcedure(), hasKey("b"));
+        assertThat(after.getOfferingsForProcedure(), hasKey("c"));
+        assertThat(copies - copiesBefore, is(1));
+        assertThat(before.getOfferingsForProcedure(), is(not(hasKey("a"))));
+    }
+
+    @Test
+    public void failedPartialUpdatesDoNotAffectTheBatch() throws Exception {
+        controller.setPartialUpdateWindow(200);
+
+        CompletableFuture<Void> failing = controller.updateAsync(new PartialUpdate(null));
+        CompletableFuture<Void> succeeding = controller.updateAsync(new PartialUpdate("a"));
+        succeeding.get(5, TimeUnit.SECONDS);
+
+        assertThat(failing.isCompletedExceptionally(), is(true));
+        assertThat(getCache().getOfferingsForProcedure(), hasKey("a"));
+        assertThat(getCache().getOfferingsForProcedure(), is(not(hasKey(nullValue()))));
+    }
+
+    @Test
+    public void onlyModifiedSectionsAreCopied() throws OwsExceptionReport {
+        TestSnapshotContentCache before = getCache();
+
+        controller.update(new PartialUpdate("other", "offeringsForProcedure"));
+
+        TestSnapshotContentCache after = getCache();
+        assertThat(after.getOther(), is(sameInstance(before.getOther())));
+        assertThat(after.getOfferingsForProcedure(), is(not(sameInstance(before.getOfferingsForProcedure()))));
+        assertThat(after.getOfferingsForProcedure(), hasKey("other"));
+        assertThat(before.getOfferingsForProcedure(), is(not(hasKey("other"))));
+    }
+
+    private TestSnapshotContentCache getCache() {
+        return (TestSnapshotContentCache) controller.getCache();
+    }
+
+    private class CompleteUpdate extends ContentCacheUpdate {
+        private final String procedure;
+
+        CompleteUpdate(String procedure) {
+            this.procedure = procedure;
+        }
+
+        @Override
+        public boolean isCompleteUpdate() {
+            return true;
+        }
+
+        @Override
+        public void execute() {
+            CountDownLatch s = started;
+            CountDownLatch r = release;
+            if (s != null) {
+                s.countDown();
+                try {
+                    r.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            ((TestSnapshotContentCache) getCache()).getOfferingsForProcedure()
+                    .put(procedure, Collections.singleton("offering"));
+        }
+    }
+
+    private static class PartialUpdate extends ContentCacheUpdate {
+        private final String procedure;
+        private final Optional<Set<String>> sections;
+
+        PartialUpdate(String procedure) {
+            this.procedure = procedure;
+            this.sections = Optional.empty();
+        }
+
+        PartialUpdate(String procedure, String section) {
+            this.procedure = procedure;
+            this.sections = Optional.of(Collections.singleton(section));
+        }
+
+        @Override
+        public Optional<Set<String>> getModifiedSections() {
+            return sections;
+        }
+
+        @Override
+        public void execute() {
+            if (procedure == null) {
+                fail(new NoApplicableCodeException().withMessage("no procedure"));
+                return;
+            }
+            ((TestSnapshotContentCache) getCache()).getOfferingsForProcedure()
+                    .put(procedure, Collections.singleton("offering"));
+        }
+    }
+}
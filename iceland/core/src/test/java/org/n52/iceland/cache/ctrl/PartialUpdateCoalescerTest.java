@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.n52.iceland.cache.ContentCacheUpdate;
+import org.n52.iceland.cache.ctrl.PartialUpdateCoalescer.Pending;
+import org.n52.shetland.ogc.ows.service.Deadline;
+
+public class PartialUpdateCoalescerTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private PartialUpdateCoalescer coalescer;
+
+    @AfterEach
+    public void tearDown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    public void updatesWithinTheWindowAreAppliedTogether() throws Exception {
+        coalescer = new PartialUpdateCoalescer(this::record, 200, 100);
+
+        CompletableFuture<Void> first = coalescer.submit(new NamedUpdate("a"));
+        CompletableFuture<Void> second = coalescer.submit(new NamedUpdate("b"));
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertThat(batches, hasSize(1));
+        assertThat(batches.get(0), contains("a", "b"));
+    }
+
+    @Test
+    public void batchIsStartedOnceTheSizeIsReached() throws Exception {
+        coalescer = new PartialUpdateCoalescer(this::record, TimeUnit.MINUTES.toMillis(10), 2);
+
+        CompletableFuture<Void> first = coalescer.submit(new NamedUpdate("a"));
+        CompletableFuture<Void> second = coalescer.submit(new NamedUpdate("b"));
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertThat(batches.get(0), contains("a", "b"));
+    }
+
+    @Test
+    public void updatesSubmittedWhileApplyingFormTheNextBatch() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        coalescer = new PartialUpdateCoalescer(batch -> {
+            started.countDown();
+            await(release);
+            record(batch);
+        }, 0, 100);
+
+        CompletableFuture<Void> first = coalescer.submit(new NamedUpdate("a"));
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+        CompletableFuture<Void> second = coalescer.submit(new NamedUpdate("b"));
+        CompletableFuture<Void> third = coalescer.submit(new NamedUpdate("c"));
+        assertThat(first.isDone(), is(false));
+        release.countDown();
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+
+        assertThat(batches, hasSize(2));
+        assertThat(batches.get(0), contains("a"));
+        assertThat(batches.get(1), contains("b", "c"));
+    }
+
+    @Test
+    public void pendingUpdatesAreAppliedOnShutdown() throws Exception {
+        coalescer = new PartialUpdateCoalescer(this::record, TimeUnit.MINUTES.toMillis(10), 100);
+
+        CompletableFuture<Void> future = coalescer.submit(new NamedUpdate("a"));
+        coalescer.shutdown();
+
+        assertThat(future.isDone(), is(true));
+        assertThat(batches.get(0), contains("a"));
+        assertThat(coalescer.submit(new NamedUpdate("b")).isCompletedExceptionally(), is(true));
+    }
+
+    @Test
+    public void updatesAreBoundToTheSubmittingDeadline() throws Exception {
+        List<Optional<Deadline>> deadlines = new CopyOnWriteArrayList<>();
+        coalescer = new PartialUpdateCoalescer(batch -> {
+            for (Pending pending : batch) {
+                Deadline.Scope scope = pending.bind();
+                try {
+                    deadlines.add(Deadline.current());
+                } finally {
+                    scope.close();
+                }
+                pending.complete();
+            }
+        }, 0, 100);
+        Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+
+        Deadline.Scope scope = deadline.bind();
+        CompletableFuture<Void> future;
+        try {
+            future = coalescer.submit(new NamedUpdate("a"));
+        } finally {
+            scope.close();
+        }
+        future.get(5, TimeUnit.SECONDS);
+
+        assertThat(deadlines, hasSize(1));
+        assertThat(deadlines.get(0), is(Optional.of(deadline)));
+    }
+
+    private void record(List<Pending> batch) {
+        List<String> names = new ArrayList<>(batch.size());
+        batch.forEach(pending -> names.add(pending.getUpdate().toString()));
+        batches.add(names);
+        batch.forEach(Pending::complete);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class NamedUpdate extends ContentCacheUpdate {
+        private final String name;
+
+        NamedUpdate(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void execute() {
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
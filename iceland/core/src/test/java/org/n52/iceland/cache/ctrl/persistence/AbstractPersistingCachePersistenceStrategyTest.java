@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.n52.iceland.cache.WritableContentCache;
+
+public class AbstractPersistingCachePersistenceStrategyTest {
+
+    @TempDir
+    Path folder;
+
+    private ImmediatePersistenceStrategy strategy;
+
+    private TestSnapshotContentCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        strategy = new ImmediatePersistenceStrategy();
+        strategy.setCacheFileFolder(folder);
+        strategy.init();
+        cache = new TestSnapshotContentCache();
+        cache.setLastUpdateTime(new DateTime(2019, 3, 1, 12, 0, DateTimeZone.UTC));
+        cache.getOfferingsForProcedure().put("procedure", Collections.singleton("offering"));
+    }
+
+    @Test
+    public void persistAndLoad() {
+        strategy.persistOnCompleteUpdate(cache);
+
+        assertThat(strategy.load(), is(Optional.of(cache)));
+        assertThat(countFiles(), is(1L));
+    }
+
+    @Test
+    public void persistAndLoadWithJavaSerialization() {
+        JavaSerializedCache serializable = new JavaSerializedCache();
+        serializable.setLastUpdateTime(cache.getLastUpdateTime());
+        strategy.persistOnCompleteUpdate(serializable);
+
+        Optional<WritableContentCache> loaded = strategy.load();
+        assertThat(loaded.isPresent(), is(true));
+        assertThat(((JavaSerializedCache) loaded.get()).lastUpdateTime, is(cache.getLastUpdateTime()));
+    }
+
+    @Test
+    public void overwritesExistingFile() {
+        strategy.persistOnCompleteUpdate(cache);
+        cache.getOfferingsForProcedure().put("other", Collections.singleton("offering"));
+        strategy.persistOnPartialUpdate(cache);
+
+        assertThat(strategy.load(), is(Optional.of(cache)));
+        assertThat(countFiles(), is(1L));
+    }
+
+    @Test
+    public void rejectsCorruptedFile() throws IOException {
+        strategy.persistOnCompleteUpdate(cache);
+        byte[] bytes = Files.readAllBytes(strategy.getCacheFile());
+        bytes[bytes.length / 2] ^= 0xFF;
+        Files.write(strategy.getCacheFile(), bytes);
+
+        assertThat(strategy.load(), is(Optional.empty()));
+    }
+
+    @Test
+    public void rejectsTruncatedFile() throws IOException {
+        strategy.persistOnCompleteUpdate(cache);
+        byte[] bytes = Files.readAllBytes(strategy.getCacheFile());
+        Files.write(strategy.getCacheFile(), Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThat(strategy.load(), is(Optional.empty()));
+    }
+
+    @Test
+    public void keepsExistingFileIfPersistingFails() {
+        strategy.persistOnCompleteUpdate(cache);
+        cache.getOther().put("unsupported", new Object());
+        strategy.persistOnCompleteUpdate(cache);
+
+        cache.getOther().clear();
+        assertThat(strategy.load(), is(Optional.of(cache)));
+        assertThat(countFiles(), is(1L));
+    }
+
+    @Test
+    public void loadsLegacyFile() throws IOException {
+        JavaSerializedCache serializable = new JavaSerializedCache();
+        serializable.setLastUpdateTime(cache.getLastUpdateTime());
+        try (OutputStream out = Files.newOutputStream(strategy.getCacheFile());
+             ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(serializable);
+        }
+
+        Optional<WritableContentCache> loaded = strategy.load();
+        assertThat(loaded.isPresent(), is(true));
+        assertThat(((JavaSerializedCache) loaded.get()).lastUpdateTime, is(cache.getLastUpdateTime()));
+    }
+
+    @Test
+    public void removesFile() {
+        strategy.persistOnCompleteUpdate(cache);
+        strategy.remove();
+
+        assertThat(strategy.load(), is(Optional.empty()));
+    }
+
+    private long countFiles() {
+        try (Stream<Path> files = Files.list(strategy.getCacheFile().getParent())) {
+            return files.count();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static class JavaSerializedCache implements WritableContentCache {
+        private static final long serialVersionUID = 1L;
+        private DateTime lastUpdateTime;
+
+        @Override
+        public void setLastUpdateTime(DateTime lastUpdateTime) {
+            this.lastUpdateTime = lastUpdateTime;
+        }
+    }
+}
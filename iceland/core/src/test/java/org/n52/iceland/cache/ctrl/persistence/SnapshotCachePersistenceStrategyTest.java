@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.n52.iceland.cache.ContentCache;
+
+public class SnapshotCachePersistenceStrategyTest {
+
+    @TempDir
+    Path folder;
+
+    private SnapshotCachePersistenceStrategy strategy;
+
+    private TestSnapshotContentCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        strategy = new SnapshotCachePersistenceStrategy();
+        strategy.setCacheFileFolder(folder);
+        strategy.setDelay(2);
+        strategy.init();
+        cache = new TestSnapshotContentCache();
+        cache.setLastUpdateTime(new DateTime(2019, 3, 1, 12, 0, DateTimeZone.UTC));
+        cache.getOfferingsForProcedure().put("procedure", new HashSet<>(Collections.singleton("offering")));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        strategy.persistOnShutdown(null);
+    }
+
+    @Test
+    public void snapshotIsNotAffectedByLaterUpdates() {
+        TestSnapshotContentCache expected = copy(cache);
+        ContentCache snapshot = strategy.prepare(cache);
+        assertThat(snapshot, is(instanceOf(CacheSnapshot.class)));
+
+        cache.getOfferingsForProcedure().get("procedure").add("other");
+        cache.getOfferingsForProcedure().put("other", Collections.singleton("offering"));
+        cache.setLastUpdateTime(DateTime.now());
+        strategy.persistCache(snapshot);
+
+        assertThat(strategy.load(), is(Optional.of(expected)));
+        assertThat(strategy.getPersistCount(), is(1L));
+        assertThat(strategy.getLastPersistSize(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void coalescesUpdates() throws InterruptedException {
+        strategy.persistOnPartialUpdate(copy(cache));
+        cache.getOfferingsForProcedure().put("other", Collections.singleton("offering"));
+        strategy.persistOnPartialUpdate(copy(cache));
+        cache.getOfferingsForProcedure().put("another", Collections.singleton("offering"));
+        strategy.persistOnCompleteUpdate(cache);
+
+        awaitPersist();
+
+        assertThat(strategy.getPersistCount(), is(1L));
+        assertThat(strategy.load(), is(Optional.of(copy(cache))));
+    }
+
+    @Test
+    public void retriesSnapshotWithNextRun() throws InterruptedException {
+        ConcurrentlyModifiedCache modified = new ConcurrentlyModifiedCache();
+        modified.restoreSnapshotSections(CacheSnapshot.of(cache).getSections());
+        assertThat(strategy.prepare(modified), is(nullValue()));
+
+        strategy.persistOnCompleteUpdate(modified);
+
+        awaitPersist();
+
+        assertThat(strategy.getPersistCount(), is(1L));
+        assertThat(strategy.load(), is(Optional.of(copy(cache))));
+    }
+
+    @Test
+    public void javaSerializationWritesTheOriginalCache() throws IOException {
+        ContentCache snapshot = strategy.prepare(cache);
+        JavaSerializationContentCacheCodec codec = new JavaSerializationContentCacheCodec();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(snapshot, out);
+
+        assertThat(codec.decode(new ByteArrayInputStream(out.toByteArray())), is(copy(cache)));
+    }
+
+    private void awaitPersist() throws InterruptedException {
+        for (int i = 0; i < 100 && strategy.getPersistCount() == 0; ++i) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static TestSnapshotContentCache copy(TestSnapshotContentCache cache) {
+        TestSnapshotContentCache copy = new TestSnapshotContentCache();
+        copy.restoreSnapshotSections(CacheSnapshot.of(cache).getSections());
+        return copy;
+    }
+
+    /**
+     * Cache that fails to create a snapshot in the first two calls to {@code prepare}, three attempts each.
+     */
+    public static class ConcurrentlyModifiedCache extends TestSnapshotContentCache {
+        private static final long serialVersionUID = 1L;
+        private transient int failures = 6;
+
+        @Override
+        public Map<String, Object> getSnapshotSections() {
+            if (failures > 0) {
+                --failures;
+                throw new ConcurrentModificationException();
+            }
+            return super.getSnapshotSections();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.n52.iceland.cache.WritableContentCache;
+
+public class SnapshotContentCacheCodecTest {
+    private static final AtomicBoolean NOT_A_CACHE_INITIALIZED = new AtomicBoolean();
+
+    private SnapshotContentCacheCodec codec;
+    private TestSnapshotContentCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        codec = new SnapshotContentCacheCodec();
+        cache = new TestSnapshotContentCache();
+        cache.setLastUpdateTime(new DateTime(2019, 3, 1, 12, 0, DateTimeZone.forOffsetHours(2)));
+        for (int i = 0; i < 100; ++i) {
+            Set<String> offerings = new HashSet<>();
+            offerings.add("http://example.org/offering/" + i % 10);
+            offerings.add("http://example.org/offering/all");
+            cache.getOfferingsForProcedure().put("http://example.org/procedure/" + i, offerings);
+        }
+        cache.getOther().put("int", 42);
+        cache.getOther().put("long", -1L << 40);
+        cache.getOther().put("double", 1.5d);
+        cache.getOther().put("boolean", true);
+        cache.getOther().put("null", null);
+        cache.getOther().put("bytes", new byte[] { 1, 2, 3 });
+        cache.getOther().put("list", Arrays.asList(1, "two", 3L));
+        cache.getOther().put("emptyList", Arrays.asList());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        WritableContentCache decoded = codec.decode(new ByteArrayInputStream(encode(cache)));
+
+        assertThat(decoded, is(instanceOf(TestSnapshotContentCache.class)));
+        TestSnapshotContentCache restored = (TestSnapshotContentCache) decoded;
+        assertThat(restored.getLastUpdateTime(), is(cache.getLastUpdateTime()));
+        assertThat(restored.getOfferingsForProcedure(), is(cache.getOfferingsForProcedure()));
+        assertThat((byte[]) restored.getOther().remove("bytes"), is(new byte[] { 1, 2, 3 }));
+        cache.getOther().remove("bytes");
+        assertThat(restored.getOther(), is(cache.getOther()));
+        assertThat((List<?>) restored.getOther().get("list"), is(Arrays.asList(1, "two", 3L)));
+    }
+
+    @Test
+    public void internsStrings() throws IOException {
+        TestSnapshotContentCache restored
+                = (TestSnapshotContentCache) codec.decode(new ByteArrayInputStream(encode(cache)));
+
+        Map<String, Set<String>> offerings = restored.getOfferingsForProcedure();
+        String first = offerings.get("http://example.org/procedure/0").stream()
+                .filter(s -> s.endsWith("all")).findFirst().get();
+        String second = offerings.get("http://example.org/procedure/1").stream()
+                .filter(s -> s.endsWith("all")).findFirst().get();
+        assertThat(first, is(sameInstance(second)));
+    }
+
+    @Test
+    public void isSmallerThanJavaSerialization() throws IOException {
+        ByteArrayOutputStream java = new ByteArrayOutputStream();
+        new JavaSerializationContentCacheCodec().encode(cache, java);
+        assertThat(encode(cache).length, is(lessThan(java.size())));
+    }
+
+    @Test
+    public void rejectsUnsupportedValues() {
+        cache.getOther().put("object", new Object());
+        assertThrows(IOException.class, () -> encode(cache));
+    }
+
+    @Test
+    public void rejectsTruncatedInput() throws IOException {
+        byte[] bytes = encode(cache);
+        assertThrows(IOException.class, () -> codec.decode(new ByteArrayInputStream(bytes, 0, bytes.length / 2)));
+    }
+
+    @Test
+    public void doesNotInitializeOtherClasses() {
+        assertThrows(IOException.class, () -> SnapshotContentCacheCodec.instantiate(NotACache.class.getName()));
+        assertThat(NOT_A_CACHE_INITIALIZED.get(), is(false));
+    }
+
+    private byte[] encode(TestSnapshotContentCache cache) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(cache, out);
+        return out.toByteArray();
+    }
+
+    private static final class NotACache {
+        static {
+            NOT_A_CACHE_INITIALIZED.set(true);
+        }
+    }
+}
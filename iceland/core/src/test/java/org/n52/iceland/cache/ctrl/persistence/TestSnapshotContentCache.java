@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.cache.ctrl.persistence;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+
+import org.n52.iceland.cache.SnapshotContentCache;
+
+public class TestSnapshotContentCache implements SnapshotContentCache {
+    private static final long serialVersionUID = 1L;
+
+    private DateTime lastUpdateTime;
+    private Map<String, Set<String>> offeringsForProcedure = new HashMap<>();
+    private Map<String, Object> other = new HashMap<>();
+
+    @Override
+    public void setLastUpdateTime(DateTime lastUpdateTime) {
+        this.lastUpdateTime = lastUpdateTime;
+    }
+
+    public DateTime getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    public Map<String, Set<String>> getOfferingsForProcedure() {
+        return offeringsForProcedure;
+    }
+
+    public Map<String, Object> getOther() {
+        return other;
+    }
+
+    @Override
+    public Map<String, Object> getSnapshotSections() {
+        Map<String, Object> sections = new HashMap<>();
+        sections.put("lastUpdateTime", lastUpdateTime);
+        sections.put("offeringsForProcedure", offeringsForProcedure);
+        sections.put("other", other);
+        return sections;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void restoreSnapshotSections(Map<String, Object> sections) {
+        this.lastUpdateTime = (DateTime) sections.get("lastUpdateTime");
+        this.offeringsForProcedure = (Map<String, Set<String>>) sections.get("offeringsForProcedure");
+        this.other = (Map<String, Object>) sections.get("other");
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastUpdateTime, offeringsForProcedure, other);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof TestSnapshotContentCache)) {
+            return false;
+        }
+        TestSnapshotContentCache that = (TestSnapshotContentCache) obj;
+        return Objects.equals(lastUpdateTime, that.lastUpdateTime) &&
+               Objects.equals(offeringsForProcedure, that.offeringsForProcedure) &&
+               Objects.equals(other, that.other);
+    }
+}
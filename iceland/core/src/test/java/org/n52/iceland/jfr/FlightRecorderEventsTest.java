@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.jfr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.n52.iceland.jfr.FlightRecorderEvents.Recording;
+import org.n52.shetland.ogc.ows.service.OwsOperationKey;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderEventsTest {
+
+    @BeforeEach
+    public void assumeAvailable() {
+        Assumptions.assumeTrue(FlightRecorderEvents.isAvailable());
+    }
+
+    @Test
+    public void recordsNothingIfDisabled() {
+        assertThat(FlightRecorderEvents.beginOperation(new OwsOperationKey("SOS", "2.0.0", "GetCapabilities")),
+                   is(Recording.NONE));
+        assertThat(FlightRecorderEvents.beginCacheUpdate(true, 1), is(Recording.NONE));
+    }
+
+    @Test
+    public void recordsOperationsAndFailures() throws IOException {
+        List<RecordedEvent> events;
+        Path file = Files.createTempFile("iceland", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            recording.enable(OperationEvent.class);
+            recording.enable(CacheUpdateEvent.class);
+            recording.start();
+            try (Recording operation = FlightRecorderEvents
+                    .beginOperation(new OwsOperationKey("SOS", "2.0.0", "GetObservation"))) {
+                assertThat(operation == Recording.NONE, is(false));
+            }
+            try (Recording update = FlightRecorderEvents.beginCacheUpdate(false, 3)) {
+                update.failed(new IllegalStateException());
+            }
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        assertThat(events, hasSize(2));
+        RecordedEvent operation = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.n52.iceland.Operation"))
+                .findFirst().get();
+        assertThat(operation.getString("operation"), is("GetObservation"));
+        assertThat(operation.getString("outcome"), is(FlightRecorderEvents.SUCCESS));
+        RecordedEvent update = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.n52.iceland.CacheUpdate"))
+                .findFirst().get();
+        assertThat(update.getInt("updates"), is(3));
+        assertThat(update.getBoolean("complete"), is(false));
+        assertThat(update.getString("outcome"), is(FlightRecorderEvents.FAILURE));
+        assertThat(update.getString("error"), is(IllegalStateException.class.getName()));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(value < LatencyHistogram.upperBoundOf(index), is(true));
+            assertThat(index == 0 || value >= LatencyHistogram.upperBoundOf(index - 1), is(true));
+        }
+    }
+
+    @Test
+    public void reportsPercentilesWithBoundedError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getSum(TimeUnit.MILLISECONDS), is(500500L));
+        long median = histogram.getValueAtPercentile(50, TimeUnit.MICROSECONDS);
+        long p99 = histogram.getValueAtPercentile(99, TimeUnit.MICROSECONDS);
+        assertThat(Math.abs(median - 500000) / 500000.0, is(lessThan(1 / 16.0)));
+        assertThat(Math.abs(p99 - 990000) / 990000.0, is(lessThan(1 / 16.0)));
+    }
+
+    @Test
+    public void countsDurationsBelowBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1, TimeUnit.MILLISECONDS);
+        histogram.record(2, TimeUnit.MILLISECONDS);
+        histogram.record(3, TimeUnit.SECONDS);
+        long[] counts = histogram.getCountsAtOrBelow(new long[] { 1100, 5000, 1000000, 10000000 },
+                                                     TimeUnit.MICROSECONDS);
+        assertThat(counts[0], is(1L));
+        assertThat(counts[1], is(2L));
+        assertThat(counts[2], is(2L));
+        assertThat(counts[3], is(3L));
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1, TimeUnit.MILLISECONDS);
+        histogram.record(365, TimeUnit.DAYS);
+        assertThat(histogram.getCount(), is(2L));
+        assertThat(histogram.getValueAtPercentile(0, TimeUnit.MICROSECONDS), is(0L));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.n52.iceland.event.events.ExceptionEvent;
+import org.n52.iceland.event.events.RequestTimingEvent;
+import org.n52.iceland.exception.HTTPException;
+import org.n52.iceland.service.RequestTimings;
+import org.n52.janmayen.event.EventBus;
+import org.n52.janmayen.http.HTTPStatus;
+import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
+import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
+import org.n52.shetland.ogc.ows.exception.MissingParameterValueException;
+import org.n52.shetland.ogc.ows.service.OwsOperationKey;
+
+import com.google.common.base.Ticker;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void recordsRequestsPerOperation() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.handle(new RequestTimingEvent(null, 1, timings(3, 100)));
+        registry.handle(new RequestTimingEvent(null, 2, timings(40, 50)));
+
+        LatencyHistogram latency = registry.getLatency("SOS", "2.0.0", "GetObservation", "application/x-kvp",
+                                                       "application/xml");
+        assertThat(latency, is(notNullValue()));
+        assertThat(latency.getCount(), is(2L));
+
+        String labels = "service=\"SOS\",version=\"2.0.0\",operation=\"GetObservation\","
+                        + "binding=\"application/x-kvp\",format=\"application/xml\"";
+        String metrics = write(registry);
+        assertThat(metrics, containsString("# TYPE iceland_request_duration_seconds histogram\n"));
+        assertThat(metrics, containsString("iceland_request_duration_seconds_bucket{" + labels
+                                           + ",le=\"0.005\"} 1\n"));
+        assertThat(metrics, containsString("iceland_request_duration_seconds_bucket{" + labels
+                                           + ",le=\"+Inf\"} 2\n"));
+        assertThat(metrics, containsString("iceland_request_duration_seconds_count{" + labels + "} 2\n"));
+        assertThat(metrics, containsString("iceland_response_bytes_total{" + labels + "} 150\n"));
+    }
+
+    @Test
+    public void recordsCompression() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        RequestTimings timings = timings(3, 100);
+        timings.addCompression("gzip", 400, 2, TimeUnit.MILLISECONDS);
+        registry.handle(new RequestTimingEvent(null, 1, timings));
+        registry.handle(new RequestTimingEvent(null, 2, timings(3, 100)));
+
+        String metrics = write(registry);
+        assertThat(metrics, containsString("iceland_compression_input_bytes_total{encoding=\"gzip\"} 400\n"));
+        assertThat(metrics, containsString("iceland_compression_output_bytes_total{encoding=\"gzip\"} 100\n"));
+        assertThat(metrics, containsString("iceland_compression_seconds_total{encoding=\"gzip\"} 0.002\n"));
+    }
+
+    @Test
+    public void countsErrorsByCode() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.handle(new ExceptionEvent(new CompositeOwsException(new InvalidParameterValueException("a", "b"),
+                                                                     new MissingParameterValueException("c"))));
+        registry.handle(new ExceptionEvent(new InvalidParameterValueException("a", "b")));
+        registry.handle(new ExceptionEvent(new HTTPException(HTTPStatus.UNSUPPORTED_MEDIA_TYPE)));
+
+        String metrics = write(registry);
+        assertThat(metrics, containsString("iceland_errors_total{code=\"InvalidParameterValue\"} 2\n"));
+        assertThat(metrics, containsString("iceland_errors_total{code=\"MissingParameterValue\"} 1\n"));
+        assertThat(metrics, containsString("iceland_http_errors_total{status=\"415\"} 1\n"));
+    }
+
+    @Test
+    public void exportsGauges() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setEventBus(new EventBus());
+        registry.registerGauge("test_value", "A \"test\" value", () -> 1.5);
+
+        String metrics = write(registry);
+        assertThat(metrics, containsString("iceland_cache_age_seconds NaN\n"));
+        assertThat(metrics, containsString("iceland_eventbus_pending_events 0.0\n"));
+        assertThat(metrics, containsString("# TYPE iceland_eventbus_dropped_events_total counter\n"));
+        assertThat(metrics, containsString("test_value 1.5\n"));
+    }
+
+    private static RequestTimings timings(long millis, long bytes) {
+        FixedTicker ticker = new FixedTicker();
+        RequestTimings timings = new RequestTimings(ticker);
+        ticker.nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        timings.finish();
+        timings.setOperation(new OwsOperationKey("SOS", "2.0.0", "GetObservation"));
+        timings.setBinding("application/x-kvp");
+        timings.setResponseFormat("application/xml; charset=UTF-8");
+        timings.addBytesWritten(bytes);
+        return timings;
+    }
+
+    private static String write(MetricsRegistry registry) throws IOException {
+        StringWriter writer = new StringWriter();
+        registry.write(writer);
+        return writer.toString();
+    }
+
+    private static class FixedTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.ogc.ows;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.n52.faroe.SettingsChangeEvent;
+import org.n52.iceland.event.events.ContentCacheUpdatedEvent;
+import org.n52.iceland.ogc.ows.CapabilitiesResponseCache.CapabilitiesKey;
+import org.n52.iceland.response.ServiceResponse;
+import org.n52.janmayen.http.HTTPHeaders;
+import org.n52.janmayen.http.MediaType;
+import org.n52.janmayen.http.MediaTypes;
+import org.n52.shetland.ogc.ows.OwsCapabilities;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+public class CapabilitiesResponseCacheTest {
+    private static final CapabilitiesKey KEY
+            = new CapabilitiesKey("SOS", "2.0.0", Collections.singleton("All"), Locale.ENGLISH);
+
+    private final CapabilitiesResponseCache cache = new CapabilitiesResponseCache();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger encoded = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        cache.setEnabled(true);
+    }
+
+    @Test
+    public void isDisabledByDefault() {
+        assertThat(new CapabilitiesResponseCache().isEnabled(), is(false));
+    }
+
+    @Test
+    public void capabilitiesAreCachedUntilTheContentCacheIsUpdated() throws Exception {
+        OwsCapabilities first = cache.getCapabilities(KEY, this::load);
+        assertThat(cache.getCapabilities(KEY, this::load), is(sameInstance(first)));
+        assertThat(loaded.get(), is(1));
+
+        String updateSequence = cache.getUpdateSequence();
+        assertThat(first.getUpdateSequence().orElse(null), is(updateSequence));
+
+        cache.handle(new ContentCacheUpdatedEvent(null, DateTime.now(), false));
+
+        OwsCapabilities second = cache.getCapabilities(KEY, this::load);
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(loaded.get(), is(2));
+        assertThat(cache.compareUpdateSequence(updateSequence), is(lessThan(0)));
+        assertThat(cache.compareUpdateSequence(cache.getUpdateSequence()), is(0));
+    }
+
+    @Test
+    public void capabilitiesAreInvalidatedBySettingChanges() throws Exception {
+        OwsCapabilities first = cache.getCapabilities(KEY, this::load);
+        String updateSequence = cache.getUpdateSequence();
+
+        cache.handle(new SettingsChangeEvent<>(null, null, null));
+
+        assertThat(cache.getCapabilities(KEY, this::load), is(not(sameInstance(first))));
+        assertThat(cache.compareUpdateSequence(updateSequence), is(lessThan(0)));
+    }
+
+    @Test
+    public void updateSequenceIncreasesOnEveryUpdate() {
+        String updateSequence = cache.getUpdateSequence();
+        cache.handle(new ContentCacheUpdatedEvent(null, DateTime.now().minusHours(1), true));
+        assertThat(cache.getUpdateSequence(), is(not(updateSequence)));
+        assertThat(cache.compareUpdateSequence(updateSequence), is(lessThan(0)));
+        assertThat(cache.compareUpdateSequence(DateTime.now().plusDays(1).toString()), is(greaterThan(0)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cache.compareUpdateSequence("invalid"));
+    }
+
+    @Test
+    public void encodedCapabilitiesAreReused() throws Exception {
+        OwsCapabilities capabilities = cache.getCapabilities(KEY, this::load);
+
+        ServiceResponse first = cache.getResponse(capabilities, MediaTypes.APPLICATION_XML, this::encode);
+        ServiceResponse second = cache.getResponse(capabilities, MediaTypes.APPLICATION_XML, this::encode);
+
+        assertThat(encoded.get(), is(1));
+        assertThat(first, is(not(sameInstance(second))));
+        assertThat(content(second), is("<capabilities/>"));
+        assertThat(second.getHeaderMap().get(HTTPHeaders.ETAG), is(notNullValue()));
+        assertThat(second.getHeaderMap().get(HTTPHeaders.ETAG), is(first.getHeaderMap().get(HTTPHeaders.ETAG)));
+        assertThat(second.getHeaderMap().get(HTTPHeaders.LAST_MODIFIED), is(notNullValue()));
+    }
+
+    @Test
+    public void unknownCapabilitiesAreNotEncoded() throws Exception {
+        OwsCapabilities capabilities = load(null);
+        assertThat(cache.getResponse(capabilities, MediaTypes.APPLICATION_XML, this::encode), is(nullValue()));
+
+        OwsCapabilities cached = cache.getCapabilities(KEY, this::load);
+        cache.handle(new ContentCacheUpdatedEvent(null, DateTime.now(), false));
+        assertThat(cache.getResponse(cached, MediaTypes.APPLICATION_XML, this::encode), is(nullValue()));
+        assertThat(encoded.get(), is(0));
+    }
+
+    @Test
+    public void nothingIsCachedIfDisabled() throws Exception {
+        cache.setEnabled(false);
+        OwsCapabilities capabilities = cache.getCapabilities(KEY, this::load);
+        assertThat(cache.getCapabilities(KEY, this::load), is(not(sameInstance(capabilities))));
+        assertThat(cache.getResponse(capabilities, MediaTypes.APPLICATION_XML, this::encode), is(nullValue()));
+    }
+
+    private OwsCapabilities load(String updateSequence) throws OwsExceptionReport {
+        loaded.incrementAndGet();
+        return new OwsCapabilities("SOS", "2.0.0", updateSequence, null, null, null, null, null);
+    }
+
+    private ServiceResponse encode() {
+        encoded.incrementAndGet();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] bytes = "<capabilities/>".getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+        return new ServiceResponse(out, new MediaType("application", "xml"));
+    }
+
+    private static String content(ServiceResponse response) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.writeToOutputStream(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
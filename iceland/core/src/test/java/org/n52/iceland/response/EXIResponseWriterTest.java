@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import org.n52.shetland.exi.EXIObject;
+import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.EncodingContext;
+import org.n52.svalbard.encode.StreamingEXIObject;
+import org.n52.svalbard.encode.StreamingEncoder;
+import org.n52.svalbard.encode.XmlStreamEncoderFlags;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+import com.siemens.ct.exi.core.EXIFactory;
+import com.siemens.ct.exi.core.FidelityOptions;
+import com.siemens.ct.exi.core.exceptions.UnsupportedOption;
+import com.siemens.ct.exi.core.helpers.DefaultEXIFactory;
+import com.siemens.ct.exi.main.api.sax.EXISource;
+
+public class EXIResponseWriterTest {
+
+    private static final String XML =
+            "<a:root xmlns:a=\"urn:a\"><a:child attr=\"1\">text &amp; more</a:child></a:root>";
+
+    private EXIFactory exiFactory;
+
+    @BeforeEach
+    public void setUp() throws UnsupportedOption {
+        this.exiFactory = DefaultEXIFactory.newInstance();
+        this.exiFactory.getFidelityOptions().setFidelity(FidelityOptions.FEATURE_PREFIX, true);
+    }
+
+    @Test
+    public void shouldWriteDocument() throws Exception {
+        EXIResponseWriter writer = createWriter();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(new EXIObject<>(XmlObject.Factory.parse(XML)), out, null);
+        assertThat(decode(out.toByteArray()), is(XML));
+    }
+
+    @Test
+    public void shouldStreamDocumentEvents() throws Exception {
+        @SuppressWarnings("unchecked")
+        StreamingEncoder<Object, Object> encoder = mock(StreamingEncoder.class);
+        doAnswer(invocation -> {
+            EncodingContext ctx = invocation.getArgument(2);
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            XMLReader reader = factory.newSAXParser().getXMLReader();
+            reader.setContentHandler(ctx.require(XmlStreamEncoderFlags.CONTENT_HANDLER));
+            reader.parse(new InputSource(new StringReader(XML)));
+            return null;
+        }).when(encoder).encode(any(), any(OutputStream.class), any(EncodingContext.class));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        createWriter(true).write(new StreamingEXIObject<>(encoder, new Object(), EncodingContext.empty()), out, null);
+        assertThat(decode(out.toByteArray()), is(XML));
+    }
+
+    @Test
+    public void shouldStreamDocumentWrittenAsXml() throws Exception {
+        @SuppressWarnings("unchecked")
+        StreamingEncoder<Object, Object> encoder = mock(StreamingEncoder.class);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(XML.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(encoder).encode(any(), any(OutputStream.class), any(EncodingContext.class));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        createWriter(true).write(new StreamingEXIObject<>(encoder, new Object(), EncodingContext.empty()), out, null);
+        assertThat(decode(out.toByteArray()), is(XML));
+    }
+
+    @Test
+    public void shouldPropagateStreamingEncoderFailure() throws Exception {
+        @SuppressWarnings("unchecked")
+        StreamingEncoder<Object, Object> encoder = mock(StreamingEncoder.class);
+        EncodingException failure = new EncodingException("failure");
+        doThrow(failure).when(encoder).encode(any(), any(OutputStream.class), any(EncodingContext.class));
+        EXIResponseWriter writer = createWriter(true);
+        EncodingException thrown = assertThrows(EncodingException.class, () -> writer
+                .write(new StreamingEXIObject<>(encoder, new Object(), EncodingContext.empty()),
+                       new ByteArrayOutputStream(), null));
+        assertThat(thrown, is(failure));
+    }
+
+    private EXIResponseWriter createWriter() {
+        return createWriter(false);
+    }
+
+    private EXIResponseWriter createWriter(boolean forceStreaming) {
+        return new EXIResponseWriter(mock(EncoderRepository.class), () -> exiFactory, XmlOptions::new,
+                                     forceStreaming);
+    }
+
+    private String decode(byte[] exi) throws Exception {
+        EXISource source = new EXISource(exiFactory);
+        source.setInputSource(new InputSource(new ByteArrayInputStream(exi)));
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(writer));
+        return writer.toString().replaceFirst("^<\\?xml[^>]*\\?>", "");
+    }
+
+}
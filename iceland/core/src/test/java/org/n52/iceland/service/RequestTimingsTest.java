@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.n52.iceland.service.RequestTimings.Phase;
+
+import com.google.common.base.Ticker;
+
+public class RequestTimingsTest {
+
+    private final ManualTicker ticker = new ManualTicker();
+
+    @Test
+    public void recordsPhases() {
+        RequestTimings timings = new RequestTimings(ticker);
+        RequestTimings.Timer decode = timings.start(Phase.DECODE);
+        try {
+            ticker.advance(2);
+        } finally {
+            decode.stop();
+        }
+        ticker.advance(1);
+        RequestTimings.Timer handle = timings.start(Phase.HANDLE);
+        try {
+            ticker.advance(5);
+        } finally {
+            handle.stop();
+        }
+        timings.finish();
+        ticker.advance(10);
+
+        assertThat(timings.isRecorded(Phase.DECODE), is(true));
+        assertThat(timings.isRecorded(Phase.ENCODE), is(false));
+        assertThat(timings.getDuration(Phase.DECODE, TimeUnit.MILLISECONDS), is(2L));
+        assertThat(timings.getDuration(Phase.HANDLE, TimeUnit.MILLISECONDS), is(5L));
+        assertThat(timings.getTotal(TimeUnit.MILLISECONDS), is(8L));
+    }
+
+    @Test
+    public void accumulatesRepeatedPhasesButNotNestedOnes() {
+        RequestTimings timings = new RequestTimings(ticker);
+        RequestTimings.Timer outer = timings.start(Phase.ENCODE);
+        try {
+            ticker.advance(1);
+            RequestTimings.Timer inner = timings.start(Phase.ENCODE);
+            try {
+                ticker.advance(1);
+            } finally {
+                inner.stop();
+            }
+        } finally {
+            outer.stop();
+        }
+        RequestTimings.Timer repeated = timings.start(Phase.ENCODE);
+        try {
+            ticker.advance(3);
+        } finally {
+            repeated.stop();
+        }
+        assertThat(timings.getDuration(Phase.ENCODE, TimeUnit.MILLISECONDS), is(5L));
+    }
+
+    @Test
+    public void createsServerTimingHeader() {
+        RequestTimings timings = new RequestTimings(ticker);
+        assertThat(timings.toServerTiming(), is(""));
+        RequestTimings.Timer binding = timings.start(Phase.BINDING);
+        try {
+            ticker.advanceNanos(12345);
+        } finally {
+            binding.stop();
+        }
+        RequestTimings.Timer handle = timings.start(Phase.HANDLE);
+        try {
+            ticker.advance(25);
+        } finally {
+            handle.stop();
+        }
+        assertThat(timings.toServerTiming(), is("binding;dur=0.012, handle;dur=25.000"));
+    }
+
+    @Test
+    public void timesOnlyBoundTimings() {
+        RequestTimings timings = new RequestTimings(ticker);
+        RequestTimings.Timer unbound = RequestTimings.time(Phase.WRITE);
+        try {
+            ticker.advance(1);
+        } finally {
+            unbound.stop();
+        }
+        assertThat(timings.isRecorded(Phase.WRITE), is(false));
+
+        RequestTimings.Scope scope = timings.bind();
+        try {
+            assertThat(RequestTimings.current().isPresent(), is(true));
+            RequestTimings.Timer bound = RequestTimings.time(Phase.WRITE);
+            try {
+                ticker.advance(1);
+            } finally {
+                bound.stop();
+            }
+        } finally {
+            scope.close();
+        }
+        assertThat(RequestTimings.current().isPresent(), is(false));
+        assertThat(timings.getDuration(Phase.WRITE, TimeUnit.MILLISECONDS), is(1L));
+    }
+
+    @Test
+    public void countsBytesWritten() {
+        RequestTimings timings = new RequestTimings(ticker);
+        assertThat(timings.getBytesWritten(), is(-1L));
+        timings.addBytesWritten(0);
+        assertThat(timings.getBytesWritten(), is(0L));
+        timings.addBytesWritten(10);
+        timings.addBytesWritten(5);
+        assertThat(timings.getBytesWritten(), is(15L));
+    }
+
+    private static class ManualTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long millis) {
+            advanceNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        void advanceNanos(long value) {
+            nanos += value;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.util.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class CompressingOutputStreamTest {
+
+    @Test
+    public void writesSmallBodiesUncompressed() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        RecordingListener listener = new RecordingListener();
+        try (CompressingOutputStream out = stream(sink, listener)) {
+            out.write(new byte[] { 1, 2 });
+            out.write(3);
+            out.flush();
+            assertThat(sink.size(), is(0));
+        }
+        assertThat(sink.toByteArray(), is(new byte[] { 1, 2, 3 }));
+        assertThat(listener.length, is(3));
+        assertThat(listener.compressing, is(false));
+    }
+
+    @Test
+    public void compressesOnceTheMinimumSizeIsReached() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        RecordingListener listener = new RecordingListener();
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 7);
+        }
+        CompressingOutputStream out = stream(sink, listener);
+        for (byte b : content) {
+            out.write(b);
+        }
+        out.close();
+        assertThat(listener.compressing, is(true));
+        assertThat(out.isCompressed(), is(true));
+        assertThat(out.getUncompressedBytes(), is(1000L));
+        assertThat(ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(sink.toByteArray()))),
+                   is(content));
+    }
+
+    private static CompressingOutputStream stream(ByteArrayOutputStream sink, RecordingListener listener) {
+        return new CompressingOutputStream(sink, new GzipContentEncoding(), Deflater.BEST_SPEED, 16, 10, listener);
+    }
+
+    private static class RecordingListener implements CompressingOutputStream.Listener {
+        private boolean compressing;
+        private int length = -1;
+
+        @Override
+        public void compressing() {
+            compressing = true;
+        }
+
+        @Override
+        public void uncompressed(int length) {
+            this.length = length;
+        }
+    }
+}
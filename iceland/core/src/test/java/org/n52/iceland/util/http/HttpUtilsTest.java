@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.util.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import org.n52.iceland.response.ServiceResponse;
+import org.n52.iceland.service.RequestTimings;
+import org.n52.iceland.service.RequestTimings.Phase;
+import org.n52.janmayen.http.HTTPConstants;
+import org.n52.janmayen.http.HTTPHeaders;
+import org.n52.janmayen.http.HTTPMethods;
+import org.n52.janmayen.http.MediaTypes;
+
+import com.google.common.io.ByteStreams;
+
+public class HttpUtilsTest {
+    private static final String ETAG = "\"abc\"";
+    private static final DateTime LAST_MODIFIED = new DateTime(2019, 5, 1, 12, 0, DateTimeZone.UTC);
+
+    @Test
+    public void matchingETagIsNotModified() {
+        assertThat(HttpUtils.isNotModified(request(HTTPHeaders.IF_NONE_MATCH, ETAG), response()), is(true));
+        assertThat(HttpUtils.isNotModified(request(HTTPHeaders.IF_NONE_MATCH, "\"x\", W/\"abc\""), response()),
+                   is(true));
+        assertThat(HttpUtils.isNotModified(request(HTTPHeaders.IF_NONE_MATCH, "*"), response()), is(true));
+        assertThat(HttpUtils.isNotModified(request(HTTPHeaders.IF_NONE_MATCH, "\"x\""), response()), is(false));
+    }
+
+    @Test
+    public void ifNoneMatchTakesPrecedence() {
+        MockHttpServletRequest request = request(HTTPHeaders.IF_NONE_MATCH, "\"x\"");
+        request.addHeader(HTTPHeaders.IF_MODIFIED_SINCE, HttpUtils.formatDate(LAST_MODIFIED));
+        assertThat(HttpUtils.isNotModified(request, response()), is(false));
+    }
+
+    @Test
+    public void unchangedResponseIsNotModified() {
+        assertThat(HttpUtils.isNotModified(request(HTTPHeaders.IF_MODIFIED_SINCE,
+                                                   HttpUtils.formatDate(LAST_MODIFIED)), response()), is(true));
+        assertThat(HttpUtils.isNotModified(request(HTTPHeaders.IF_MODIFIED_SINCE,
+                                                   HttpUtils.formatDate(LAST_MODIFIED.minusSeconds(1))),
+                                           response()), is(false));
+        assertThat(HttpUtils.isNotModified(request(HTTPHeaders.IF_MODIFIED_SINCE, "yesterday"), response()),
+                   is(false));
+    }
+
+    @Test
+    public void onlyGetRequestsAreConditional() {
+        MockHttpServletRequest request = request(HTTPHeaders.IF_NONE_MATCH, ETAG);
+        request.setMethod(HTTPMethods.POST);
+        assertThat(HttpUtils.isNotModified(request, response()), is(false));
+    }
+
+    @Test
+    public void httpDatesAreFormattedInGmt() {
+        assertThat(HttpUtils.formatDate(LAST_MODIFIED), is("Wed, 01 May 2019 12:00:00 GMT"));
+    }
+
+    @Test
+    public void addsServerTimingAndCountsBytes() throws Exception {
+        HttpUtils httpUtils = new HttpUtils();
+        httpUtils.setServerTiming(true);
+        RequestTimings timings = new RequestTimings();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(new byte[] { 1, 2, 3 });
+        RequestTimings.Scope scope = timings.bind();
+        try {
+            RequestTimings.time(Phase.HANDLE).stop();
+            httpUtils.writeObject(new MockHttpServletRequest(HTTPMethods.GET, "/service"), response,
+                                  new ServiceResponse(body, MediaTypes.APPLICATION_XML), null);
+        } finally {
+            scope.close();
+        }
+        assertThat(response.getHeader(HTTPHeaders.SERVER_TIMING), startsWith("handle;dur="));
+        assertThat(response.getContentAsByteArray().length, is(3));
+        assertThat(timings.getBytesWritten(), is(3L));
+        assertThat(timings.isRecorded(Phase.WRITE), is(true));
+    }
+
+    @Test
+    public void compressesWithPreferredEncoding() throws Exception {
+        HttpUtils httpUtils = new HttpUtils();
+        RequestTimings timings = new RequestTimings();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        byte[] content = new byte[4096];
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(content);
+        RequestTimings.Scope scope = timings.bind();
+        try {
+            httpUtils.writeObject(request(HTTPHeaders.ACCEPT_ENCODING, "gzip;q=0.5, deflate"), response,
+                                  new ServiceResponse(body, MediaTypes.APPLICATION_XML), null);
+        } finally {
+            scope.close();
+        }
+        assertThat(response.getHeader(HTTPHeaders.CONTENT_ENCODING), is(HTTPConstants.DEFLATE_ENCODING));
+        assertThat(response.getHeader(HTTPHeaders.VARY), is(HTTPHeaders.ACCEPT_ENCODING));
+        assertThat(ByteStreams.toByteArray(new InflaterInputStream(
+                new ByteArrayInputStream(response.getContentAsByteArray()))), is(content));
+        assertThat(timings.getContentEncoding(), is(HTTPConstants.DEFLATE_ENCODING));
+        assertThat(timings.getUncompressedBytes(), is(4096L));
+        assertThat(timings.getCompressionRatio(), is(lessThan(1.0)));
+    }
+
+    @Test
+    public void compressedResponsesHaveAWeakETag() throws Exception {
+        HttpUtils httpUtils = new HttpUtils();
+        MockHttpServletResponse compressed = new MockHttpServletResponse();
+        httpUtils.writeObject(request(HTTPHeaders.ACCEPT_ENCODING, HTTPConstants.GZIP_ENCODING), compressed,
+                              response(new byte[4096]), null);
+        MockHttpServletResponse identity = new MockHttpServletResponse();
+        httpUtils.writeObject(request(HTTPHeaders.ACCEPT_ENCODING, "identity"), identity, response(new byte[4096]),
+                              null);
+
+        assertThat(compressed.getHeader(HTTPHeaders.CONTENT_ENCODING), is(HTTPConstants.GZIP_ENCODING));
+        assertThat(compressed.getHeader(HTTPHeaders.ETAG), is("W/" + ETAG));
+        assertThat(identity.getHeader(HTTPHeaders.CONTENT_ENCODING), is(nullValue()));
+        assertThat(identity.getHeader(HTTPHeaders.ETAG), is(ETAG));
+    }
+
+    @Test
+    public void doesNotCompressSmallResponses() throws Exception {
+        HttpUtils httpUtils = new HttpUtils();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(new byte[] { 1, 2, 3 });
+        httpUtils.writeObject(request(HTTPHeaders.ACCEPT_ENCODING, HTTPConstants.GZIP_ENCODING), response,
+                              new ServiceResponse(body, MediaTypes.APPLICATION_XML), null);
+        assertThat(response.getHeader(HTTPHeaders.CONTENT_ENCODING), is(nullValue()));
+        assertThat(response.getContentLength(), is(3));
+    }
+
+    @Test
+    public void negotiatesContentEncoding() {
+        HttpUtils httpUtils = new HttpUtils();
+        assertThat(httpUtils.negotiateContentEncoding(new MockHttpServletRequest()), is(nullValue()));
+        assertThat(httpUtils.negotiateContentEncoding(request(HTTPHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .getName(), is(HTTPConstants.GZIP_ENCODING));
+        assertThat(httpUtils.negotiateContentEncoding(request(HTTPHeaders.ACCEPT_ENCODING, "gzip;q=0, *"))
+                .getName(), is(HTTPConstants.DEFLATE_ENCODING));
+        assertThat(httpUtils.negotiateContentEncoding(request(HTTPHeaders.ACCEPT_ENCODING, "gzip;q=0.5, identity")),
+                   is(nullValue()));
+        assertThat(httpUtils.negotiateContentEncoding(request(HTTPHeaders.ACCEPT_ENCODING, "br")), is(nullValue()));
+        assertThat(httpUtils.negotiateContentEncoding(request(HTTPHeaders.ACCEPT_ENCODING, "gzip;q=0.8")).getName(),
+                   is(HTTPConstants.GZIP_ENCODING));
+        assertThat(httpUtils.negotiateContentEncoding(request(HTTPHeaders.ACCEPT_ENCODING,
+                                                              "gzip;q=0.5, deflate;q=0.5, *;q=0.8")),
+                   is(nullValue()));
+    }
+
+    private static MockHttpServletRequest request(String header, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest(HTTPMethods.GET, "/service");
+        request.addHeader(header, value);
+        return request;
+    }
+
+    private static ServiceResponse response() {
+        return response(new byte[0]);
+    }
+
+    private static ServiceResponse response(byte[] content) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(content, 0, content.length);
+        ServiceResponse response = new ServiceResponse(body, MediaTypes.APPLICATION_XML);
+        response.setHeader(HTTPHeaders.ETAG, ETAG);
+        response.setHeader(HTTPHeaders.LAST_MODIFIED, HttpUtils.formatDate(LAST_MODIFIED));
+        return response;
+    }
+}
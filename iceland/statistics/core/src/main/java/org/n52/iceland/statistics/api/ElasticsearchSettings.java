@@ -19,6 +19,7 @@ package org.n52.iceland.statistics.api;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -30,6 +31,7 @@ import org.n52.faroe.Validation;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.statistics.api.mappings.MetadataDataMapping;
+import org.n52.janmayen.event.OverflowPolicy;
 
 @Configurable
 public class ElasticsearchSettings {
@@ -84,6 +86,36 @@ public class ElasticsearchSettings {
      */
     private String kibanaConfPath;
 
+    /**
+     * Number of documents after which the buffered documents are sent as one bulk request.
+     */
+    private int bulkSize = 500;
+
+    /**
+     * Maximum time in milliseconds a document is buffered before it is sent.
+     */
+    private long bulkFlushInterval = 5000;
+
+    /**
+     * Maximum number of documents buffered for indexing.
+     */
+    private int bulkQueueCapacity = 10000;
+
+    /**
+     * What to do with a document if the buffer is full.
+     */
+    private OverflowPolicy bulkOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    /**
+     * How often a failed bulk request is retried before the documents are discarded.
+     */
+    private int bulkMaxRetries = 3;
+
+    /**
+     * Initial delay in milliseconds before a failed bulk request is retried. Doubled on every retry.
+     */
+    private long bulkRetryBackoff = 100;
+
     // Getter Setters
     public boolean isLoggingEnabled() {
         return loggingEnabled;
@@ -231,6 +263,76 @@ public class ElasticsearchSettings {
         this.kibanaConfigEnable = kibanaConfigEnable;
     }
 
+    public int getBulkSize() {
+        return bulkSize;
+    }
+
+    @Setting(value = ElasticsearchSettingsKeys.BULK_SIZE, required = false)
+    public void setBulkSize(int bulkSize) {
+        Validation.greaterZero(ElasticsearchSettingsKeys.BULK_SIZE, bulkSize);
+        this.bulkSize = bulkSize;
+    }
+
+    public long getBulkFlushInterval() {
+        return bulkFlushInterval;
+    }
+
+    @Setting(value = ElasticsearchSettingsKeys.BULK_FLUSH_INTERVAL, required = false)
+    public void setBulkFlushInterval(int bulkFlushInterval) {
+        Validation.greaterZero(ElasticsearchSettingsKeys.BULK_FLUSH_INTERVAL, bulkFlushInterval);
+        this.bulkFlushInterval = bulkFlushInterval;
+    }
+
+    public int getBulkQueueCapacity() {
+        return bulkQueueCapacity;
+    }
+
+    @Setting(value = ElasticsearchSettingsKeys.BULK_QUEUE_CAPACITY, required = false)
+    public void setBulkQueueCapacity(int bulkQueueCapacity) {
+        Validation.greaterZero(ElasticsearchSettingsKeys.BULK_QUEUE_CAPACITY, bulkQueueCapacity);
+        this.bulkQueueCapacity = bulkQueueCapacity;
+    }
+
+    public OverflowPolicy getBulkOverflowPolicy() {
+        return bulkOverflowPolicy;
+    }
+
+    /**
+     * What to do with a document if the bulk indexing buffer is full. {@link OverflowPolicy#CALLER_RUNS} indexes the
+     * document synchronously on the calling thread.
+     *
+     * @param policy the name of the {@link OverflowPolicy}
+     */
+    @Setting(value = ElasticsearchSettingsKeys.BULK_OVERFLOW_POLICY, required = false)
+    public void setBulkOverflowPolicy(String policy) {
+        Validation.notNullOrEmpty(ElasticsearchSettingsKeys.BULK_OVERFLOW_POLICY, policy);
+        try {
+            this.bulkOverflowPolicy = OverflowPolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationError("Unsupported overflow policy " + policy, e);
+        }
+    }
+
+    public int getBulkMaxRetries() {
+        return bulkMaxRetries;
+    }
+
+    @Setting(value = ElasticsearchSettingsKeys.BULK_MAX_RETRIES, required = false)
+    public void setBulkMaxRetries(int bulkMaxRetries) {
+        Validation.greaterEqualZero(ElasticsearchSettingsKeys.BULK_MAX_RETRIES, bulkMaxRetries);
+        this.bulkMaxRetries = bulkMaxRetries;
+    }
+
+    public long getBulkRetryBackoff() {
+        return bulkRetryBackoff;
+    }
+
+    @Setting(value = ElasticsearchSettingsKeys.BULK_RETRY_BACKOFF, required = false)
+    public void setBulkRetryBackoff(int bulkRetryBackoff) {
+        Validation.greaterZero(ElasticsearchSettingsKeys.BULK_RETRY_BACKOFF, bulkRetryBackoff);
+        this.bulkRetryBackoff = bulkRetryBackoff;
+    }
+
     @Override
     public String toString() {
         return "ElasticsearchSettings [loggingEnabled=" + loggingEnabled + ", clusterName=" + clusterName +
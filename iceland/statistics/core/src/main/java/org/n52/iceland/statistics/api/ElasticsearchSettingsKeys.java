@@ -39,6 +39,14 @@ public interface ElasticsearchSettingsKeys {
     String CONNECTION_MODE_EMBEDDED_SERVER
             = "statistics.elasticsearch.connection_mode.embedded_server";
 
+    // bulk indexing of the statistics documents
+    String BULK_SIZE = "statistics.elasticsearch.bulk.size";
+    String BULK_FLUSH_INTERVAL = "statistics.elasticsearch.bulk.flush_interval";
+    String BULK_QUEUE_CAPACITY = "statistics.elasticsearch.bulk.queue_capacity";
+    String BULK_OVERFLOW_POLICY = "statistics.elasticsearch.bulk.overflow_policy";
+    String BULK_MAX_RETRIES = "statistics.elasticsearch.bulk.max_retries";
+    String BULK_RETRY_BACKOFF = "statistics.elasticsearch.bulk.retry_backoff";
+
     String KIBANA_CONFIG_PATH = "statistics.elasticsearch.kibana_config_file";
     String KIBANA_CONFIG_ENABLE = "statistics.elasticsearch.kibana_config_enable";
 
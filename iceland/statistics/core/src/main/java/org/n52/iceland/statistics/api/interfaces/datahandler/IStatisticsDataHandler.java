@@ -33,6 +33,15 @@ public interface IStatisticsDataHandler {
      */
     IndexResponse persist(Map<String, Object> dataMap);
 
+    /**
+     * Schedules the data to be persisted to the database. Implementations may buffer the data and write it in bulk.
+     *
+     * @param dataMap keys are property names and the values are the objects
+     */
+    default void enqueue(Map<String, Object> dataMap) {
+        persist(dataMap);
+    }
+
     /**
      * Returns true if the statistics module is enabled otherwise false
      *
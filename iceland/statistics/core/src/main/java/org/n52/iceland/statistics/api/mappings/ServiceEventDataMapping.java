@@ -63,6 +63,12 @@ public class ServiceEventDataMapping {
                           new Description(InformationOrigin.OutgoingResponseEvent, Operation.Default,
                                           "Size of the response document"));
 
+    // --------------- RequestTimingEvent --------------//
+    public static final AbstractEsParameter RTE_TIMINGS = ObjectEsParameterFactory
+            .requestTimings("timings",
+                            new Description(InformationOrigin.RequestTimingEvent, Operation.Default,
+                                            "Time spent in the phases of processing the request"));
+
     // --------------- Iceland Exception --------------//
     public static final AbstractEsParameter EX_STATUS = new SingleEsParameter(
             "exception-status",
@@ -60,6 +60,7 @@ public class Description {
         ResponseEvent,
         CountingStreamEvent,
         OutgoingResponseEvent,
+        RequestTimingEvent,
         ExceptionEvent,
         Computed,
         None;
@@ -56,6 +56,43 @@ public interface ObjectEsParameterFactory {
                             "Size in human readable form"),
             ElasticsearchTypeRegistry.STRING_FIELD);
 
+    // ---------------- REQUEST TIMINGS ------------------//
+    SingleEsParameter TIMING_BINDING = new SingleEsParameter(
+            "binding-ms",
+            new Description(InformationOrigin.None, Operation.None,
+                            "Time spent to resolve the binding of the request in milliseconds"),
+            ElasticsearchTypeRegistry.DOUBLE_FIELD);
+
+    SingleEsParameter TIMING_DECODE = new SingleEsParameter(
+            "decode-ms",
+            new Description(InformationOrigin.None, Operation.None,
+                            "Time spent to decode the request in milliseconds"),
+            ElasticsearchTypeRegistry.DOUBLE_FIELD);
+
+    SingleEsParameter TIMING_HANDLE = new SingleEsParameter(
+            "handle-ms",
+            new Description(InformationOrigin.None, Operation.None,
+                            "Time spent by the operator to process the request in milliseconds"),
+            ElasticsearchTypeRegistry.DOUBLE_FIELD);
+
+    SingleEsParameter TIMING_ENCODE = new SingleEsParameter(
+            "encode-ms",
+            new Description(InformationOrigin.None, Operation.None,
+                            "Time spent to encode the response in milliseconds"),
+            ElasticsearchTypeRegistry.DOUBLE_FIELD);
+
+    SingleEsParameter TIMING_WRITE = new SingleEsParameter(
+            "write-ms",
+            new Description(InformationOrigin.None, Operation.None,
+                            "Time spent to write the encoded response in milliseconds"),
+            ElasticsearchTypeRegistry.DOUBLE_FIELD);
+
+    SingleEsParameter TIMING_TOTAL = new SingleEsParameter(
+            "total-ms",
+            new Description(InformationOrigin.None, Operation.None,
+                            "Time spent to process the request in milliseconds"),
+            ElasticsearchTypeRegistry.DOUBLE_FIELD);
+
     // ----------------- EXTENSION -----------------------//
     SingleEsParameter EXTENSION_DEFINITION = new SingleEsParameter(
             "extension-definition",
@@ -185,6 +222,13 @@ public interface ObjectEsParameterFactory {
         return new ObjectEsParameter(objectName, description, BYTES, DISPLAY_BYTES);
     }
 
+    static ObjectEsParameter requestTimings(String objectName, Description description) {
+        Objects.requireNonNull(objectName);
+
+        return new ObjectEsParameter(objectName, description, TIMING_BINDING, TIMING_DECODE, TIMING_HANDLE,
+                                     TIMING_ENCODE, TIMING_WRITE, TIMING_TOTAL, BYTES);
+    }
+
     static ObjectEsParameter extension(String objectName, Description description) {
         Objects.requireNonNull(objectName);
 
@@ -25,6 +25,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 
@@ -36,12 +38,14 @@ import org.n52.iceland.event.events.CountingOutputStreamEvent;
 import org.n52.iceland.event.events.ExceptionEvent;
 import org.n52.iceland.event.events.OutgoingResponseEvent;
 import org.n52.iceland.event.events.RequestEvent;
+import org.n52.iceland.event.events.RequestTimingEvent;
 import org.n52.iceland.statistics.api.interfaces.StatisticsServiceEventResolver;
 import org.n52.iceland.statistics.api.interfaces.datahandler.IStatisticsDataHandler;
 import org.n52.iceland.statistics.impl.resolvers.CountingOutputStreamEventResolver;
 import org.n52.iceland.statistics.impl.resolvers.DefaultServiceEventResolver;
 import org.n52.iceland.statistics.impl.resolvers.ExceptionEventResolver;
 import org.n52.iceland.statistics.impl.resolvers.OutgoingResponseEventResolver;
+import org.n52.iceland.statistics.impl.resolvers.RequestTimingEventResolver;
 import org.n52.janmayen.event.Event;
 import org.n52.janmayen.event.EventListener;
 
@@ -51,11 +55,15 @@ public abstract class AbstractStatisticsServiceEventListener implements EventLis
     private static final Logger LOG = LoggerFactory.getLogger(AbstractStatisticsServiceEventListener.class);
     private static final int DEFAULT_THREAD_POOL_SIZE = 2;
     private static final int EVENTS_ARR_SIZE = 4;
+    private static final long DEFAULT_EVENT_GROUP_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
     private final ExecutorService executorService;
     @SuppressWarnings("unchecked")
     private final Set<Class<? extends Event>> eventTypes = Sets
-            .newHashSet(ExceptionEvent.class, OutgoingResponseEvent.class, CountingOutputStreamEvent.class);
-    private final ConcurrentMap<Long, List<AbstractFlowEvent>> eventsCache = new ConcurrentHashMap<>();
+            .newHashSet(ExceptionEvent.class, OutgoingResponseEvent.class, CountingOutputStreamEvent.class,
+                        RequestTimingEvent.class);
+    private final ConcurrentMap<Long, EventGroup> eventsCache = new ConcurrentHashMap<>();
+    private final AtomicLong lastEviction = new AtomicLong(System.currentTimeMillis());
+    private long eventGroupTimeout = DEFAULT_EVENT_GROUP_TIMEOUT;
 
     @Inject
     private IStatisticsDataHandler dataHandler;
@@ -85,28 +93,26 @@ public abstract class AbstractStatisticsServiceEventListener implements EventLis
 
         try {
             if (serviceEvent instanceof AbstractFlowEvent) {
-                List<AbstractFlowEvent> eventList;
                 AbstractFlowEvent evt = (AbstractFlowEvent) serviceEvent;
+                Long groupId = evt.getMessageGroupId();
 
                 // empty the list on the first event of the given group id
                 if (serviceEvent instanceof RequestEvent) {
-                    eventList = new ArrayList<>(EVENTS_ARR_SIZE);
-                    eventsCache.put(evt.getMessageGroupId(), eventList);
+                    eventsCache.put(groupId, new EventGroup());
                 }
 
                 // fall back
-                if (eventsCache.get(evt.getMessageGroupId()) == null) {
-                    eventList = new ArrayList<>(EVENTS_ARR_SIZE);
-                    eventsCache.put(evt.getMessageGroupId(), eventList);
-                }
-                eventsCache.get(evt.getMessageGroupId()).add(evt);
+                EventGroup group = eventsCache.computeIfAbsent(groupId, id -> new EventGroup());
+                group.add(evt);
 
                 // received last event process eventsResolvers on a new thread
                 if (serviceEvent instanceof OutgoingResponseEvent) {
+                    eventsCache.remove(groupId, group);
                     BatchResolver resolvers = new BatchResolver(dataHandler);
-                    eventsCache.get(evt.getMessageGroupId()).stream().forEach(l -> addEventToResolver(resolvers, l));
+                    group.getEvents().forEach(l -> addEventToResolver(resolvers, l));
                     executorService.execute(resolvers);
                 }
+                evictStaleEventGroups();
 
             } else {
                 LOG.trace("Unssupported type of event: {}", serviceEvent.getClass());
@@ -121,6 +127,38 @@ public abstract class AbstractStatisticsServiceEventListener implements EventLis
         }
     }
 
+    /**
+     * Removes the events of requests that did not produce an {@link OutgoingResponseEvent} within the event group
+     * timeout. Runs at most once per timeout.
+     */
+    private void evictStaleEventGroups() {
+        long now = System.currentTimeMillis();
+        long last = lastEviction.get();
+        if (now - last < eventGroupTimeout || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+        long threshold = now - eventGroupTimeout;
+        int size = eventsCache.size();
+        eventsCache.values().removeIf(group -> group.getCreated() < threshold);
+        LOG.debug("Evicted {} stale event groups", size - eventsCache.size());
+    }
+
+    /**
+     * Sets the time in milliseconds after which the events of a request without response are discarded.
+     *
+     * @param eventGroupTimeout the timeout
+     */
+    public void setEventGroupTimeout(long eventGroupTimeout) {
+        this.eventGroupTimeout = eventGroupTimeout;
+    }
+
+    /**
+     * @return the number of requests whose events are cached until their response is received
+     */
+    public int getPendingEventGroups() {
+        return eventsCache.size();
+    }
+
     private void addEventToResolver(BatchResolver resolver, Event event) {
         StatisticsServiceEventResolver<?> evtResolver = null;
 
@@ -138,6 +176,10 @@ public abstract class AbstractStatisticsServiceEventListener implements EventLis
                     .getCountingOutputstreamEventResolver();
             countingOutputstreamEventResolver.setEvent((CountingOutputStreamEvent) event);
             evtResolver = countingOutputstreamEventResolver;
+        } else if (event instanceof RequestTimingEvent) {
+            RequestTimingEventResolver requestTimingEventResolver = resolverFactory.getRequestTimingEventResolver();
+            requestTimingEventResolver.setEvent((RequestTimingEvent) event);
+            evtResolver = requestTimingEventResolver;
         } else {
             evtResolver = findResolver(event);
         }
@@ -186,6 +228,26 @@ public abstract class AbstractStatisticsServiceEventListener implements EventLis
         return dataHandler;
     }
 
+    /**
+     * The events of a single request.
+     */
+    private static class EventGroup {
+        private final long created = System.currentTimeMillis();
+        private final List<AbstractFlowEvent> events = new ArrayList<>(EVENTS_ARR_SIZE);
+
+        long getCreated() {
+            return created;
+        }
+
+        List<AbstractFlowEvent> getEvents() {
+            return events;
+        }
+
+        void add(AbstractFlowEvent event) {
+            events.add(event);
+        }
+    }
+
     /**
      * Custom class for persisting the resolved {@link Event}s
      */
@@ -208,7 +270,7 @@ public abstract class AbstractStatisticsServiceEventListener implements EventLis
             Map<String, Object> data = new HashMap<>();
             try {
                 eventsResolvers.stream().forEach(l -> data.putAll(l.resolve()));
-                dataHandler.persist(data);
+                dataHandler.enqueue(data);
             } catch (Throwable e) {
                 logger.error("Cannot persist event", e);
             }
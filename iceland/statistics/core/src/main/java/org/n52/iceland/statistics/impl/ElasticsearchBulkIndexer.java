@@ -0,0 +1,249 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.statistics.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.iceland.statistics.api.ElasticsearchSettings;
+import org.n52.janmayen.event.OverflowPolicy;
+import org.n52.janmayen.lifecycle.Destroyable;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Buffers statistics documents in a bounded queue and sends them to Elasticsearch using bulk requests. The buffer is
+ * flushed if it contains {@link ElasticsearchSettings#getBulkSize()} documents or after
+ * {@link ElasticsearchSettings#getBulkFlushInterval()} milliseconds, whichever comes first. Failed requests and
+ * rejected documents are retried with an exponential backoff.
+ */
+public class ElasticsearchBulkIndexer implements Destroyable {
+    private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchBulkIndexer.class);
+    private static final long MAX_RETRY_BACKOFF = 30000;
+    private static final long SHUTDOWN_TIMEOUT = 30000;
+    private final Function<List<Map<String, Object>>, BulkResponse> bulkAction;
+    private final BlockingQueue<Map<String, Object>> queue;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicLong indexedDocuments = new AtomicLong();
+    private final AtomicLong droppedDocuments = new AtomicLong();
+    private final AtomicLong retriedRequests = new AtomicLong();
+    private final int bulkSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxRetries;
+    private final long retryBackoff;
+    private final long blockTimeout;
+
+    /**
+     * Creates a new indexer.
+     *
+     * @param settings   the settings to configure the buffer and retries
+     * @param bulkAction the function executing a bulk request for the supplied documents
+     */
+    public ElasticsearchBulkIndexer(ElasticsearchSettings settings,
+                                    Function<List<Map<String, Object>>, BulkResponse> bulkAction) {
+        this.bulkAction = bulkAction;
+        this.bulkSize = settings.getBulkSize();
+        this.overflowPolicy = settings.getBulkOverflowPolicy();
+        this.maxRetries = settings.getBulkMaxRetries();
+        this.retryBackoff = settings.getBulkRetryBackoff();
+        this.blockTimeout = settings.getBulkFlushInterval();
+        this.queue = new LinkedBlockingQueue<>(settings.getBulkQueueCapacity());
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("statistics-bulk-indexer-%d").setDaemon(true).build());
+        long interval = settings.getBulkFlushInterval();
+        this.executor.scheduleWithFixedDelay(this::flushQueue, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the document to the buffer. If the buffer is full the configured {@link OverflowPolicy} is applied;
+     * {@link OverflowPolicy#CALLER_RUNS} indexes the document on the calling thread.
+     *
+     * @param document the document
+     */
+    public void add(Map<String, Object> document) {
+        if (executor.isShutdown()) {
+            droppedDocuments.incrementAndGet();
+            return;
+        }
+        if (overflowPolicy.enqueue(queue, document, blockTimeout, this::drop,
+                                   doc -> send(Collections.singletonList(doc)))
+            && queue.size() >= bulkSize && flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQueue();
+                });
+            } catch (RejectedExecutionException e) {
+                // shutting down, the remaining documents are flushed by destroy()
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Sends all buffered documents to Elasticsearch and waits for the requests to complete.
+     */
+    public void flush() {
+        try {
+            executor.submit(this::flushQueue).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            LOG.error("Could not flush statistics documents", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.execute(this::flushQueue);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Could not index {} statistics documents before shutdown", queue.size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of buffered documents
+     */
+    public int getPendingDocuments() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of successfully indexed documents
+     */
+    public long getIndexedDocuments() {
+        return indexedDocuments.get();
+    }
+
+    /**
+     * @return the number of documents discarded because the buffer was full or indexing failed permanently
+     */
+    public long getDroppedDocuments() {
+        return droppedDocuments.get();
+    }
+
+    /**
+     * @return the number of retried bulk requests
+     */
+    public long getRetriedRequests() {
+        return retriedRequests.get();
+    }
+
+    private void drop(Map<String, Object> document) {
+        droppedDocuments.incrementAndGet();
+        LOG.debug("Statistics buffer is full, discarding document");
+    }
+
+    private void flushQueue() {
+        List<Map<String, Object>> batch = new ArrayList<>(bulkSize);
+        while (queue.drainTo(batch, bulkSize) > 0) {
+            send(batch);
+            batch = new ArrayList<>(bulkSize);
+        }
+    }
+
+    private void send(List<Map<String, Object>> documents) {
+        List<Map<String, Object>> pending = documents;
+        long backoff = retryBackoff;
+        for (int attempt = 0;; ++attempt) {
+            try {
+                pending = execute(pending);
+            } catch (RuntimeException e) {
+                LOG.warn("Bulk request of {} statistics documents failed: {}", pending.size(), e.getMessage());
+                LOG.debug("Bulk request failed", e);
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (attempt >= maxRetries || executor.isTerminated()) {
+                LOG.error("Discarding {} statistics documents after {} retries", pending.size(), attempt);
+                droppedDocuments.addAndGet(pending.size());
+                return;
+            }
+            retriedRequests.incrementAndGet();
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                droppedDocuments.addAndGet(pending.size());
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF);
+        }
+    }
+
+    /**
+     * Executes the bulk request.
+     *
+     * @param documents the documents to index
+     *
+     * @return the documents that were rejected with a transient error and should be retried
+     */
+    private List<Map<String, Object>> execute(List<Map<String, Object>> documents) {
+        BulkResponse response = bulkAction.apply(documents);
+        if (!response.hasFailures()) {
+            indexedDocuments.addAndGet(documents.size());
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> retry = new ArrayList<>();
+        for (BulkItemResponse item : response.getItems()) {
+            if (!item.isFailed()) {
+                indexedDocuments.incrementAndGet();
+            } else if (isRetryable(item.getFailure().getStatus())) {
+                retry.add(documents.get(item.getItemId()));
+            } else {
+                LOG.warn("Could not index statistics document: {}", item.getFailureMessage());
+                droppedDocuments.incrementAndGet();
+            }
+        }
+        return retry;
+    }
+
+    private static boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE ||
+               status == RestStatus.GATEWAY_TIMEOUT || status == RestStatus.INTERNAL_SERVER_ERROR;
+    }
+}
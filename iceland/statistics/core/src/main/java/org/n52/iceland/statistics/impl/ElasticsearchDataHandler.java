@@ -16,10 +16,13 @@
  */
 package org.n52.iceland.statistics.impl;
 
+import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
 
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.client.Client;
 import org.joda.time.DateTime;
@@ -28,10 +31,11 @@ import org.n52.iceland.statistics.api.ElasticsearchSettings;
 import org.n52.iceland.statistics.api.interfaces.datahandler.IAdminDataHandler;
 import org.n52.iceland.statistics.api.interfaces.datahandler.IStatisticsDataHandler;
 import org.n52.iceland.statistics.api.mappings.ServiceEventDataMapping;
+import org.n52.janmayen.lifecycle.Destroyable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class ElasticsearchDataHandler implements IStatisticsDataHandler {
+public class ElasticsearchDataHandler implements IStatisticsDataHandler, Destroyable {
 
     private static final Logger logger = LoggerFactory.getLogger(ElasticsearchDataHandler.class);
 
@@ -41,22 +45,82 @@ public class ElasticsearchDataHandler implements IStatisticsDataHandler {
     @Inject
     private IAdminDataHandler adminHandler;
 
+    private volatile ElasticsearchBulkIndexer bulkIndexer;
+
     @Override
     public IndexResponse persist(Map<String, Object> dataMap) {
         if (!settings.isLoggingEnabled()) {
             return null;
         }
+        checkClient();
+        addMetadata(dataMap);
+        logger.debug("Persisting {}", dataMap);
+        IndexResponse response = adminHandler.getElasticsearchClient().prepareIndex(settings.getIndexId(),
+                settings.getTypeId()).setSource(dataMap)
+                .get();
+        return response;
+    }
+
+    @Override
+    public void enqueue(Map<String, Object> dataMap) {
+        if (!settings.isLoggingEnabled()) {
+            return;
+        }
+        checkClient();
+        addMetadata(dataMap);
+        logger.debug("Enqueuing {}", dataMap);
+        getBulkIndexer().add(dataMap);
+    }
+
+    /**
+     * Sends all documents buffered by {@link #enqueue(Map)} and waits for the requests to complete.
+     */
+    public void flush() {
+        ElasticsearchBulkIndexer indexer = this.bulkIndexer;
+        if (indexer != null) {
+            indexer.flush();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ElasticsearchBulkIndexer indexer = this.bulkIndexer;
+        if (indexer != null) {
+            indexer.destroy();
+        }
+    }
+
+    private ElasticsearchBulkIndexer getBulkIndexer() {
+        ElasticsearchBulkIndexer indexer = this.bulkIndexer;
+        if (indexer == null) {
+            synchronized (this) {
+                indexer = this.bulkIndexer;
+                if (indexer == null) {
+                    indexer = new ElasticsearchBulkIndexer(settings, this::bulkIndex);
+                    this.bulkIndexer = indexer;
+                }
+            }
+        }
+        return indexer;
+    }
+
+    private BulkResponse bulkIndex(List<Map<String, Object>> documents) {
+        Client client = adminHandler.getElasticsearchClient();
+        BulkRequestBuilder request = client.prepareBulk();
+        documents.forEach(document -> request.add(client.prepareIndex(settings.getIndexId(), settings.getTypeId())
+                .setSource(document)));
+        return request.get();
+    }
+
+    private void checkClient() {
         if (adminHandler.getElasticsearchClient() == null) {
             throw new NullPointerException("Client is not initialized. Data will not be persisted.");
         }
+    }
 
+    private void addMetadata(Map<String, Object> dataMap) {
         dataMap.put(ServiceEventDataMapping.TIMESTAMP_FIELD.getName(), DateTime.now(DateTimeZone.UTC));
         dataMap.put(ServiceEventDataMapping.UUID_FIELD.getName(), settings.getUuid());
-        logger.debug("Persisting {}", dataMap);
-        IndexResponse response = adminHandler.getElasticsearchClient().prepareIndex(settings.getIndexId(),
-                settings.getTypeId()).setSource(dataMap)
-                .get();
-        return response;
     }
 
     @Override
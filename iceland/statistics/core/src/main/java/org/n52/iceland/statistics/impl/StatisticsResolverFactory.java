@@ -23,6 +23,7 @@ import org.n52.iceland.statistics.impl.resolvers.CountingOutputStreamEventResolv
 import org.n52.iceland.statistics.impl.resolvers.DefaultServiceEventResolver;
 import org.n52.iceland.statistics.impl.resolvers.ExceptionEventResolver;
 import org.n52.iceland.statistics.impl.resolvers.OutgoingResponseEventResolver;
+import org.n52.iceland.statistics.impl.resolvers.RequestTimingEventResolver;
 import org.springframework.context.ApplicationContext;
 
 public class StatisticsResolverFactory {
@@ -51,4 +52,8 @@ public class StatisticsResolverFactory {
         return ctx.getBean(CountingOutputStreamEventResolver.class);
     }
 
+    public RequestTimingEventResolver getRequestTimingEventResolver() {
+        return ctx.getBean(RequestTimingEventResolver.class);
+    }
+
 }
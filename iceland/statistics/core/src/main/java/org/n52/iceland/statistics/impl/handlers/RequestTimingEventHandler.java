@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.statistics.impl.handlers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.n52.iceland.event.events.RequestTimingEvent;
+import org.n52.iceland.service.RequestTimings;
+import org.n52.iceland.service.RequestTimings.Phase;
+import org.n52.iceland.statistics.api.AbstractElasticSearchDataHolder;
+import org.n52.iceland.statistics.api.interfaces.StatisticsServiceEventHandler;
+import org.n52.iceland.statistics.api.mappings.ServiceEventDataMapping;
+import org.n52.iceland.statistics.api.parameters.ObjectEsParameterFactory;
+import org.n52.iceland.statistics.api.parameters.SingleEsParameter;
+
+public class RequestTimingEventHandler extends AbstractElasticSearchDataHolder
+        implements StatisticsServiceEventHandler<RequestTimingEvent> {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Override
+    public Map<String, Object> resolveAsMap(RequestTimingEvent event) {
+        RequestTimings timings = event.getTimings();
+        Map<String, Object> data = new HashMap<>();
+        putPhase(data, timings, Phase.BINDING, ObjectEsParameterFactory.TIMING_BINDING);
+        putPhase(data, timings, Phase.DECODE, ObjectEsParameterFactory.TIMING_DECODE);
+        putPhase(data, timings, Phase.HANDLE, ObjectEsParameterFactory.TIMING_HANDLE);
+        putPhase(data, timings, Phase.ENCODE, ObjectEsParameterFactory.TIMING_ENCODE);
+        putPhase(data, timings, Phase.WRITE, ObjectEsParameterFactory.TIMING_WRITE);
+        data.put(ObjectEsParameterFactory.TIMING_TOTAL.getName(), toMillis(timings.getTotal(TimeUnit.NANOSECONDS)));
+        if (timings.getBytesWritten() >= 0) {
+            data.put(ObjectEsParameterFactory.BYTES.getName(), timings.getBytesWritten());
+        }
+        put(ServiceEventDataMapping.RTE_TIMINGS, data);
+
+        return dataMap;
+    }
+
+    private void putPhase(Map<String, Object> data, RequestTimings timings, Phase phase,
+                          SingleEsParameter parameter) {
+        if (timings.isRecorded(phase)) {
+            data.put(parameter.getName(), toMillis(timings.getDuration(phase, TimeUnit.NANOSECONDS)));
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+}
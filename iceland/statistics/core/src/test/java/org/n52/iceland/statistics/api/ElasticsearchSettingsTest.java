@@ -23,7 +23,6 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import org.n52.faroe.ConfigurationError;
-import org.n52.svalbard.encode.exception.EncodingException;
 
 public class ElasticsearchSettingsTest {
 
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.statistics.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import org.n52.iceland.event.events.AbstractFlowEvent;
+import org.n52.iceland.event.events.CountingOutputStreamEvent;
+import org.n52.iceland.event.events.OutgoingResponseEvent;
+import org.n52.iceland.statistics.api.interfaces.StatisticsServiceEventResolver;
+import org.n52.iceland.statistics.api.interfaces.datahandler.IStatisticsDataHandler;
+import org.n52.iceland.statistics.basetests.MockitoBaseTest;
+import org.n52.janmayen.event.Event;
+
+public class AbstractStatisticsServiceEventListenerTest extends MockitoBaseTest {
+
+    @Mock
+    private IStatisticsDataHandler dataHandler;
+
+    @Mock(answer = Answers.RETURNS_MOCKS)
+    private StatisticsResolverFactory resolverFactory;
+
+    @InjectMocks
+    private TestListener listener;
+
+    @Test
+    public void removesCompletedEventGroups() {
+        when(dataHandler.isLoggingEnabled()).thenReturn(true);
+
+        listener.handle(new CountingOutputStreamEvent(1L));
+        assertThat(listener.getPendingEventGroups(), is(1));
+
+        listener.handle(new OutgoingResponseEvent(null, null, 1, 1));
+        assertThat(listener.getPendingEventGroups(), is(0));
+        verify(dataHandler, timeout(5000)).enqueue(anyMap());
+    }
+
+    @Test
+    public void evictsStaleEventGroups() throws InterruptedException {
+        when(dataHandler.isLoggingEnabled()).thenReturn(true);
+        listener.setEventGroupTimeout(10);
+
+        listener.handle(new AbstractFlowEvent(1L));
+        listener.handle(new AbstractFlowEvent(2L));
+        assertThat(listener.getPendingEventGroups(), is(2));
+
+        Thread.sleep(50);
+        listener.handle(new AbstractFlowEvent(3L));
+        assertThat(listener.getPendingEventGroups(), is(1));
+    }
+
+    private static class TestListener extends AbstractStatisticsServiceEventListener {
+        @Override
+        protected StatisticsServiceEventResolver<?> findResolver(Event serviceEvent) {
+            return null;
+        }
+    }
+}
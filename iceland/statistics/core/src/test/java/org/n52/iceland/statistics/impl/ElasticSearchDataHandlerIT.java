@@ -22,6 +22,7 @@ import java.util.Map;
 import javax.inject.Inject;
 
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.n52.iceland.statistics.basetests.ElasticsearchAwareTest;
@@ -44,4 +45,20 @@ public class ElasticSearchDataHandlerIT extends ElasticsearchAwareTest {
         SearchResponse response = getEmbeddedClient().prepareSearch(clientSettings.getIndexId()).setTypes(clientSettings.getTypeId()).get();
         Assertions.assertEquals("korte", response.getHits().getHits()[0].getSource().get("alma"));
     }
+
+    @Test
+    public void enqueueBulkData() throws InterruptedException {
+        Thread.sleep(2500);
+        for (int i = 0; i < 10; ++i) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("bulk", i);
+            dataHandler.enqueue(data);
+        }
+        dataHandler.flush();
+
+        getEmbeddedClient().admin().indices().prepareRefresh(clientSettings.getIndexId()).get();
+        SearchResponse response = getEmbeddedClient().prepareSearch(clientSettings.getIndexId())
+                .setTypes(clientSettings.getTypeId()).setQuery(QueryBuilders.existsQuery("bulk")).get();
+        Assertions.assertEquals(10, response.getHits().getTotalHits());
+    }
 }
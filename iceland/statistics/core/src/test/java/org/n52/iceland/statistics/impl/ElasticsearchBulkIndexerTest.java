@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.iceland.statistics.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.mapper.MapperParsingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.n52.iceland.statistics.api.ElasticsearchSettings;
+
+public class ElasticsearchBulkIndexerTest {
+    private static final String INDEX = "index";
+    private static final String TYPE = "type";
+
+    private ElasticsearchSettings settings;
+    private ElasticsearchBulkIndexer indexer;
+
+    @BeforeEach
+    public void setUp() {
+        settings = new ElasticsearchSettings();
+        settings.setBulkSize(3);
+        settings.setBulkFlushInterval(60000);
+        settings.setBulkMaxRetries(2);
+        settings.setBulkRetryBackoff(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (indexer != null) {
+            indexer.destroy();
+        }
+    }
+
+    @Test
+    public void flushesWhenBulkSizeIsReached() throws InterruptedException {
+        BlockingQueue<List<Map<String, Object>>> requests = new LinkedBlockingQueue<>();
+        indexer = new ElasticsearchBulkIndexer(settings, recording(requests, docs -> success(docs.size())));
+
+        indexer.add(document());
+        indexer.add(document());
+        assertThat(requests.poll(200, TimeUnit.MILLISECONDS), is(nullValue()));
+
+        indexer.add(document());
+        assertThat(requests.poll(5, TimeUnit.SECONDS).size(), is(3));
+    }
+
+    @Test
+    public void flushesAfterInterval() throws InterruptedException {
+        settings.setBulkFlushInterval(50);
+        BlockingQueue<List<Map<String, Object>>> requests = new LinkedBlockingQueue<>();
+        indexer = new ElasticsearchBulkIndexer(settings, recording(requests, docs -> success(docs.size())));
+
+        indexer.add(document());
+        assertThat(requests.poll(5, TimeUnit.SECONDS).size(), is(1));
+    }
+
+    @Test
+    public void retriesRejectedDocuments() {
+        BlockingQueue<List<Map<String, Object>>> requests = new LinkedBlockingQueue<>();
+        AtomicInteger calls = new AtomicInteger();
+        indexer = new ElasticsearchBulkIndexer(settings, recording(requests, docs -> {
+            if (calls.getAndIncrement() == 0) {
+                return new BulkResponse(new BulkItemResponse[] {
+                    created(0), failed(1, new EsRejectedExecutionException("queue full")) }, 1);
+            }
+            return success(docs.size());
+        }));
+
+        indexer.add(document());
+        indexer.add(document());
+        indexer.flush();
+
+        assertThat(requests.size(), is(2));
+        assertThat(requests.poll().size(), is(2));
+        assertThat(requests.poll().size(), is(1));
+        assertThat(indexer.getIndexedDocuments(), is(2L));
+        assertThat(indexer.getRetriedRequests(), is(1L));
+        assertThat(indexer.getDroppedDocuments(), is(0L));
+    }
+
+    @Test
+    public void doesNotRetryInvalidDocuments() {
+        AtomicInteger calls = new AtomicInteger();
+        indexer = new ElasticsearchBulkIndexer(settings, docs -> {
+            calls.incrementAndGet();
+            return new BulkResponse(new BulkItemResponse[] {
+                created(0), failed(1, new MapperParsingException("invalid")) }, 1);
+        });
+
+        indexer.add(document());
+        indexer.add(document());
+        indexer.flush();
+
+        assertThat(calls.get(), is(1));
+        assertThat(indexer.getIndexedDocuments(), is(1L));
+        assertThat(indexer.getDroppedDocuments(), is(1L));
+    }
+
+    @Test
+    public void dropsDocumentsAfterMaxRetries() {
+        AtomicInteger calls = new AtomicInteger();
+        indexer = new ElasticsearchBulkIndexer(settings, docs -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("no node available");
+        });
+
+        indexer.add(document());
+        indexer.flush();
+
+        assertThat(calls.get(), is(3));
+        assertThat(indexer.getRetriedRequests(), is(2L));
+        assertThat(indexer.getDroppedDocuments(), is(1L));
+    }
+
+    @Test
+    public void appliesOverflowPolicy() {
+        settings.setBulkSize(10);
+        settings.setBulkQueueCapacity(2);
+        settings.setBulkOverflowPolicy("drop_newest");
+        indexer = new ElasticsearchBulkIndexer(settings, docs -> success(docs.size()));
+
+        indexer.add(document());
+        indexer.add(document());
+        indexer.add(document());
+
+        assertThat(indexer.getPendingDocuments(), is(2));
+        assertThat(indexer.getDroppedDocuments(), is(1L));
+
+        indexer.flush();
+        assertThat(indexer.getPendingDocuments(), is(0));
+        assertThat(indexer.getIndexedDocuments(), is(2L));
+    }
+
+    @Test
+    public void indexesOnCallerIfBufferIsFull() {
+        settings.setBulkSize(10);
+        settings.setBulkQueueCapacity(1);
+        settings.setBulkOverflowPolicy("caller_runs");
+        BlockingQueue<List<Map<String, Object>>> requests = new LinkedBlockingQueue<>();
+        indexer = new ElasticsearchBulkIndexer(settings, recording(requests, docs -> success(docs.size())));
+
+        indexer.add(document());
+        indexer.add(document());
+
+        assertThat(requests.size(), is(1));
+        assertThat(indexer.getPendingDocuments(), is(1));
+        assertThat(indexer.getIndexedDocuments(), is(1L));
+    }
+
+    @Test
+    public void flushesOnDestroy() {
+        BlockingQueue<List<Map<String, Object>>> requests = new LinkedBlockingQueue<>();
+        indexer = new ElasticsearchBulkIndexer(settings, recording(requests, docs -> success(docs.size())));
+
+        indexer.add(document());
+        indexer.destroy();
+
+        assertThat(requests.size(), is(1));
+        assertThat(indexer.getIndexedDocuments(), is(1L));
+
+        indexer.add(document());
+        assertThat(indexer.getDroppedDocuments(), is(1L));
+    }
+
+    private static Function<List<Map<String, Object>>, BulkResponse> recording(
+            BlockingQueue<List<Map<String, Object>>> requests,
+            Function<List<Map<String, Object>>, BulkResponse> delegate) {
+        return docs -> {
+            requests.add(docs);
+            return delegate.apply(docs);
+        };
+    }
+
+    private static Map<String, Object> document() {
+        return Collections.singletonMap("key", "value");
+    }
+
+    private static BulkResponse success(int size) {
+        BulkItemResponse[] items = new BulkItemResponse[size];
+        for (int i = 0; i < size; ++i) {
+            items[i] = created(i);
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private static BulkItemResponse created(int id) {
+        return new BulkItemResponse(id, "index", new IndexResponse(INDEX, TYPE, String.valueOf(id), 1, true));
+    }
+
+    private static BulkItemResponse failed(int id, Throwable cause) {
+        return new BulkItemResponse(id, "index", new BulkItemResponse.Failure(INDEX, TYPE, String.valueOf(id), cause));
+    }
+}
@@ -28,6 +28,15 @@ public interface IAdminStatisticsLocation {
     void initDatabase(LocationDatabaseType type,
                       String pathToDatabase);
 
+    /**
+     * Reopens the currently loaded database file and replaces the database without interrupting running lookups. The
+     * current database stays in use if the file can not be loaded. To update the database the file should be replaced
+     * atomically, e.g. by moving the new file to the path of the old one.
+     *
+     * @return if the database was reloaded
+     */
+    boolean reloadDatabase();
+
     /**
      * The country or the city database indicator.
      */
@@ -20,17 +20,24 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Singleton;
-import javax.security.auth.Destroyable;
 
 import org.elasticsearch.common.geo.GeoPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.n52.faroe.Validation;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.statistics.api.StatisticsLocationUtilSettingsKeys;
@@ -40,17 +47,28 @@ import org.n52.iceland.statistics.api.parameters.ObjectEsParameterFactory;
 import org.n52.iceland.statistics.api.utils.FileDownloader;
 import org.n52.iceland.statistics.api.utils.GeoLiteFileDownloader;
 import org.n52.janmayen.lifecycle.Constructable;
+import org.n52.janmayen.lifecycle.Destroyable;
 import org.n52.janmayen.net.IPAddress;
 import org.n52.shetland.ogc.ows.service.OwsServiceRequestContext;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.maxmind.db.Reader.FileMode;
 import com.maxmind.geoip2.DatabaseReader;
+import com.maxmind.geoip2.exception.AddressNotFoundException;
+import com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.maxmind.geoip2.model.CityResponse;
 import com.maxmind.geoip2.record.Country;
 import com.maxmind.geoip2.record.Location;
 
 /**
- * Utility class for mapping objects to Elasticsearch specific Geolocation type objects
+ * Utility class for mapping objects to Elasticsearch specific Geolocation type objects. Lookups are cached per
+ * {@link InetAddress} and the cache is replaced together with the database, so lookups still running against the old
+ * database can not populate the new cache.
  *
  */
 @Singleton
@@ -59,16 +77,23 @@ public class StatisticsLocationUtil implements IStatisticsLocationUtil, IAdminSt
                                                Destroyable {
 
     private static final Logger LOG = LoggerFactory.getLogger(StatisticsLocationUtil.class);
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final int DEFAULT_CACHE_EXPIRY = 3600;
 
+    private final ReadWriteLock databaseLock = new ReentrantReadWriteLock();
     private boolean enabled;
     private boolean isAutoDownload;
     private String downloadFolderPath;
     private String cityDbLoc;
     private String countryDbLoc;
     private LocationDatabaseType dbType;
-    private DatabaseReader reader;
+    private volatile LocationDatabase database;
+    private volatile LoadingCache<InetAddress, Optional<Map<String, Object>>> cache;
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private int cacheExpiry = DEFAULT_CACHE_EXPIRY;
 
     public StatisticsLocationUtil() {
+        this.cache = createCache();
     }
 
     @Override
@@ -94,28 +119,45 @@ public class StatisticsLocationUtil implements IStatisticsLocationUtil, IAdminSt
         if (!enabled) {
             return null;
         }
-        if (reader == null) {
+        if (database == null) {
             LOG.warn("Location database is not initialized. Exiting.");
             return null;
         }
         try {
+            return cache.get(ip).orElse(null);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            LOG.warn("Can't convert IP to GeoIp", e.getCause());
+        }
+        return null;
+    }
+
+    private Optional<Map<String, Object>> lookup(InetAddress ip) throws IOException, GeoIp2Exception {
+        Lock lock = databaseLock.readLock();
+        lock.lock();
+        try {
+            LocationDatabase db = this.database;
+            if (db == null) {
+                throw new IOException("Location database is not initialized");
+            }
             Map<String, Object> holder = new HashMap<>(3);
-            if (dbType == LocationDatabaseType.COUNTRY) {
-                Country country = reader.country(ip).getCountry();
+            if (db.getType() == LocationDatabaseType.COUNTRY) {
+                Country country = db.getReader().country(ip).getCountry();
                 holder.put(ObjectEsParameterFactory.GEOLOC_COUNTRY_CODE.getName(), country.getIsoCode());
             } else {
-                CityResponse city = reader.city(ip);
+                CityResponse city = db.getReader().city(ip);
                 Location loc = city.getLocation();
                 holder.put(ObjectEsParameterFactory.GEOLOC_COUNTRY_CODE.getName(), city.getCountry().getIsoCode());
                 holder.put(ObjectEsParameterFactory.GEOLOC_CITY_NAME.getName(), city.getCity().getName());
                 holder.put(ObjectEsParameterFactory.GEOLOC_GEO_POINT.getName(),
                            new GeoPoint(loc.getLatitude(), loc.getLongitude()));
             }
-            return holder;
-        } catch (Throwable e) {
-            LOG.warn("Can't convert IP to GeoIp", e);
+            return Optional.of(Collections.unmodifiableMap(holder));
+        } catch (AddressNotFoundException e) {
+            LOG.debug("IP address {} not found in location database", ip);
+            return Optional.empty();
+        } finally {
+            lock.unlock();
         }
-        return null;
     }
 
     /**
@@ -144,34 +186,132 @@ public class StatisticsLocationUtil implements IStatisticsLocationUtil, IAdminSt
         LOG.info("Init {} as type {} with file {}", getClass().toString(), type.toString(), pathToDatabase);
         dbType = type;
         try {
-            File f = new File(pathToDatabase);
-            reader = new DatabaseReader.Builder(f).fileMode(FileMode.MEMORY_MAPPED).build();
-            // mismatch
-            if (!type.getGeoLite2Name().equals(reader.getMetadata().getDatabaseType())) {
-                LOG.error("DatabaseType {} not match with the databasefile {}. Exiting.",
-                             type.toString(), pathToDatabase);
+            LocationDatabase db = openDatabase(type, pathToDatabase);
+            if (db == null) {
                 destroy();
+            } else {
+                replaceDatabase(db);
             }
         } catch (Throwable e) {
             LOG.error("Couldn't initation geolocation database ", e);
-            reader = null;
+            replaceDatabase(null);
         }
     }
 
     @Override
-    public void destroy() {
+    public boolean reloadDatabase() {
+        LocationDatabase current = this.database;
+        if (current == null) {
+            LOG.warn("Location database is not initialized. Nothing to reload.");
+            return false;
+        }
         try {
-            if (reader != null) {
-                reader.close();
+            LocationDatabase db = openDatabase(current.getType(), current.getPath());
+            if (db != null) {
+                replaceDatabase(db);
+                LOG.info("Reloaded geolocation database {}", current.getPath());
+                return true;
             }
         } catch (IOException e) {
-            LOG.error("Error during closing GeoLite reader", e);
+            LOG.error("Couldn't reload geolocation database {}", current.getPath(), e);
+        }
+        return false;
+    }
+
+    private LocationDatabase openDatabase(LocationDatabaseType type, String pathToDatabase) throws IOException {
+        DatabaseReader reader = new DatabaseReader.Builder(new File(pathToDatabase))
+                .fileMode(FileMode.MEMORY_MAPPED).build();
+        // mismatch
+        if (!type.getGeoLite2Name().equals(reader.getMetadata().getDatabaseType())) {
+            LOG.error("DatabaseType {} not match with the databasefile {}. Exiting.",
+                         type.toString(), pathToDatabase);
+            reader.close();
+            return null;
+        }
+        return new LocationDatabase(reader, type, pathToDatabase);
+    }
+
+    /**
+     * Replaces the current database and the cache. Waits for running lookups to finish before the old database
+     * is closed.
+     *
+     * @param db the new database or {@code null}
+     */
+    private void replaceDatabase(LocationDatabase db) {
+        LocationDatabase old;
+        Lock lock = databaseLock.writeLock();
+        lock.lock();
+        try {
+            old = this.database;
+            this.database = db;
+            this.cache = createCache();
+        } finally {
+            lock.unlock();
+        }
+        if (old != null) {
+            try {
+                old.getReader().close();
+            } catch (IOException e) {
+                LOG.error("Error during closing GeoLite reader", e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            replaceDatabase(null);
         } finally {
             enabled = false;
-            reader = null;
         }
     }
 
+    /**
+     * @return the statistics of the lookup cache, e.g. its hit rate
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    private LoadingCache<InetAddress, Optional<Map<String, Object>>> createCache() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheExpiry, TimeUnit.SECONDS)
+                .recordStats()
+                .build(new CacheLoader<InetAddress, Optional<Map<String, Object>>>() {
+                    @Override
+                    public Optional<Map<String, Object>> load(InetAddress ip) throws IOException, GeoIp2Exception {
+                        return lookup(ip);
+                    }
+                });
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @param cacheSize the maximum number of cached lookups, {@code 0} disables the cache
+     */
+    @Setting(value = StatisticsLocationUtilSettingsKeys.CACHE_SIZE, required = false)
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = Validation.greaterEqualZero(StatisticsLocationUtilSettingsKeys.CACHE_SIZE, cacheSize);
+        this.cache = createCache();
+    }
+
+    public int getCacheExpiry() {
+        return cacheExpiry;
+    }
+
+    /**
+     * @param cacheExpiry the time in seconds after which a cached lookup is discarded
+     */
+    @Setting(value = StatisticsLocationUtilSettingsKeys.CACHE_EXPIRY, required = false)
+    public void setCacheExpiry(int cacheExpiry) {
+        this.cacheExpiry = Validation.greaterEqualZero(StatisticsLocationUtilSettingsKeys.CACHE_EXPIRY, cacheExpiry);
+        this.cache = createCache();
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -272,4 +412,31 @@ public class StatisticsLocationUtil implements IStatisticsLocationUtil, IAdminSt
         }
     }
 
+    /**
+     * An opened location database.
+     */
+    private static final class LocationDatabase {
+        private final DatabaseReader reader;
+        private final LocationDatabaseType type;
+        private final String path;
+
+        LocationDatabase(DatabaseReader reader, LocationDatabaseType type, String path) {
+            this.reader = reader;
+            this.type = type;
+            this.path = path;
+        }
+
+        DatabaseReader getReader() {
+            return reader;
+        }
+
+        LocationDatabaseType getType() {
+            return type;
+        }
+
+        String getPath() {
+            return path;
+        }
+    }
+
 }
@@ -167,4 +167,35 @@ public class StatisticsLocationUtilIT {
         IPAddress ip = new IPAddress("127.0.0.1");
         Assertions.assertNull(loc.ip2SpatialData(ip));
     }
+
+    @Test
+    public void cachesLookups() {
+        StatisticsLocationUtil loc = new StatisticsLocationUtil();
+        loc.setEnabled(true);
+        loc.initDatabase(LocationDatabaseType.CITY, cityDb);
+        IPAddress ip = new IPAddress("67.20.172.183");
+
+        Map<String, Object> first = loc.ip2SpatialData(ip);
+        Map<String, Object> second = loc.ip2SpatialData(ip);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, loc.getCacheStats().hitCount());
+        Assertions.assertEquals(1, loc.getCacheStats().missCount());
+    }
+
+    @Test
+    public void reloadDatabase() {
+        StatisticsLocationUtil loc = new StatisticsLocationUtil();
+        loc.setEnabled(true);
+        Assertions.assertFalse(loc.reloadDatabase());
+
+        loc.initDatabase(LocationDatabaseType.COUNTRY, countryDb);
+        IPAddress ip = new IPAddress("67.20.172.183");
+        Map<String, Object> before = loc.ip2SpatialData(ip);
+
+        Assertions.assertTrue(loc.reloadDatabase());
+        Map<String, Object> after = loc.ip2SpatialData(ip);
+        Assertions.assertNotSame(before, after);
+        Assertions.assertEquals(before, after);
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.janmayen;
+
+/**
+ * Support for custom JDK Flight Recorder events. The {@code jdk.jfr} API is only part of Java 8 runtimes since update
+ * 262, so classes extending {@code jdk.jfr.Event} may only be loaded if {@link #isAvailable()} returns {@code true}.
+ * Code emitting events should check this once and otherwise skip the event classes entirely.
+ */
+public final class FlightRecording {
+    private static final String EVENT_CLASS = "jdk.jfr.Event";
+    private static final boolean AVAILABLE = detect();
+
+    private FlightRecording() {
+    }
+
+    /**
+     * @return if the runtime supports custom flight recorder events
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static boolean detect() {
+        try {
+            Class.forName(EVENT_CLASS, false, FlightRecording.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -35,6 +35,8 @@ import java.util.Optional;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -57,6 +59,7 @@ public class Json {
     private static JsonNodeFactory FACTORY = JsonNodeFactory.withExactBigDecimals(false);
     private static ObjectReader READER;
     private static ObjectWriter WRITER;
+    private static DefaultPrettyPrinter PRETTY_PRINTER;
 
     static {
         ObjectMapper mapper = new ObjectMapper()
@@ -65,6 +68,7 @@ public class Json {
         READER = mapper.reader();
         DefaultPrettyPrinter pp = new DefaultPrettyPrinter();
         pp.indentArraysWith(DefaultIndenter.SYSTEM_LINEFEED_INSTANCE);
+        PRETTY_PRINTER = pp;
         WRITER = mapper.writer(pp);
     }
 
@@ -102,6 +106,23 @@ public class Json {
         writer().writeValue(writer, node);
     }
 
+    /**
+     * Creates a generator that writes UTF-8 encoded JSON to the supplied stream formatted like
+     * {@link #print(OutputStream, JsonNode)}. Closing the generator does not close the stream.
+     *
+     * @param out the stream
+     *
+     * @return the generator
+     *
+     * @throws IOException if the generator can not be created
+     */
+    public static JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = writer().getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.setPrettyPrinter(PRETTY_PRINTER.createInstance());
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
     public static JsonNode loadURL(URL url) throws IOException {
         try (InputStream stream = url.openStream()) {
             return loadStream(stream);
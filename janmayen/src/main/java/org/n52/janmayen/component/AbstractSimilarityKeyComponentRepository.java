@@ -25,6 +25,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import org.slf4j.Logger;
@@ -38,7 +41,8 @@ import org.n52.janmayen.stream.MoreCollectors;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -56,78 +60,78 @@ public abstract class AbstractSimilarityKeyComponentRepository<
         extends AbstractComponentRepository<K, C, F> {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractSimilarityKeyComponentRepository.class);
-    private final Set<Producer<C>> components = Sets.newHashSet();
-    private final Map<K, Set<Producer<C>>> componentsByKey = new HashMap<>();
+    private final LongAdder dispatchHits = new LongAdder();
+    private final LongAdder dispatchMisses = new LongAdder();
+    private volatile DispatchTable<K, C> dispatchTable = new DispatchTable<>(Collections.emptyMap());
 
     public Set<Producer<C>> getComponentProviders() {
-        return Collections.unmodifiableSet(this.components);
+        return this.dispatchTable.getComponents();
     }
 
     public Map<K, Set<Producer<C>>> getComponentProvidersByKey() {
-        return Collections.unmodifiableMap(componentsByKey);
+        return this.dispatchTable.getComponentsByKey();
     }
 
     protected void setProducers(Map<K, Set<Producer<C>>> implementations) {
-        this.componentsByKey.clear();
-        this.componentsByKey.putAll(implementations);
-        this.components.clear();
-        implementations.values().stream().forEach(this.components::addAll);
+        this.dispatchTable = new DispatchTable<>(implementations);
     }
 
-    private Optional<C> choose(Set<C> matches, K key) {
-        if (matches == null || matches.isEmpty()) {
-            LOG.debug("No implementation for {}", key);
-            return Optional.empty();
-        } else if (matches.size() > 1) {
-            C component = Collections.min(matches, new ComponentSimilarityComparator<>(key));
-            LOG.debug("Requested ambiguous implementations for {}: Found {}; Choosing {}.", key,
-                      Joiner.on(", ").join(matches), component);
-            return Optional.of(component);
-        } else {
-            return Optional.of(matches.iterator().next());
-        }
-    }
-
-    private Set<C> findComponentForSingleKey(K key) {
-        return this.componentsByKey.computeIfAbsent(key, k1 -> findProducersForSingleKey(k1))
-                .stream().map(Supplier::get).collect(toSet());
-    }
-
-    private Set<Producer<C>> findProducersForSingleKey(K key) {
-        return this.components.stream().filter(supplier -> matches(key, supplier))
-                .collect(MoreCollectors.toUnmodifiableSet());
-    }
-
-    private Set<C> findComponentsForCompositeKey(CompositeKey ck) {
-        return this.componentsByKey.computeIfAbsent(ck.asKey(), k1 -> findProducersForCompositeKey(ck))
-                .stream().map(Supplier::get).collect(toSet());
+    /**
+     * Gets the number of lookups that were answered from the resolved dispatch table.
+     *
+     * @return the number of hits
+     */
+    public long getDispatchHits() {
+        return this.dispatchHits.sum();
     }
 
-    private Set<Producer<C>> findProducersForCompositeKey(CompositeKey ck) {
-        return this.components.stream().filter(supplier -> matches(ck, supplier))
-                .collect(MoreCollectors.toUnmodifiableSet());
+    /**
+     * Gets the number of lookups that had to fall back to a similarity scan over all components.
+     *
+     * @return the number of misses
+     */
+    public long getDispatchMisses() {
+        return this.dispatchMisses.sum();
     }
 
-    private boolean matches(K key, Producer<C> supplier) {
-        Set<K> keys = supplier.get().getKeys();
-        return keys.stream().anyMatch(k -> k.getSimilarity(key) >= 0);
+    private Optional<C> getComponentForSingleKey(K key) {
+        return resolve(key, keys -> keys.stream().anyMatch(k -> k.getSimilarity(key) >= 0));
     }
 
-    private boolean matches(CompositeKey key, Producer<C> supplier) {
-        Set<K> keys = supplier.get().getKeys();
-        return key.matches(keys);
+    private Optional<C> getComponentForCompositeKey(CompositeKey key) {
+        return resolve(key.asKey(), key::matches);
     }
 
-    private Optional<C> getComponentForSingleKey(K key) {
-        return choose(findComponentForSingleKey(key), key);
+    private Optional<C> resolve(K key, Predicate<Set<K>> matcher) {
+        DispatchTable<K, C> table = this.dispatchTable;
+        Optional<Producer<C>> producer = table.getResolved(key);
+        if (producer == null) {
+            this.dispatchMisses.increment();
+            producer = table.putResolved(key, choose(table.findProducers(matcher), key));
+        } else {
+            this.dispatchHits.increment();
+        }
+        return producer.map(Producer::get);
     }
 
-    private Optional<C> getComponentForCompositeKey(CompositeKey key) {
-        return choose(findComponentsForCompositeKey(key), key.asKey());
+    private Optional<Producer<C>> choose(Set<Producer<C>> matches, K key) {
+        if (matches == null || matches.isEmpty()) {
+            LOG.debug("No implementation for {}", key);
+            return Optional.empty();
+        } else if (matches.size() > 1) {
+            Map<C, Producer<C>> components = new HashMap<>(matches.size());
+            matches.forEach(producer -> components.put(producer.get(), producer));
+            C component = Collections.min(components.keySet(), new ComponentSimilarityComparator<>(key));
+            LOG.debug("Requested ambiguous implementations for {}: Found {}; Choosing {}.", key,
+                      Joiner.on(", ").join(components.keySet()), component);
+            return Optional.of(components.get(component));
+        } else {
+            return Optional.of(matches.iterator().next());
+        }
     }
 
     protected Set<C> getComponents() {
-        return this.components.stream().map(Supplier::get).collect(toSet());
+        return this.dispatchTable.getComponents().stream().map(Supplier::get).collect(toSet());
     }
 
     @SafeVarargs
@@ -174,6 +178,67 @@ public abstract class AbstractSimilarityKeyComponentRepository<
 
     }
 
+    /**
+     * Immutable snapshot of the registered producers together with a concurrent table of resolved lookups. A new
+     * table is created for every call to {@link #setProducers(Map)}, so resolutions never outlive the producers they
+     * were computed from.
+     *
+     * @param <K> the key type
+     * @param <C> the component type
+     */
+    private static final class DispatchTable<K, C extends Component<K>> {
+        private final Set<Producer<C>> components;
+        private final Map<K, Set<Producer<C>>> componentsByKey;
+        private final Map<Producer<C>, Set<K>> keysByComponent = new ConcurrentHashMap<>();
+        private final Map<K, Optional<Producer<C>>> resolved = new ConcurrentHashMap<>();
+
+        DispatchTable(Map<K, Set<Producer<C>>> implementations) {
+            ImmutableMap.Builder<K, Set<Producer<C>>> builder = ImmutableMap.builder();
+            implementations.forEach((key, producers) -> builder.put(key, ImmutableSet.copyOf(producers)));
+            this.componentsByKey = builder.build();
+            this.components = implementations.values().stream().flatMap(Set::stream)
+                    .collect(MoreCollectors.toUnmodifiableSet());
+            // keys that are provided by exactly one component can be resolved without a similarity scan
+            this.componentsByKey.forEach((key, producers) -> {
+                if (producers.size() == 1) {
+                    this.resolved.put(key, Optional.of(producers.iterator().next()));
+                }
+            });
+        }
+
+        Set<Producer<C>> getComponents() {
+            return this.components;
+        }
+
+        Map<K, Set<Producer<C>>> getComponentsByKey() {
+            return this.componentsByKey;
+        }
+
+        Optional<Producer<C>> getResolved(K key) {
+            return this.resolved.get(key);
+        }
+
+        Optional<Producer<C>> putResolved(K key, Optional<Producer<C>> producer) {
+            Optional<Producer<C>> previous = this.resolved.putIfAbsent(key, producer);
+            return previous == null ? producer : previous;
+        }
+
+        Set<Producer<C>> findProducers(Predicate<Set<K>> predicate) {
+            return this.components.stream().filter(producer -> predicate.test(getKeys(producer)))
+                    .collect(MoreCollectors.toUnmodifiableSet());
+        }
+
+        private Set<K> getKeys(Producer<C> producer) {
+            // not computeIfAbsent: producing a component may recursively query the repository
+            Set<K> keys = this.keysByComponent.get(producer);
+            if (keys == null) {
+                keys = ImmutableSet.copyOf(producer.get().getKeys());
+                this.keysByComponent.put(producer, keys);
+            }
+            return keys;
+        }
+    }
+
     protected abstract class CompositeKey extends CompositeSimilar<K> {
 
         protected CompositeKey(Iterable<K> keys) {
@@ -16,21 +16,44 @@
  */
 package org.n52.janmayen.event;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.n52.janmayen.GroupedAndNamedThreadFactory;
 
+/**
+ * {@link EventListener} that processes events on its own thread pool. The work queue of the pool is bounded; if it is
+ * full the configured {@link OverflowPolicy} applies.
+ */
 public abstract class AbstractAsyncEventListener implements EventListener {
-    private final Executor executor;
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractAsyncEventListener.class);
+    private static final int DEFAULT_THREAD_POOL_SIZE = 3;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    private static final long DEFAULT_BLOCK_TIMEOUT = 1000;
+    private final ThreadPoolExecutor executor;
+    private final OverflowPolicy overflowPolicy;
+    private final LongAdder droppedEvents = new LongAdder();
+
+    public AbstractAsyncEventListener(int threadPoolSize, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+        this.executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueCapacity),
+                                               new GroupedAndNamedThreadFactory(getClass().getName() + "-worker"),
+                                               this::rejected);
+    }
 
     public AbstractAsyncEventListener(int threadPoolSize) {
-        this.executor = Executors.newFixedThreadPool(
-                threadPoolSize, new GroupedAndNamedThreadFactory(getClass().getName() + "-worker"));
+        this(threadPoolSize, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.CALLER_RUNS);
     }
 
     public AbstractAsyncEventListener() {
-        this(3);
+        this(DEFAULT_THREAD_POOL_SIZE);
     }
 
     @Override
@@ -38,5 +61,46 @@ public abstract class AbstractAsyncEventListener implements EventListener {
         this.executor.execute(create(event));
     }
 
+    /**
+     * Gets the number of events that were dropped by the {@link OverflowPolicy}.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEvents() {
+        return this.droppedEvents.sum();
+    }
+
+    /**
+     * Gets the number of events waiting to be processed.
+     *
+     * @return the number of queued events
+     */
+    public int getQueuedEvents() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * Gets the time in milliseconds {@link OverflowPolicy#BLOCK} waits for space in the queue before an event is
+     * dropped.
+     *
+     * @return the timeout
+     */
+    protected long getBlockTimeout() {
+        return DEFAULT_BLOCK_TIMEOUT;
+    }
+
+    private void rejected(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            drop(task);
+        } else {
+            overflowPolicy.enqueue(executor.getQueue(), task, getBlockTimeout(), this::drop, Runnable::run);
+        }
+    }
+
+    private void drop(Runnable task) {
+        droppedEvents.increment();
+        LOG.debug("Dropping {} of {}", task, this);
+    }
+
     protected abstract Runnable create(Event event);
 }
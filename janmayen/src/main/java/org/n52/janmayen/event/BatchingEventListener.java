@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.janmayen.event;
+
+import java.util.List;
+
+/**
+ * {@link EventListener} that accepts several events at once. If the {@link EventBus} delivers events asynchronously,
+ * the events queued for this listener are handed over in batches instead of one by one.
+ */
+public interface BatchingEventListener extends EventListener {
+
+    /**
+     * Handles a batch of events in the order they were submitted.
+     *
+     * @param events the events
+     */
+    void handle(List<Event> events);
+
+}
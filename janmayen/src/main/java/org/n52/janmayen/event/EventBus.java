@@ -16,18 +16,25 @@
  */
 package org.n52.janmayen.event;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -43,6 +50,16 @@ import org.n52.janmayen.lifecycle.Constructable;
  * The {@link EventListener} are registered to the {@link EventBus} which delegates the fired {@link Event} to the
  * {@link EventListener}.
  *
+ * Listeners are kept in an immutable snapshot that is replaced on every (un)registration. Submitting an event
+ * therefore only reads a volatile field and a lazily resolved, per event class array of listeners and does not
+ * acquire any lock. Producers of costly events may use {@link #hasListeners(Class)} to skip creating events nobody
+ * listens to.
+ *
+ * In asynchronous mode every listener has its own bounded queue that is drained by the worker threads, one batch at
+ * a time, so a slow listener can neither delay the others nor exhaust the memory. If a queue is full, the configured
+ * {@link OverflowPolicy} applies. {@link BatchingEventListener}s receive the queued events in batches. The queue
+ * settings have to be configured before the first listener is registered.
+ *
  * @author <a href="mailto:c.autermann@52north.org">Christian Autermann</a>
  *
  * @since 1.0.0
@@ -51,28 +68,106 @@ public class EventBus implements Constructable {
     private static final Logger LOG = LoggerFactory.getLogger(EventBus.class);
     private static final int THREAD_POOL_SIZE = 3;
     private static final String THREAD_GROUP_NAME = "EventBus-Worker";
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    private static final long DEFAULT_BLOCK_TIMEOUT = 1000;
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
 
-    private final ClassCache classCache;
-    private final ReadWriteLock lock;
+    private final Object registrationLock = new Object();
     private final ThreadFactory threadFactory;
     private final Executor executor;
-    private final Map<Class<? extends Event>, Set<EventListener>> listeners;
-    private final Queue<HandlerExecution> queue;
+    private final LongAdder queuedEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private volatile ListenerRegistry registry;
     private boolean async;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private long blockTimeout = DEFAULT_BLOCK_TIMEOUT;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
 
     public EventBus() {
-        this.classCache = new ClassCache();
-        this.lock = new ReentrantReadWriteLock();
         this.threadFactory = new GroupedAndNamedThreadFactory(THREAD_GROUP_NAME);
         this.executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE, threadFactory);
-        this.listeners = new HashMap<>();
-        this.queue = new ConcurrentLinkedQueue<>();
+        this.registry = new ListenerRegistry(Collections.emptyMap(), Collections.emptyMap());
     }
 
     public void setAsync(boolean async) {
         this.async = async;
     }
 
+    /**
+     * Sets the maximum number of events queued per listener in asynchronous mode. Defaults to 1000.
+     *
+     * @param queueCapacity the capacity
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity has to be positive");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets the maximum number of events a worker delivers to a listener before it turns to the next one. This is also
+     * the maximum size of the batches handed to {@link BatchingEventListener}s. Defaults to 100.
+     *
+     * @param maxBatchSize the batch size
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize has to be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Sets the policy to apply if the queue of a listener is full. Defaults to {@link OverflowPolicy#CALLER_RUNS}.
+     * Note that with {@link OverflowPolicy#CALLER_RUNS} the overflowing event is delivered on the submitting thread
+     * ahead of the events still waiting in the queue.
+     *
+     * @param overflowPolicy the policy
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+    }
+
+    /**
+     * Sets the time in milliseconds {@link OverflowPolicy#BLOCK} waits for space in a full queue before the event is
+     * dropped. Defaults to 1000.
+     *
+     * @param blockTimeout the timeout
+     */
+    public void setBlockTimeout(long blockTimeout) {
+        this.blockTimeout = blockTimeout;
+    }
+
+    /**
+     * Gets the number of events that were queued for asynchronous delivery since the creation of this bus.
+     *
+     * @return the number of queued events
+     */
+    public long getQueuedEvents() {
+        return this.queuedEvents.sum();
+    }
+
+    /**
+     * Gets the number of events that were dropped by the {@link OverflowPolicy} since the creation of this bus.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEvents() {
+        return this.droppedEvents.sum();
+    }
+
+    /**
+     * Gets the number of events currently waiting for asynchronous delivery.
+     *
+     * @return the number of pending events
+     */
+    public int getPendingEvents() {
+        return this.registry.getSubscribers().stream().mapToInt(Subscriber::getPendingEvents).sum();
+    }
+
     @Override
     public void init() {
     }
@@ -97,15 +192,15 @@ public class EventBus implements Constructable {
         return true;
     }
 
-    private Set<EventListener> getListenersForEvent(final Event event) {
-        lock.readLock().lock();
-        try {
-            return classCache.getClasses(event.getClass()).stream()
-                    .map(listeners::get).filter(Objects::nonNull)
-                    .flatMap(Set::stream).collect(Collectors.toSet());
-        } finally {
-            lock.readLock().unlock();
-        }
+    /**
+     * Checks if any {@link EventListener} would receive an event of the specified type.
+     *
+     * @param eventType the event type
+     *
+     * @return if there is at least one listener for the type or one of its super types
+     */
+    public boolean hasListeners(Class<? extends Event> eventType) {
+        return eventType != null && this.registry.getSubscribers(eventType).length > 0;
     }
 
     /**
@@ -118,21 +213,11 @@ public class EventBus implements Constructable {
         if (!checkEvent(event)) {
             return;
         }
-        lock.readLock().lock();
-        try {
-            getListenersForEvent(event).stream()
-                    .peek(listener -> LOG.debug("Queueing Event {} for Listener {}", event, listener))
-                    .map(listener -> new HandlerExecution(event, listener))
-                    .forEach(queue::offer);
-        } finally {
-            lock.readLock().unlock();
-        }
-        HandlerExecution r;
-        while ((r = queue.poll()) != null) {
+        for (Subscriber subscriber : this.registry.getSubscribers(event.getClass())) {
             if (async) {
-                executor.execute(r);
+                subscriber.enqueue(event);
             } else {
-                r.run();
+                subscriber.deliver(event);
             }
         }
     }
@@ -146,14 +231,15 @@ public class EventBus implements Constructable {
         if (!checkListener(listener)) {
             return;
         }
-        lock.writeLock().lock();
-        try {
+        synchronized (registrationLock) {
+            Map<Class<? extends Event>, Set<EventListener>> listeners = this.registry.copyListeners();
             listener.getTypes().stream()
                     .peek(type -> LOG.debug("Subscibing Listener {} to EventType {}", listener, type))
-                    .map(type -> listeners.computeIfAbsent(type, Functions.forSupplier(HashSet::new)))
+                    .map(type -> listeners.computeIfAbsent(type, Functions.forSupplier(LinkedHashSet::new)))
                     .forEach(set -> set.add(listener));
-        } finally {
-            lock.writeLock().unlock();
+            Map<EventListener, Subscriber> subscribers = this.registry.copySubscribers();
+            subscribers.computeIfAbsent(listener, Subscriber::new);
+            this.registry = new ListenerRegistry(listeners, subscribers);
         }
     }
 
@@ -166,70 +252,110 @@ public class EventBus implements Constructable {
         if (!checkListener(listener)) {
             return;
         }
-        lock.writeLock().lock();
-        try {
-            listener.getTypes().forEach(eventType -> unregister(listener, eventType));
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (registrationLock) {
+            Map<Class<? extends Event>, Set<EventListener>> listeners = this.registry.copyListeners();
+            listener.getTypes().forEach(eventType -> unregister(listeners, listener, eventType));
+            Map<EventListener, Subscriber> subscribers = this.registry.copySubscribers();
+            if (listeners.values().stream().noneMatch(set -> set.contains(listener))) {
+                subscribers.remove(listener);
+            }
+            this.registry = new ListenerRegistry(listeners, subscribers);
         }
     }
 
-    private void unregister(EventListener listener, Class<? extends Event> eventType) {
+    private void unregister(Map<Class<? extends Event>, Set<EventListener>> listeners,
+                            EventListener listener, Class<? extends Event> eventType) {
         Set<EventListener> listenersForKey = listeners.get(eventType);
-        if (listenersForKey.contains(listener)) {
+        if (listenersForKey != null && listenersForKey.remove(listener)) {
             LOG.debug("Unsubscibing Listener {} from EventType {}", listener, eventType);
-            listenersForKey.remove(listener);
+            if (listenersForKey.isEmpty()) {
+                listeners.remove(eventType);
+            }
         } else {
             LOG.warn("Listener {} was not registered for SosEvent Type {}", listener, eventType);
         }
     }
 
-    private static class ClassCache {
-        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Immutable snapshot of the registered listeners. The listeners of an event class (including the ones registered
+     * for its super types) are resolved on first use and cached for the lifetime of the snapshot.
+     */
+    private static class ListenerRegistry {
+        private final Map<Class<? extends Event>, Set<EventListener>> listeners;
+        private final Map<EventListener, Subscriber> subscribers;
+        private final ConcurrentMap<Class<? extends Event>, Subscriber[]> resolved = new ConcurrentHashMap<>();
 
-        private final Map<Class<? extends Event>, Set<Class<? extends Event>>> cache = new HashMap<>(15);
+        ListenerRegistry(Map<Class<? extends Event>, Set<EventListener>> listeners,
+                         Map<EventListener, Subscriber> subscribers) {
+            this.listeners = listeners;
+            this.subscribers = subscribers;
+        }
 
-        public Set<Class<? extends Event>> getClasses(Class<? extends Event> eventClass) {
-            lock.readLock().lock();
-            try {
-                Set<Class<? extends Event>> r = cache.get(eventClass);
-                if (r != null) {
-                    return r;
+        Subscriber[] getSubscribers(Class<? extends Event> eventType) {
+            Subscriber[] eventSubscribers = resolved.get(eventType);
+            if (eventSubscribers == null) {
+                eventSubscribers = resolve(eventType);
+                Subscriber[] previous = resolved.putIfAbsent(eventType, eventSubscribers);
+                if (previous != null) {
+                    eventSubscribers = previous;
                 }
-            } finally {
-                lock.readLock().unlock();
             }
-            lock.writeLock().lock();
-            try {
-                Set<Class<? extends Event>> r = cache.get(eventClass);
-                if (r != null) {
-                    return r;
-                }
-                r = flatten(eventClass);
-                cache.put(eventClass, r);
-                return r;
-            } finally {
-                lock.writeLock().unlock();
+            return eventSubscribers;
+        }
+
+        Collection<Subscriber> getSubscribers() {
+            return subscribers.values();
+        }
+
+        private Subscriber[] resolve(Class<? extends Event> eventType) {
+            if (listeners.isEmpty()) {
+                return NO_SUBSCRIBERS;
             }
+            Set<EventListener> eventListeners = Classes.flattenPartialHierachy(Event.class, eventType).stream()
+                    .map(listeners::get).filter(Objects::nonNull).flatMap(Set::stream)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            return eventListeners.stream().map(subscribers::get).toArray(Subscriber[]::new);
         }
 
-        private Set<Class<? extends Event>> flatten(Class<? extends Event> eventClass) {
-            return Classes.flattenPartialHierachy(Event.class, eventClass);
+        Map<Class<? extends Event>, Set<EventListener>> copyListeners() {
+            Map<Class<? extends Event>, Set<EventListener>> copy = new HashMap<>(listeners.size());
+            listeners.forEach((type, set) -> copy.put(type, new LinkedHashSet<>(set)));
+            return copy;
         }
-    }
 
-    private static class HandlerExecution implements Runnable {
-        private final Event event;
+        Map<EventListener, Subscriber> copySubscribers() {
+            return new HashMap<>(subscribers);
+        }
+    }
 
+    /**
+     * Delivers events to a single listener, either directly or through its bounded queue. At most one worker drains
+     * the queue at a time, so queued events are delivered to a listener in submission order. Events delivered on the
+     * submitting thread because of {@link OverflowPolicy#CALLER_RUNS} overtake the queued ones.
+     */
+    private final class Subscriber implements Runnable {
         private final EventListener listener;
+        private final BlockingQueue<Event> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
 
-        HandlerExecution(Event event, EventListener listener) {
-            this.event = event;
+        Subscriber(EventListener listener) {
             this.listener = listener;
+            this.queue = new LinkedBlockingQueue<>(queueCapacity);
         }
 
-        @Override
-        public void run() {
+        int getPendingEvents() {
+            return queue.size();
+        }
+
+        void enqueue(Event event) {
+            LOG.debug("Queueing Event {} for Listener {}", event, listener);
+            if (overflowPolicy.enqueue(queue, event, blockTimeout, this::drop, this::deliver)) {
+                queuedEvents.increment();
+                schedule();
+            }
+        }
+
+        void deliver(Event event) {
             try {
                 LOG.debug("Submitting Event {} to Listener {}", event, listener);
                 listener.handle(event);
@@ -237,5 +363,56 @@ public class EventBus implements Constructable {
                 LOG.error(String.format("Error handling event %s by handler %s", event, listener), t);
             }
         }
+
+        private void deliver(List<Event> events) {
+            try {
+                LOG.debug("Submitting {} Events to Listener {}", events.size(), listener);
+                ((BatchingEventListener) listener).handle(events);
+            } catch (final Throwable t) {
+                LOG.error(String.format("Error handling %d events by handler %s", events.size(), listener), t);
+            }
+        }
+
+        private void drop(Event event) {
+            droppedEvents.increment();
+            LOG.debug("Dropping Event {} for Listener {}", event, listener);
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    LOG.error("Could not schedule the delivery of events to {}", listener, e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (listener instanceof BatchingEventListener) {
+                    List<Event> batch = new ArrayList<>(Math.min(maxBatchSize, queue.size()));
+                    queue.drainTo(batch, maxBatchSize);
+                    if (!batch.isEmpty()) {
+                        deliver(batch);
+                    }
+                } else {
+                    for (int i = 0; i < maxBatchSize; ++i) {
+                        Event event = queue.poll();
+                        if (event == null) {
+                            break;
+                        }
+                        deliver(event);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.janmayen.event;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Strategy to apply if a bounded event queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Discard the oldest queued element to make room for the new one.
+     */
+    DROP_OLDEST {
+        @Override
+        public <E> boolean enqueue(BlockingQueue<E> queue, E element, long timeout,
+                                   Consumer<? super E> dropped, Consumer<? super E> caller) {
+            while (!queue.offer(element)) {
+                E oldest = queue.poll();
+                if (oldest != null) {
+                    dropped.accept(oldest);
+                }
+            }
+            return true;
+        }
+    },
+    /**
+     * Discard the new element.
+     */
+    DROP_NEWEST {
+        @Override
+        public <E> boolean enqueue(BlockingQueue<E> queue, E element, long timeout,
+                                   Consumer<? super E> dropped, Consumer<? super E> caller) {
+            if (queue.offer(element)) {
+                return true;
+            }
+            dropped.accept(element);
+            return false;
+        }
+    },
+    /**
+     * Block the submitting thread until space becomes available, discarding the new element if the timeout elapses.
+     */
+    BLOCK {
+        @Override
+        public <E> boolean enqueue(BlockingQueue<E> queue, E element, long timeout,
+                                   Consumer<? super E> dropped, Consumer<? super E> caller) {
+            try {
+                if (queue.offer(element, timeout, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dropped.accept(element);
+            return false;
+        }
+    },
+    /**
+     * Process the new element on the submitting thread. The element is therefore processed before the elements that
+     * are already queued.
+     */
+    CALLER_RUNS {
+        @Override
+        public <E> boolean enqueue(BlockingQueue<E> queue, E element, long timeout,
+                                   Consumer<? super E> dropped, Consumer<? super E> caller) {
+            if (queue.offer(element)) {
+                return true;
+            }
+            caller.accept(element);
+            return false;
+        }
+    };
+
+    /**
+     * Adds the element to the queue, applying this policy if the queue is full.
+     *
+     * @param <E>     the element type
+     * @param queue   the queue
+     * @param element the element to add
+     * @param timeout the time in milliseconds to wait for space if this policy blocks
+     * @param dropped the consumer notified of discarded elements
+     * @param caller  the consumer processing the element on the current thread if this policy requires it
+     *
+     * @return if the element was added to the queue
+     */
+    public abstract <E> boolean enqueue(BlockingQueue<E> queue, E element, long timeout,
+                                        Consumer<? super E> dropped, Consumer<? super E> caller);
+}
@@ -27,4 +27,10 @@ package org.n52.janmayen.http;
  */
 public interface HTTPConstants {
     String GZIP_ENCODING = "gzip";
+
+    String DEFLATE_ENCODING = "deflate";
+
+    String IDENTITY_ENCODING = "identity";
+
+    String ANY_ENCODING = "*";
 }
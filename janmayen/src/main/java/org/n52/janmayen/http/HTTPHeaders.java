@@ -16,11 +16,16 @@
  */
 package org.n52.janmayen.http;
 
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -63,6 +68,22 @@ public abstract class HTTPHeaders {
 
     public static final String X_FORWARDED_FOR = "X-Forwarded-For";
 
+    public static final String ETAG = "ETag";
+
+    public static final String LAST_MODIFIED = "Last-Modified";
+
+    public static final String IF_NONE_MATCH = "If-None-Match";
+
+    public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    public static final String VARY = "Vary";
+
+    private static final String X_GZIP_ENCODING = "x-gzip";
+
+    private static final String QUALITY_PARAMETER = "q";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(HTTPHeaders.class);
 
     private HTTPHeaders() {
@@ -76,6 +97,94 @@ public abstract class HTTPHeaders {
         return checkHeader(req, HTTPHeaders.CONTENT_ENCODING, HTTPConstants.GZIP_ENCODING);
     }
 
+    /**
+     * Parses the {@code Accept-Encoding} headers of the request.
+     *
+     * @param req the request
+     *
+     * @return the accepted content codings and their quality values
+     *
+     * @see #parseAcceptEncoding(String)
+     */
+    public static Map<String, Double> getAcceptEncoding(HttpServletRequest req) {
+        Enumeration<String> headers = req.getHeaders(HTTPHeaders.ACCEPT_ENCODING);
+        if (headers == null || !headers.hasMoreElements()) {
+            return Collections.emptyMap();
+        }
+        return parseAcceptEncoding(Streams.stream(headers).collect(joining(",")));
+    }
+
+    /**
+     * Parses the value of an {@code Accept-Encoding} header (RFC 7231, section 5.3.4). The codings are lower case and
+     * in the order of the header, {@code x-gzip} is treated as {@code gzip} and {@code *} stands for any coding not
+     * listed explicitly. A quality value of {@code 0} marks a coding as not acceptable. Codings with invalid quality
+     * values are ignored.
+     *
+     * @param header the header value, may be {@code null}
+     *
+     * @return the accepted content codings and their quality values between {@code 0} and {@code 1}
+     */
+    public static Map<String, Double> parseAcceptEncoding(String header) {
+        if (Strings.isNullOrEmpty(header)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Double> codings = new LinkedHashMap<>();
+        for (String element : header.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.isEmpty()) {
+                continue;
+            }
+            if (coding.equals(X_GZIP_ENCODING)) {
+                coding = HTTPConstants.GZIP_ENCODING;
+            }
+            Double quality = parseQuality(parts);
+            if (quality == null) {
+                LOGGER.debug("The {} header contains an invalid value: {}", ACCEPT_ENCODING, element);
+            } else {
+                codings.putIfAbsent(coding, quality);
+            }
+        }
+        return codings;
+    }
+
+    /**
+     * Gets the quality value of a content coding from a parsed {@code Accept-Encoding} header.
+     *
+     * @param accepted the accepted codings
+     * @param coding   the coding
+     *
+     * @return the quality value, {@code 0} if the coding is not acceptable
+     *
+     * @see #parseAcceptEncoding(String)
+     */
+    public static double getQuality(Map<String, Double> accepted, String coding) {
+        Double quality = accepted.get(coding);
+        if (quality == null) {
+            quality = accepted.get(HTTPConstants.ANY_ENCODING);
+        }
+        if (quality == null) {
+            // identity is acceptable unless excluded explicitly
+            return coding.equals(HTTPConstants.IDENTITY_ENCODING) ? 1.0 : 0.0;
+        }
+        return quality;
+    }
+
+    private static Double parseQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String[] parameter = parts[i].split("=", 2);
+            if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase(QUALITY_PARAMETER)) {
+                try {
+                    double quality = Double.parseDouble(parameter[1].trim());
+                    return quality >= 0.0 && quality <= 1.0 ? quality : null;
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return 1.0;
+    }
+
     private static boolean checkHeader(HttpServletRequest req, String headerName, String value) {
         return Streams.stream(Optional.ofNullable(req.getHeaders(headerName))
                 .orElseGet(Collections::emptyEnumeration))
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.janmayen.component;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.n52.janmayen.ClassHelper;
+import org.n52.janmayen.similar.Similar;
+
+public class AbstractSimilarityKeyComponentRepositoryTest {
+
+    private final TestComponent numberComponent = new TestComponent(new ClassKey(Number.class));
+    private final TestComponent integerComponent = new TestComponent(new ClassKey(Integer.class));
+    private final TestComponent compositeComponent = new TestComponent(new ClassKey(String.class),
+                                                                       new ClassKey(CharSequence.class));
+    private TestRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new TestRepository(Arrays.asList(numberComponent, integerComponent, compositeComponent));
+    }
+
+    @Test
+    public void should_resolve_declared_keys_without_scan() {
+        assertThat(repository.get(new ClassKey(Number.class)), is(sameInstance(numberComponent)));
+        assertThat(repository.get(new ClassKey(Integer.class)), is(sameInstance(integerComponent)));
+        assertThat(repository.getDispatchHits(), is(2L));
+        assertThat(repository.getDispatchMisses(), is(0L));
+    }
+
+    @Test
+    public void should_cache_similar_keys() {
+        assertThat(repository.get(new ClassKey(Long.class)), is(sameInstance(numberComponent)));
+        assertThat(repository.get(new ClassKey(Long.class)), is(sameInstance(numberComponent)));
+        assertThat(repository.getDispatchMisses(), is(1L));
+        assertThat(repository.getDispatchHits(), is(1L));
+    }
+
+    @Test
+    public void should_cache_negative_results() {
+        assertThat(repository.get(new ClassKey(Boolean.class)), is(nullValue()));
+        assertThat(repository.get(new ClassKey(Boolean.class)), is(nullValue()));
+        assertThat(repository.getDispatchMisses(), is(1L));
+        assertThat(repository.getDispatchHits(), is(1L));
+    }
+
+    @Test
+    public void should_resolve_composite_keys() {
+        assertThat(repository.get(new ClassKey(String.class), new ClassKey(CharSequence.class)),
+                   is(sameInstance(compositeComponent)));
+        assertThat(repository.get(new ClassKey(String.class), new ClassKey(Number.class)), is(nullValue()));
+    }
+
+    @Test
+    public void should_discard_resolutions_on_new_producers() {
+        assertThat(repository.get(new ClassKey(Long.class)), is(sameInstance(numberComponent)));
+        TestComponent longComponent = new TestComponent(new ClassKey(Long.class));
+        repository.setComponents(Arrays.asList(numberComponent, longComponent));
+        assertThat(repository.get(new ClassKey(Long.class)), is(sameInstance(longComponent)));
+        assertThat(repository.get(new ClassKey(Integer.class)), is(sameInstance(numberComponent)));
+    }
+
+    private interface TestKey extends Similar<TestKey> {
+    }
+
+    private static class ClassKey implements TestKey {
+        private final Class<?> type;
+
+        ClassKey(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public int getSimilarity(TestKey other) {
+            if (other instanceof ClassKey) {
+                return ClassHelper.getSimiliarity(this.type, ((ClassKey) other).type);
+            }
+            return -1;
+        }
+
+        @Override
+        public int hashCode() {
+            return type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ClassKey && ((ClassKey) obj).type.equals(this.type);
+        }
+
+        @Override
+        public String toString() {
+            return type.getSimpleName();
+        }
+    }
+
+    private static class TestComponent implements Component<TestKey> {
+        private final Set<TestKey> keys;
+
+        TestComponent(TestKey... keys) {
+            this.keys = new HashSet<>(Arrays.asList(keys));
+        }
+
+        @Override
+        public Set<TestKey> getKeys() {
+            return Collections.unmodifiableSet(keys);
+        }
+    }
+
+    private interface TestComponentFactory extends ComponentFactory<TestKey, TestComponent> {
+    }
+
+    private static class TestRepository
+            extends AbstractSimilarityKeyComponentRepository<TestKey, TestComponent, TestComponentFactory> {
+
+        TestRepository(Collection<TestComponent> components) {
+            setComponents(components);
+        }
+
+        void setComponents(Collection<TestComponent> components) {
+            setProducers(getProviders(Optional.of(components), Optional.empty()));
+        }
+
+        TestComponent get(TestKey key, TestKey... keys) {
+            return getComponent(key, keys);
+        }
+
+        @Override
+        protected CompositeKey createCompositeKey(List<TestKey> keys) {
+            return new CompositeTestKey(keys);
+        }
+
+        private class CompositeTestKey extends CompositeKey implements TestKey {
+            CompositeTestKey(Iterable<TestKey> keys) {
+                super(keys);
+            }
+
+            @Override
+            public TestKey asKey() {
+                return this;
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.janmayen.event;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class EventBusTest {
+
+    private EventBus eventBus;
+
+    @BeforeEach
+    public void setUp() {
+        eventBus = new EventBus();
+    }
+
+    @Test
+    public void should_not_have_listeners_without_registration() {
+        assertThat(eventBus.hasListeners(ParentEvent.class), is(false));
+        eventBus.submit(new ParentEvent());
+    }
+
+    @Test
+    public void should_dispatch_over_class_hierarchy() {
+        RecordingListener parentListener = new RecordingListener(ParentEvent.class);
+        eventBus.register(parentListener);
+
+        assertThat(eventBus.hasListeners(ParentEvent.class), is(true));
+        assertThat(eventBus.hasListeners(ChildEvent.class), is(true));
+        assertThat(eventBus.hasListeners(OtherEvent.class), is(false));
+
+        ChildEvent child = new ChildEvent();
+        eventBus.submit(child);
+        eventBus.submit(new OtherEvent());
+        assertThat(parentListener.events, contains(child));
+    }
+
+    @Test
+    public void should_deliver_once_to_listeners_registered_for_several_types() {
+        RecordingListener listener = new RecordingListener(ParentEvent.class, ChildEvent.class);
+        eventBus.register(listener);
+
+        ChildEvent child = new ChildEvent();
+        eventBus.submit(child);
+        assertThat(listener.events, contains(child));
+    }
+
+    @Test
+    public void should_stop_dispatching_after_unregistration() {
+        RecordingListener listener = new RecordingListener(ChildEvent.class);
+        eventBus.register(listener);
+        eventBus.submit(new ChildEvent());
+        eventBus.unregister(listener);
+
+        assertThat(eventBus.hasListeners(ChildEvent.class), is(false));
+        eventBus.submit(new ChildEvent());
+        assertThat(listener.events.size(), is(1));
+
+        eventBus.unregister(listener);
+    }
+
+    @Test
+    public void should_see_listeners_registered_after_first_dispatch() {
+        eventBus.submit(new ChildEvent());
+        RecordingListener listener = new RecordingListener(ParentEvent.class);
+        assertThat(listener.events, is(empty()));
+        eventBus.register(listener);
+
+        ChildEvent child = new ChildEvent();
+        eventBus.submit(child);
+        assertThat(listener.events, contains(child));
+    }
+
+    @Test
+    public void should_drop_newest_events_of_full_queue() throws InterruptedException {
+        eventBus.setAsync(true);
+        eventBus.setQueueCapacity(2);
+        eventBus.setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+        BlockingListener listener = new BlockingListener(ParentEvent.class);
+        eventBus.register(listener);
+
+        ParentEvent first = new ParentEvent();
+        eventBus.submit(first);
+        assertThat(listener.started.await(5, TimeUnit.SECONDS), is(true));
+        ParentEvent second = new ParentEvent();
+        ParentEvent third = new ParentEvent();
+        eventBus.submit(second);
+        eventBus.submit(third);
+        eventBus.submit(new ParentEvent());
+
+        assertThat(eventBus.getPendingEvents(), is(2));
+        assertThat(eventBus.getDroppedEvents(), is(1L));
+        assertThat(eventBus.getQueuedEvents(), is(3L));
+
+        listener.release.countDown();
+        assertThat(listener.awaitEvents(3), contains(first, second, third));
+    }
+
+    @Test
+    public void should_drop_oldest_events_of_full_queue() throws InterruptedException {
+        eventBus.setAsync(true);
+        eventBus.setQueueCapacity(2);
+        eventBus.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+        BlockingListener listener = new BlockingListener(ParentEvent.class);
+        eventBus.register(listener);
+
+        ParentEvent first = new ParentEvent();
+        eventBus.submit(first);
+        assertThat(listener.started.await(5, TimeUnit.SECONDS), is(true));
+        eventBus.submit(new ParentEvent());
+        ParentEvent third = new ParentEvent();
+        ParentEvent fourth = new ParentEvent();
+        eventBus.submit(third);
+        eventBus.submit(fourth);
+
+        assertThat(eventBus.getDroppedEvents(), is(1L));
+        listener.release.countDown();
+        assertThat(listener.awaitEvents(3), contains(first, third, fourth));
+    }
+
+    @Test
+    public void should_run_on_caller_thread_if_queue_is_full() throws InterruptedException {
+        eventBus.setAsync(true);
+        eventBus.setQueueCapacity(1);
+        eventBus.setOverflowPolicy(OverflowPolicy.CALLER_RUNS);
+        BlockingListener listener = new BlockingListener(ParentEvent.class);
+        eventBus.register(listener);
+
+        eventBus.submit(new ParentEvent());
+        assertThat(listener.started.await(5, TimeUnit.SECONDS), is(true));
+        eventBus.submit(new ParentEvent());
+        eventBus.submit(new ParentEvent());
+        listener.release.countDown();
+
+        assertThat(listener.awaitEvents(3).size(), is(3));
+        assertThat(listener.threads.contains(Thread.currentThread()), is(true));
+        assertThat(eventBus.getDroppedEvents(), is(0L));
+    }
+
+    @Test
+    public void should_deliver_batches_to_batching_listeners() throws InterruptedException {
+        eventBus.setAsync(true);
+        eventBus.setMaxBatchSize(3);
+        BatchListener listener = new BatchListener();
+        eventBus.register(listener);
+
+        for (int i = 0; i < 10; i++) {
+            eventBus.submit(new ParentEvent());
+        }
+
+        assertThat(listener.awaitEvents(10).size(), is(10));
+        assertThat(listener.batchSizes, everyItem(lessThanOrEqualTo(3)));
+    }
+
+    private static class ParentEvent implements Event {
+    }
+
+    private static class ChildEvent extends ParentEvent {
+    }
+
+    private static class OtherEvent implements Event {
+    }
+
+    private static class RecordingListener implements EventListener {
+        private final Set<Class<? extends Event>> types;
+        private final List<Event> events = new ArrayList<>();
+
+        RecordingListener(Class<? extends Event> type) {
+            this.types = Collections.singleton(type);
+        }
+
+        RecordingListener(Class<? extends Event> type, Class<? extends Event> other) {
+            this.types = new HashSet<>();
+            this.types.add(type);
+            this.types.add(other);
+        }
+
+        @Override
+        public Set<Class<? extends Event>> getTypes() {
+            return types;
+        }
+
+        @Override
+        public void handle(Event event) {
+            synchronized (events) {
+                events.add(event);
+                events.notifyAll();
+            }
+        }
+
+        List<Event> awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            synchronized (events) {
+                while (events.size() < count && System.currentTimeMillis() < deadline) {
+                    events.wait(100);
+                }
+                return new ArrayList<>(events);
+            }
+        }
+    }
+
+    private static class BlockingListener extends RecordingListener {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+
+        BlockingListener(Class<? extends Event> type) {
+            super(type);
+        }
+
+        @Override
+        public void handle(Event event) {
+            threads.add(Thread.currentThread());
+            if (started.getCount() > 0) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.handle(event);
+        }
+    }
+
+    private static class BatchListener extends RecordingListener implements BatchingEventListener {
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        BatchListener() {
+            super(ParentEvent.class);
+        }
+
+        @Override
+        public void handle(List<Event> events) {
+            batchSizes.add(events.size());
+            events.forEach(this::handle);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.janmayen.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class HTTPHeadersTest {
+
+    @Test
+    public void parsesQualityValues() {
+        Map<String, Double> accepted = HTTPHeaders.parseAcceptEncoding("deflate;q=0.5, X-GZIP , br;q=bad, *;q=0");
+        assertThat(accepted.keySet(), contains("deflate", "gzip", "*"));
+        assertThat(HTTPHeaders.getQuality(accepted, "gzip"), is(1.0));
+        assertThat(HTTPHeaders.getQuality(accepted, "deflate"), is(0.5));
+        assertThat(HTTPHeaders.getQuality(accepted, "br"), is(0.0));
+        assertThat(HTTPHeaders.getQuality(accepted, "identity"), is(0.0));
+    }
+
+    @Test
+    public void identityIsAcceptableByDefault() {
+        Map<String, Double> accepted = HTTPHeaders.parseAcceptEncoding("gzip;q=0.2");
+        assertThat(HTTPHeaders.getQuality(accepted, "identity"), is(1.0));
+        assertThat(HTTPHeaders.getQuality(accepted, "deflate"), is(0.0));
+        assertThat(HTTPHeaders.parseAcceptEncoding(null).isEmpty(), is(true));
+    }
+}
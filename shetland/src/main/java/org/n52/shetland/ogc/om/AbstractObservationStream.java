@@ -18,9 +18,62 @@ package org.n52.shetland.ogc.om;
 
 
 import org.n52.janmayen.AbstractThrowingIterator;
+import org.n52.janmayen.FlightRecording;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.Deadline;
 
 public abstract class AbstractObservationStream
         extends AbstractThrowingIterator<OmObservation, OwsExceptionReport>
         implements ObservationStream {
+    private static final boolean RECORDING = FlightRecording.isAvailable();
+    private boolean ready;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Stops the iteration if the {@link Deadline} of the current request passed. If the runtime supports it, every
+     * pull of an observation is recorded as a flight recorder event.
+     */
+    @Override
+    public boolean hasNext() throws OwsExceptionReport {
+        Deadline.checkCurrent();
+        if (!RECORDING || ready) {
+            return super.hasNext();
+        }
+        Pull pull = ObservationStreamPullEvent.begin(this);
+        try {
+            ready = super.hasNext();
+            pull.end(ready);
+            return ready;
+        } catch (OwsExceptionReport | RuntimeException | Error e) {
+            pull.failed(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public OmObservation next() throws OwsExceptionReport {
+        OmObservation observation = super.next();
+        ready = false;
+        return observation;
+    }
+
+    /**
+     * The recording of a single pull.
+     */
+    interface Pull {
+        Pull NONE = new Pull() {
+            @Override
+            public void end(boolean found) {
+            }
+
+            @Override
+            public void failed(Throwable cause) {
+            }
+        };
+
+        void end(boolean found);
+
+        void failed(Throwable cause);
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.om;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.n52.shetland.ogc.gml.AbstractGML;
+
+/**
+ * Merges observations as described by an {@link ObservationMergeIndicator}. Instead of comparing every observation
+ * with every already merged observation, the merger derives a hash key from the parameters selected by the indicator
+ * and groups the observations with it.
+ *
+ * The result is the same as checking each observation against the already merged observations in order using
+ * {@link OmObservation#checkForMerge(OmObservation, ObservationMergeIndicator)}: an observation is merged into the
+ * first merged observation it can be merged with, or is appended otherwise. Parameters are compared in both
+ * directions, so for parameters with an asymmetric {@code equals} the merger is stricter than
+ * {@code checkForMerge}.
+ *
+ * @since 7.0.0
+ */
+public class ObservationMerger {
+    private final Map<MergeKey, List<Entry>> index = new HashMap<>();
+    private final List<OmObservation> observations = new ArrayList<>();
+    private final ObservationMergeIndicator indicator;
+    private final boolean mutableKey;
+    private int obsIdCounter = 1;
+
+    public ObservationMerger(ObservationMergeIndicator indicator) {
+        this.indicator = Objects.requireNonNull(indicator);
+        // the phenomenon and result time of merged observations change
+        this.mutableKey = indicator.isPhenomenonTime() || indicator.isSetResultTime();
+    }
+
+    /**
+     * Merges the observation into the first matching observation or appends it.
+     *
+     * @param observation the observation
+     */
+    public void add(OmObservation observation) {
+        MergeKey key = observation.isSetSpatialFilteringProfileParameter() || !indicator.isSamplingGeometry()
+                       ? createKey(observation) : null;
+        if (key != null && observation.isMergeable(indicator)) {
+            List<Entry> bucket = index.get(key);
+            if (bucket != null) {
+                Entry target = bucket.get(0);
+                target.observation.mergeWithObservation(observation);
+                if (mutableKey) {
+                    rekey(target, bucket);
+                }
+                return;
+            }
+        }
+        if (!observation.isSetGmlID()) {
+            observation.setObservationID(Integer.toString(obsIdCounter++));
+        }
+        Entry entry = new Entry(observation, observations.size(), key);
+        observations.add(observation);
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+        }
+    }
+
+    /**
+     * @return the merged observations in order of their first appearance
+     */
+    public List<OmObservation> getObservations() {
+        return observations;
+    }
+
+    private void rekey(Entry entry, List<Entry> bucket) {
+        MergeKey key = createKey(entry.observation);
+        if (key.equals(entry.key)) {
+            return;
+        }
+        bucket.remove(entry);
+        if (bucket.isEmpty()) {
+            index.remove(entry.key);
+        }
+        entry.key = key;
+        List<Entry> newBucket = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+        int position = 0;
+        while (position < newBucket.size() && newBucket.get(position).sequence < entry.sequence) {
+            ++position;
+        }
+        newBucket.add(position, entry);
+    }
+
+    private MergeKey createKey(OmObservation observation) {
+        OmObservationConstellation constellation = observation.getObservationConstellation();
+        return new MergeKey(observation.getAdditionalMergeIndicator(),
+                            indicator.isProcedure() ? constellation.getProcedure() : null,
+                            indicator.isOfferings() ? constellation.getOfferings() : null,
+                            indicator.isFeatureOfInterest() ? constellation.getFeatureOfInterest() : null,
+                            indicator.isObservableProperty() ? constellation.getObservableProperty() : null,
+                            indicator.isPhenomenonTime() ? observation.getPhenomenonTime() : null,
+                            indicator.isSetResultTime() ? observation.getResultTime() : null,
+                            indicator.isSamplingGeometry()
+                                    ? observation.getSpatialFilteringProfileParameter().getValue().getValue()
+                                    : null);
+    }
+
+    private static final class Entry {
+        private final OmObservation observation;
+        private final int sequence;
+        private MergeKey key;
+
+        Entry(OmObservation observation, int sequence, MergeKey key) {
+            this.observation = observation;
+            this.sequence = sequence;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Key of the parameters that have to be equal. {@link AbstractGML} objects are only hashed by their identifier, as
+     * their {@code equals} does not take all fields of their {@code hashCode} into account.
+     */
+    private static final class MergeKey {
+        private final Object[] components;
+        private final int hash;
+
+        MergeKey(Object... components) {
+            this.components = components;
+            int h = 1;
+            for (Object component : components) {
+                h = 31 * h + hash(component);
+            }
+            this.hash = h;
+        }
+
+        private static int hash(Object component) {
+            if (component instanceof AbstractGML) {
+                return Objects.hashCode(((AbstractGML) component).getIdentifierCodeWithAuthority());
+            }
+            return Objects.hashCode(component);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MergeKey)) {
+                return false;
+            }
+            MergeKey that = (MergeKey) obj;
+            if (hash != that.hash || components.length != that.components.length) {
+                return false;
+            }
+            for (int i = 0; i < components.length; i++) {
+                if (!equals(components[i], that.components[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Compares in both directions, so that the key stays symmetric even if the {@code equals} of a component is
+         * not.
+         */
+        private static boolean equals(Object a, Object b) {
+            return Objects.equals(a, b) && Objects.equals(b, a);
+        }
+    }
+}
@@ -18,11 +18,10 @@ package org.n52.shetland.ogc.om;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -237,6 +236,24 @@ public interface ObservationStream
         };
     }
 
+    /**
+     * Creates a new observation stream that retrieves up to {@code depth}
+     * observations of this stream ahead on a worker thread of the executor.
+     *
+     * @param depth
+     *            the number of observations to retrieve ahead
+     * @param executor
+     *            the executor to run the worker
+     *
+     * @return the new stream
+     *
+     * @see PrefetchingObservationStream
+     */
+    @CheckReturnValue
+    default ObservationStream prefetch(int depth, Executor executor) {
+        return new PrefetchingObservationStream(this, depth, executor);
+    }
+
     /**
      * Creates a new stream out of this stream in which observations with the
      * same observation constellation are merged. Be aware that this method will
@@ -272,26 +289,67 @@ public interface ObservationStream
      */
     @CheckReturnValue
     default ObservationStream merge(ObservationMergeIndicator indicator) throws OwsExceptionReport {
-        List<OmObservation> mergedObservations = new LinkedList<>();
-        int obsIdCounter = 1;
+        ObservationMerger merger = new ObservationMerger(indicator);
         try {
             while (hasNext()) {
-                OmObservation observation = next();
-                Optional<OmObservation> merge =
-                        mergedObservations.stream().filter(o -> o.checkForMerge(observation, indicator)).findAny();
-                if (merge.isPresent()) {
-                    merge.get().mergeWithObservation(observation);
-                } else {
-                    if (!observation.isSetGmlID()) {
-                        observation.setObservationID(Integer.toString(obsIdCounter++));
-                    }
-                    mergedObservations.add(observation);
-                }
+                merger.add(next());
             }
         } finally {
             close();
         }
-        return of(mergedObservations);
+        return of(merger.getObservations());
+    }
+
+    /**
+     * Creates a new stream out of this stream in which consecutive observations that can be merged are merged. In
+     * contrast to {@link #merge(ObservationMergeIndicator)} this stream is consumed lazily and only the currently
+     * merged observation is held in memory, so this should be used if this stream is known to be ordered by the
+     * parameters of the indicator (e.g. by observation constellation).
+     *
+     * @param indicator
+     *            the merge indicator
+     *
+     * @return the new observation stream
+     *
+     * @see OmObservation#checkForMerge(org.n52.shetland.ogc.om.OmObservation, ObservationMergeIndicator)
+     */
+    @CheckReturnValue
+    default ObservationStream mergeOrdered(ObservationMergeIndicator indicator) {
+        Objects.requireNonNull(indicator);
+        ObservationStream delegate = this;
+        return new AbstractObservationStream() {
+            private OmObservation pending;
+            private int obsIdCounter = 1;
+
+            @Override
+            protected OmObservation computeNext() throws OwsExceptionReport {
+                OmObservation current = pending;
+                pending = null;
+                while (delegate.hasNext()) {
+                    OmObservation observation = delegate.next();
+                    if (current == null) {
+                        current = observation;
+                    } else if (current.checkForMerge(observation, indicator)) {
+                        current.mergeWithObservation(observation);
+                    } else {
+                        pending = observation;
+                        break;
+                    }
+                }
+                if (current == null) {
+                    return endOfData();
+                }
+                if (!current.isSetGmlID()) {
+                    current.setObservationID(Integer.toString(obsIdCounter++));
+                }
+                return current;
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
     }
 
     /**
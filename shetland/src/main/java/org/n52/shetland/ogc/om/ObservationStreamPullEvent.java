@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.om;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.n52.shetland.ObservationStreamPull")
+@Label("Observation Stream Pull")
+@Description("The retrieval of the next observation of an observation stream")
+@Category("Shetland")
+final class ObservationStreamPullEvent extends Event implements AbstractObservationStream.Pull {
+    private static final EventType TYPE = EventType.getEventType(ObservationStreamPullEvent.class);
+
+    @Label("Stream")
+    Class<?> stream;
+
+    @Label("End of Stream")
+    boolean endOfStream;
+
+    @Label("Error")
+    String error;
+
+    static AbstractObservationStream.Pull begin(AbstractObservationStream stream) {
+        // checked before creating the event, as this runs for every observation
+        if (!TYPE.isEnabled()) {
+            return AbstractObservationStream.Pull.NONE;
+        }
+        ObservationStreamPullEvent event = new ObservationStreamPullEvent();
+        event.stream = stream.getClass();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(boolean found) {
+        endOfStream = !found;
+        commit();
+    }
+
+    @Override
+    public void failed(Throwable cause) {
+        error = cause.getClass().getName();
+        commit();
+    }
+}
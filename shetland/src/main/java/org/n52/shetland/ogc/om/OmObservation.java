@@ -30,6 +30,7 @@ import org.n52.shetland.ogc.gml.time.Time;
 import org.n52.shetland.ogc.gml.time.TimeInstant;
 import org.n52.shetland.ogc.gml.time.TimePeriod;
 import org.n52.shetland.ogc.om.quality.OmResultQuality;
+import org.n52.shetland.ogc.om.values.ColumnarTVPValue;
 import org.n52.shetland.ogc.om.values.NilTemplateValue;
 import org.n52.shetland.ogc.om.values.ProfileValue;
 import org.n52.shetland.ogc.om.values.SweDataArrayValue;
@@ -423,6 +424,12 @@ public class OmObservation
         } else {
             tvpValue = (TVPValue) ((MultiObservationValues<?>) value).getValue();
         }
+        if (tvpValue instanceof ColumnarTVPValue) {
+            if (mergeColumnarValues((ColumnarTVPValue) tvpValue, observationValue)) {
+                return true;
+            }
+            tvpValue = (TVPValue) ((MultiObservationValues<?>) value).getValue();
+        }
         if (observationValue instanceof SingleObservationValue) {
             final SingleObservationValue<?> singleValue = (SingleObservationValue<?>) observationValue;
             if (!(singleValue.getValue() instanceof NilTemplateValue)) {
@@ -434,6 +441,54 @@ public class OmObservation
         return true;
     }
 
+    /**
+     * Merge observation values into a columnar value without materializing its time value pairs. If the values can
+     * not be represented in columns, the columnar value is replaced by a plain {@link TVPValue} and the merge is left
+     * to the caller.
+     *
+     * @param columnar
+     *            the columnar value to merge into
+     * @param observationValue
+     *            the values to merge
+     *
+     * @return if the values were merged
+     */
+    @SuppressWarnings("unchecked")
+    private boolean mergeColumnarValues(ColumnarTVPValue columnar, ObservationValue<?> observationValue) {
+        if (observationValue instanceof SingleObservationValue) {
+            SingleObservationValue<?> singleValue = (SingleObservationValue<?>) observationValue;
+            if (singleValue.getValue() instanceof NilTemplateValue) {
+                return true;
+            }
+            TimeValuePair timeValuePair = new TimeValuePair(singleValue.getPhenomenonTime(), singleValue.getValue());
+            if (columnar.accepts(timeValuePair)) {
+                columnar.addValue(timeValuePair);
+                return true;
+            }
+        } else if (observationValue instanceof MultiObservationValues) {
+            TVPValue other = (TVPValue) observationValue.getValue();
+            if (other instanceof ColumnarTVPValue) {
+                if (columnar.accepts((ColumnarTVPValue) other)) {
+                    columnar.addAll((ColumnarTVPValue) other);
+                    return true;
+                }
+            } else {
+                List<TimeValuePair> pairs = other.getValue();
+                if (columnar.accepts(pairs)) {
+                    columnar.addValues(pairs);
+                    return true;
+                }
+            }
+        } else {
+            return true;
+        }
+        TVPValue plain = new TVPValue();
+        plain.setUnit(columnar.getUnitObject());
+        plain.setValue(columnar.getValue());
+        ((MultiObservationValues<List<TimeValuePair>>) value).setValue(plain);
+        return false;
+    }
+
     /**
      * Merge result time with passed observation result time
      *
@@ -876,6 +931,20 @@ public class OmObservation
                 && checkSamplingGeometry(indicator, observation);
     }
 
+    /**
+     * Checks the conditions of {@link #checkForMerge(OmObservation, ObservationMergeIndicator)} that only depend on
+     * this observation.
+     *
+     * @param indicator
+     *            the merge indicator
+     *
+     * @return <code>true</code>, if this observation can be merged into another observation
+     */
+    boolean isMergeable(ObservationMergeIndicator indicator) {
+        return checkObservationTypeForMerging(indicator, this)
+                && (!indicator.isSamplingGeometry() || isSetSpatialFilteringProfileParameter());
+    }
+
     /**
      * TODO change if currently not supported types could be merged.
      *
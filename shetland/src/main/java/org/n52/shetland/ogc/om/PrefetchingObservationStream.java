@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.om;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.Deadline;
+
+/**
+ * {@link ObservationStream} that retrieves the observations of another stream on a worker thread, so that the
+ * retrieval of the next observations overlaps with the processing of the current one. At most {@code depth}
+ * observations are retrieved ahead.
+ *
+ * The worker runs with the {@link Deadline} of the thread that created the stream. If the executor rejects the worker,
+ * the observations are retrieved on the consuming thread. Exceptions of the delegate are thrown by this stream at the
+ * position they occurred. Closing this stream stops the worker. The delegate is always closed by the thread that
+ * retrieves from it.
+ *
+ * @since 7.0.0
+ */
+public class PrefetchingObservationStream extends AbstractObservationStream {
+    private static final Item END = new Item(null, null);
+    private final ObservationStream delegate;
+    private final BlockingQueue<Item> queue;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final Future<?> producer;
+    private boolean finished;
+
+    public PrefetchingObservationStream(ObservationStream delegate, int depth, Executor executor) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth has to be positive: " + depth);
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.queue = new ArrayBlockingQueue<>(depth);
+        this.producer = submit(Objects.requireNonNull(executor));
+    }
+
+    private Future<?> submit(Executor executor) {
+        FutureTask<?> task = new FutureTask<>(this::produce, null);
+        try {
+            executor.execute(Deadline.wrap(task));
+            return task;
+        } catch (RejectedExecutionException e) {
+            // retrieve on the consuming thread
+            started.set(true);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws OwsExceptionReport {
+        return !finished && super.hasNext();
+    }
+
+    @Override
+    protected OmObservation computeNext() throws OwsExceptionReport {
+        if (producer == null) {
+            return delegate.hasNext() ? delegate.next() : endOfData();
+        }
+        Item item;
+        try {
+            item = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new NoApplicableCodeException().causedBy(e)
+                    .withMessage("Interrupted while waiting for observations");
+        }
+        if (item.error != null) {
+            finished = true;
+            if (item.error instanceof OwsExceptionReport) {
+                throw (OwsExceptionReport) item.error;
+            } else if (item.error instanceof RuntimeException) {
+                throw (RuntimeException) item.error;
+            }
+            throw (Error) item.error;
+        }
+        if (item == END) {
+            return endOfData();
+        }
+        return item.observation;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        if (producer == null) {
+            delegate.close();
+        } else if (started.compareAndSet(false, true)) {
+            // the worker never started, so it will not touch the delegate
+            producer.cancel(false);
+            delegate.close();
+        } else {
+            producer.cancel(true);
+        }
+    }
+
+    private void produce() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (delegate.hasNext()) {
+                queue.put(new Item(delegate.next(), null));
+            }
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // cancelled by the consumer
+            Thread.currentThread().interrupt();
+        } catch (OwsExceptionReport | RuntimeException | Error e) {
+            try {
+                queue.put(new Item(null, e));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            delegate.close();
+        }
+    }
+
+    private static final class Item {
+        private final OmObservation observation;
+        private final Throwable error;
+
+        Item(OmObservation observation, Throwable error) {
+            this.observation = observation;
+            this.error = error;
+        }
+    }
+}
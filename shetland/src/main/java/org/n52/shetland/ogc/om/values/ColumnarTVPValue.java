@@ -0,0 +1,430 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.om.values;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.Time.TimeFormat;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.om.TimeValuePair;
+
+/**
+ * Columnar {@link TVPValue} for numeric time series. Instead of holding a {@link TimeValuePair} per point, the time
+ * stamps are kept as epoch milliseconds in a {@code long[]}, the values in a {@code double[]} and missing values in a
+ * {@link BitSet}. The points are sorted at most once, when they are first accessed after an out of order insertion.
+ *
+ * Only {@link QuantityValue}s at {@link TimeInstant}s can be stored whose value can be represented as a
+ * {@code double} without loss. All points share the time zone and time format of the first point added as a
+ * {@link TimeValuePair} (UTC if points are only added as epoch milliseconds). {@link #getValue()} materializes the
+ * points as {@link TimeValuePair}s for consumers that are not aware of this class, encoders should prefer the indexed
+ * accessors.
+ *
+ * @since 7.0.0
+ */
+public class ColumnarTVPValue extends TVPValue {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] times;
+
+    private double[] values;
+
+    private BitSet nils = new BitSet();
+
+    private int size;
+
+    private boolean sorted = true;
+
+    private DateTimeZone zone;
+
+    private TimeFormat timeFormat = TimeFormat.NOT_SET;
+
+    public ColumnarTVPValue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarTVPValue(int capacity) {
+        this.times = new long[Math.max(capacity, 1)];
+        this.values = new double[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Add a point.
+     *
+     * @param time
+     *            the time in milliseconds since the epoch
+     * @param value
+     *            the value
+     *
+     * @return this
+     */
+    public ColumnarTVPValue add(long time, double value) {
+        ensureCapacity(size + 1);
+        append(time);
+        values[size++] = value;
+        return this;
+    }
+
+    /**
+     * Add a point with a missing value.
+     *
+     * @param time
+     *            the time in milliseconds since the epoch
+     *
+     * @return this
+     */
+    public ColumnarTVPValue addNil(long time) {
+        ensureCapacity(size + 1);
+        append(time);
+        values[size] = Double.NaN;
+        nils.set(size++);
+        return this;
+    }
+
+    /**
+     * Add all points of another columnar value.
+     *
+     * @param other
+     *            the value to add
+     *
+     * @return this
+     */
+    public ColumnarTVPValue addAll(ColumnarTVPValue other) {
+        if (other.size == 0) {
+            return this;
+        }
+        if (!accepts(other)) {
+            throw new IllegalArgumentException("Incompatible time zone or time format: " + other.getZone());
+        }
+        if (size == 0) {
+            zone = other.zone;
+            timeFormat = other.timeFormat;
+        }
+        ensureCapacity(size + other.size);
+        if (!other.sorted || size > 0 && times[size - 1] > other.times[0]) {
+            sorted = false;
+        }
+        System.arraycopy(other.times, 0, times, size, other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        for (int i = other.nils.nextSetBit(0); i >= 0 && i < other.size; i = other.nils.nextSetBit(i + 1)) {
+            nils.set(size + i);
+        }
+        size += other.size;
+        return this;
+    }
+
+    @Override
+    public void addValue(TimeValuePair value) {
+        if (!accepts(value)) {
+            throw new IllegalArgumentException("Unsupported time value pair: " + value);
+        }
+        TimeInstant instant = (TimeInstant) value.getTime();
+        if (size == 0) {
+            zone = instant.getValue().getZone();
+            timeFormat = instant.getTimeFormat();
+        }
+        long time = instant.getValue().getMillis();
+        QuantityValue quantity = (QuantityValue) value.getValue();
+        if (quantity == null || !quantity.isSetValue()) {
+            addNil(time);
+        } else {
+            add(time, quantity.getValue().doubleValue());
+        }
+    }
+
+    @Override
+    public void addValues(List<TimeValuePair> values) {
+        ensureCapacity(size + values.size());
+        values.forEach(this::addValue);
+    }
+
+    @Override
+    public ColumnarTVPValue setValue(List<TimeValuePair> value) {
+        clear();
+        addValues(value);
+        return this;
+    }
+
+    /**
+     * Materializes the points of this value as {@link TimeValuePair}s. The result is not backed by this value.
+     *
+     * @return the sorted time value pairs
+     */
+    @Override
+    public List<TimeValuePair> getValue() {
+        sort();
+        List<TimeValuePair> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            QuantityValue value = isNil(i) ? new QuantityValue((BigDecimal) null, getUnitObject())
+                                           : new QuantityValue(BigDecimal.valueOf(values[i]), getUnitObject());
+            TimeInstant time = new TimeInstant(toDateTime(times[i]));
+            time.setTimeFormat(timeFormat);
+            list.add(new TimeValuePair(time, value));
+        }
+        return list;
+    }
+
+    /**
+     * @return the time zone of the points
+     */
+    public DateTimeZone getZone() {
+        return zone == null ? DateTimeZone.UTC : zone;
+    }
+
+    /**
+     * @return the time format of the points
+     */
+    public TimeFormat getTimeFormat() {
+        return timeFormat;
+    }
+
+    /**
+     * @return the number of points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the time of the point at {@code index} in time order.
+     *
+     * @param index
+     *            the index
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        sort();
+        return times[index];
+    }
+
+    /**
+     * Get the value of the point at {@code index} in time order.
+     *
+     * @param index
+     *            the index
+     *
+     * @return the value or {@link Double#NaN} if the value is missing
+     */
+    public double getValue(int index) {
+        checkIndex(index);
+        sort();
+        return values[index];
+    }
+
+    /**
+     * Checks if the value of the point at {@code index} in time order is missing.
+     *
+     * @param index
+     *            the index
+     *
+     * @return if the value is missing
+     */
+    public boolean isNil(int index) {
+        checkIndex(index);
+        sort();
+        return nils.get(index);
+    }
+
+    @Override
+    public Time getPhenomenonTime() {
+        if (size == 0) {
+            return new TimePeriod();
+        }
+        sort();
+        return new TimePeriod(toDateTime(times[0]), toDateTime(times[size - 1]));
+    }
+
+    @Override
+    public boolean isSetValue() {
+        return size > 0;
+    }
+
+    /**
+     * Checks if the time value pair can be stored in a {@code ColumnarTVPValue}, i.e. if it is a quantity at a time
+     * instant and the quantity can be converted to a {@code double} and back without loss.
+     *
+     * @param value
+     *            the time value pair
+     *
+     * @return if the pair is supported
+     */
+    public static boolean isSupported(TimeValuePair value) {
+        return value != null && value.getTime() instanceof TimeInstant &&
+               ((TimeInstant) value.getTime()).isSetValue() &&
+               (value.getValue() == null ||
+                value.getValue() instanceof QuantityValue && isRepresentable((QuantityValue) value.getValue()));
+    }
+
+    /**
+     * Checks if the time value pair can be added to this value. Besides being {@linkplain #isSupported(TimeValuePair)
+     * supported}, the time has to be in the time zone and format of the points already contained.
+     *
+     * @param value
+     *            the time value pair
+     *
+     * @return if the pair can be added
+     */
+    public boolean accepts(TimeValuePair value) {
+        if (!isSupported(value)) {
+            return false;
+        }
+        TimeInstant instant = (TimeInstant) value.getTime();
+        return size == 0 || getZone().equals(instant.getValue().getZone()) &&
+                            timeFormat == instant.getTimeFormat();
+    }
+
+    /**
+     * Checks if the time value pairs can be added to this value.
+     *
+     * @param values
+     *            the time value pairs
+     *
+     * @return if all pairs can be added
+     *
+     * @see #accepts(TimeValuePair)
+     */
+    public boolean accepts(List<TimeValuePair> values) {
+        if (values.isEmpty()) {
+            return true;
+        }
+        if (!accepts(values.get(0))) {
+            return false;
+        }
+        TimeInstant first = (TimeInstant) values.get(0).getTime();
+        DateTimeZone expectedZone = size == 0 ? first.getValue().getZone() : getZone();
+        TimeFormat expectedFormat = size == 0 ? first.getTimeFormat() : timeFormat;
+        return values.stream().allMatch(v -> isSupported(v) &&
+                                             expectedZone.equals(((TimeInstant) v.getTime()).getValue().getZone()) &&
+                                             expectedFormat == v.getTime().getTimeFormat());
+    }
+
+    /**
+     * Checks if the points of another columnar value can be added to this value.
+     *
+     * @param other
+     *            the other value
+     *
+     * @return if the time zones and formats match
+     */
+    public boolean accepts(ColumnarTVPValue other) {
+        return size == 0 || other.size == 0 ||
+               getZone().equals(other.getZone()) && timeFormat == other.timeFormat;
+    }
+
+    private static boolean isRepresentable(QuantityValue quantity) {
+        if (quantity == null || !quantity.isSetValue()) {
+            return true;
+        }
+        double d = quantity.getValue().doubleValue();
+        return Double.isFinite(d) && quantity.getValue().compareTo(BigDecimal.valueOf(d)) == 0;
+    }
+
+    private void clear() {
+        size = 0;
+        sorted = true;
+        nils.clear();
+        zone = null;
+        timeFormat = TimeFormat.NOT_SET;
+    }
+
+    private void append(long time) {
+        if (size > 0 && times[size - 1] > time) {
+            sorted = false;
+        }
+        times[size] = time;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > times.length) {
+            int newCapacity = Math.max(capacity, times.length + (times.length >> 1));
+            times = Arrays.copyOf(times, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private DateTime toDateTime(long time) {
+        return new DateTime(time, getZone());
+    }
+
+    /**
+     * Sorts the points by time (stable, so points with equal times keep their insertion order).
+     */
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size);
+        long[] sortedTimes = new long[times.length];
+        double[] sortedValues = new double[values.length];
+        BitSet sortedNils = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            sortedTimes[i] = times[order[i]];
+            sortedValues[i] = values[order[i]];
+            if (nils.get(order[i])) {
+                sortedNils.set(i);
+            }
+        }
+        times = sortedTimes;
+        values = sortedValues;
+        nils = sortedNils;
+        sorted = true;
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(order, buffer, from, mid);
+        mergeSort(order, buffer, mid, to);
+        if (times[order[mid - 1]] <= times[order[mid]]) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < mid && times[buffer[left]] <= times[buffer[right]]) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+}
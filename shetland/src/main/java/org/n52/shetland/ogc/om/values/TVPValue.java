@@ -16,9 +16,11 @@
  */
 package org.n52.shetland.ogc.om.values;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 import org.n52.shetland.ogc.UoM;
 import org.n52.shetland.ogc.gml.time.Time;
@@ -46,17 +48,38 @@ public class TVPValue
      */
     private UoM unit;
 
+    /**
+     * Number of leading values that are known to be sorted
+     */
+    private int sorted;
+
+    /**
+     * View of the values that keeps track of modifications
+     */
+    private final List<TimeValuePair> view = new TrackingList();
+
     @Override
     public TVPValue setValue(List<TimeValuePair> value) {
         this.value.clear();
         this.value.addAll(value);
+        this.sorted = 0;
         return this;
     }
 
+    /**
+     * Get the time value pairs sorted by time. The returned list is backed by this value; modifications of the list
+     * are tracked, so the list is sorted again on the next call. Changes to the time of a contained pair are not
+     * tracked, use {@link #setValue(List)} in this case.
+     *
+     * @return the sorted time value pairs
+     */
     @Override
     public List<TimeValuePair> getValue() {
-        Collections.sort(value);
-        return value;
+        if (sorted != value.size()) {
+            Collections.sort(value);
+            sorted = value.size();
+        }
+        return view;
     }
 
     /**
@@ -66,9 +89,17 @@ public class TVPValue
      *            Time value pair value to add
      */
     public void addValue(TimeValuePair value) {
+        if (sorted == this.value.size() && (sorted == 0 || isInOrder(this.value.get(sorted - 1), value))) {
+            ++sorted;
+        }
         this.value.add(value);
     }
 
+    private static boolean isInOrder(TimeValuePair previous, TimeValuePair next) {
+        return previous != null && next != null && previous.getTime() != null && next.getTime() != null &&
+               previous.compareTo(next) <= 0;
+    }
+
     /**
      * Add time value pair values
      *
@@ -76,7 +107,7 @@ public class TVPValue
      *            Time value pair values to add
      */
     public void addValues(List<TimeValuePair> values) {
-        this.value.addAll(values);
+        values.forEach(this::addValue);
     }
 
     @Override
@@ -106,17 +137,56 @@ public class TVPValue
     @Override
     public Time getPhenomenonTime() {
         TimePeriod timePeriod = new TimePeriod();
-        if (isSetValue()) {
-            for (TimeValuePair timeValuePair : getValue()) {
-                timePeriod.extendToContain(timeValuePair.getTime());
-            }
+        for (TimeValuePair timeValuePair : value) {
+            timePeriod.extendToContain(timeValuePair.getTime());
         }
         return timePeriod;
     }
 
     @Override
     public boolean isSetValue() {
-        return CollectionHelper.isNotEmpty(getValue());
+        return CollectionHelper.isNotEmpty(value);
+    }
+
+    /**
+     * List view of the values that shrinks the sorted prefix on every modification.
+     */
+    private class TrackingList extends AbstractList<TimeValuePair> implements RandomAccess {
+        @Override
+        public TimeValuePair get(int index) {
+            return value.get(index);
+        }
+
+        @Override
+        public int size() {
+            return value.size();
+        }
+
+        @Override
+        public TimeValuePair set(int index, TimeValuePair element) {
+            TimeValuePair previous = value.set(index, element);
+            sorted = Math.min(sorted, index);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, TimeValuePair element) {
+            if (index == value.size()) {
+                addValue(element);
+            } else {
+                value.add(index, element);
+                sorted = Math.min(sorted, index);
+            }
+            modCount++;
+        }
+
+        @Override
+        public TimeValuePair remove(int index) {
+            TimeValuePair removed = value.remove(index);
+            sorted = Math.min(sorted, index);
+            modCount++;
+            return removed;
+        }
     }
 
     @Override
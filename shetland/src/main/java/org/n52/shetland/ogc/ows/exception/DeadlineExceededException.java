@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.ows.exception;
+
+import java.util.concurrent.TimeUnit;
+
+import org.n52.janmayen.http.HTTPStatus;
+
+/**
+ * Implementation of {@link CodedOwsException} to be used if the processing of a request exceeded its time limit.
+ */
+public class DeadlineExceededException extends NoApplicableCodeException {
+    private static final long serialVersionUID = 2418386208245213047L;
+
+    public DeadlineExceededException(long timeout, TimeUnit unit) {
+        withMessage("The request could not be processed within %d ms", unit.toMillis(timeout));
+        setStatus(HTTPStatus.GATEWAY_TIME_OUT);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.ows.service;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.n52.shetland.ogc.ows.exception.DeadlineExceededException;
+
+/**
+ * The point in time until which a request has to be processed. Long running code, e.g. the iteration of observation
+ * streams or the encoding of responses, should check the deadline regularly using {@link #check()} and stop if it
+ * expired.
+ * <p>
+ * The deadline of a request is available from the {@link OwsServiceRequestContext}. For code that has no access to
+ * the request, the deadline can be bound to the processing thread using {@link #bind()} and checked using
+ * {@link #checkCurrent()}. Tasks that are executed on other threads on behalf of the request have to be
+ * {@linkplain #wrap(Runnable) wrapped} to see the deadline.
+ */
+public final class Deadline {
+    /**
+     * The name of the servlet request attribute that holds the deadline of a request.
+     */
+    public static final String REQUEST_ATTRIBUTE = Deadline.class.getName();
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+    private final long timeout;
+    private final long expiry;
+
+    private Deadline(long timeout) {
+        this.timeout = timeout;
+        this.expiry = System.nanoTime() + timeout;
+    }
+
+    /**
+     * Creates a deadline that expires after the specified duration.
+     *
+     * @param duration the duration
+     * @param unit     the unit of the duration
+     *
+     * @return the deadline
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("duration has to be positive: " + duration);
+        }
+        return new Deadline(unit.toNanos(duration));
+    }
+
+    /**
+     * @return if the deadline passed
+     */
+    public boolean isExpired() {
+        return System.nanoTime() - expiry >= 0;
+    }
+
+    /**
+     * @param unit the unit
+     *
+     * @return the remaining time, may be negative if the deadline passed
+     */
+    public long getRemaining(TimeUnit unit) {
+        return unit.convert(expiry - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Checks if the deadline passed.
+     *
+     * @throws DeadlineExceededException if the deadline passed
+     */
+    public void check() throws DeadlineExceededException {
+        if (isExpired()) {
+            throw new DeadlineExceededException(timeout, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Binds this deadline to the current thread until the returned scope is closed.
+     *
+     * @return the scope
+     */
+    public Scope bind() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the deadline bound to the current thread
+     */
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Checks the deadline bound to the current thread, if any.
+     *
+     * @throws DeadlineExceededException if the deadline passed
+     */
+    public static void checkCurrent() throws DeadlineExceededException {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+
+    /**
+     * Wraps the task so that it runs with the deadline that is bound to the current thread. Has to be used for tasks
+     * that are submitted to an executor on behalf of a request, as the deadline is not inherited by other threads.
+     *
+     * @param task the task
+     *
+     * @return the wrapped task or {@code task} if no deadline is bound to the current thread
+     */
+    public static Runnable wrap(Runnable task) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            Scope scope = deadline.bind();
+            try {
+                task.run();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+
+    /**
+     * Wraps the task so that it runs with the deadline that is bound to the current thread.
+     *
+     * @param <T>  the result type
+     * @param task the task
+     *
+     * @return the wrapped task or {@code task} if no deadline is bound to the current thread
+     *
+     * @see #wrap(Runnable)
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            Scope scope = deadline.bind();
+            try {
+                return task.call();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Deadline[remaining=%d ms]", getRemaining(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * The binding of a deadline to a thread.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        /**
+         * A scope that binds nothing.
+         */
+        Scope NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
+}
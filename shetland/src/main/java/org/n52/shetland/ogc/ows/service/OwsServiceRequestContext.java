@@ -53,6 +53,7 @@ public class OwsServiceRequestContext {
     private Optional<ProxyChain> proxyChain = Optional.empty();
     private Optional<String> contentType = Optional.empty();
     private Optional<List<MediaType>> acceptType = Optional.empty();
+    private Optional<Deadline> deadline = Optional.empty();
 
     public Optional<IPAddress> getIPAddress() {
         return address;
@@ -145,6 +146,14 @@ public class OwsServiceRequestContext {
         this.acceptType = Optional.ofNullable(list);
     }
 
+    public Optional<Deadline> getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Deadline deadline) {
+        this.deadline = Optional.ofNullable(deadline);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this).omitNullValues().add("address", getIPAddress().orElse(null))
@@ -159,6 +168,10 @@ public class OwsServiceRequestContext {
         rc.setToken(req.getHeader(HTTPHeaders.AUTHORIZATION));
         rc.setContentType(req.getHeader(HTTPHeaders.CONTENT_TYPE));
         rc.setAcceptType(HTTPHeaders.getAcceptHeader(req));
+        Object deadline = req.getAttribute(Deadline.REQUEST_ATTRIBUTE);
+        if (deadline instanceof Deadline) {
+            rc.setDeadline((Deadline) deadline);
+        }
         return rc;
 
     }
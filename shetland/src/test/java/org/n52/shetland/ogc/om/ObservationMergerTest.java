@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.om;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+import org.n52.shetland.ogc.gml.CodeWithAuthority;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.om.values.TVPValue;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.SosProcedureDescriptionUnknownType;
+
+import com.google.common.collect.Sets;
+
+public class ObservationMergerTest {
+
+    @Test
+    public void testMergeGroupsInterleavedSeries() throws OwsExceptionReport {
+        List<OmObservation> merged = ObservationStream.of(Arrays.asList(create("a", 1), create("b", 2),
+                                                                        create("a", 3), create("c", 4),
+                                                                        create("b", 5), create("a", 6)))
+                .merge().collect(ArrayList::new);
+        assertThat(merged.size(), is(3));
+        assertThat(merged.get(0).getObservationConstellation().getProcedureIdentifier(), is("a"));
+        assertThat(size(merged.get(0)), is(3));
+        assertThat(merged.get(1).getObservationConstellation().getProcedureIdentifier(), is("b"));
+        assertThat(size(merged.get(1)), is(2));
+        assertThat(merged.get(2).getObservationConstellation().getProcedureIdentifier(), is("c"));
+        assertThat(size(merged.get(2)), is(1));
+        assertThat(merged.get(0).getObservationID(), is("1"));
+        assertThat(merged.get(2).getObservationID(), is("3"));
+    }
+
+    @Test
+    public void testMergeRespectsAdditionalMergeIndicator() throws OwsExceptionReport {
+        OmObservation other = create("a", 2);
+        other.setAdditionalMergeIndicator("x");
+        List<OmObservation> merged = ObservationStream.of(Arrays.asList(create("a", 1), other, create("a", 3)))
+                .merge().collect(ArrayList::new);
+        assertThat(merged.size(), is(2));
+        assertThat(size(merged.get(0)), is(2));
+    }
+
+    @Test
+    public void testMergeOrderedEmitsConsecutiveSeries() throws OwsExceptionReport {
+        ObservationStream stream = ObservationStream.of(Arrays.asList(create("a", 1), create("a", 2),
+                                                                      create("b", 3), create("a", 4)))
+                .mergeOrdered(ObservationMergeIndicator.sameObservationConstellation());
+        assertThat(stream.hasNext(), is(true));
+        assertThat(size(stream.next()), is(2));
+        assertThat(stream.next().getObservationConstellation().getProcedureIdentifier(), is("b"));
+        OmObservation last = stream.next();
+        assertThat(last.getObservationConstellation().getProcedureIdentifier(), is("a"));
+        assertThat(size(last), is(1));
+        assertThat(stream.hasNext(), is(false));
+    }
+
+    private static int size(OmObservation observation) {
+        if (observation.getValue() instanceof SingleObservationValue) {
+            return 1;
+        }
+        return ((TVPValue) observation.getValue().getValue()).getValue().size();
+    }
+
+    private static OmObservation create(String procedure, long time) {
+        OmObservationConstellation constellation =
+                new OmObservationConstellation(new SosProcedureDescriptionUnknownType(procedure),
+                                               new OmObservableProperty("property"),
+                                               new SamplingFeature(new CodeWithAuthority("feature")),
+                                               Sets.newHashSet("offering"));
+        constellation.setObservationType(OmConstants.OBS_TYPE_MEASUREMENT);
+        OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(constellation);
+        observation.setValue(new SingleObservationValue<>(new TimeInstant(new DateTime(time, DateTimeZone.UTC)),
+                                                          new QuantityValue(1.0)));
+        return observation;
+    }
+
+}
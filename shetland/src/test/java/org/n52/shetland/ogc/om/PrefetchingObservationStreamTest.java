@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.om;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.n52.shetland.ogc.ows.exception.DeadlineExceededException;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.Deadline;
+
+public class PrefetchingObservationStreamTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void createExecutor() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testKeepsOrder() throws OwsExceptionReport {
+        OmObservation[] observations = new OmObservation[10];
+        for (int i = 0; i < observations.length; i++) {
+            observations[i] = new OmObservation();
+        }
+        TestStream delegate = new TestStream(observations, null);
+        try (ObservationStream stream = delegate.prefetch(2, executor)) {
+            for (OmObservation observation : observations) {
+                assertThat(stream.hasNext(), is(true));
+                assertThat(stream.next(), is(sameInstance(observation)));
+            }
+            assertThat(stream.hasNext(), is(false));
+        }
+        assertThat(delegate.awaitClose(), is(true));
+    }
+
+    @Test
+    public void testPropagatesExceptionInOrder() throws OwsExceptionReport {
+        OwsExceptionReport error = new NoApplicableCodeException();
+        TestStream delegate = new TestStream(new OmObservation[] { new OmObservation() }, error);
+        ObservationStream stream = delegate.prefetch(4, executor);
+        assertThat(stream.hasNext(), is(true));
+        stream.next();
+        OwsExceptionReport thrown = assertThrows(OwsExceptionReport.class, stream::hasNext);
+        assertThat(thrown, is(sameInstance(error)));
+        assertThat(stream.hasNext(), is(false));
+        assertThat(delegate.awaitClose(), is(true));
+    }
+
+    @Test
+    public void testCloseStopsProducer() throws OwsExceptionReport {
+        TestStream delegate = new TestStream(null, null);
+        ObservationStream stream = delegate.prefetch(1, executor);
+        assertThat(stream.hasNext(), is(true));
+        stream.next();
+        stream.close();
+        assertThat(delegate.awaitClose(), is(true));
+        assertThat(stream.hasNext(), is(false));
+    }
+
+    @Test
+    public void testRetrievesOnConsumingThreadIfRejected() throws OwsExceptionReport {
+        OmObservation observation = new OmObservation();
+        TestStream delegate = new TestStream(new OmObservation[] { observation }, null);
+        ObservationStream stream = delegate.prefetch(1, command -> {
+            throw new RejectedExecutionException();
+        });
+        assertThat(stream.hasNext(), is(true));
+        assertThat(stream.next(), is(sameInstance(observation)));
+        assertThat(stream.hasNext(), is(false));
+        stream.close();
+        assertThat(delegate.awaitClose(), is(true));
+    }
+
+    @Test
+    public void testWorkerRunsWithDeadline() throws OwsExceptionReport {
+        TestStream delegate = new TestStream(null, null);
+        ObservationStream stream;
+        Deadline.Scope scope = Deadline.after(1, TimeUnit.MILLISECONDS).bind();
+        try {
+            stream = delegate.map(o -> o).prefetch(1, executor);
+        } finally {
+            scope.close();
+        }
+        assertThrows(DeadlineExceededException.class, () -> {
+            while (stream.hasNext()) {
+                stream.next();
+            }
+        });
+        assertThat(delegate.awaitClose(), is(true));
+    }
+
+    /**
+     * Stream of the given observations followed by the error, or an infinite stream if {@code observations} is
+     * {@code null}.
+     */
+    private static class TestStream implements ObservationStream {
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private final AtomicInteger index = new AtomicInteger();
+        private final OmObservation[] observations;
+        private final OwsExceptionReport error;
+
+        TestStream(OmObservation[] observations, OwsExceptionReport error) {
+            this.observations = observations;
+            this.error = error;
+        }
+
+        @Override
+        public boolean hasNext() throws OwsExceptionReport {
+            if (observations == null || index.get() < observations.length) {
+                return true;
+            }
+            if (error != null) {
+                throw error;
+            }
+            return false;
+        }
+
+        @Override
+        public OmObservation next() {
+            return observations == null ? new OmObservation() : observations[index.getAndIncrement()];
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        boolean awaitClose() {
+            try {
+                return closed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.om.values;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+import org.n52.shetland.ogc.gml.time.Time.TimeFormat;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.om.MultiObservationValues;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.TimeValuePair;
+
+public class ColumnarTVPValueTest {
+
+    @Test
+    public void testSortsOutOfOrderPointsStably() {
+        ColumnarTVPValue value = new ColumnarTVPValue(1);
+        value.add(3000L, 3.0).add(1000L, 1.0).addNil(2000L).add(1000L, 1.5);
+        assertThat(value.size(), is(4));
+        assertThat(value.getTime(0), is(1000L));
+        assertThat(value.getValue(0), is(1.0));
+        assertThat(value.getTime(1), is(1000L));
+        assertThat(value.getValue(1), is(1.5));
+        assertThat(value.getTime(2), is(2000L));
+        assertThat(value.isNil(2), is(true));
+        assertThat(value.getTime(3), is(3000L));
+        assertThat(value.isNil(3), is(false));
+    }
+
+    @Test
+    public void testMaterializesTimeValuePairs() {
+        ColumnarTVPValue value = new ColumnarTVPValue();
+        value.setUnit("m");
+        value.add(2000L, 2.0).addNil(1000L);
+        List<TimeValuePair> pairs = value.getValue();
+        assertThat(pairs.size(), is(2));
+        assertThat(((TimeInstant) pairs.get(0).getTime()).getValue(), is(new DateTime(1000L, DateTimeZone.UTC)));
+        assertThat(pairs.get(0).getValue().isSetValue(), is(false));
+        assertThat(pairs.get(1).getValue().getValue(), is(BigDecimal.valueOf(2.0)));
+        assertThat(pairs.get(1).getValue().getUnit(), is("m"));
+        assertThat(value.getPhenomenonTime(),
+                   is(new TimePeriod(new DateTime(1000L, DateTimeZone.UTC), new DateTime(2000L, DateTimeZone.UTC))));
+    }
+
+    @Test
+    public void testRejectsUnsupportedPairs() {
+        ColumnarTVPValue value = new ColumnarTVPValue();
+        TimeValuePair text = new TimeValuePair(new TimeInstant(new DateTime(0L)), new TextValue("a"));
+        assertThat(ColumnarTVPValue.isSupported(text), is(false));
+        assertThrows(IllegalArgumentException.class, () -> value.addValue(text));
+    }
+
+    @Test
+    public void testMergeKeepsColumnarValue() {
+        ColumnarTVPValue columnar = new ColumnarTVPValue();
+        columnar.add(1000L, 1.0);
+        OmObservation observation = createObservation(columnar);
+
+        ColumnarTVPValue other = new ColumnarTVPValue();
+        other.add(500L, 0.5);
+        observation.mergeWithObservation(createMultiValue(other));
+        observation.mergeWithObservation(new SingleObservationValue<>(
+                new TimeInstant(new DateTime(2000L, DateTimeZone.UTC)), new QuantityValue(2.0)));
+
+        assertThat(observation.getValue().getValue() == columnar, is(true));
+        assertThat(columnar.size(), is(3));
+        assertThat(columnar.getTime(0), is(500L));
+        assertThat(columnar.getValue(2), is(2.0));
+    }
+
+    @Test
+    public void testMergeFallsBackToPlainValue() {
+        ColumnarTVPValue columnar = new ColumnarTVPValue();
+        columnar.add(1000L, 1.0);
+        OmObservation observation = createObservation(columnar);
+
+        observation.mergeWithObservation(new SingleObservationValue<>(
+                new TimeInstant(new DateTime(2000L, DateTimeZone.UTC)), new TextValue("a")));
+
+        TVPValue merged = (TVPValue) observation.getValue().getValue();
+        assertThat(merged instanceof ColumnarTVPValue, is(false));
+        assertThat(merged.getValue().size(), is(2));
+    }
+
+    @Test
+    public void testKeepsTimeZoneAndFormat() {
+        DateTimeZone zone = DateTimeZone.forOffsetHours(2);
+        ColumnarTVPValue value = new ColumnarTVPValue();
+        TimeInstant time = new TimeInstant(new DateTime(1000L, zone));
+        time.setTimeFormat(TimeFormat.YMD);
+        value.addValue(new TimeValuePair(time, new QuantityValue(1.0)));
+        assertThat(value.getZone(), is(zone));
+        assertThat(value.getTimeFormat(), is(TimeFormat.YMD));
+        TimeInstant materialized = (TimeInstant) value.getValue().get(0).getTime();
+        assertThat(materialized.getValue().getZone(), is(zone));
+        assertThat(materialized.getTimeFormat(), is(TimeFormat.YMD));
+
+        TimeValuePair utc = new TimeValuePair(new TimeInstant(new DateTime(2000L, DateTimeZone.UTC)),
+                                              new QuantityValue(2.0));
+        assertThat(value.accepts(utc), is(false));
+        assertThrows(IllegalArgumentException.class, () -> value.addValue(utc));
+    }
+
+    @Test
+    public void testRejectsLossyQuantities() {
+        TimeInstant time = new TimeInstant(new DateTime(0L, DateTimeZone.UTC));
+        assertThat(ColumnarTVPValue.isSupported(new TimeValuePair(time, new QuantityValue(0.1))), is(true));
+        assertThat(ColumnarTVPValue.isSupported(
+                new TimeValuePair(time, new QuantityValue(new BigDecimal("0.10000000000000000001")))), is(false));
+    }
+
+    @Test
+    public void testMergeWithOtherZoneFallsBackToPlainValue() {
+        ColumnarTVPValue columnar = new ColumnarTVPValue();
+        columnar.add(1000L, 1.0);
+        OmObservation observation = createObservation(columnar);
+
+        observation.mergeWithObservation(new SingleObservationValue<>(
+                new TimeInstant(new DateTime(2000L, DateTimeZone.forOffsetHours(1))), new QuantityValue(2.0)));
+
+        TVPValue merged = (TVPValue) observation.getValue().getValue();
+        assertThat(merged instanceof ColumnarTVPValue, is(false));
+        assertThat(merged.getValue().size(), is(2));
+    }
+
+    @Test
+    public void testModificationsOfPlainValueAreSortedAgain() {
+        TVPValue value = new TVPValue();
+        value.addValue(pair(1000L));
+        value.addValue(pair(2000L));
+        List<TimeValuePair> pairs = value.getValue();
+        pairs.set(0, pair(3000L));
+        pairs.add(pair(500L));
+        assertThat(getTimes(value.getValue()), is(Arrays.asList(500L, 2000L, 3000L)));
+    }
+
+    private static TimeValuePair pair(long time) {
+        return new TimeValuePair(new TimeInstant(new DateTime(time, DateTimeZone.UTC)), new QuantityValue(1.0));
+    }
+
+    private static List<Long> getTimes(List<TimeValuePair> pairs) {
+        return pairs.stream()
+                .map(p -> ((TimeInstant) p.getTime()).getValue().getMillis())
+                .collect(Collectors.toList());
+    }
+
+    private static OmObservation createObservation(TVPValue value) {
+        OmObservation observation = new OmObservation();
+        observation.setValue(createMultiValue(value));
+        return observation;
+    }
+
+    private static MultiObservationValues<List<TimeValuePair>> createMultiValue(TVPValue value) {
+        MultiObservationValues<List<TimeValuePair>> multiValue = new MultiObservationValues<>();
+        multiValue.setValue(value);
+        return multiValue;
+    }
+
+}
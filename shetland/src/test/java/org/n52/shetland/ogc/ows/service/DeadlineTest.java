@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.shetland.ogc.ows.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import org.n52.janmayen.http.HTTPStatus;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.ows.exception.DeadlineExceededException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+public class DeadlineTest {
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        Deadline deadline = Deadline.after(1, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        assertThat(deadline.isExpired(), is(true));
+        DeadlineExceededException thrown = assertThrows(DeadlineExceededException.class, deadline::check);
+        assertThat(thrown.getStatus(), is(HTTPStatus.GATEWAY_TIME_OUT));
+
+        Deadline pending = Deadline.after(1, TimeUnit.HOURS);
+        assertThat(pending.isExpired(), is(false));
+        assertThat(pending.getRemaining(TimeUnit.MINUTES) > 0, is(true));
+    }
+
+    @Test
+    public void testBindingIsScoped() {
+        Deadline outer = Deadline.after(1, TimeUnit.HOURS);
+        Deadline inner = Deadline.after(1, TimeUnit.HOURS);
+        assertThat(Deadline.current(), is(Optional.empty()));
+        Deadline.Scope outerScope = outer.bind();
+        try {
+            Deadline.Scope innerScope = inner.bind();
+            try {
+                assertThat(Deadline.current(), is(Optional.of(inner)));
+            } finally {
+                innerScope.close();
+            }
+            assertThat(Deadline.current(), is(Optional.of(outer)));
+        } finally {
+            outerScope.close();
+        }
+        assertThat(Deadline.current(), is(Optional.empty()));
+    }
+
+    @Test
+    public void testWrapPropagatesDeadline() throws Exception {
+        Deadline deadline = Deadline.after(1, TimeUnit.HOURS);
+        AtomicReference<Optional<Deadline>> seen = new AtomicReference<>();
+        Runnable task;
+        Deadline.Scope scope = deadline.bind();
+        try {
+            task = Deadline.wrap(() -> seen.set(Deadline.current()));
+        } finally {
+            scope.close();
+        }
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+        assertThat(seen.get(), is(Optional.of(deadline)));
+
+        Callable<Optional<Deadline>> unbound = Deadline.wrap(Deadline::current);
+        assertThat(unbound.call(), is(Optional.empty()));
+    }
+
+    @Test
+    public void testObservationStreamStopsAfterDeadline() throws Exception {
+        ObservationStream stream = ObservationStream.of(Arrays.asList(new OmObservation(), new OmObservation()))
+                .map(o -> o);
+        Deadline deadline = Deadline.after(1, TimeUnit.MILLISECONDS);
+        Deadline.Scope scope = deadline.bind();
+        try {
+            Thread.sleep(5);
+            assertThrows(DeadlineExceededException.class, stream::hasNext);
+        } finally {
+            scope.close();
+        }
+    }
+
+    @Test
+    public void testObservationStreamWithoutDeadline() throws OwsExceptionReport {
+        ObservationStream stream = ObservationStream.of(Arrays.asList(new OmObservation(), new OmObservation()))
+                .map(o -> o);
+        assertThat(stream.collect(ArrayList::new).size(), is(2));
+    }
+
+    @Test
+    public void testRequestContext() {
+        Deadline deadline = Deadline.after(1, TimeUnit.HOURS);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("127.0.0.1");
+        request.setAttribute(Deadline.REQUEST_ATTRIBUTE, deadline);
+        assertThat(OwsServiceRequestContext.fromRequest(request).getDeadline(), is(Optional.of(deadline)));
+    }
+}
@@ -31,4 +31,8 @@ public interface CodingSettings {
     String SRS_NAME_PREFIX_URL = "coding.srsNamePrefixURL";
 
     String VALIDATE_RESPONSE = "service.response.validate";
+
+    String OBSERVATION_PREFETCH_DEPTH = "coding.observationPrefetchDepth";
+
+    String OBSERVATION_PREFETCH_THREADS = "coding.observationPrefetchThreads";
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.svalbard.decode;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.n52.svalbard.decode.exception.DecodingException;
+
+/**
+ * Generic interface for decoders that are able to read their source directly from an {@link InputStream} instead of
+ * a fully materialized representation of it.
+ *
+ * @param <T> the result of the decoding process, the "Target"
+ * @param <S> the input which is decoded, the "Source"
+ *
+ * @since 7.0.0
+ */
+public interface StreamingDecoder<T, S> extends Decoder<T, S> {
+
+    /**
+     * Decode the content of the supplied stream. The stream is not closed by the decoder.
+     *
+     * @param inputStream
+     *            the stream to decode
+     * @param characterEncoding
+     *            the character encoding of the stream
+     *
+     * @return the decoded object
+     *
+     * @throws DecodingException
+     *             if an error occurs
+     */
+    T decode(InputStream inputStream, Charset characterEncoding) throws DecodingException;
+
+}
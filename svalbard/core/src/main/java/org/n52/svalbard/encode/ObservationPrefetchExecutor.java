@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.svalbard.encode;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.n52.faroe.Validation;
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.n52.janmayen.lifecycle.Constructable;
+import org.n52.janmayen.lifecycle.Destroyable;
+import org.n52.shetland.ogc.om.PrefetchingObservationStream;
+import org.n52.svalbard.CodingSettings;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Bounded {@link Executor} for the workers of {@link PrefetchingObservationStream}s. It runs at most the configured
+ * number of workers at a time and does not queue further tasks: if all threads are busy the task is rejected, and the
+ * stream retrieves its observations on the consuming thread instead. The threads are stopped when the executor is
+ * destroyed.
+ */
+@Configurable
+public class ObservationPrefetchExecutor implements Executor, Constructable, Destroyable {
+    private static final int DEFAULT_THREADS = 16;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private int threads = DEFAULT_THREADS;
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Set the maximum number of worker threads. Defaults to 16.
+     *
+     * @param threads the number of threads
+     */
+    @Setting(value = CodingSettings.OBSERVATION_PREFETCH_THREADS, required = false)
+    public void setThreads(int threads) {
+        this.threads = Validation.greaterZero("Observation prefetch threads", threads);
+        if (executor != null) {
+            executor.setMaximumPoolSize(this.threads);
+        }
+    }
+
+    @Override
+    public void init() {
+        this.executor = new ThreadPoolExecutor(0, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                                               new SynchronousQueue<>(),
+                                               new ThreadFactoryBuilder().setDaemon(true)
+                                                       .setNameFormat("observation-prefetch-%d").build());
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (executor == null) {
+            throw new RejectedExecutionException("executor is not initialized");
+        }
+        executor.execute(command);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.svalbard.encode;
+
+import java.io.OutputStream;
+import java.util.Objects;
+
+import org.apache.xmlbeans.XmlObject;
+import org.n52.shetland.exi.EXIObject;
+import org.n52.svalbard.encode.exception.EncodingException;
+import org.n52.svalbard.encode.exception.UnsupportedEncoderInputException;
+import org.xml.sax.ContentHandler;
+
+/**
+ * {@link EXIObject} whose XML document is not yet encoded. The document can either be encoded as an
+ * {@link XmlObject} using {@link #encode()} or written as SAX events using
+ * {@link #write(ContentHandler, OutputStream)}, so that large responses do not have to be held in memory.
+ *
+ * @param <T> the type of the object to encode
+ */
+public class StreamingEXIObject<T> extends EXIObject<XmlObject> {
+
+    private final StreamingEncoder<?, ? super T> encoder;
+    private final T object;
+    private final EncodingContext context;
+    private XmlObject doc;
+
+    public StreamingEXIObject(StreamingEncoder<?, ? super T> encoder, T object, EncodingContext context) {
+        super(null);
+        this.encoder = Objects.requireNonNull(encoder);
+        this.object = object;
+        this.context = Objects.requireNonNull(context);
+    }
+
+    /**
+     * @return the document or {@code null} if {@link #encode()} was not yet called
+     */
+    @Override
+    public XmlObject getDoc() {
+        return doc;
+    }
+
+    /**
+     * Encodes the object as a {@link XmlObject}.
+     *
+     * @return the document
+     *
+     * @throws EncodingException if the encoding fails
+     */
+    public XmlObject encode() throws EncodingException {
+        if (doc == null) {
+            Object encoded = encoder.encode(object, context);
+            if (!(encoded instanceof XmlObject)) {
+                throw new UnsupportedEncoderInputException(encoder, object);
+            }
+            doc = (XmlObject) encoded;
+        }
+        return doc;
+    }
+
+    /**
+     * Writes the object as SAX events to the handler. Encoders that are not based on the XML stream writers do not
+     * support this and write the document as XML to {@code outputStream} instead.
+     *
+     * @param handler      the handler
+     * @param outputStream the stream for encoders that can not report SAX events
+     *
+     * @throws EncodingException if the encoding fails
+     */
+    public void write(ContentHandler handler, OutputStream outputStream) throws EncodingException {
+        encoder.encode(object, outputStream, context.with(XmlStreamEncoderFlags.CONTENT_HANDLER, handler));
+    }
+
+}
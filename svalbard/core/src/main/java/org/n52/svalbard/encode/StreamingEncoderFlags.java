@@ -23,5 +23,7 @@ package org.n52.svalbard.encode;
  */
 public enum StreamingEncoderFlags {
     EMBEDDED,
-    ENCODER
+    ENCODER,
+    OBSERVATION_PREFETCH_DEPTH,
+    OBSERVATION_PREFETCH_EXECUTOR
 }
@@ -23,5 +23,10 @@ package org.n52.svalbard.encode;
  * @since 1.0.0
  */
 public enum XmlStreamEncoderFlags {
-    XML_WRITER
+    XML_WRITER,
+    /**
+     * A {@link org.xml.sax.ContentHandler} that the XML stream writers report the document to instead of serializing
+     * it to the output stream.
+     */
+    CONTENT_HANDLER
 }
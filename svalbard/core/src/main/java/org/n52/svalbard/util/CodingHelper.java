@@ -18,6 +18,11 @@ package org.n52.svalbard.util;
 
 import static java.util.stream.Collectors.toSet;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -32,6 +37,7 @@ import org.n52.svalbard.decode.DecoderKey;
 import org.n52.svalbard.decode.OperationDecoderKey;
 import org.n52.svalbard.decode.XmlNamespaceDecoderKey;
 import org.n52.svalbard.decode.XmlStringOperationDecoderKey;
+import org.n52.svalbard.decode.exception.DecodingException;
 import org.n52.svalbard.decode.exception.XmlDecodingException;
 import org.n52.svalbard.encode.EncoderKey;
 import org.n52.svalbard.encode.OperationRequestEncoderKey;
@@ -150,4 +156,16 @@ public final class CodingHelper {
         }
     }
 
+    public static XmlObject readXML(InputStream stream, Charset characterEncoding) throws DecodingException {
+        // the reader is not closed, the stream is owned by the caller
+        Reader reader = new InputStreamReader(stream, characterEncoding);
+        try {
+            return XmlObject.Factory.parse(reader);
+        } catch (XmlException e) {
+            throw new XmlDecodingException("XML stream", e);
+        } catch (IOException e) {
+            throw new DecodingException("Error while reading XML stream", e);
+        }
+    }
+
 }
@@ -43,15 +43,25 @@ public abstract class ExiEncoder<T>
     }
 
     @Override
-    public EXIObject<XmlObject> encode(T response, EncodingContext additionalValues)
+    public EXIObject<XmlObject> encode(T response)
             throws EncodingException {
-        return encode(response);
+        return encode(response, EncodingContext.empty());
     }
 
+    /**
+     * Encodes the response. If the delegate encoder supports streaming, the encoding is deferred to the response
+     * writer, which may then stream the XML into the EXI encoder.
+     *
+     * @see StreamingEXIObject
+     */
     @Override
-    public EXIObject<XmlObject> encode(T response)
+    @SuppressWarnings("unchecked")
+    public EXIObject<XmlObject> encode(T response, EncodingContext additionalValues)
             throws EncodingException {
         Encoder<Object, T> encoder = getEncoder(response);
+        if (encoder instanceof StreamingEncoder) {
+            return new StreamingEXIObject<>((StreamingEncoder<Object, T>) encoder, response, additionalValues);
+        }
         Object encode = encoder.encode(response);
         if (encode != null && encode instanceof XmlObject) {
             return new EXIObject<XmlObject>((XmlObject) encode);
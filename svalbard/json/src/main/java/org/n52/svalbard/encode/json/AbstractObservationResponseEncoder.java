@@ -16,10 +16,13 @@
  */
 package org.n52.svalbard.encode.json;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
+import org.n52.janmayen.Json;
 import org.n52.janmayen.http.MediaTypes;
 import org.n52.shetland.ogc.SupportedType;
 import org.n52.shetland.ogc.om.ObservationStream;
@@ -29,8 +32,11 @@ import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.response.AbstractObservationResponse;
 import org.n52.svalbard.coding.json.JSONConstants;
+import org.n52.svalbard.encode.EncodingContext;
+import org.n52.svalbard.encode.StreamingEncoder;
 import org.n52.svalbard.encode.exception.EncodingException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -46,7 +52,7 @@ import com.google.common.collect.Sets;
  */
 public abstract class AbstractObservationResponseEncoder<T extends AbstractObservationResponse>
         extends AbstractSosResponseEncoder<T>
-        implements org.n52.svalbard.encode.ObservationEncoder<JsonNode, T> {
+        implements org.n52.svalbard.encode.ObservationEncoder<JsonNode, T>, StreamingEncoder<JsonNode, T> {
     public AbstractObservationResponseEncoder(Class<T> type, String operation) {
         super(type, operation);
     }
@@ -78,6 +84,38 @@ public abstract class AbstractObservationResponseEncoder<T extends AbstractObser
         }
     }
 
+    /**
+     * Writes the response directly to the stream. In contrast to {@link #encode(Object)} the observations are
+     * retrieved while writing and only a single observation is held in memory.
+     */
+    @Override
+    public void encode(T response, OutputStream outputStream, EncodingContext ctx) throws EncodingException {
+        try (JsonGenerator generator = Json.createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeStringField(JSONConstants.REQUEST, response.getOperationName());
+            generator.writeStringField(JSONConstants.VERSION, response.getVersion());
+            generator.writeStringField(JSONConstants.SERVICE, response.getService());
+            generator.writeArrayFieldStart(JSONConstants.OBSERVATIONS);
+            writeObservationStream(response.getObservationCollection(), generator);
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException | OwsExceptionReport ex) {
+            throw new EncodingException(ex);
+        }
+    }
+
+    private void writeObservationStream(ObservationStream observationCollection, JsonGenerator generator)
+            throws EncodingException, OwsExceptionReport, IOException {
+        while (observationCollection.hasNext()) {
+            OmObservation observation = observationCollection.next();
+            if (observation.getValue() instanceof ObservationStream) {
+                writeObservationStream((ObservationStream) observation.getValue(), generator);
+            } else {
+                generator.writeTree(encodeObjectToJson(observation));
+            }
+        }
+    }
+
     @Override
     public boolean isObservationAndMeasurmentV20Type() {
         return false;
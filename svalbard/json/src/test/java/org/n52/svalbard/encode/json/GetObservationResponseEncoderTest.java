@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.svalbard.encode.json;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.n52.janmayen.Json;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.SosConstants;
+import org.n52.shetland.ogc.sos.response.GetObservationResponse;
+import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class GetObservationResponseEncoderTest {
+    private GetObservationResponseEncoder encoder;
+
+    @BeforeEach
+    public void setUp() {
+        EncoderRepository encoderRepository = new EncoderRepository();
+        encoder = new GetObservationResponseEncoder();
+        encoder.setEncoderRepository(encoderRepository);
+        JSONEncoder<OmObservation> observationEncoder = new JSONEncoder<OmObservation>(OmObservation.class) {
+            @Override
+            public JsonNode encodeJSON(OmObservation o) {
+                return nodeFactory().objectNode().put("id", o.getObservationID());
+            }
+        };
+        observationEncoder.setEncoderRepository(encoderRepository);
+        encoderRepository.setEncoders(Arrays.asList(encoder, observationEncoder));
+        encoderRepository.init();
+    }
+
+    @Test
+    public void testStreamingEqualsTree() throws EncodingException {
+        JsonNode tree = encoder.encode(createResponse());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(createResponse(), out);
+        JsonNode streamed = Json.loadString(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertThat(streamed, is(tree));
+        assertThat(streamed.path("observations").size(), is(3));
+        assertThat(streamed.path("observations").path(1).path("id").asText(), is("2"));
+    }
+
+    @Test
+    public void testStreamingEmptyResponse() throws EncodingException {
+        GetObservationResponse response = new GetObservationResponse(SosConstants.SOS, Sos2Constants.SERVICEVERSION);
+        response.setObservationCollection(ObservationStream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(response, out);
+        JsonNode streamed = Json.loadString(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertThat(streamed.path("observations").size(), is(0));
+        assertThat(streamed.path("request").asText(), is(SosConstants.Operations.GetObservation.name()));
+    }
+
+    private static GetObservationResponse createResponse() {
+        GetObservationResponse response = new GetObservationResponse(SosConstants.SOS, Sos2Constants.SERVICEVERSION);
+        response.setObservationCollection(ObservationStream.of(Arrays.asList(createObservation("1"),
+                                                                             createObservation("2"),
+                                                                             createObservation("3"))));
+        return response;
+    }
+
+    private static OmObservation createObservation(String id) {
+        OmObservation observation = new OmObservation();
+        observation.setObservationID(id);
+        return observation;
+    }
+
+}
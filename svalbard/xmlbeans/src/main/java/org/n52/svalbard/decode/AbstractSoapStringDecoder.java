@@ -16,13 +16,15 @@
  */
 package org.n52.svalbard.decode;
 
-
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Set;
 
 import org.n52.shetland.w3c.soap.SoapConstants;
 import org.n52.shetland.w3c.soap.SoapRequest;
 import org.n52.svalbard.decode.exception.DecodingException;
+import org.n52.svalbard.util.CodingHelper;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +38,8 @@ import com.google.common.base.Joiner;
  * @since 1.0.0
  *
  */
-public abstract class AbstractSoapStringDecoder extends AbstractXmlDecoder<String, SoapRequest> {
+public abstract class AbstractSoapStringDecoder extends AbstractXmlDecoder<String, SoapRequest>
+        implements StreamingDecoder<SoapRequest, String> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractSoapStringDecoder.class);
 
@@ -57,4 +60,9 @@ public abstract class AbstractSoapStringDecoder extends AbstractXmlDecoder<Strin
     public SoapRequest decode(String xmlString) throws DecodingException {
         return (SoapRequest) decodeXmlObject(xmlString);
     }
+
+    @Override
+    public SoapRequest decode(InputStream inputStream, Charset characterEncoding) throws DecodingException {
+        return decodeXmlObject(CodingHelper.readXML(inputStream, characterEncoding));
+    }
 }
@@ -16,6 +16,9 @@
  */
 package org.n52.svalbard.decode;
 
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
 import javax.inject.Inject;
 
 import org.apache.xmlbeans.XmlObject;
@@ -25,7 +28,7 @@ import org.n52.svalbard.decode.exception.DecodingException;
 import org.n52.svalbard.decode.exception.NoDecoderForKeyException;
 import org.n52.svalbard.util.CodingHelper;
 
-public abstract class AbstractStringRequestDecoder implements Decoder<OwsServiceCommunicationObject, String> {
+public abstract class AbstractStringRequestDecoder implements StreamingDecoder<OwsServiceCommunicationObject, String> {
 
     private DecoderRepository decoderRepository;
 
@@ -36,7 +39,16 @@ public abstract class AbstractStringRequestDecoder implements Decoder<OwsService
 
     @Override
     public OwsServiceCommunicationObject decode(String string) throws DecodingException {
-        XmlObject xml = CodingHelper.readXML(string);
+        return decode(CodingHelper.readXML(string));
+    }
+
+    @Override
+    public OwsServiceCommunicationObject decode(InputStream inputStream, Charset characterEncoding)
+            throws DecodingException {
+        return decode(CodingHelper.readXML(inputStream, characterEncoding));
+    }
+
+    private OwsServiceCommunicationObject decode(XmlObject xml) throws DecodingException {
         DecoderKey key = CodingHelper.getDecoderKey(xml);
         Decoder<OwsServiceCommunicationObject, XmlObject> decoder = decoderRepository.getDecoder(key);
         if (decoder == null) {
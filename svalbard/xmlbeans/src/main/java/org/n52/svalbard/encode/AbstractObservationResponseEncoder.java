@@ -17,11 +17,18 @@
 package org.n52.svalbard.encode;
 
 import java.io.OutputStream;
+import java.util.Optional;
+
+import javax.inject.Inject;
 
 import org.apache.xmlbeans.XmlObject;
 
+import org.n52.faroe.Validation;
+import org.n52.faroe.annotation.Setting;
+import org.n52.shetland.ogc.om.ObservationStream;
 import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.sos.response.AbstractObservationResponse;
+import org.n52.svalbard.CodingSettings;
 import org.n52.svalbard.encode.exception.EncodingException;
 
 /**
@@ -34,11 +41,57 @@ import org.n52.svalbard.encode.exception.EncodingException;
  */
 public abstract class AbstractObservationResponseEncoder<T extends AbstractObservationResponse>
         extends AbstractSosResponseEncoder<T> {
+    private int observationPrefetchDepth;
+    private ObservationPrefetchExecutor observationPrefetchExecutor;
 
     public AbstractObservationResponseEncoder(String operation, Class<T> responseType) {
         super(operation, responseType);
     }
 
+    /**
+     * Set the number of observations that are retrieved ahead while encoding. A value of {@code 0} disables the
+     * prefetching.
+     *
+     * @param observationPrefetchDepth the number of observations
+     */
+    @Setting(value = CodingSettings.OBSERVATION_PREFETCH_DEPTH, required = false)
+    public void setObservationPrefetchDepth(int observationPrefetchDepth) {
+        this.observationPrefetchDepth = Validation.greaterEqualZero("Observation prefetch depth",
+                                                                    observationPrefetchDepth);
+    }
+
+    public int getObservationPrefetchDepth() {
+        return observationPrefetchDepth;
+    }
+
+    /**
+     * Set the executor that runs the prefetching workers. Prefetching is disabled if there is none.
+     *
+     * @param observationPrefetchExecutor the executor
+     */
+    @Inject
+    public void setObservationPrefetchExecutor(Optional<ObservationPrefetchExecutor> observationPrefetchExecutor) {
+        this.observationPrefetchExecutor = observationPrefetchExecutor.orElse(null);
+    }
+
+    public Optional<ObservationPrefetchExecutor> getObservationPrefetchExecutor() {
+        return Optional.ofNullable(observationPrefetchExecutor);
+    }
+
+    /**
+     * Wraps the stream in a prefetching stream if prefetching is enabled.
+     *
+     * @param stream the stream
+     *
+     * @return the (possibly) prefetching stream
+     */
+    protected ObservationStream prefetch(ObservationStream stream) {
+        if (observationPrefetchDepth > 0 && observationPrefetchExecutor != null) {
+            return stream.prefetch(observationPrefetchDepth, observationPrefetchExecutor);
+        }
+        return stream;
+    }
+
     /**
      * Finds a O&Mv2 compatible {@link ObservationEncoder}
      *
@@ -67,11 +67,12 @@ public class GetObservationResponseEncoder extends AbstractObservationResponseEn
             if (response.hasExtensions()) {
                 createExtension(xbResponse, response.getExtensions());
             }
-            ObservationStream observationCollection = response.getObservationCollection();
-            while (observationCollection.hasNext()) {
-                xbResponse.addNewObservationData()
-                        .addNewOMObservation()
-                        .set(encoder.encode(observationCollection.next()));
+            try (ObservationStream observationCollection = prefetch(response.getObservationCollection())) {
+                while (observationCollection.hasNext()) {
+                    xbResponse.addNewObservationData()
+                            .addNewOMObservation()
+                            .set(encoder.encode(observationCollection.next()));
+                }
             }
             // in a single observation the gml:ids must be unique
             XmlHelper.makeGmlIdsUnique(doc.getDomNode());
@@ -88,7 +89,10 @@ public class GetObservationResponseEncoder extends AbstractObservationResponseEn
         try {
             EncodingContext context = ctx.with(EncoderFlags.ENCODER_REPOSITORY, getEncoderRepository())
                     .with(XmlEncoderFlags.XML_OPTIONS, (Supplier<XmlOptions>) this::getXmlOptions)
-                    .with(StreamingEncoderFlags.ENCODER, this);
+                    .with(StreamingEncoderFlags.ENCODER, this)
+                    .with(StreamingEncoderFlags.OBSERVATION_PREFETCH_DEPTH, getObservationPrefetchDepth())
+                    .with(StreamingEncoderFlags.OBSERVATION_PREFETCH_EXECUTOR,
+                          getObservationPrefetchExecutor().orElse(null));
             new GetObservationResponseXmlStreamWriter(context, outputStream, response).write();
         } catch (XMLStreamException xmlse) {
             throw new EncodingException(xmlse);
@@ -42,6 +42,7 @@ import org.n52.shetland.ogc.om.AbstractObservationValue;
 import org.n52.shetland.ogc.om.NamedValue;
 import org.n52.shetland.ogc.om.OmConstants;
 import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.values.ColumnarTVPValue;
 import org.n52.shetland.ogc.sos.gda.GetDataAvailabilityConstants;
 import org.n52.shetland.util.DateTimeFormatException;
 import org.n52.shetland.util.DateTimeHelper;
@@ -449,6 +450,40 @@ public abstract class AbstractOmV20XmlStreamWriter
         return DateTimeHelper.formatDateTime2String(dateTime, time.getTimeFormat());
     }
 
+    /**
+     * Write the points of a columnar value without creating intermediate time value pairs. Times and values are
+     * formatted like those of time value pairs by {@link #getTimeString(Time)} and {@link #formatQuantity(double)}.
+     *
+     * @param value  the columnar value
+     * @param writer the writer of a single point
+     *
+     * @throws XMLStreamException If an error occurs when writing to stream
+     * @throws EncodingException  If a time can not be formatted
+     */
+    protected void writePoints(ColumnarTVPValue value, PointWriter writer)
+            throws XMLStreamException, EncodingException {
+        try {
+            for (int i = 0; i < value.size(); i++) {
+                DateTime time = new DateTime(value.getTime(i), value.getZone());
+                writer.write(DateTimeHelper.formatDateTime2String(time, value.getTimeFormat()),
+                             value.isNil(i) ? null : formatQuantity(value.getValue(i)));
+            }
+        } catch (DateTimeFormatException e) {
+            throw new EncodingException(e);
+        }
+    }
+
+    /**
+     * Formats the value of a quantity.
+     *
+     * @param value the value
+     *
+     * @return the formatted value
+     */
+    protected static String formatQuantity(double value) {
+        return Double.toString(value);
+    }
+
     protected QName getDocumentName() {
         return OmConstants.QN_OM_20_OBSERVATION;
     }
@@ -554,4 +589,18 @@ public abstract class AbstractOmV20XmlStreamWriter
         }
         return new DateTime().minusYears(1000);
     }
+
+    /**
+     * Writer of a single point of a time series.
+     */
+    @FunctionalInterface
+    protected interface PointWriter {
+        /**
+         * @param time  the formatted time
+         * @param value the formatted value or {@code null}
+         *
+         * @throws XMLStreamException If an error occurs when writing to stream
+         */
+        void write(String time, String value) throws XMLStreamException;
+    }
 }
@@ -41,6 +41,7 @@ import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.om.features.FeatureCollection;
 import org.n52.shetland.ogc.om.features.SfConstants;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.Deadline;
 import org.n52.shetland.ogc.swe.SweConstants;
 import org.n52.shetland.w3c.SchemaLocation;
 import org.n52.shetland.w3c.W3CConstants;
@@ -104,6 +105,7 @@ public class AqdGetObservationResponseXmlStreamWriter extends XmlStreamWriter<Fe
                         LOGGER.debug("Observation processing requires {} ms", System.currentTimeMillis() - start);
                         int count = 0;
                         while (mergeObservation.hasNext()) {
+                            Deadline.checkCurrent();
                             OmObservation omObservation = mergeObservation.next();
                             if (abstractFeature.isSetGmlID()) {
                                 if (count == 0) {
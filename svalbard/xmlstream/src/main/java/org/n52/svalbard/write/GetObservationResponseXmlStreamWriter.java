@@ -22,6 +22,7 @@ import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 import javax.xml.stream.XMLStreamException;
@@ -31,6 +32,7 @@ import org.apache.xmlbeans.XmlObject;
 import org.n52.shetland.ogc.om.ObservationStream;
 import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.Deadline;
 import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.Sos2StreamingConstants;
 import org.n52.shetland.ogc.sos.SosConstants;
@@ -95,12 +97,18 @@ public class GetObservationResponseXmlStreamWriter extends AbstractSwesXmlStream
         if (response.hasExtensions()) {
             writeExtensions(response.getExtensions());
         }
+        ObservationStream stream = response.getObservationCollection();
+        int prefetchDepth = getContext().get(StreamingEncoderFlags.OBSERVATION_PREFETCH_DEPTH, 0);
+        Optional<Executor> prefetchExecutor = getContext().get(StreamingEncoderFlags.OBSERVATION_PREFETCH_EXECUTOR);
+        if (prefetchDepth > 0 && prefetchExecutor.isPresent()) {
+            stream = stream.prefetch(prefetchDepth, prefetchExecutor.get());
+        }
         try {
-            ObservationStream stream = response.getObservationCollection();
             if (encoder.shouldObservationsWithSameXBeMerged()) {
                 stream = stream.merge();
             }
             while (stream.hasNext()) {
+                Deadline.checkCurrent();
                 OmObservation o = stream.next();
                 if (o.getValue() instanceof ObservationStream) {
                     ObservationStream value = (ObservationStream) o.getValue();
@@ -108,6 +116,7 @@ public class GetObservationResponseXmlStreamWriter extends AbstractSwesXmlStream
                         writeObservationData(ctx, o, encoder);
                     } else {
                         while (value.hasNext()) {
+                            Deadline.checkCurrent();
                             writeObservationData(ctx, value.next(), encoder);
                         }
                     }
@@ -117,6 +126,8 @@ public class GetObservationResponseXmlStreamWriter extends AbstractSwesXmlStream
             }
         } catch (OwsExceptionReport owse) {
             throw new EncodingException(owse);
+        } finally {
+            stream.close();
         }
         end(Sos2StreamingConstants.GET_OBSERVATION_RESPONSE);
     }
@@ -38,6 +38,7 @@ import org.n52.shetland.ogc.om.TimeValuePair;
 import org.n52.shetland.ogc.om.series.MeasurementTimeseriesMetadata;
 import org.n52.shetland.ogc.om.series.wml.WaterMLConstants;
 import org.n52.shetland.ogc.om.series.wml.WaterMLConstants.InterpolationType;
+import org.n52.shetland.ogc.om.values.ColumnarTVPValue;
 import org.n52.shetland.ogc.om.values.CountValue;
 import org.n52.shetland.ogc.om.values.ProfileValue;
 import org.n52.shetland.ogc.om.values.QuantityValue;
@@ -45,6 +46,7 @@ import org.n52.shetland.ogc.om.values.TVPValue;
 import org.n52.shetland.ogc.om.values.TextValue;
 import org.n52.shetland.ogc.om.values.Value;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.Deadline;
 import org.n52.shetland.util.DateTimeFormatException;
 import org.n52.shetland.w3c.W3CConstants;
 import org.n52.svalbard.encode.EncodingContext;
@@ -88,10 +90,14 @@ public class WmlTVPEncoderv20XmlStreamWriter
             MultiObservationValues<?> observationValue = (MultiObservationValues<?>) observation.getValue();
             writeDefaultPointMetadata(observationValue, observationValue.getValue().getUnit());
             TVPValue tvpValue = (TVPValue) observationValue.getValue();
-            List<TimeValuePair> timeValuePairs = tvpValue.getValue();
-            for (TimeValuePair timeValuePair : timeValuePairs) {
-                if (timeValuePair != null) {
-                    writePoint(getTimeString(timeValuePair.getTime()), getValue(timeValuePair.getValue()));
+            if (tvpValue instanceof ColumnarTVPValue) {
+                writePoints((ColumnarTVPValue) tvpValue, this::writePoint);
+            } else {
+                List<TimeValuePair> timeValuePairs = tvpValue.getValue();
+                for (TimeValuePair timeValuePair : timeValuePairs) {
+                    if (timeValuePair != null) {
+                        writePoint(getTimeString(timeValuePair.getTime()), getValue(timeValuePair.getValue()));
+                    }
                 }
             }
             close();
@@ -113,6 +119,7 @@ public class WmlTVPEncoderv20XmlStreamWriter
             }
             try {
                 while (observationValue.hasNext()) {
+                    Deadline.checkCurrent();
                     TimeValuePair timeValuePair = observationValue.nextValue();
                     if (timeValuePair != null) {
                         writePoint(getTimeString(timeValuePair.getTime()), getValue(timeValuePair.getValue()));
@@ -261,7 +268,7 @@ public class WmlTVPEncoderv20XmlStreamWriter
         if (value != null && value.isSetValue()) {
             if (value instanceof QuantityValue) {
                 QuantityValue quantityValue = (QuantityValue) value;
-                return Double.toString(quantityValue.getValue().doubleValue());
+                return formatQuantity(quantityValue.getValue().doubleValue());
             } else if (value instanceof ProfileValue) {
                 ProfileValue gwglcValue = (ProfileValue) value;
                 if (gwglcValue.isSetValue()) {
@@ -17,6 +17,7 @@
 package org.n52.svalbard.write;
 
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.Optional;
@@ -46,6 +47,7 @@ import org.n52.svalbard.encode.XmlStreamEncoderFlags;
 import org.n52.svalbard.encode.exception.EncodingException;
 import org.n52.svalbard.encode.exception.NoEncoderForKeyException;
 import org.n52.svalbard.util.N52XmlHelper;
+import org.n52.svalbard.write.util.ContentHandlerXMLStreamWriter;
 import org.n52.svalbard.write.util.ExtendedXMLStreamWriter;
 import org.n52.svalbard.write.util.IndentingXMLStreamWriter;
 
@@ -77,7 +79,6 @@ public abstract class XmlStreamWriter<S> {
 
     public XmlStreamWriter(EncodingContext context, OutputStream outputStream, S element) throws XMLStreamException {
         this.context = Objects.requireNonNull(context);
-        this.outputStream = Objects.requireNonNull(outputStream);
         this.element = element;
         this.encoderRepository = context.require(EncoderFlags.ENCODER_REPOSITORY);
         this.xmlOptions = context.get(XmlEncoderFlags.XML_OPTIONS, XmlOptions::new);
@@ -86,9 +87,20 @@ public abstract class XmlStreamWriter<S> {
         this.embedded = context.getBoolean(StreamingEncoderFlags.EMBEDDED);
 
         if (context.has(XmlStreamEncoderFlags.XML_WRITER)) {
+            this.outputStream = Objects.requireNonNull(outputStream);
             this.writer = context.require(XmlStreamEncoderFlags.XML_WRITER);
             this.close = false;
+        } else if (context.has(XmlStreamEncoderFlags.CONTENT_HANDLER)) {
+            // nested encoders write to the writer or to its stream, which is parsed into the same handler
+            ContentHandlerXMLStreamWriter contentHandlerWriter = new ContentHandlerXMLStreamWriter(
+                    context.require(XmlStreamEncoderFlags.CONTENT_HANDLER), Charset.forName(this.xmlEncoding));
+            this.outputStream = contentHandlerWriter.getOutputStream();
+            this.writer = contentHandlerWriter;
+            this.context = this.context.without(XmlStreamEncoderFlags.CONTENT_HANDLER)
+                    .with(XmlStreamEncoderFlags.XML_WRITER, this.writer);
+            this.close = true;
         } else {
+            this.outputStream = Objects.requireNonNull(outputStream);
             XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
             if (outputFactory.isPropertySupported(OUTPUT_PROPERTY_ESCAPE_CHARACTERS)) {
                 outputFactory.setProperty(OUTPUT_PROPERTY_ESCAPE_CHARACTERS, false);
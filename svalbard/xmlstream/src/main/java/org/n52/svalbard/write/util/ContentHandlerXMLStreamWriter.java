@@ -0,0 +1,611 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.svalbard.write.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+import com.google.common.xml.XmlEscapers;
+
+/**
+ * {@link ExtendedXMLStreamWriter} that reports the document as SAX events to a {@link ContentHandler} instead of
+ * serializing it. Character content has to be escaped, as it is by {@link org.n52.svalbard.write.XmlStreamWriter}.
+ * Raw XML passed to {@link #writeXML(String)} or written to {@link #getOutputStream()} is parsed in the namespace
+ * context of the current element; only this fragment is held in memory.
+ */
+public class ContentHandlerXMLStreamWriter implements ExtendedXMLStreamWriter {
+    private static final String CDATA = "CDATA";
+    private static final String FRAGMENT = "fragment";
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+    private static final String XML_DECLARATION_START = "<?xml";
+    private static final String XML_DECLARATION_END = "?>";
+    private final ContentHandler handler;
+    private final LexicalHandler lexicalHandler;
+    private final Charset encoding;
+    private final NamespaceSupport namespaces = new NamespaceSupport();
+    private final Deque<Element> elements = new ArrayDeque<>();
+    private final ByteArrayOutputStream fragment = new ByteArrayOutputStream();
+    private XMLReader fragmentReader;
+    private Element pending;
+    private boolean started;
+    private boolean ended;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param handler  the handler to report to; comments and CDATA sections are reported if it is also a
+     *                 {@link LexicalHandler}
+     * @param encoding the encoding of the XML written to {@link #getOutputStream()}
+     */
+    public ContentHandlerXMLStreamWriter(ContentHandler handler, Charset encoding) {
+        this.handler = Objects.requireNonNull(handler);
+        this.lexicalHandler = handler instanceof LexicalHandler ? (LexicalHandler) handler : null;
+        this.encoding = Objects.requireNonNull(encoding);
+    }
+
+    /**
+     * Get the stream for raw XML. The written XML is parsed before the next event is written to this writer.
+     *
+     * @return the stream
+     */
+    public OutputStream getOutputStream() {
+        return this.fragment;
+    }
+
+    @Override
+    public void writeStartElement(String localName) throws XMLStreamException {
+        writeStartElement(XMLConstants.DEFAULT_NS_PREFIX, localName, getDefaultNamespace());
+    }
+
+    @Override
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeStartElement(requirePrefix(namespaceURI), localName, namespaceURI);
+    }
+
+    @Override
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        prepare();
+        this.namespaces.pushContext();
+        this.pending = new Element(namespaceURI, localName, qualify(prefix, localName));
+    }
+
+    @Override
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeStartElement(namespaceURI, localName);
+        this.pending.empty = true;
+    }
+
+    @Override
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        writeStartElement(prefix, localName, namespaceURI);
+        this.pending.empty = true;
+    }
+
+    @Override
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+        writeStartElement(localName);
+        this.pending.empty = true;
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        prepare();
+        if (this.elements.isEmpty()) {
+            throw new XMLStreamException("No element to end");
+        }
+        endElement(this.elements.pop());
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        prepare();
+        while (!this.elements.isEmpty()) {
+            endElement(this.elements.pop());
+        }
+        if (!this.ended) {
+            this.ended = true;
+            try {
+                this.handler.endDocument();
+            } catch (SAXException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        if (this.started) {
+            writeEndDocument();
+        }
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        prepare();
+    }
+
+    @Override
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+        writeAttribute(XMLConstants.DEFAULT_NS_PREFIX, XMLConstants.NULL_NS_URI, localName, value);
+    }
+
+    @Override
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value)
+            throws XMLStreamException {
+        requirePending().attributes.addAttribute(namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI,
+                                                 localName, qualify(prefix, localName), CDATA, value);
+    }
+
+    @Override
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+        if (namespaceURI == null || namespaceURI.isEmpty()) {
+            writeAttribute(localName, value);
+        } else {
+            writeAttribute(requirePrefix(namespaceURI), namespaceURI, localName, value);
+        }
+    }
+
+    @Override
+    public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+        Element element = requirePending();
+        String declared = prefix == null || prefix.equals(XMLConstants.XMLNS_ATTRIBUTE)
+                                  ? XMLConstants.DEFAULT_NS_PREFIX
+                                  : prefix;
+        this.namespaces.declarePrefix(declared, namespaceURI);
+        element.prefixes.add(declared);
+    }
+
+    @Override
+    public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+        writeNamespace(XMLConstants.DEFAULT_NS_PREFIX, namespaceURI);
+    }
+
+    @Override
+    public void writeComment(String data) throws XMLStreamException {
+        prepare();
+        if (this.lexicalHandler != null) {
+            try {
+                this.lexicalHandler.comment(data.toCharArray(), 0, data.length());
+            } catch (SAXException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target) throws XMLStreamException {
+        writeProcessingInstruction(target, "");
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+        prepare();
+        try {
+            this.handler.processingInstruction(target, data);
+        } catch (SAXException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    @Override
+    public void writeCData(String data) throws XMLStreamException {
+        prepare();
+        try {
+            if (this.lexicalHandler != null) {
+                this.lexicalHandler.startCDATA();
+            }
+            this.handler.characters(data.toCharArray(), 0, data.length());
+            if (this.lexicalHandler != null) {
+                this.lexicalHandler.endCDATA();
+            }
+        } catch (SAXException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    @Override
+    public void writeDTD(String dtd) throws XMLStreamException {
+        prepare();
+    }
+
+    @Override
+    public void writeEntityRef(String name) throws XMLStreamException {
+        writeCharacters("&" + name + ";");
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        prepare();
+    }
+
+    @Override
+    public void writeStartDocument(String version) throws XMLStreamException {
+        prepare();
+    }
+
+    @Override
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+        prepare();
+    }
+
+    @Override
+    public void writeCharacters(String text) throws XMLStreamException {
+        prepare();
+        String unescaped = unescape(text);
+        try {
+            this.handler.characters(unescaped.toCharArray(), 0, unescaped.length());
+        } catch (SAXException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    @Override
+    public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+        writeCharacters(new String(text, start, len));
+    }
+
+    @Override
+    public void writeXML(String xml) throws XMLStreamException {
+        prepare();
+        parse(xml);
+    }
+
+    @Override
+    public String getPrefix(String uri) throws XMLStreamException {
+        return getNamespaceContext().getPrefix(uri);
+    }
+
+    @Override
+    public void setPrefix(String prefix, String uri) throws XMLStreamException {
+        this.namespaces.declarePrefix(prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(String uri) throws XMLStreamException {
+        setPrefix(XMLConstants.DEFAULT_NS_PREFIX, uri);
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+        throw new UnsupportedOperationException("setNamespaceContext");
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(String prefix) {
+                return namespaces.getURI(prefix);
+            }
+
+            @Override
+            public String getPrefix(String namespaceURI) {
+                if (namespaceURI.equals(getDefaultNamespace())) {
+                    return XMLConstants.DEFAULT_NS_PREFIX;
+                }
+                return namespaces.getPrefix(namespaceURI);
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(String namespaceURI) {
+                return toList(namespaces.getPrefixes(namespaceURI)).iterator();
+            }
+        };
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        throw new IllegalArgumentException(name);
+    }
+
+    /**
+     * Starts the document if necessary and writes the pending start element and the XML written to the stream.
+     */
+    private void prepare() throws XMLStreamException {
+        try {
+            if (!this.started) {
+                this.started = true;
+                this.handler.startDocument();
+            }
+            if (this.pending != null) {
+                Element element = this.pending;
+                this.pending = null;
+                for (String prefix : element.prefixes) {
+                    this.handler.startPrefixMapping(prefix, this.namespaces.getURI(prefix));
+                }
+                this.handler.startElement(element.namespaceURI, element.localName, element.qName,
+                                          element.attributes);
+                if (element.empty) {
+                    endElement(element);
+                } else {
+                    this.elements.push(element);
+                }
+            }
+        } catch (SAXException e) {
+            throw new XMLStreamException(e);
+        }
+        if (this.fragment.size() > 0) {
+            String xml = new String(this.fragment.toByteArray(), this.encoding);
+            this.fragment.reset();
+            parse(xml);
+        }
+    }
+
+    private void endElement(Element element) throws XMLStreamException {
+        try {
+            this.handler.endElement(element.namespaceURI, element.localName, element.qName);
+            for (String prefix : element.prefixes) {
+                this.handler.endPrefixMapping(prefix);
+            }
+        } catch (SAXException e) {
+            throw new XMLStreamException(e);
+        }
+        this.namespaces.popContext();
+    }
+
+    /**
+     * Parses the XML fragment inside an element declaring the namespaces that are in scope.
+     */
+    private void parse(String xml) throws XMLStreamException {
+        StringBuilder document = new StringBuilder(xml.length() + 256).append('<').append(FRAGMENT);
+        for (String prefix : toList(this.namespaces.getPrefixes())) {
+            if (!prefix.equals(XMLConstants.XML_NS_PREFIX)) {
+                declare(document, XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix, this.namespaces.getURI(prefix));
+            }
+        }
+        if (getDefaultNamespace() != null) {
+            declare(document, XMLConstants.XMLNS_ATTRIBUTE, getDefaultNamespace());
+        }
+        document.append('>').append(stripXmlDeclaration(xml)).append("</").append(FRAGMENT).append('>');
+        try {
+            getFragmentReader().parse(new InputSource(new StringReader(document.toString())));
+        } catch (IOException | SAXException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private XMLReader getFragmentReader() throws XMLStreamException {
+        if (this.fragmentReader == null) {
+            try {
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+                this.fragmentReader = factory.newSAXParser().getXMLReader();
+                FragmentHandler fragmentHandler = new FragmentHandler();
+                this.fragmentReader.setContentHandler(fragmentHandler);
+                this.fragmentReader.setProperty(LEXICAL_HANDLER, fragmentHandler);
+            } catch (ParserConfigurationException | SAXException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+        return this.fragmentReader;
+    }
+
+    private String getDefaultNamespace() {
+        return this.namespaces.getURI(XMLConstants.DEFAULT_NS_PREFIX);
+    }
+
+    private String requirePrefix(String namespaceURI) throws XMLStreamException {
+        if (namespaceURI == null || namespaceURI.isEmpty()) {
+            return XMLConstants.DEFAULT_NS_PREFIX;
+        }
+        String prefix = getNamespaceContext().getPrefix(namespaceURI);
+        if (prefix == null) {
+            throw new XMLStreamException("Namespace is not bound: " + namespaceURI);
+        }
+        return prefix;
+    }
+
+    private Element requirePending() throws XMLStreamException {
+        if (this.pending == null) {
+            throw new XMLStreamException("No start element");
+        }
+        return this.pending;
+    }
+
+    private static void declare(StringBuilder document, String name, String namespaceURI) {
+        document.append(' ').append(name).append("=\"")
+                .append(XmlEscapers.xmlAttributeEscaper().escape(namespaceURI)).append('"');
+    }
+
+    private static List<String> toList(Enumeration<?> enumeration) {
+        List<String> list = new ArrayList<>();
+        while (enumeration.hasMoreElements()) {
+            list.add((String) enumeration.nextElement());
+        }
+        return list;
+    }
+
+    private static String qualify(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static String stripXmlDeclaration(String xml) {
+        String trimmed = xml.trim();
+        if (trimmed.startsWith(XML_DECLARATION_START)) {
+            return trimmed.substring(trimmed.indexOf(XML_DECLARATION_END) + XML_DECLARATION_END.length());
+        }
+        return xml;
+    }
+
+    /**
+     * Resolves the predefined entities and character references of escaped character content.
+     */
+    private static String unescape(String text) {
+        int amp = text.indexOf('&');
+        if (amp < 0) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        int last = 0;
+        while (amp >= 0) {
+            int semicolon = text.indexOf(';', amp);
+            if (semicolon < 0) {
+                break;
+            }
+            String replacement = resolve(text.substring(amp + 1, semicolon));
+            if (replacement == null) {
+                amp = text.indexOf('&', amp + 1);
+            } else {
+                builder.append(text, last, amp).append(replacement);
+                last = semicolon + 1;
+                amp = text.indexOf('&', last);
+            }
+        }
+        return builder.append(text, last, text.length()).toString();
+    }
+
+    private static String resolve(String entity) {
+        switch (entity) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            default:
+                if (entity.startsWith("#")) {
+                    try {
+                        int codePoint = entity.startsWith("#x") ? Integer.parseInt(entity.substring(2), 16)
+                                                : Integer.parseInt(entity.substring(1));
+                        return new String(Character.toChars(codePoint));
+                    } catch (IllegalArgumentException e) {
+                        return null;
+                    }
+                }
+                return null;
+        }
+    }
+
+    /**
+     * An element whose start tag is written or pending.
+     */
+    private static class Element {
+        private final String namespaceURI;
+        private final String localName;
+        private final String qName;
+        private final AttributesImpl attributes = new AttributesImpl();
+        private final List<String> prefixes = new ArrayList<>(1);
+        private boolean empty;
+
+        Element(String namespaceURI, String localName, String qName) {
+            this.namespaceURI = namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI;
+            this.localName = localName;
+            this.qName = qName;
+        }
+    }
+
+    /**
+     * Forwards the events of a parsed fragment, leaving out the document and the enclosing element.
+     */
+    private class FragmentHandler extends DefaultHandler2 {
+        private int depth;
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            if (depth > 0) {
+                handler.startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) throws SAXException {
+            if (depth > 0) {
+                handler.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if (depth++ > 0) {
+                handler.startElement(uri, localName, qName, atts);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (--depth > 0) {
+                handler.endElement(uri, localName, qName);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            handler.characters(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            handler.ignorableWhitespace(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) throws SAXException {
+            handler.processingInstruction(target, data);
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.comment(ch, start, length);
+            }
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.startCDATA();
+            }
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.endCDATA();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015-2019 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.n52.svalbard.write;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+
+import org.custommonkey.xmlunit.Diff;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import org.n52.shetland.ogc.sos.ro.RelatedOfferings;
+import org.n52.svalbard.encode.EncoderFlags;
+import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.EncodingContext;
+import org.n52.svalbard.encode.XmlStreamEncoderFlags;
+import org.n52.svalbard.write.util.ContentHandlerXMLStreamWriter;
+
+public class ContentHandlerXmlStreamWriterTest {
+    private static final String NS_A = "urn:a";
+    private static final String NS_B = "urn:b";
+
+    @Test
+    public void shouldReportEventsAndRawXml() throws Exception {
+        TransformerHandler handler = ((SAXTransformerFactory) SAXTransformerFactory.newInstance())
+                .newTransformerHandler();
+        DOMResult result = new DOMResult();
+        handler.setResult(result);
+        ContentHandlerXMLStreamWriter writer = new ContentHandlerXMLStreamWriter(handler, StandardCharsets.UTF_8);
+
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("a", "root", NS_A);
+        writer.writeNamespace("a", NS_A);
+        writer.writeAttribute("attr", "1");
+        writer.writeCharacters("x &amp; y &lt; z&#33;");
+        writer.writeXML("<a:child xmlns:b=\"urn:b\" b:attr=\"2\">text</a:child>");
+        writer.flush();
+        writer.getOutputStream().write("<?xml version=\"1.0\"?><a:streamed/>".getBytes(StandardCharsets.UTF_8));
+        writer.writeEmptyElement(NS_A, "empty");
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+
+        Element root = ((Document) result.getNode()).getDocumentElement();
+        assertThat(root.getNamespaceURI(), is(NS_A));
+        assertThat(root.getLocalName(), is("root"));
+        assertThat(root.getAttribute("attr"), is("1"));
+
+        Node text = root.getFirstChild();
+        assertThat(text.getNodeValue(), is("x & y < z!"));
+
+        Element child = (Element) text.getNextSibling();
+        assertThat(child.getNamespaceURI(), is(NS_A));
+        assertThat(child.getLocalName(), is("child"));
+        assertThat(child.getAttributeNS(NS_B, "attr"), is("2"));
+        assertThat(child.getTextContent(), is("text"));
+
+        Element streamed = (Element) child.getNextSibling();
+        assertThat(streamed.getNamespaceURI(), is(NS_A));
+        assertThat(streamed.getLocalName(), is("streamed"));
+
+        Element empty = (Element) streamed.getNextSibling();
+        assertThat(empty.getNamespaceURI(), is(NS_A));
+        assertThat(empty.getLocalName(), is("empty"));
+        assertThat(empty.getNextSibling() == null, is(true));
+    }
+
+    @Test
+    public void shouldWriteTheSameDocumentAsToAStream() throws Exception {
+        RelatedOfferings ro = new RelatedOfferings();
+        ro.addValue("role_1", "offering_1");
+        ro.addValue("role & 2", "offering_2");
+        EncodingContext context = EncodingContext.of(EncoderFlags.ENCODER_REPOSITORY, new EncoderRepository());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RelatedOfferingXmlStreamWriter(context, out, ro).write();
+
+        TransformerHandler handler = ((SAXTransformerFactory) SAXTransformerFactory.newInstance())
+                .newTransformerHandler();
+        DOMResult result = new DOMResult();
+        handler.setResult(result);
+        ByteArrayOutputStream unused = new ByteArrayOutputStream();
+        new RelatedOfferingXmlStreamWriter(context.with(XmlStreamEncoderFlags.CONTENT_HANDLER, handler), unused, ro)
+                .write();
+
+        assertThat(unused.size(), is(0));
+        boolean ignoreWhitespace = XMLUnit.getIgnoreWhitespace();
+        XMLUnit.setIgnoreWhitespace(true);
+        try {
+            Document expected = XMLUnit.buildControlDocument(new String(out.toByteArray(), StandardCharsets.UTF_8));
+            assertThat(new Diff(expected, (Document) result.getNode()).similar(), is(true));
+        } finally {
+            XMLUnit.setIgnoreWhitespace(ignoreWhitespace);
+        }
+    }
+}